@@ -0,0 +1,642 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The CommandDispatcherProcessor is a javac annotation processor that generates a
+ * CommandDispatcher for every Command class at compile time.
+ * <p>
+ * A generated dispatcher, named after its command class (CommandRepair_Dispatcher), fills the
+ * dispatch table of the CommandFramework with direct method references, so the command class is
+ * never scanned using Java Reflection. The processor also writes an index of all generated
+ * dispatchers, and reports the problems the CommandFramework would otherwise only find at runtime
+ * as compile errors.
+ * <p>
+ * Command classes using annotations the processor does not know about are left to the reflective
+ * registration of the CommandFramework.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class CommandDispatcherProcessor extends AbstractProcessor {
+  
+  /**
+   * The package of the Infrastructure command annotations.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final String ANNOTATION_PACKAGE = "org.cjohnson.infrastructure.command.annotation";
+  
+  private static final String COMMAND = ANNOTATION_PACKAGE + ".Command";
+  private static final String SUB_COMMAND = ANNOTATION_PACKAGE + ".SubCommand";
+  private static final String DEFAULT_COMMAND = ANNOTATION_PACKAGE + ".DefaultCommand";
+  private static final String NO_PERMISSION = ANNOTATION_PACKAGE + ".NoPermission";
+  private static final String NOT_PLAYER = ANNOTATION_PACKAGE + ".NotPlayer";
+  private static final String ASYNC = ANNOTATION_PACKAGE + ".Async";
+  private static final String COOLDOWN = ANNOTATION_PACKAGE + ".Cooldown";
+  private static final String RATE_LIMIT = ANNOTATION_PACKAGE + ".RateLimit";
+  private static final String ON_COOLDOWN = ANNOTATION_PACKAGE + ".OnCooldown";
+  
+  /**
+   * The method annotations that generated dispatchers know how to register.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final Set<String> SUPPORTED_METHOD_ANNOTATIONS = new HashSet<String>(Arrays.asList(
+    SUB_COMMAND, DEFAULT_COMMAND, NO_PERMISSION, NOT_PLAYER, ASYNC, COOLDOWN, RATE_LIMIT, ON_COOLDOWN
+  ));
+  
+  /**
+   * The parameter types of a command case method taking CommandArgs.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final List<String> COMMAND_CASE_PARAMETERS = Arrays.asList(
+    SUB_COMMAND, "org.bukkit.command.CommandSender", "org.cjohnson.infrastructure.command.CommandArgs"
+  );
+  
+  /**
+   * The parameter types of a command case method taking a String[].
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final List<String> ARRAY_COMMAND_CASE_PARAMETERS = Arrays.asList(
+    SUB_COMMAND, "org.bukkit.command.CommandSender", "java.lang.String[]"
+  );
+  
+  /**
+   * The CommandDispatcher interface implemented by generated dispatchers.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final String DISPATCHER_INTERFACE = "org.cjohnson.infrastructure.command.CommandDispatcher";
+  
+  /**
+   * The CommandTableBuilder class that generated dispatchers register into.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final String TABLE_BUILDER = "org.cjohnson.infrastructure.command.CommandTableBuilder";
+  
+  /**
+   * The location of the dispatcher index, as read by the CommandFramework.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static final String INDEX_RESOURCE = "META-INF/infrastructure/command-dispatchers.index";
+  
+  /**
+   * The generated dispatchers, mapping command class names to dispatcher class names.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Map<String, String> index = new TreeMap<String, String>();
+  
+  private Elements elements;
+  private Filer filer;
+  private Messager messager;
+  
+  @Override
+  public synchronized void init(ProcessingEnvironment processingEnvironment) {
+    super.init(processingEnvironment);
+    
+    elements = processingEnvironment.getElementUtils();
+    filer = processingEnvironment.getFiler();
+    messager = processingEnvironment.getMessager();
+  }
+  
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    Set<String> supportedAnnotationTypes = new LinkedHashSet<String>();
+    supportedAnnotationTypes.add(COMMAND);
+    supportedAnnotationTypes.addAll(SUPPORTED_METHOD_ANNOTATIONS);
+    
+    return supportedAnnotationTypes;
+  }
+  
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+  
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+    TypeElement commandAnnotation = elements.getTypeElement(COMMAND);
+    
+    if(commandAnnotation != null) {
+      for(Element element : roundEnvironment.getElementsAnnotatedWith(commandAnnotation)) {
+        if(element.getKind() != ElementKind.CLASS) {
+          error(element, "@Command may only be placed on classes");
+          
+          continue;
+        }
+        
+        processCommandClass((TypeElement) element);
+      }
+    }
+    
+    if(roundEnvironment.processingOver() && !index.isEmpty()) {
+      writeIndex();
+    }
+    
+    return false;
+  }
+  
+  /**
+   * Checks a Command class and generates its dispatcher.
+   *
+   * @param commandClass The Command class
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void processCommandClass(TypeElement commandClass) {
+    boolean valid = true;
+    boolean supported = true;
+    
+    if(commandClass.getModifiers().contains(Modifier.PRIVATE)) {
+      error(commandClass, "Command classes must not be private");
+      valid = false;
+    }
+    
+    if(commandClass.getNestingKind() == NestingKind.MEMBER && !commandClass.getModifiers().contains(Modifier.STATIC)) {
+      error(commandClass, "Nested Command classes must be static");
+      valid = false;
+    }
+    
+    List<CommandCase> commandCases = new ArrayList<CommandCase>();
+    boolean hasDefaultCommand = false;
+    boolean hasNoPermission = false;
+    boolean hasNotPlayer = false;
+    boolean hasOnCooldown = false;
+    boolean throttled = false;
+    
+    for(ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(commandClass))) {
+      CommandCase commandCase = new CommandCase(method);
+      
+      for(AnnotationMirror annotationMirror : method.getAnnotationMirrors()) {
+        String annotationName = ((TypeElement) annotationMirror.getAnnotationType().asElement()).getQualifiedName().toString();
+        
+        if(annotationName.equals(SUB_COMMAND)) {
+          commandCase.subCommand = annotationMirror;
+        } else if(annotationName.equals(DEFAULT_COMMAND)) {
+          commandCase.defaultCommand = true;
+        } else if(annotationName.equals(NO_PERMISSION)) {
+          commandCase.noPermission = true;
+        } else if(annotationName.equals(NOT_PLAYER)) {
+          commandCase.notPlayer = true;
+        } else if(annotationName.equals(ASYNC)) {
+          commandCase.async = true;
+        } else if(annotationName.equals(COOLDOWN)) {
+          commandCase.cooldown = annotationMirror;
+        } else if(annotationName.equals(RATE_LIMIT)) {
+          commandCase.rateLimit = annotationMirror;
+        } else if(annotationName.equals(ON_COOLDOWN)) {
+          commandCase.onCooldown = true;
+        } else if(annotationName.startsWith(ANNOTATION_PACKAGE + ".")) {
+          // Leave the class to the reflective registration.
+          supported = false;
+        }
+      }
+      
+      if(!commandCase.isCommandCase()) {
+        continue;
+      }
+      
+      // Methods binding typed Arg parameters are left to the
+      // reflective registration, which also checks their signature.
+      if(hasAnnotatedParameters(method)) {
+        supported = false;
+      } else {
+        valid &= checkCommandCaseMethod(commandCase);
+      }
+      
+      hasDefaultCommand |= commandCase.defaultCommand;
+      hasNoPermission |= commandCase.noPermission;
+      hasNotPlayer |= commandCase.notPlayer;
+      hasOnCooldown |= commandCase.onCooldown;
+      throttled |= commandCase.cooldown != null || commandCase.rateLimit != null;
+      
+      valid &= checkThrottle(commandCase);
+      
+      commandCases.add(commandCase);
+    }
+    
+    // The same checks as CommandFramework.performInitialChecks()
+    if(!hasDefaultCommand) {
+      error(commandClass, "Command class has no method with annotation \"" + DEFAULT_COMMAND + "\"");
+      valid = false;
+    }
+    
+    if(!hasNoPermission) {
+      error(commandClass, "Command class has no method with annotation \"" + NO_PERMISSION + "\"");
+      valid = false;
+    }
+    
+    if(!hasNotPlayer) {
+      error(commandClass, "Command class has no method with annotation \"" + NOT_PLAYER + "\"");
+      valid = false;
+    }
+    
+    if(throttled && !hasOnCooldown) {
+      error(commandClass, "Command class has a Cooldown or RateLimit, but no method with annotation \"" + ON_COOLDOWN + "\"");
+      valid = false;
+    }
+    
+    if(!valid) {
+      return;
+    }
+    
+    if(!supported) {
+      messager.printMessage(Diagnostic.Kind.NOTE, "No dispatcher generated, the command class will be registered using Java Reflection", commandClass);
+      
+      return;
+    }
+    
+    generateDispatcher(commandClass, commandCases);
+  }
+  
+  /**
+   * Checks if a method has parameters labeled with an Infrastructure annotation.
+   *
+   * @param method The method
+   *
+   * @return Whether any parameter is labeled with an Infrastructure annotation
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private boolean hasAnnotatedParameters(ExecutableElement method) {
+    for(VariableElement parameter : method.getParameters()) {
+      for(AnnotationMirror annotationMirror : parameter.getAnnotationMirrors()) {
+        if(((TypeElement) annotationMirror.getAnnotationType().asElement()).getQualifiedName().toString().startsWith(ANNOTATION_PACKAGE + ".")) {
+          return true;
+        }
+      }
+    }
+    
+    return false;
+  }
+  
+  /**
+   * Checks that a command case method can be bound by a generated dispatcher.
+   *
+   * @param commandCase The command case method
+   *
+   * @return Whether the method is a valid command case method
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private boolean checkCommandCaseMethod(CommandCase commandCase) {
+    ExecutableElement method = commandCase.method;
+    
+    if(!method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.STATIC)) {
+      error(method, "Command case methods must be public instance methods");
+      
+      return false;
+    }
+    
+    List<String> parameterTypes = new ArrayList<String>();
+    
+    for(VariableElement parameter : method.getParameters()) {
+      parameterTypes.add(parameter.asType().toString());
+    }
+    
+    commandCase.arrayArguments = parameterTypes.equals(ARRAY_COMMAND_CASE_PARAMETERS);
+    
+    if(!commandCase.arrayArguments && !parameterTypes.equals(COMMAND_CASE_PARAMETERS)) {
+      error(method, "Command case methods must have the parameters (SubCommand, CommandSender, CommandArgs) or (SubCommand, CommandSender, String[])");
+      
+      return false;
+    }
+    
+    return true;
+  }
+  
+  /**
+   * Checks the Cooldown and RateLimit values of a command case method.
+   *
+   * @param commandCase The command case method
+   *
+   * @return Whether the values are valid
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private boolean checkThrottle(CommandCase commandCase) {
+    boolean valid = true;
+    
+    if(commandCase.cooldown != null && (Integer) getValue(commandCase.cooldown, "seconds") <= 0) {
+      error(commandCase.method, "Cooldown must be positive");
+      valid = false;
+    }
+    
+    if(commandCase.rateLimit != null && ((Integer) getValue(commandCase.rateLimit, "permits") <= 0 || (Integer) getValue(commandCase.rateLimit, "window") <= 0)) {
+      error(commandCase.method, "RateLimit must have positive permits and window");
+      valid = false;
+    }
+    
+    return valid;
+  }
+  
+  /**
+   * Generates the dispatcher source file of a Command class.
+   *
+   * @param commandClass The Command class
+   * @param commandCases The command case methods of the class
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void generateDispatcher(TypeElement commandClass, List<CommandCase> commandCases) {
+    String packageName = elements.getPackageOf(commandClass).getQualifiedName().toString();
+    String binaryName = elements.getBinaryName(commandClass).toString();
+    String simpleBinaryName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+    String dispatcherSimpleName = simpleBinaryName.replace('$', '_') + "_Dispatcher";
+    String dispatcherName = packageName.isEmpty() ? dispatcherSimpleName : packageName + "." + dispatcherSimpleName;
+    
+    AnnotationMirror command = getAnnotation(commandClass, COMMAND);
+    
+    StringBuilder source = new StringBuilder();
+    
+    if(!packageName.isEmpty()) {
+      source.append("package ").append(packageName).append(";\n\n");
+    }
+    
+    source.append("/**\n");
+    source.append(" * Generated by the Infrastructure annotation processor for {@link ").append(commandClass.getQualifiedName()).append("}\n");
+    source.append(" */\n");
+    source.append("public final class ").append(dispatcherSimpleName).append(" implements ").append(DISPATCHER_INTERFACE).append(" {\n");
+    source.append("  \n");
+    source.append("  @Override\n");
+    source.append("  public void register(").append(TABLE_BUILDER).append(" builder, Object commandObject) {\n");
+    source.append("    final ").append(commandClass.getQualifiedName()).append(" command = (").append(commandClass.getQualifiedName()).append(") commandObject;\n");
+    source.append("    \n");
+    source.append("    builder.command(").append(stringArray(getValue(command, "aliases"))).append(", ").append(stringLiteral(getValue(command, "permission"))).append(");\n");
+    
+    for(CommandCase commandCase : commandCases) {
+      // Command case methods taking a String[] are adapted to CommandArgs.
+      String methodReference = commandCase.arrayArguments
+        ? "(subCommand, sender, args) -> command." + commandCase.method.getSimpleName() + "(subCommand, sender, args.toArray())"
+        : "command::" + commandCase.method.getSimpleName();
+      
+      if(commandCase.subCommand != null || commandCase.defaultCommand) {
+        source.append("    builder.subCommand(").append(stringLiteral(commandCase.method.getSimpleName().toString())).append(", ");
+        
+        if(commandCase.subCommand != null) {
+          source.append(stringArray(getValue(commandCase.subCommand, "aliases"))).append(", ");
+          source.append(stringLiteral(getValue(commandCase.subCommand, "permission"))).append(", ");
+        } else {
+          source.append("null, null, ");
+        }
+        
+        source.append(commandCase.defaultCommand).append(", ").append(methodReference).append(");\n");
+        
+        String name = stringLiteral(commandCase.method.getSimpleName().toString());
+        
+        if(commandCase.async) {
+          source.append("    builder.async(").append(name).append(");\n");
+        }
+        
+        if(commandCase.cooldown != null) {
+          source.append("    builder.cooldown(").append(name).append(", ").append(getValue(commandCase.cooldown, "seconds")).append(");\n");
+        }
+        
+        if(commandCase.rateLimit != null) {
+          source.append("    builder.rateLimit(").append(name).append(", ").append(getValue(commandCase.rateLimit, "permits")).append(", ").append(getValue(commandCase.rateLimit, "window")).append(");\n");
+        }
+      }
+      
+      if(commandCase.noPermission) {
+        source.append("    builder.noPermission(").append(methodReference).append(");\n");
+      }
+      
+      if(commandCase.notPlayer) {
+        source.append("    builder.notPlayer(").append(methodReference).append(");\n");
+      }
+      
+      if(commandCase.onCooldown) {
+        source.append("    builder.onCooldown(").append(methodReference).append(");\n");
+      }
+    }
+    
+    source.append("  }\n");
+    source.append("  \n");
+    source.append("}\n");
+    
+    try {
+      JavaFileObject sourceFile = filer.createSourceFile(dispatcherName, commandClass);
+      
+      try(Writer writer = sourceFile.openWriter()) {
+        writer.write(source.toString());
+      }
+    } catch (IOException e) {
+      error(commandClass, "Could not write dispatcher " + dispatcherName + ": " + e.getMessage());
+      
+      return;
+    }
+    
+    index.put(binaryName, dispatcherName);
+  }
+  
+  /**
+   * Writes the index of all generated dispatchers.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void writeIndex() {
+    try {
+      FileObject indexFile = filer.createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_RESOURCE);
+      
+      try(Writer writer = indexFile.openWriter()) {
+        for(Map.Entry<String, String> entry : index.entrySet()) {
+          writer.write(entry.getKey() + "=" + entry.getValue() + "\n");
+        }
+      }
+    } catch (IOException e) {
+      messager.printMessage(Diagnostic.Kind.ERROR, "Could not write dispatcher index: " + e.getMessage());
+    }
+  }
+  
+  /**
+   * Finds an annotation on an element by its qualified name.
+   *
+   * @param element The annotated element
+   * @param annotationName The qualified name of the annotation
+   *
+   * @return The annotation, or null if the element does not have it
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private AnnotationMirror getAnnotation(Element element, String annotationName) {
+    for(AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+      if(((TypeElement) annotationMirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+        return annotationMirror;
+      }
+    }
+    
+    return null;
+  }
+  
+  /**
+   * Reads a value of an annotation, including default values.
+   *
+   * @param annotationMirror The annotation
+   * @param name The name of the annotation value
+   *
+   * @return The annotation value
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private Object getValue(AnnotationMirror annotationMirror, String name) {
+    for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : elements.getElementValuesWithDefaults(annotationMirror).entrySet()) {
+      if(entry.getKey().getSimpleName().contentEquals(name)) {
+        return entry.getValue().getValue();
+      }
+    }
+    
+    return null;
+  }
+  
+  /**
+   * Writes a String[] annotation value as a Java array expression.
+   *
+   * @param value The annotation value, a list of AnnotationValues
+   *
+   * @return The Java array expression
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static String stringArray(Object value) {
+    StringBuilder array = new StringBuilder("new String[] {");
+    List<?> values = (List<?>) value;
+    
+    for(int i = 0; i < values.size(); i++) {
+      if(i > 0) {
+        array.append(", ");
+      }
+      
+      array.append(stringLiteral(((AnnotationValue) values.get(i)).getValue()));
+    }
+    
+    return array.append("}").toString();
+  }
+  
+  /**
+   * Writes a String as a Java string literal.
+   *
+   * @param value The String
+   *
+   * @return The Java string literal
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static String stringLiteral(Object value) {
+    String string = String.valueOf(value);
+    StringBuilder literal = new StringBuilder(string.length() + 2).append('"');
+    
+    for(int i = 0; i < string.length(); i++) {
+      char c = string.charAt(i);
+      
+      if(c == '"' || c == '\\') {
+        literal.append('\\').append(c);
+      } else if(c < 0x20 || c > 0x7E) {
+        literal.append(String.format("\\u%04x", (int) c));
+      } else {
+        literal.append(c);
+      }
+    }
+    
+    return literal.append('"').toString();
+  }
+  
+  /**
+   * Reports a compile error on an element.
+   *
+   * @param element The offending element
+   * @param message The error message
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void error(Element element, String message) {
+    messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+  
+  /**
+   * The annotated command case methods of a Command class.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final class CommandCase {
+    
+    private final ExecutableElement method;
+    private AnnotationMirror subCommand;
+    private boolean defaultCommand;
+    private boolean noPermission;
+    private boolean notPlayer;
+    private boolean async;
+    private AnnotationMirror cooldown;
+    private AnnotationMirror rateLimit;
+    private boolean onCooldown;
+    private boolean arrayArguments;
+    
+    private CommandCase(ExecutableElement method) {
+      this.method = method;
+    }
+    
+    private boolean isCommandCase() {
+      return subCommand != null || defaultCommand || noPermission || notPlayer || onCooldown;
+    }
+    
+  }
+  
+}
@@ -24,14 +24,52 @@
 
 package org.cjohnson.infrastructure;
 
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.cjohnson.infrastructure.api.InfrastructureAPI;
+import org.cjohnson.infrastructure.chat.BannedPhraseStage;
+import org.cjohnson.infrastructure.chat.CapsStage;
+import org.cjohnson.infrastructure.chat.ChatPipeline;
+import org.cjohnson.infrastructure.chat.NormalizationStage;
+import org.cjohnson.infrastructure.chat.RepetitionStage;
+import org.cjohnson.infrastructure.chat.SpamGuard;
+import org.cjohnson.infrastructure.chat.SpamStage;
 import org.cjohnson.infrastructure.command.CommandFramework;
+import org.cjohnson.infrastructure.command.admin.CommandInfra;
+import org.cjohnson.infrastructure.command.player.chat.CommandMsg;
 import org.cjohnson.infrastructure.command.player.chat.CommandMsgToggle;
+import org.cjohnson.infrastructure.command.player.chat.CommandReply;
+import org.cjohnson.infrastructure.command.player.chat.CommandSocialSpy;
 import org.cjohnson.infrastructure.command.player.item.CommandRepair;
+import org.cjohnson.infrastructure.event.PlayerChatListener;
+import org.cjohnson.infrastructure.event.PlayerCommandSpamListener;
+import org.cjohnson.infrastructure.event.PlayerTrafficListener;
+import org.cjohnson.infrastructure.message.Broadcaster;
+import org.cjohnson.infrastructure.player.InfraPlayer;
+import org.cjohnson.infrastructure.player.InfraPlayerDataHandler;
 import org.cjohnson.infrastructure.player.InfraPlayerHandler;
+import org.cjohnson.infrastructure.player.PlayerDataJournal;
+import org.cjohnson.infrastructure.player.PlayerDataStore;
+import org.cjohnson.infrastructure.player.PlayerFileMigrator;
+import org.cjohnson.infrastructure.player.PlayerFlagRegistry;
+import org.cjohnson.infrastructure.player.PlayerNameDirectory;
+import org.cjohnson.infrastructure.player.PlayerRecordStore;
+import org.cjohnson.infrastructure.player.SpamPolicy;
+import org.cjohnson.infrastructure.player.SqlitePlayerDataStore;
+import org.cjohnson.infrastructure.player.YamlPlayerDataStore;
 
+import java.io.File;
+import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 
 /**
  * The Infrastructure Plugin Class, extending the JavaPlugin class from the Bukkit API
@@ -53,6 +91,27 @@ public class Infrastructure extends JavaPlugin {
    */
   public static final String PLUGIN_VERSION = "0.1.0-ALPHA";
   
+  /**
+   * The task moving flat player data files into their shards, or null if it is not running.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private PlayerFileMigrator fileMigrator;
+  
+  /**
+   * The banned phrase stage of the chat pipeline, or null if the chat filter is disabled.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private BannedPhraseStage bannedPhraseStage;
+  
+  /**
+   * The spam detection of chat and commands, or null if it is disabled.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private SpamGuard spamGuard;
+  
   @Override
   public void onEnable() {
     // Log General Enabling Message to Console
@@ -65,34 +124,366 @@ public class Infrastructure extends JavaPlugin {
       throw new IllegalStateException("InfrastructureAPI is already initialized...");
     }
     
+    // Write the default config on first start.
+    saveDefaultConfig();
+    
     // Initialize CommandFramework
     CommandFramework commandFramework = new CommandFramework();
     
+    // Initialize Player Flags, whose indexes must not change between restarts.
+    PlayerFlagRegistry flagRegistry;
+    
+    try {
+      flagRegistry = new PlayerFlagRegistry(new File(getDataFolder(), "flags.yml"), getLogger());
+    } catch (IOException e) {
+      getServer().getPluginManager().disablePlugin(this);
+      throw new IllegalStateException("Could not read the flag index file", e);
+    }
+    
+    // Initialize the Player Name Directory, used to find players that are not online.
+    PlayerNameDirectory nameDirectory;
+    
+    try {
+      nameDirectory = new PlayerNameDirectory(new File(getDataFolder(), "names.log"), getLogger());
+    } catch (IOException e) {
+      getServer().getPluginManager().disablePlugin(this);
+      throw new IllegalStateException("Could not read the player name file", e);
+    }
+    
     // Initialize Player Registry
-    InfraPlayerHandler playerHandler = new InfraPlayerHandler();
+    InfraPlayerHandler playerHandler = new InfraPlayerHandler(createDataStore(), createRecordStore(), flagRegistry, nameDirectory);
+    
+    // Initialize Broadcasts, delivered within a budget per tick
+    Broadcaster broadcaster = new Broadcaster(playerHandler, getConfig().getInt("broadcast.per-tick-budget", Broadcaster.DEFAULT_PER_TICK_BUDGET));
+    
+    // Initialize Spam Detection and the Chat Pipeline
+    spamGuard = createSpamGuard();
+    ChatPipeline chatPipeline = createChatPipeline();
     
     // Initialize API
-    InfrastructureAPI.getInstance().initialize(this, commandFramework, playerHandler);
+    InfrastructureAPI.getInstance().initialize(this, commandFramework, playerHandler, broadcaster, chatPipeline);
+    
+    // Replay the changes a crash left in the journal,
+    // before any player data is loaded.
+    if(getConfig().getBoolean("storage.journal.enabled", true)) {
+      try {
+        playerHandler.openJournal(new File(getDataFolder(), "journal"),
+          getConfig().getLong("storage.journal.commit-interval-millis", PlayerDataJournal.DEFAULT_COMMIT_INTERVAL_MILLIS),
+          getConfig().getLong("storage.journal.compact-size-kb", PlayerDataJournal.DEFAULT_COMPACT_BYTES / 1024) * 1024);
+      } catch (IOException e) {
+        getLogger().log(Level.SEVERE, "Could not open the player data journal, changes are only saved by the periodic flushes", e);
+      }
+    }
     
     // Command Setup
     InfrastructureAPI.getInstance().getCommandFramework().addCommand(new CommandRepair(), "repair");
     InfrastructureAPI.getInstance().getCommandFramework().addCommand(new CommandMsgToggle(), "msgtoggle");
+    InfrastructureAPI.getInstance().getCommandFramework().addCommand(new CommandMsg(), "msg");
+    InfrastructureAPI.getInstance().getCommandFramework().addCommand(new CommandReply(), "reply");
+    InfrastructureAPI.getInstance().getCommandFramework().addCommand(new CommandSocialSpy(), "socialspy");
+    InfrastructureAPI.getInstance().getCommandFramework().addCommand(new CommandInfra(), "infra");
+    
+    // Listener Setup
+    getServer().getPluginManager().registerEvents(new PlayerTrafficListener(), this);
+    getServer().getPluginManager().registerEvents(new PlayerChatListener(), this);
+    
+    if(spamGuard != null) {
+      getServer().getPluginManager().registerEvents(new PlayerCommandSpamListener(spamGuard), this);
+    }
+    
+    broadcaster.start(this);
+    
+    // Move the player data files of older versions into
+    // their shards, a few at a time in the background.
+    if(playerHandler.getDataStore() instanceof YamlPlayerDataStore && getConfig().getBoolean("storage.yaml.shard-migration.enabled", true)) {
+      fileMigrator = new PlayerFileMigrator((YamlPlayerDataStore) playerHandler.getDataStore(),
+        getConfig().getLong("storage.yaml.shard-migration.budget-millis", PlayerFileMigrator.DEFAULT_BUDGET_MILLIS));
+      
+      try {
+        fileMigrator.start(this);
+      } catch (IOException e) {
+        getLogger().log(Level.WARNING, "Could not list the player data files to move into shards", e);
+        fileMigrator = null;
+      }
+    }
+    
+    // Fill a new name directory with the names in the
+    // player data files once, in the background.
+    if(nameDirectory.isCreated() && playerHandler.getDataStore() instanceof YamlPlayerDataStore) {
+      YamlPlayerDataStore dataStore = (YamlPlayerDataStore) playerHandler.getDataStore();
+      
+      getServer().getScheduler().runTaskAsynchronously(this, () -> {
+        try {
+          int added = nameDirectory.backfill(dataStore, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+          getLogger().info(MessageFormat.format("Added {0} players to the player name directory", added));
+        } catch (IOException e) {
+          getLogger().log(Level.WARNING, "Could not add the players in the player data files to the player name directory", e);
+        }
+      });
+    }
     
     // Call method to handle any reloads
     // if there had been a reload.
     handleReloads();
   }
   
+  /**
+   * Creates the PlayerDataStore selected in the config.
+   * <p>
+   * The SQLite store reads through to the YAML user files for players it does not have yet, so
+   * switching to it does not lose any data before the files are migrated. If the database can not
+   * be opened, the YAML store is used instead.
+   *
+   * @return The PlayerDataStore object
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private PlayerDataStore createDataStore() {
+    YamlPlayerDataStore yamlStore = new YamlPlayerDataStore(getDataFolder());
+    String type = getConfig().getString("storage.type", "yaml");
+    
+    if(!"sqlite".equalsIgnoreCase(type)) {
+      if(!"yaml".equalsIgnoreCase(type)) {
+        getLogger().warning(MessageFormat.format("Unknown storage type {0}, using YAML", type));
+      }
+      
+      return yamlStore;
+    }
+    
+    File databaseFile = new File(getDataFolder(), getConfig().getString("storage.sqlite.file", "players.db"));
+    int poolSize = Math.max(1, getConfig().getInt("storage.sqlite.pool-size", 4));
+    
+    try {
+      return new SqlitePlayerDataStore(databaseFile, poolSize, yamlStore);
+    } catch (IOException e) {
+      getLogger().log(Level.SEVERE, "Could not open the SQLite player database, using YAML", e);
+      
+      return yamlStore;
+    }
+  }
+  
+  /**
+   * Creates the ChatPipeline with the stages enabled in the config.
+   * <p>
+   * Spam is blocked first, then messages are normalized, shortened and lowercased, and checked
+   * for banned phrases last, so that the phrases are matched against the text that is sent.
+   *
+   * @return The ChatPipeline object
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private ChatPipeline createChatPipeline() {
+    ChatPipeline chatPipeline = new ChatPipeline();
+    
+    if(spamGuard != null) {
+      chatPipeline.addStage(new SpamStage(spamGuard));
+    }
+    
+    chatPipeline.addStage(new NormalizationStage());
+    
+    if(getConfig().getBoolean("chat.repetition.enabled", true)) {
+      chatPipeline.addStage(new RepetitionStage(getConfig().getInt("chat.repetition.max-run", 4)));
+    }
+    
+    if(getConfig().getBoolean("chat.caps.enabled", true)) {
+      chatPipeline.addStage(new CapsStage(getConfig().getInt("chat.caps.min-letters", 8), getConfig().getInt("chat.caps.max-percent", 70)));
+    }
+    
+    if(getConfig().getBoolean("chat.filter.enabled", true)) {
+      String action = getConfig().getString("chat.filter.action", "censor");
+      
+      bannedPhraseStage = new BannedPhraseStage("block".equalsIgnoreCase(action) ? BannedPhraseStage.Action.BLOCK : BannedPhraseStage.Action.CENSOR);
+      chatPipeline.addStage(bannedPhraseStage);
+      
+      if(!new File(getDataFolder(), getConfig().getString("chat.filter.file", "chat-filter.txt")).exists()) {
+        saveResource("chat-filter.txt", false);
+      }
+      
+      reloadChatFilter();
+    }
+    
+    return chatPipeline;
+  }
+  
+  /**
+   * Creates the SpamGuard with the limits and actions in the config, if it is enabled.
+   * <p>
+   * Actions that are not valid are skipped, and a warning is used if none are left.
+   *
+   * @return The SpamGuard object, or null if it is disabled
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private SpamGuard createSpamGuard() {
+    if(!getConfig().getBoolean("anti-spam.enabled", true)) {
+      return null;
+    }
+    
+    List<SpamPolicy.Action> actions = new ArrayList<SpamPolicy.Action>();
+    
+    for(String action : getConfig().getStringList("anti-spam.actions")) {
+      try {
+        actions.add(SpamPolicy.Action.parse(action));
+      } catch (IllegalArgumentException e) {
+        getLogger().warning(e.getMessage());
+      }
+    }
+    
+    if(actions.isEmpty()) {
+      actions.add(SpamPolicy.Action.parse("warn"));
+    }
+    
+    SpamPolicy policy = new SpamPolicy(
+      getConfig().getInt("anti-spam.messages.limit", 5),
+      getConfig().getLong("anti-spam.messages.window-millis", 3000L),
+      getConfig().getInt("anti-spam.duplicates.history", 3),
+      getConfig().getLong("anti-spam.duplicates.window-millis", 30000L),
+      getConfig().getInt("anti-spam.commands.limit", 8),
+      getConfig().getLong("anti-spam.commands.window-millis", 3000L),
+      TimeUnit.SECONDS.toMillis(getConfig().getLong("anti-spam.violation-decay-seconds", 60L)),
+      actions);
+    
+    return new SpamGuard(this, policy);
+  }
+  
+  /**
+   * Reloads the banned phrases of the chat filter in the background. Messages are checked
+   * against the old phrases until the new ones are ready.
+   *
+   * @return A future completed with the number of phrases, or null if the chat filter is disabled
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public CompletableFuture<Integer> reloadChatFilter() {
+    if(bannedPhraseStage == null) {
+      return null;
+    }
+    
+    File phraseFile = new File(getDataFolder(), getConfig().getString("chat.filter.file", "chat-filter.txt"));
+    long startNanos = System.nanoTime();
+    
+    return bannedPhraseStage.reload(phraseFile, ForkJoinPool.commonPool()).whenComplete((phraseCount, error) -> {
+      if(error != null) {
+        getLogger().log(Level.SEVERE, "Could not load the banned phrases of the chat filter", error);
+      } else {
+        getLogger().info(MessageFormat.format("Loaded {0} banned phrase(s) in {1}ms", phraseCount, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
+      }
+    });
+  }
+  
+  /**
+   * Creates the PlayerRecordStore, if it is enabled in the config.
+   * <p>
+   * If the record file can not be opened, the fixed-size player data stays in the player data.
+   *
+   * @return The PlayerRecordStore object, or null if it is disabled
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private PlayerRecordStore createRecordStore() {
+    if(!getConfig().getBoolean("storage.records.enabled", false)) {
+      return null;
+    }
+    
+    File recordFile = new File(getDataFolder(), getConfig().getString("storage.records.file", "records.dat"));
+    
+    try {
+      return new PlayerRecordStore(recordFile);
+    } catch (IOException e) {
+      getLogger().log(Level.SEVERE, "Could not open the player record file, keeping flags in the player data", e);
+      
+      return null;
+    }
+  }
+  
   /**
    * The method that will handle any lost data on reloads
+   * <p>
+   * Players that were already online when the plugin was enabled never triggered the join
+   * listener. Their data is loaded in parallel off the main thread, and then all of them are
+   * registered on the main thread in one batch. If the parallel load fails, the players are
+   * loaded one by one on the main thread instead.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void handleReloads() {
+    Collection<? extends Player> onlinePlayers = getServer().getOnlinePlayers();
+    
+    if(onlinePlayers.isEmpty()) {
+      return;
+    }
+    
+    long startNanos = System.nanoTime();
+    InfraPlayerHandler playerHandler = InfrastructureAPI.getInstance().getPlayerHandler();
+    int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+    
+    playerHandler.getDataLoader().loadAll(onlinePlayers, threads).thenAccept(dataHandlers -> getServer().getScheduler().runTask(this, () -> {
+      long attachNanos = System.nanoTime();
+      List<InfraPlayer> infraPlayers = new ArrayList<InfraPlayer>(dataHandlers.size());
+      
+      for(Map.Entry<UUID, InfraPlayerDataHandler> dataHandler : dataHandlers.entrySet()) {
+        Player player = getServer().getPlayer(dataHandler.getKey());
+        
+        // Players that quit during the load are skipped, and players
+        // that rejoined were already registered by the join listener.
+        if(player == null || playerHandler.getPlayer(player) != null) {
+          continue;
+        }
+        
+        infraPlayers.add(new InfraPlayer(player, dataHandler.getValue()));
+      }
+      
+      playerHandler.addPlayers(infraPlayers);
+      
+      getLogger().info(MessageFormat.format("Restored {0} online player(s) after a reload, loaded in {1}ms and registered in {2}ms",
+        infraPlayers.size(), TimeUnit.NANOSECONDS.toMillis(attachNanos - startNanos), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - attachNanos)));
+    })).exceptionally(error -> {
+      getLogger().log(Level.SEVERE, "Could not load the player data of the online players in parallel, loading them one by one", error);
+      getServer().getScheduler().runTask(this, this::registerOnlinePlayers);
+      
+      return null;
+    });
+  }
+  
+  /**
+   * Loads and registers every online player that is not registered yet, one by one on the
+   * main thread.
    *
    * @since 0.1.0-ALPHA
    */
-  private void handleReloads() { }
+  private void registerOnlinePlayers() {
+    InfraPlayerHandler playerHandler = InfrastructureAPI.getInstance().getPlayerHandler();
+    int registered = 0;
+    
+    for(Player player : getServer().getOnlinePlayers()) {
+      if(playerHandler.getPlayer(player) == null) {
+        playerHandler.addPlayer(new InfraPlayer(player));
+        registered++;
+      }
+    }
+    
+    getLogger().info(MessageFormat.format("Restored {0} online player(s) after a reload on the main thread", registered));
+  }
   
   @Override
   public void onDisable() {
     getLogger().info(MessageFormat.format("Disabling {0} {1}", Infrastructure.PLUGIN_NAME, Infrastructure.PLUGIN_VERSION));
+    
+    // Files not moved yet are moved on the next start.
+    if(fileMigrator != null) {
+      fileMigrator.cancel();
+    }
+    
+    InfrastructureAPI.getInstance().getBroadcaster().cancel();
+    
+    // Let queued asynchronous commands finish.
+    InfrastructureAPI.getInstance().getCommandFramework().shutdown();
+    
+    // Stop loading player data for logins, and write
+    // the player data that has changed.
+    if(!InfrastructureAPI.getInstance().getPlayerHandler().shutdown(10, TimeUnit.SECONDS)) {
+      getLogger().warning("Player data was not fully written within 10 seconds");
+    }
   }
   
 }
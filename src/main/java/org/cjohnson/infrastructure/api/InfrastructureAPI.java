@@ -25,9 +25,13 @@
 package org.cjohnson.infrastructure.api;
 
 import org.cjohnson.infrastructure.Infrastructure;
+import org.cjohnson.infrastructure.chat.ChatPipeline;
 import org.cjohnson.infrastructure.command.CommandFramework;
+import org.cjohnson.infrastructure.command.CommandStats;
+import org.cjohnson.infrastructure.message.Broadcaster;
 import org.cjohnson.infrastructure.player.InfraPlayerHandler;
 
+import java.util.List;
 import java.util.logging.Logger;
 
 /**
@@ -70,6 +74,20 @@ public class InfrastructureAPI {
    */
   private static InfraPlayerHandler playerHandler;
   
+  /**
+   * Infrastructure's Broadcaster, sending messages to many players at once
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static Broadcaster broadcaster;
+  
+  /**
+   * Infrastructure's Chat Pipeline, filtering chat and private messages
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static ChatPipeline chatPipeline;
+  
   /**
    * InfrastructureAPI Singleton Constructor
    *
@@ -99,12 +117,15 @@ public class InfrastructureAPI {
    *
    * @param infrastructure The Plugin Object
    * @param framework The CommandFramework and Command Registry
+   * @param infraPlayerHandler The InfraPlayerHandler and Player Registry
+   * @param infraBroadcaster The Broadcaster
+   * @param infraChatPipeline The ChatPipeline
    *
    * @return Boolean flag to signal whether the API was initialized correctly.
    *
    * @since 0.1.0-ALPHA
    */
-  public boolean initialize(Infrastructure infrastructure, CommandFramework framework, InfraPlayerHandler infraPlayerHandler) {
+  public boolean initialize(Infrastructure infrastructure, CommandFramework framework, InfraPlayerHandler infraPlayerHandler, Broadcaster infraBroadcaster, ChatPipeline infraChatPipeline) {
     if(initialized) {
       return false;
     }
@@ -113,6 +134,8 @@ public class InfrastructureAPI {
     infrastructurePlugin = infrastructure;
     commandFramework = framework;
     playerHandler = infraPlayerHandler;
+    broadcaster = infraBroadcaster;
+    chatPipeline = infraChatPipeline;
     
     return true;
   }
@@ -171,4 +194,37 @@ public class InfrastructureAPI {
   public InfraPlayerHandler getPlayerHandler() {
     return playerHandler;
   }
+  
+  /**
+   * Getter for the Infrastructure Broadcaster
+   *
+   * @return Infrastructure Broadcaster
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public Broadcaster getBroadcaster() {
+    return broadcaster;
+  }
+  
+  /**
+   * Getter for the Infrastructure Chat Pipeline
+   *
+   * @return Infrastructure Chat Pipeline
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public ChatPipeline getChatPipeline() {
+    return chatPipeline;
+  }
+  
+  /**
+   * Takes a snapshot of the invocation counts and run times of every registered command case method.
+   *
+   * @return The metrics of every command case method
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public List<CommandStats> getCommandStats() {
+    return commandFramework.getCommandStats();
+  }
 }
@@ -0,0 +1,186 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.chat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * The BannedPhraseStage Class censors or blocks messages containing banned phrases.
+ * <p>
+ * The phrases are compiled into a PhraseAutomaton, which checks a message in one pass over its
+ * normalized text. When the phrase list is reloaded, the new automaton is built on another
+ * thread while messages are still checked against the old one, and then swapped in at once.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class BannedPhraseStage implements ChatStage {
+  
+  /**
+   * The Action Enum is what happens to a message containing a banned phrase.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public enum Action {
+    /**
+     * The banned phrases are replaced by asterisks.
+     */
+    CENSOR,
+    /**
+     * The message is not sent.
+     */
+    BLOCK
+  }
+  
+  /**
+   * The reason shown to senders of blocked messages.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final String BLOCK_REASON = "Your message contains a banned phrase.";
+  
+  /**
+   * What happens to a message containing a banned phrase.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Action action;
+  
+  /**
+   * The current automaton, replaced as a whole when the phrases are reloaded.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private volatile PhraseAutomaton automaton;
+  
+  /**
+   * Default Constructor for BannedPhraseStage
+   *
+   * @param action What happens to a message containing a banned phrase
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public BannedPhraseStage(Action action) {
+    this.action = action;
+    this.automaton = PhraseAutomaton.EMPTY;
+  }
+  
+  @Override
+  public void process(ChatMessage message) {
+    PhraseAutomaton current = automaton;
+    
+    if(current.getPhraseCount() == 0) {
+      return;
+    }
+    
+    NormalizedText normalized = message.getNormalized();
+    
+    if(action == Action.BLOCK) {
+      current.find(normalized, (start, end) -> {
+        message.block(BLOCK_REASON);
+        
+        return false;
+      });
+      
+      return;
+    }
+    
+    // Only the characters the matched symbols came from are
+    // censored, so separators inside a phrase are censored too.
+    char[] text = message.getText().toCharArray();
+    boolean[] censored = new boolean[1];
+    
+    current.find(normalized, (start, end) -> {
+      for(int i = normalized.sourceIndexes[start], last = normalized.sourceIndexes[end]; i <= last; i++) {
+        if(!Character.isWhitespace(text[i])) {
+          text[i] = '*';
+        }
+      }
+      
+      censored[0] = true;
+      
+      return true;
+    });
+    
+    if(censored[0]) {
+      message.setText(new String(text));
+    }
+  }
+  
+  /**
+   * Replaces the banned phrases, building the automaton on the calling thread.
+   *
+   * @param phrases The banned phrases
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void setPhrases(Collection<String> phrases) {
+    automaton = PhraseAutomaton.build(phrases);
+  }
+  
+  /**
+   * Reads the banned phrases from a file, one per line, and builds the automaton in the
+   * background. Messages are checked against the old phrases until the new ones are ready.
+   *
+   * @param file The phrase file
+   * @param executor The executor building the automaton
+   *
+   * @return A future completed with the number of phrases once they are in use
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public CompletableFuture<Integer> reload(File file, Executor executor) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return PhraseAutomaton.build(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }, executor).thenApply(built -> {
+      automaton = built;
+      
+      return built.getPhraseCount();
+    });
+  }
+  
+  /**
+   * Gets the number of banned phrases in use.
+   *
+   * @return The number of phrases
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int getPhraseCount() {
+    return automaton.getPhraseCount();
+  }
+  
+}
@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.chat;
+
+import java.util.Locale;
+
+/**
+ * The CapsStage Class lowercases messages that are mostly written in capital letters.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class CapsStage implements ChatStage {
+  
+  /**
+   * The fewest letters a message must have to be checked, so that short shouts like
+   * {@code GG} are kept.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int minLetters;
+  
+  /**
+   * The largest allowed percentage of capital letters.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int maxPercent;
+  
+  /**
+   * Default Constructor for CapsStage
+   *
+   * @param minLetters The fewest letters a message must have to be checked
+   * @param maxPercent The largest allowed percentage of capital letters
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public CapsStage(int minLetters, int maxPercent) {
+    this.minLetters = minLetters;
+    this.maxPercent = maxPercent;
+  }
+  
+  @Override
+  public void process(ChatMessage message) {
+    String text = message.getText();
+    int letters = 0;
+    int capitals = 0;
+    
+    for(int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      
+      if(Character.isLetter(c)) {
+        letters++;
+        
+        if(Character.isUpperCase(c)) {
+          capitals++;
+        }
+      }
+    }
+    
+    if(letters >= minLetters && capitals * 100 > letters * maxPercent) {
+      message.setText(text.toLowerCase(Locale.ROOT));
+    }
+  }
+  
+}
@@ -0,0 +1,194 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.chat;
+
+import org.bukkit.entity.Player;
+
+/**
+ * The ChatMessage Class is a message passing through the ChatPipeline.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class ChatMessage {
+  
+  /**
+   * The player sending the message.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Player sender;
+  
+  /**
+   * Whether the message was sent with a command, which the command spam check already counted.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final boolean command;
+  
+  /**
+   * The current text of the message.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private String text;
+  
+  /**
+   * The folded text, made when it is first needed after the text changed.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private NormalizedText normalized;
+  
+  /**
+   * The reason the message was blocked, or null if it was not.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private String blockReason;
+  
+  /**
+   * Default Constructor for ChatMessage
+   *
+   * @param sender The player sending the message
+   * @param text The text of the message
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public ChatMessage(Player sender, String text) {
+    this(sender, text, false);
+  }
+  
+  /**
+   * Constructor for ChatMessage
+   *
+   * @param sender The player sending the message
+   * @param text The text of the message
+   * @param command Whether the message was sent with a command, such as /msg
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public ChatMessage(Player sender, String text, boolean command) {
+    this.sender = sender;
+    this.text = text;
+    this.command = command;
+  }
+  
+  /**
+   * Gets the player sending the message.
+   *
+   * @return The Bukkit API Player object
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public Player getSender() {
+    return sender;
+  }
+  
+  /**
+   * Checks if the message was sent with a command, such as /msg.
+   *
+   * @return Whether the message was sent with a command
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean isCommand() {
+    return command;
+  }
+  
+  /**
+   * Gets the current text of the message.
+   *
+   * @return The text
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public String getText() {
+    return text;
+  }
+  
+  /**
+   * Sets the text of the message.
+   *
+   * @param text The new text
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void setText(String text) {
+    if(!text.equals(this.text)) {
+      this.text = text;
+      this.normalized = null;
+    }
+  }
+  
+  /**
+   * Blocks the message, which stops the pipeline.
+   *
+   * @param reason The reason shown to the sender
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void block(String reason) {
+    this.blockReason = reason;
+  }
+  
+  /**
+   * Checks if the message was blocked.
+   *
+   * @return Whether the message was blocked
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean isBlocked() {
+    return blockReason != null;
+  }
+  
+  /**
+   * Gets the reason the message was blocked.
+   *
+   * @return The reason shown to the sender, or null if the message was not blocked
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public String getBlockReason() {
+    return blockReason;
+  }
+  
+  /**
+   * Gets the text folded into the alphabet of the banned phrase automaton.
+   *
+   * @return The NormalizedText object of the current text
+   *
+   * @since 0.1.0-ALPHA
+   */
+  NormalizedText getNormalized() {
+    if(normalized == null) {
+      normalized = NormalizedText.of(text);
+    }
+    
+    return normalized;
+  }
+  
+}
@@ -0,0 +1,133 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.chat;
+
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+
+/**
+ * The ChatPipeline Class runs chat messages and private messages through a list of stages.
+ * <p>
+ * The stages are kept in an array that is replaced when a stage is added or removed, so that
+ * messages are processed from any thread without locking.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class ChatPipeline {
+  
+  /**
+   * The stages, in the order they run.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private volatile ChatStage[] stages;
+  
+  /**
+   * Default Constructor for ChatPipeline
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public ChatPipeline() {
+    this.stages = new ChatStage[0];
+  }
+  
+  /**
+   * Adds a stage after the current stages.
+   *
+   * @param stage The stage
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public synchronized void addStage(ChatStage stage) {
+    ChatStage[] newStages = Arrays.copyOf(stages, stages.length + 1);
+    newStages[stages.length] = stage;
+    
+    stages = newStages;
+  }
+  
+  /**
+   * Removes a stage.
+   *
+   * @param stage The stage
+   *
+   * @return Whether the stage was in the pipeline
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public synchronized boolean removeStage(ChatStage stage) {
+    for(int i = 0; i < stages.length; i++) {
+      if(stages[i] == stage) {
+        ChatStage[] newStages = new ChatStage[stages.length - 1];
+        
+        System.arraycopy(stages, 0, newStages, 0, i);
+        System.arraycopy(stages, i + 1, newStages, i, stages.length - i - 1);
+        stages = newStages;
+        
+        return true;
+      }
+    }
+    
+    return false;
+  }
+  
+  /**
+   * Runs a message through the stages, until one of them blocks it.
+   *
+   * @param sender The player sending the message
+   * @param text The text of the message
+   *
+   * @return The processed ChatMessage object
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public ChatMessage process(Player sender, String text) {
+    return process(new ChatMessage(sender, text));
+  }
+  
+  /**
+   * Runs a message through the stages, until one of them blocks it.
+   *
+   * @param message The message
+   *
+   * @return The processed ChatMessage object
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public ChatMessage process(ChatMessage message) {
+    
+    for(ChatStage stage : stages) {
+      stage.process(message);
+      
+      if(message.isBlocked()) {
+        break;
+      }
+    }
+    
+    return message;
+  }
+  
+}
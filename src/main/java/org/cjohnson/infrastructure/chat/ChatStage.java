@@ -0,0 +1,49 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.chat;
+
+/**
+ * The ChatStage is the functional interface of one step of the ChatPipeline.
+ * <p>
+ * Stages run on the thread the message was sent from, which is an asynchronous chat thread
+ * for chat and the main thread for commands, so they must not keep state that is not safe to
+ * share between threads.
+ *
+ * @since 0.1.0-ALPHA
+ */
+@FunctionalInterface
+public interface ChatStage {
+  
+  /**
+   * Processes a message, changing its text or blocking it.
+   *
+   * @param message The message
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void process(ChatMessage message);
+  
+}
@@ -0,0 +1,109 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.chat;
+
+import java.text.Normalizer;
+
+/**
+ * The NormalizationStage Class cleans up the text of a message before it is checked.
+ * <p>
+ * Compatibility characters such as full-width letters are replaced by their plain forms,
+ * invisible formatting and control characters are removed, and runs of whitespace are
+ * collapsed into one space. Messages that are only ASCII skip the Unicode normalization.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class NormalizationStage implements ChatStage {
+  
+  /**
+   * Default Constructor for NormalizationStage
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public NormalizationStage() {}
+  
+  @Override
+  public void process(ChatMessage message) {
+    String text = message.getText();
+    
+    if(!isAscii(text)) {
+      text = Normalizer.normalize(text, Normalizer.Form.NFKC);
+    }
+    
+    StringBuilder normalized = new StringBuilder(text.length());
+    boolean space = true;
+    
+    for(int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      
+      if(Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+        if(!space) {
+          normalized.append(' ');
+          space = true;
+        }
+        
+        continue;
+      }
+      
+      int type = Character.getType(c);
+      
+      // Zero-width and other invisible characters
+      // are used to split words past filters.
+      if(type == Character.FORMAT || type == Character.CONTROL) {
+        continue;
+      }
+      
+      normalized.append(c);
+      space = false;
+    }
+    
+    if(space && normalized.length() > 0) {
+      normalized.setLength(normalized.length() - 1);
+    }
+    
+    message.setText(normalized.toString());
+  }
+  
+  /**
+   * Checks if a text is only ASCII.
+   *
+   * @param text The text
+   *
+   * @return Whether every character is ASCII
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static boolean isAscii(String text) {
+    for(int i = 0; i < text.length(); i++) {
+      if(text.charAt(i) >= 0x80) {
+        return false;
+      }
+    }
+    
+    return true;
+  }
+  
+}
@@ -0,0 +1,225 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.chat;
+
+import java.text.Normalizer;
+
+/**
+ * The NormalizedText Class is a chat message folded into the small alphabet the banned phrase
+ * automaton runs on.
+ * <p>
+ * Letters are lowercased and stripped of their accents, look-alike digits and symbols are
+ * mapped to the letters they stand for, and color codes and every other character are dropped.
+ * What is left are symbols from 0 to {@link #ALPHABET_SIZE}, each remembering the index of the
+ * character it came from and whether it starts or ends a word, so that matches can be mapped
+ * back onto the message. Folding is a single pass over the message.
+ *
+ * @since 0.1.0-ALPHA
+ */
+final class NormalizedText {
+  
+  /**
+   * The number of symbols, the letters a to z and the digits 0 to 9.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static final int ALPHABET_SIZE = 36;
+  
+  /**
+   * The symbol flags marking the first and the last symbol of a word.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static final byte WORD_START = 1;
+  static final byte WORD_END = 2;
+  
+  /**
+   * The symbol of every character up to the end of Latin Extended-A, or -1 if it is dropped.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final byte[] SYMBOLS = new byte[0x180];
+  
+  static {
+    for(char c = 0; c < SYMBOLS.length; c++) {
+      SYMBOLS[c] = -1;
+      
+      // Accented letters fold onto the letter they are based on.
+      char base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+      char lower = Character.toLowerCase(base);
+      
+      if(lower >= 'a' && lower <= 'z') {
+        SYMBOLS[c] = (byte) (lower - 'a');
+      } else if(lower >= '0' && lower <= '9') {
+        SYMBOLS[c] = (byte) (26 + lower - '0');
+      }
+    }
+    
+    // Look-alikes used to get around filters.
+    mapLookAlike('0', 'o');
+    mapLookAlike('1', 'i');
+    mapLookAlike('3', 'e');
+    mapLookAlike('4', 'a');
+    mapLookAlike('5', 's');
+    mapLookAlike('7', 't');
+    mapLookAlike('@', 'a');
+    mapLookAlike('$', 's');
+  }
+  
+  /**
+   * The symbols of the text.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  final byte[] symbols;
+  
+  /**
+   * The index of the character in the message that every symbol came from.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  final int[] sourceIndexes;
+  
+  /**
+   * The word flags of every symbol.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  final byte[] flags;
+  
+  /**
+   * The number of symbols.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  final int length;
+  
+  /**
+   * Private Constructor for NormalizedText
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private NormalizedText(byte[] symbols, int[] sourceIndexes, byte[] flags, int length) {
+    this.symbols = symbols;
+    this.sourceIndexes = sourceIndexes;
+    this.flags = flags;
+    this.length = length;
+  }
+  
+  /**
+   * Folds a message into symbols.
+   *
+   * @param text The message
+   *
+   * @return The NormalizedText object
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static NormalizedText of(String text) {
+    int textLength = text.length();
+    byte[] symbols = new byte[textLength];
+    int[] sourceIndexes = new int[textLength];
+    byte[] flags = new byte[textLength];
+    int length = 0;
+    boolean separated = true;
+    
+    for(int i = 0; i < textLength; i++) {
+      char c = text.charAt(i);
+      
+      // Color codes are neither symbols nor separators.
+      if((c == '&' || c == '\u00A7') && i + 1 < textLength && isColorCode(text.charAt(i + 1))) {
+        i++;
+        
+        continue;
+      }
+      
+      int symbol = symbolOf(c);
+      
+      if(symbol < 0) {
+        if(!separated && length > 0) {
+          flags[length - 1] |= WORD_END;
+        }
+        
+        separated = true;
+        
+        continue;
+      }
+      
+      symbols[length] = (byte) symbol;
+      sourceIndexes[length] = i;
+      flags[length] = separated ? WORD_START : 0;
+      length++;
+      separated = false;
+    }
+    
+    if(length > 0) {
+      flags[length - 1] |= WORD_END;
+    }
+    
+    return new NormalizedText(symbols, sourceIndexes, flags, length);
+  }
+  
+  /**
+   * Gets the symbol of a character.
+   *
+   * @param c The character
+   *
+   * @return The symbol, or -1 if the character is dropped
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static int symbolOf(char c) {
+    return c < SYMBOLS.length ? SYMBOLS[c] : -1;
+  }
+  
+  /**
+   * Checks if a character follows the color encoding character in a color code.
+   *
+   * @param c The character
+   *
+   * @return Whether the character is a color code
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static boolean isColorCode(char c) {
+    char lower = Character.toLowerCase(c);
+    
+    return (lower >= '0' && lower <= '9') || (lower >= 'a' && lower <= 'f') || (lower >= 'k' && lower <= 'o') || lower == 'r' || lower == 'x';
+  }
+  
+  /**
+   * Maps a look-alike character onto the symbol of a letter.
+   *
+   * @param c The look-alike character
+   * @param letter The letter
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static void mapLookAlike(char c, char letter) {
+    SYMBOLS[c] = (byte) (letter - 'a');
+  }
+  
+}
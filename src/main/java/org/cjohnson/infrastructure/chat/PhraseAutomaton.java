@@ -0,0 +1,418 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.chat;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The PhraseAutomaton Class is an Aho-Corasick automaton over the banned phrases, finding
+ * every banned phrase in a message in one pass, however many phrases there are.
+ * <p>
+ * The phrases and the messages are folded into the same alphabet by NormalizedText. A phrase
+ * matches whole words only, unless it starts with a {@code *}, in which case it also matches
+ * inside of words. The trie is stored in flat arrays, with the states numbered in breadth-first
+ * order so that the children of a state are next to each other. An automaton is immutable once
+ * built, and can be used from any thread.
+ *
+ * @since 0.1.0-ALPHA
+ */
+final class PhraseAutomaton {
+  
+  /**
+   * The automaton without phrases.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static final PhraseAutomaton EMPTY = build(Collections.<String>emptyList());
+  
+  /**
+   * The kinds of states, by the phrases that end in them.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final byte NONE = 0;
+  private static final byte WHOLE_WORD = 1;
+  private static final byte ANYWHERE = 2;
+  
+  /**
+   * The transitions of the root state, indexed by symbol.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int[] rootTransitions;
+  
+  /**
+   * The children of state s are the states from childStart[s] to childStart[s + 1].
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int[] childStart;
+  
+  /**
+   * The symbol of the edge leading into every state.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final byte[] edgeSymbols;
+  
+  /**
+   * The failure link of every state, the state of its longest proper suffix in the trie.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int[] failures;
+  
+  /**
+   * The output link of every state, the state of its longest proper suffix that ends a phrase,
+   * or -1 if there is none.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int[] outputs;
+  
+  /**
+   * The kind of every state and the number of symbols leading to it.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final byte[] kinds;
+  private final int[] depths;
+  
+  /**
+   * The number of distinct phrases.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int phraseCount;
+  
+  /**
+   * Private Constructor for PhraseAutomaton
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private PhraseAutomaton(int[] rootTransitions, int[] childStart, byte[] edgeSymbols, int[] failures, int[] outputs, byte[] kinds, int[] depths, int phraseCount) {
+    this.rootTransitions = rootTransitions;
+    this.childStart = childStart;
+    this.edgeSymbols = edgeSymbols;
+    this.failures = failures;
+    this.outputs = outputs;
+    this.kinds = kinds;
+    this.depths = depths;
+    this.phraseCount = phraseCount;
+  }
+  
+  /**
+   * Builds the automaton of a list of phrases.
+   *
+   * @param phrases The phrases, of which blank ones and ones starting with {@code #} are skipped
+   *
+   * @return The PhraseAutomaton object
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static PhraseAutomaton build(Collection<String> phrases) {
+    TrieBuilder trie = new TrieBuilder();
+    
+    for(String phrase : phrases) {
+      phrase = phrase.trim();
+      
+      if(phrase.isEmpty() || phrase.charAt(0) == '#') {
+        continue;
+      }
+      
+      boolean anywhere = phrase.charAt(0) == '*';
+      NormalizedText text = NormalizedText.of(anywhere ? phrase.substring(1) : phrase);
+      
+      if(text.length > 0) {
+        trie.insert(text, anywhere ? ANYWHERE : WHOLE_WORD);
+      }
+    }
+    
+    return trie.freeze();
+  }
+  
+  /**
+   * Finds the banned phrases in a message, in the order they end.
+   *
+   * @param text The normalized message
+   * @param consumer The consumer of the matches, which may stop the search
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void find(NormalizedText text, MatchConsumer consumer) {
+    int state = 0;
+    
+    for(int i = 0; i < text.length; i++) {
+      state = next(state, text.symbols[i]);
+      
+      // Every phrase ending here is the state itself
+      // or one of the states on its output links.
+      for(int match = kinds[state] != NONE ? state : outputs[state]; match > 0; match = outputs[match]) {
+        int start = i - depths[match] + 1;
+        
+        if(kinds[match] == WHOLE_WORD && ((text.flags[start] & NormalizedText.WORD_START) == 0 || (text.flags[i] & NormalizedText.WORD_END) == 0)) {
+          continue;
+        }
+        
+        if(!consumer.match(start, i)) {
+          return;
+        }
+      }
+    }
+  }
+  
+  /**
+   * Gets the number of distinct phrases.
+   *
+   * @return The number of phrases
+   *
+   * @since 0.1.0-ALPHA
+   */
+  int getPhraseCount() {
+    return phraseCount;
+  }
+  
+  /**
+   * Gets the number of states.
+   *
+   * @return The number of states
+   *
+   * @since 0.1.0-ALPHA
+   */
+  int getStateCount() {
+    return kinds.length;
+  }
+  
+  /**
+   * Follows the transition of a symbol, falling back along the failure links.
+   *
+   * @param state The current state
+   * @param symbol The symbol
+   *
+   * @return The next state
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private int next(int state, byte symbol) {
+    while(state != 0) {
+      for(int child = childStart[state], end = childStart[state + 1]; child < end; child++) {
+        if(edgeSymbols[child] == symbol) {
+          return child;
+        }
+      }
+      
+      state = failures[state];
+    }
+    
+    return rootTransitions[symbol];
+  }
+  
+  /**
+   * The MatchConsumer Interface receives the banned phrases found in a message.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  @FunctionalInterface
+  interface MatchConsumer {
+    
+    /**
+     * Receives a banned phrase found in a message.
+     *
+     * @param start The index of the first symbol of the phrase
+     * @param end The index of the last symbol of the phrase
+     *
+     * @return Whether to keep searching
+     */
+    boolean match(int start, int end);
+    
+  }
+  
+  /**
+   * A trie being built, with the children of every node in a linked list.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final class TrieBuilder {
+    
+    private int[] firstChild = new int[64];
+    private int[] nextSibling = new int[64];
+    private byte[] symbols = new byte[64];
+    private byte[] kinds = new byte[64];
+    private int[] depths = new int[64];
+    private int nodeCount = 1;
+    private int phraseCount;
+    
+    private TrieBuilder() {
+      firstChild[0] = -1;
+      nextSibling[0] = -1;
+    }
+    
+    private void insert(NormalizedText text, byte kind) {
+      int node = 0;
+      
+      for(int i = 0; i < text.length; i++) {
+        int child = findChild(node, text.symbols[i]);
+        
+        if(child < 0) {
+          child = addChild(node, text.symbols[i]);
+        }
+        
+        node = child;
+      }
+      
+      if(kinds[node] == NONE) {
+        phraseCount++;
+      }
+      
+      // A phrase matching anywhere also covers
+      // the same phrase matching whole words.
+      kinds[node] = (byte) Math.max(kinds[node], kind);
+    }
+    
+    private int findChild(int node, byte symbol) {
+      for(int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+        if(symbols[child] == symbol) {
+          return child;
+        }
+      }
+      
+      return -1;
+    }
+    
+    private int addChild(int node, byte symbol) {
+      if(nodeCount == firstChild.length) {
+        int capacity = nodeCount * 2;
+        
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+        symbols = Arrays.copyOf(symbols, capacity);
+        kinds = Arrays.copyOf(kinds, capacity);
+        depths = Arrays.copyOf(depths, capacity);
+      }
+      
+      int child = nodeCount++;
+      
+      firstChild[child] = -1;
+      nextSibling[child] = firstChild[node];
+      firstChild[node] = child;
+      symbols[child] = symbol;
+      depths[child] = depths[node] + 1;
+      
+      return child;
+    }
+    
+    /**
+     * Numbers the nodes in breadth-first order, links them and copies them into flat arrays.
+     */
+    private PhraseAutomaton freeze() {
+      int[] order = new int[nodeCount];
+      int[] stateOf = new int[nodeCount];
+      int[] childStart = new int[nodeCount + 1];
+      int tail = 1;
+      
+      // Breadth-first numbering, so that the children
+      // of every state get consecutive numbers.
+      for(int head = 0; head < nodeCount; head++) {
+        int node = order[head];
+        
+        stateOf[node] = head;
+        childStart[head] = tail;
+        
+        for(int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+          order[tail++] = child;
+        }
+      }
+      
+      childStart[nodeCount] = tail;
+      
+      byte[] edgeSymbols = new byte[nodeCount];
+      byte[] stateKinds = new byte[nodeCount];
+      int[] stateDepths = new int[nodeCount];
+      int[] failures = new int[nodeCount];
+      int[] outputs = new int[nodeCount];
+      int[] rootTransitions = new int[NormalizedText.ALPHABET_SIZE];
+      
+      for(int state = 0; state < nodeCount; state++) {
+        edgeSymbols[state] = symbols[order[state]];
+        stateKinds[state] = kinds[order[state]];
+        stateDepths[state] = depths[order[state]];
+      }
+      
+      for(int child = childStart[0]; child < childStart[1]; child++) {
+        rootTransitions[edgeSymbols[child]] = child;
+      }
+      
+      outputs[0] = -1;
+      
+      // Parents come before their children, so the failure
+      // and output links of shorter suffixes are ready.
+      for(int state = 0; state < nodeCount; state++) {
+        for(int child = childStart[state]; child < childStart[state + 1]; child++) {
+          int failure = 0;
+          
+          if(state != 0) {
+            int fallback = failures[state];
+            
+            while(true) {
+              int next = findState(childStart, edgeSymbols, fallback, edgeSymbols[child], rootTransitions);
+              
+              if(next > 0 || fallback == 0) {
+                failure = next;
+                
+                break;
+              }
+              
+              fallback = failures[fallback];
+            }
+          }
+          
+          failures[child] = failure;
+          outputs[child] = stateKinds[failure] != NONE ? failure : outputs[failure];
+        }
+      }
+      
+      return new PhraseAutomaton(rootTransitions, childStart, edgeSymbols, failures, outputs, stateKinds, stateDepths, phraseCount);
+    }
+    
+    private static int findState(int[] childStart, byte[] edgeSymbols, int state, byte symbol, int[] rootTransitions) {
+      if(state == 0) {
+        return rootTransitions[symbol];
+      }
+      
+      for(int child = childStart[state]; child < childStart[state + 1]; child++) {
+        if(edgeSymbols[child] == symbol) {
+          return child;
+        }
+      }
+      
+      return -1;
+    }
+    
+  }
+  
+}
@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.chat;
+
+/**
+ * The RepetitionStage Class shortens runs of the same character, such as {@code !!!!!!!!} or
+ * {@code nooooooo}, to a maximum length.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class RepetitionStage implements ChatStage {
+  
+  /**
+   * The longest run of one character that is kept.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int maxRun;
+  
+  /**
+   * Default Constructor for RepetitionStage
+   *
+   * @param maxRun The longest run of one character that is kept
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public RepetitionStage(int maxRun) {
+    this.maxRun = Math.max(1, maxRun);
+  }
+  
+  @Override
+  public void process(ChatMessage message) {
+    String text = message.getText();
+    StringBuilder shortened = null;
+    int run = 0;
+    
+    for(int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      
+      run = i > 0 && Character.toLowerCase(text.charAt(i - 1)) == Character.toLowerCase(c) ? run + 1 : 1;
+      
+      if(run > maxRun) {
+        // Copied only once the first run is too long,
+        // which most messages never reach.
+        if(shortened == null) {
+          shortened = new StringBuilder(text.length()).append(text, 0, i);
+        }
+        
+        continue;
+      }
+      
+      if(shortened != null) {
+        shortened.append(c);
+      }
+    }
+    
+    if(shortened != null) {
+      message.setText(shortened.toString());
+    }
+  }
+  
+}
@@ -0,0 +1,228 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.chat;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.cjohnson.infrastructure.api.InfrastructureAPI;
+import org.cjohnson.infrastructure.player.InfraPlayer;
+import org.cjohnson.infrastructure.player.SpamPolicy;
+import org.cjohnson.infrastructure.player.SpamTracker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The SpamGuard Class checks the messages and commands of players against a SpamPolicy, and
+ * takes the action of the player's violation level when a limit is broken.
+ * <p>
+ * Checks can run on any thread. Messages and commands that are allowed are checked without
+ * allocating; kicks are handed over to the main thread.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class SpamGuard {
+  
+  /**
+   * The permission to skip spam detection.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final String BYPASS_PERMISSION = "infrastructure.chat.spam.bypass";
+  
+  /**
+   * The reasons shown to players for blocked messages and commands.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final String MESSAGE_RATE_REASON = "You are sending messages too fast, please slow down.";
+  private static final String DUPLICATE_REASON = "Please do not repeat the same message.";
+  private static final String COMMAND_RATE_REASON = "You are sending commands too fast, please slow down.";
+  private static final String KICK_REASON = "You were kicked for spamming.";
+  
+  /**
+   * The plugin kicks are scheduled for.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Plugin plugin;
+  
+  /**
+   * The limits and actions.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final SpamPolicy policy;
+  
+  /**
+   * Default Constructor for SpamGuard
+   *
+   * @param plugin The plugin kicks are scheduled for
+   * @param policy The limits and actions
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public SpamGuard(Plugin plugin, SpamPolicy policy) {
+    this.plugin = plugin;
+    this.policy = policy;
+  }
+  
+  /**
+   * Checks a chat message of a player.
+   *
+   * @param player The player sending the message
+   * @param text The message
+   *
+   * @return The reason the message is blocked, or null if it is allowed
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public String checkMessage(Player player, String text) {
+    return checkMessage(player, text, true);
+  }
+  
+  /**
+   * Checks a message a player sent with a command, such as /msg, against the mute and the
+   * duplicate limit. The command itself is checked by checkCommand().
+   *
+   * @param player The player sending the message
+   * @param text The message
+   *
+   * @return The reason the message is blocked, or null if it is allowed
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public String checkCommandMessage(Player player, String text) {
+    return checkMessage(player, text, false);
+  }
+  
+  /**
+   * Checks a message of a player.
+   *
+   * @param player The player sending the message
+   * @param text The message
+   * @param chat Whether the message is chat, which counts against the message rate
+   *
+   * @return The reason the message is blocked, or null if it is allowed
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private String checkMessage(Player player, String text, boolean chat) {
+    InfraPlayer infraPlayer = InfrastructureAPI.getInstance().getPlayerHandler().getPlayer(player);
+    
+    if(infraPlayer == null || player.hasPermission(BYPASS_PERMISSION)) {
+      return null;
+    }
+    
+    long nowMillis = System.currentTimeMillis();
+    SpamTracker spamTracker = infraPlayer.getSpamTracker();
+    SpamTracker.Violation violation = chat ? spamTracker.checkMessage(text, nowMillis, policy) : spamTracker.checkCommandMessage(text, nowMillis, policy);
+    
+    switch(violation) {
+      case NONE:
+        return null;
+      case MUTED:
+        return mutedReason(spamTracker.getMutedUntilMillis() - nowMillis);
+      case DUPLICATE:
+        return punish(player, infraPlayer, nowMillis, DUPLICATE_REASON);
+      default:
+        return punish(player, infraPlayer, nowMillis, MESSAGE_RATE_REASON);
+    }
+  }
+  
+  /**
+   * Checks a command of a player.
+   *
+   * @param player The player sending the command
+   *
+   * @return The reason the command is blocked, or null if it is allowed
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public String checkCommand(Player player) {
+    InfraPlayer infraPlayer = InfrastructureAPI.getInstance().getPlayerHandler().getPlayer(player);
+    
+    if(infraPlayer == null || player.hasPermission(BYPASS_PERMISSION)) {
+      return null;
+    }
+    
+    long nowMillis = System.currentTimeMillis();
+    
+    if(infraPlayer.getSpamTracker().checkCommand(nowMillis, policy) == SpamTracker.Violation.NONE) {
+      return null;
+    }
+    
+    return punish(player, infraPlayer, nowMillis, COMMAND_RATE_REASON);
+  }
+  
+  /**
+   * Raises the violation level of a player and takes the action of the new level.
+   *
+   * @param player The player
+   * @param infraPlayer The InfraPlayer of the player
+   * @param nowMillis The current time
+   * @param reason The reason of the violation
+   *
+   * @return The reason shown to the player
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private String punish(Player player, InfraPlayer infraPlayer, long nowMillis, String reason) {
+    SpamTracker spamTracker = infraPlayer.getSpamTracker();
+    SpamPolicy.Action action = policy.getAction(spamTracker.recordViolation(nowMillis, policy));
+    
+    switch(action.getType()) {
+      case MUTE:
+        long muteMillis = TimeUnit.SECONDS.toMillis(action.getSeconds());
+        
+        spamTracker.mute(nowMillis + muteMillis);
+        
+        return mutedReason(muteMillis);
+      case KICK:
+        // Kicking must happen on the main thread,
+        // and chat is checked on the chat thread.
+        Bukkit.getScheduler().runTask(plugin, () -> player.kickPlayer(KICK_REASON));
+        
+        return KICK_REASON;
+      default:
+        return reason;
+    }
+  }
+  
+  /**
+   * Builds the reason shown to muted players.
+   *
+   * @param remainingMillis The time left on the mute
+   *
+   * @return The reason shown to the player
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static String mutedReason(long remainingMillis) {
+    return "You are muted for spamming for " + Math.max(1L, TimeUnit.MILLISECONDS.toSeconds(remainingMillis + 999L)) + " more second(s).";
+  }
+  
+}
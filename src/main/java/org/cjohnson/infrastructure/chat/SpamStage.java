@@ -0,0 +1,72 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.chat;
+
+/**
+ * The SpamStage Class blocks messages that break the limits of a SpamGuard. It runs first in
+ * the ChatPipeline, so that spam is blocked before any other stage spends time on it.
+ * <p>
+ * Messages sent with a command, such as /msg, are checked against the mute and the duplicate
+ * limit only, as the command was already counted by the command spam check.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class SpamStage implements ChatStage {
+  
+  /**
+   * The guard the messages are checked by.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final SpamGuard spamGuard;
+  
+  /**
+   * Default Constructor for SpamStage
+   *
+   * @param spamGuard The guard the messages are checked by
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public SpamStage(SpamGuard spamGuard) {
+    this.spamGuard = spamGuard;
+  }
+  
+  @Override
+  public void process(ChatMessage message) {
+    String reason;
+    
+    if(message.isCommand()) {
+      reason = spamGuard.checkCommandMessage(message.getSender(), message.getText());
+    } else {
+      reason = spamGuard.checkMessage(message.getSender(), message.getText());
+    }
+    
+    if(reason != null) {
+      message.block(reason);
+    }
+  }
+  
+}
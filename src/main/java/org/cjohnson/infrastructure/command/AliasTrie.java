@@ -0,0 +1,170 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.command;
+
+import org.bukkit.command.CommandSender;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The AliasTrie Class is a prefix tree over the subcommand aliases of a command,
+ * used for tab completion.
+ * <p>
+ * The trie is built once when the command is added and never changes afterwards. Completing
+ * a prefix walks one node per typed character and then collects the aliases below that node,
+ * in alphabetical order.
+ *
+ * @since 0.1.0-ALPHA
+ */
+final class AliasTrie {
+  
+  /**
+   * The root node, representing the empty prefix.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Node root;
+  
+  /**
+   * Default Constructor for AliasTrie, creating an empty trie.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  AliasTrie() {
+    root = new Node();
+  }
+  
+  /**
+   * Adds a lowercase alias to the trie.
+   *
+   * @param alias The lowercase alias
+   * @param permission The permission required to see the alias
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void add(String alias, String permission) {
+    Node node = root;
+    
+    for(int i = 0; i < alias.length(); i++) {
+      node = node.getOrAddChild(alias.charAt(i));
+    }
+    
+    node.alias = alias;
+    node.permission = permission;
+  }
+  
+  /**
+   * Completes a typed prefix, ignoring case.
+   *
+   * @param prefix The typed prefix
+   * @param sender The CommandSender, whose permissions filter the completions
+   * @param completions The list the completions are added to
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void complete(String prefix, CommandSender sender, List<String> completions) {
+    Node node = root;
+    
+    for(int i = 0; i < prefix.length() && node != null; i++) {
+      node = node.getChild(Character.toLowerCase(prefix.charAt(i)));
+    }
+    
+    if(node != null) {
+      collect(node, sender, completions);
+    }
+  }
+  
+  /**
+   * Collects the aliases at and below a node that the sender has permission for.
+   *
+   * @param node The node to collect from
+   * @param sender The CommandSender, whose permissions filter the completions
+   * @param completions The list the completions are added to
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static void collect(Node node, CommandSender sender, List<String> completions) {
+    if(node.alias != null && sender.hasPermission(node.permission)) {
+      completions.add(node.alias);
+    }
+    
+    for(int i = 0; i < node.childCount; i++) {
+      collect(node.children[i], sender, completions);
+    }
+  }
+  
+  /**
+   * A node of the trie, with its children sorted by character.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final class Node {
+    
+    private char[] keys = new char[0];
+    private Node[] children = new Node[0];
+    private int childCount;
+    
+    /**
+     * The alias ending at this node, or null if no alias ends here.
+     */
+    private String alias;
+    private String permission;
+    
+    private Node getChild(char key) {
+      int index = Arrays.binarySearch(keys, 0, childCount, key);
+      
+      return index >= 0 ? children[index] : null;
+    }
+    
+    private Node getOrAddChild(char key) {
+      int index = Arrays.binarySearch(keys, 0, childCount, key);
+      
+      if(index >= 0) {
+        return children[index];
+      }
+      
+      // Insert the new child at its sorted position.
+      index = -index - 1;
+      
+      if(childCount == keys.length) {
+        keys = Arrays.copyOf(keys, childCount + 2);
+        children = Arrays.copyOf(children, childCount + 2);
+      }
+      
+      System.arraycopy(keys, index, keys, index + 1, childCount - index);
+      System.arraycopy(children, index, children, index + 1, childCount - index);
+      
+      Node child = new Node();
+      keys[index] = key;
+      children[index] = child;
+      childCount++;
+      
+      return child;
+    }
+    
+  }
+  
+}
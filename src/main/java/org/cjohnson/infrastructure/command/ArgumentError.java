@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.command;
+
+/**
+ * The ArgumentError Class describes a typed command argument that is missing or could not be parsed.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public final class ArgumentError {
+  
+  private final int index;
+  private final String name;
+  private final String expected;
+  private final String input;
+  
+  /**
+   * Constructor for ArgumentError
+   *
+   * @param index The index of the argument, after the subcommand alias
+   * @param name The name of the argument
+   * @param expected The description of the expected type
+   * @param input The given argument, or null if it is missing
+   *
+   * @since 0.1.0-ALPHA
+   */
+  ArgumentError(int index, String name, String expected, String input) {
+    this.index = index;
+    this.name = name;
+    this.expected = expected;
+    this.input = input;
+  }
+  
+  /**
+   * Getter for the index of the argument.
+   *
+   * @return The index of the argument, after the subcommand alias
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int getIndex() {
+    return index;
+  }
+  
+  /**
+   * Getter for the name of the argument.
+   *
+   * @return The name of the argument
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public String getName() {
+    return name;
+  }
+  
+  /**
+   * Getter for the expected type.
+   *
+   * @return The description of the expected type, such as "number" or "online player"
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public String getExpected() {
+    return expected;
+  }
+  
+  /**
+   * Getter for the given argument.
+   *
+   * @return The given argument, or null if it is missing
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public String getInput() {
+    return input;
+  }
+  
+  /**
+   * Checks if the argument is missing.
+   *
+   * @return Whether the argument is missing
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean isMissing() {
+    return input == null;
+  }
+  
+  /**
+   * Gets a message describing the error, to show to the CommandSender.
+   *
+   * @return The message describing the error
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public String getMessage() {
+    // Unnamed arguments are named after their type.
+    boolean named = !name.equals(expected);
+    
+    if(input == null) {
+      return "Missing " + name + (named ? " (" + expected + ")." : ".");
+    }
+    
+    return "\"" + input + "\" is not a valid " + expected + (named ? " for " + name + "." : ".");
+  }
+  
+  @Override
+  public String toString() {
+    return "ArgumentError{index=" + index + ", name=" + name + ", expected=" + expected + ", input=" + input + "}";
+  }
+  
+}
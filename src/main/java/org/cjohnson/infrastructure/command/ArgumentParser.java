@@ -0,0 +1,253 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.command;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.cjohnson.infrastructure.api.InfrastructureAPI;
+import org.cjohnson.infrastructure.player.InfraPlayer;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The ArgumentParser Class parses a single typed command argument.
+ * <p>
+ * Parsers are resolved once per Arg parameter when a command is added, and shared between
+ * all parameters of the same type. Parsing never throws for invalid input, it returns null.
+ * Enums, Material included, are parsed through a lookup map of their lowercase constant
+ * names that is built once per enum type.
+ *
+ * @since 0.1.0-ALPHA
+ */
+final class ArgumentParser {
+  
+  /**
+   * The parsers resolved so far, mapped by their type.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final ConcurrentHashMap<Class<?>, ArgumentParser> PARSERS = new ConcurrentHashMap<Class<?>, ArgumentParser>();
+  
+  /**
+   * The description of the type, shown in argument errors.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final String description;
+  
+  /**
+   * The parsing function, returning null for invalid input.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Function<String, Object> function;
+  
+  /**
+   * Constructor for ArgumentParser
+   *
+   * @param description The description of the type
+   * @param function The parsing function, returning null for invalid input
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private ArgumentParser(String description, Function<String, Object> function) {
+    this.description = description;
+    this.function = function;
+  }
+  
+  /**
+   * Parses an argument.
+   *
+   * @param input The argument
+   *
+   * @return The parsed value, or null if the argument is invalid
+   *
+   * @since 0.1.0-ALPHA
+   */
+  Object parse(String input) {
+    return function.apply(input);
+  }
+  
+  /**
+   * Getter for the description of the type.
+   *
+   * @return The description of the type, shown in argument errors
+   *
+   * @since 0.1.0-ALPHA
+   */
+  String getDescription() {
+    return description;
+  }
+  
+  /**
+   * Gets the parser of a type.
+   *
+   * @param type The type of the Arg parameter
+   *
+   * @return The parser of the type, or null if the type is not supported
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static ArgumentParser forType(Class<?> type) {
+    ArgumentParser parser = PARSERS.get(type);
+    
+    if(parser == null) {
+      parser = createParser(type);
+      
+      if(parser != null) {
+        ArgumentParser previous = PARSERS.putIfAbsent(type, parser);
+        
+        if(previous != null) {
+          parser = previous;
+        }
+      }
+    }
+    
+    return parser;
+  }
+  
+  /**
+   * Creates the parser of a type.
+   *
+   * @param type The type of the Arg parameter
+   *
+   * @return The parser of the type, or null if the type is not supported
+   *
+   * @since 0.1.0-ALPHA
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static ArgumentParser createParser(Class<?> type) {
+    if(type == String.class) {
+      return new ArgumentParser("text", input -> input);
+    }
+    
+    if(type == int.class || type == Integer.class) {
+      return new ArgumentParser("whole number", input -> {
+        long value = CommandArgs.parseInt(input);
+        
+        return value == CommandArgs.INVALID_INT ? null : (Object) (int) value;
+      });
+    }
+    
+    if(type == double.class || type == Double.class) {
+      return new ArgumentParser("number", ArgumentParser::parseDouble);
+    }
+    
+    if(type == boolean.class || type == Boolean.class) {
+      HashMap<String, Boolean> booleans = new HashMap<String, Boolean>();
+      
+      for(String value : new String[] {"true", "yes", "on"}) {
+        booleans.put(value, Boolean.TRUE);
+      }
+      
+      for(String value : new String[] {"false", "no", "off"}) {
+        booleans.put(value, Boolean.FALSE);
+      }
+      
+      return new ArgumentParser("true or false", input -> CommandFramework.lookupIgnoreCase(booleans, input));
+    }
+    
+    if(type == Player.class) {
+      return new ArgumentParser("online player", Bukkit::getPlayerExact);
+    }
+    
+    if(type == InfraPlayer.class) {
+      return new ArgumentParser("online player", input -> InfrastructureAPI.getInstance().getPlayerHandler().getPlayer(input));
+    }
+    
+    if(type.isEnum()) {
+      return createEnumParser((Class<? extends Enum>) type);
+    }
+    
+    return null;
+  }
+  
+  /**
+   * Creates the parser of an enum type, using a lookup map of its lowercase constant names.
+   *
+   * @param type The enum type
+   * @param <E> The enum type
+   *
+   * @return The parser of the enum type
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static <E extends Enum<E>> ArgumentParser createEnumParser(Class<E> type) {
+    HashMap<String, Object> constants = new HashMap<String, Object>();
+    
+    for(E constant : type.getEnumConstants()) {
+      // Legacy materials are only kept for old plugins,
+      // players should never have to type them.
+      if(type == Material.class && constant.name().startsWith("LEGACY_")) {
+        continue;
+      }
+      
+      constants.put(constant.name().toLowerCase(Locale.ROOT), constant);
+    }
+    
+    if(type == Material.class) {
+      return new ArgumentParser("material", input -> CommandFramework.lookupIgnoreCase(constants, input.startsWith("minecraft:") ? input.substring(10) : input));
+    }
+    
+    return new ArgumentParser(type.getSimpleName().toLowerCase(Locale.ROOT), input -> CommandFramework.lookupIgnoreCase(constants, input));
+  }
+  
+  /**
+   * Parses a finite double, checking the characters first so that
+   * arguments that are obviously not numbers do not throw.
+   *
+   * @param input The argument
+   *
+   * @return The parsed Double, or null if the argument is not a finite number
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static Object parseDouble(String input) {
+    if(input.isEmpty()) {
+      return null;
+    }
+    
+    for(int i = 0; i < input.length(); i++) {
+      char character = input.charAt(i);
+      
+      if((character < '0' || character > '9') && character != '.' && character != '-' && character != '+' && character != 'e' && character != 'E') {
+        return null;
+      }
+    }
+    
+    try {
+      double value = Double.parseDouble(input);
+      
+      return Double.isInfinite(value) ? null : (Object) value;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+  
+}
@@ -0,0 +1,164 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.command;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * The AsyncCommandContext Class is available to command case methods labeled with the
+ * Async annotation while they run on the worker pool of the CommandFramework.
+ * <p>
+ * The Bukkit API is not thread-safe, so anything touching the world, entities or
+ * inventories has to be handed back to the main thread through this context.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public final class AsyncCommandContext {
+  
+  /**
+   * The context of the asynchronous command running on the current thread.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final ThreadLocal<AsyncCommandContext> currentContext = new ThreadLocal<AsyncCommandContext>();
+  
+  /**
+   * The plugin that main thread tasks are scheduled for.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Plugin plugin;
+  
+  /**
+   * The CommandSender that ran the command.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final CommandSender sender;
+  
+  /**
+   * The time the command waited in the queue, in nanoseconds.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final long queueWaitNanos;
+  
+  /**
+   * Default Constructor for AsyncCommandContext
+   *
+   * @param plugin The plugin that main thread tasks are scheduled for
+   * @param sender The CommandSender that ran the command
+   * @param queueWaitNanos The time the command waited in the queue, in nanoseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  AsyncCommandContext(Plugin plugin, CommandSender sender, long queueWaitNanos) {
+    this.plugin = plugin;
+    this.sender = sender;
+    this.queueWaitNanos = queueWaitNanos;
+  }
+  
+  /**
+   * Gets the context of the asynchronous command running on the current thread.
+   *
+   * @return The context, or null if the current thread is not running an asynchronous command
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static AsyncCommandContext current() {
+    return currentContext.get();
+  }
+  
+  /**
+   * Sets the context of the asynchronous command running on the current thread.
+   *
+   * @param context The context, or null when the command has finished
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static void setCurrent(AsyncCommandContext context) {
+    if(context == null) {
+      currentContext.remove();
+    } else {
+      currentContext.set(context);
+    }
+  }
+  
+  /**
+   * Getter for the CommandSender that ran the command.
+   *
+   * @return The CommandSender that ran the command
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public CommandSender getSender() {
+    return sender;
+  }
+  
+  /**
+   * Getter for the time the command waited in the queue.
+   *
+   * @return The time the command waited in the queue, in nanoseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getQueueWaitNanos() {
+    return queueWaitNanos;
+  }
+  
+  /**
+   * Runs a task on the main thread during the next server tick.
+   *
+   * @param task The task to run
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void runOnMainThread(Runnable task) {
+    Bukkit.getScheduler().runTask(plugin, task);
+  }
+  
+  /**
+   * Calls a task on the main thread during the next server tick.
+   * <p>
+   * The returned Future can be waited on by the command method for the result,
+   * as the command method itself does not block the main thread.
+   *
+   * @param task The task to call
+   * @param <T> The result type of the task
+   *
+   * @return The Future result of the task
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public <T> Future<T> callOnMainThread(Callable<T> task) {
+    return Bukkit.getScheduler().callSyncMethod(plugin, task);
+  }
+  
+}
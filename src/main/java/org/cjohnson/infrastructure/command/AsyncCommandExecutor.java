@@ -0,0 +1,417 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.command;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.cjohnson.infrastructure.api.InfrastructureAPI;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * The AsyncCommandExecutor Class runs command case methods labeled with the Async
+ * annotation on a bounded pool of worker threads.
+ * <p>
+ * Every sender has its own queue, so that the commands of one sender run one after the
+ * other and in the order they were sent, while the commands of different senders run in
+ * parallel. A sender can only have a limited number of commands waiting, and so can the
+ * executor as a whole; commands over these limits are rejected.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class AsyncCommandExecutor {
+  
+  /**
+   * The default number of worker threads.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final int DEFAULT_WORKER_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+  
+  /**
+   * The default number of commands a single sender can have waiting.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final int DEFAULT_MAX_QUEUED_PER_SENDER = 8;
+  
+  /**
+   * The default number of commands that can be waiting in total.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final int DEFAULT_MAX_QUEUED = 256;
+  
+  /**
+   * The worker threads.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final ExecutorService workers;
+  
+  /**
+   * The queues of the senders that have commands waiting or running.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final ConcurrentHashMap<Object, SenderQueue> senderQueues;
+  
+  /**
+   * The number of commands a single sender can have waiting.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int maxQueuedPerSender;
+  
+  /**
+   * The number of commands that can be waiting in total.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int maxQueued;
+  
+  /**
+   * The number of commands currently waiting.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final AtomicInteger queued;
+  
+  /**
+   * Metrics of the executor.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final LongAdder executedCount;
+  private final LongAdder rejectedCount;
+  private final LongAdder totalQueueWaitNanos;
+  private final LongAccumulator maxQueueWaitNanos;
+  
+  /**
+   * Default Constructor for AsyncCommandExecutor
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public AsyncCommandExecutor() {
+    this(DEFAULT_WORKER_THREADS, DEFAULT_MAX_QUEUED_PER_SENDER, DEFAULT_MAX_QUEUED);
+  }
+  
+  /**
+   * Constructor for AsyncCommandExecutor
+   *
+   * @param workerThreads The number of worker threads
+   * @param maxQueuedPerSender The number of commands a single sender can have waiting
+   * @param maxQueued The number of commands that can be waiting in total
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public AsyncCommandExecutor(int workerThreads, int maxQueuedPerSender, int maxQueued) {
+    this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new WorkerThreadFactory());
+    this.senderQueues = new ConcurrentHashMap<Object, SenderQueue>();
+    this.maxQueuedPerSender = maxQueuedPerSender;
+    this.maxQueued = maxQueued;
+    this.queued = new AtomicInteger();
+    
+    this.executedCount = new LongAdder();
+    this.rejectedCount = new LongAdder();
+    this.totalQueueWaitNanos = new LongAdder();
+    this.maxQueueWaitNanos = new LongAccumulator(Math::max, 0L);
+  }
+  
+  /**
+   * Queues a command case method to run on the worker threads.
+   *
+   * @param sender The CommandSender that ran the command
+   * @param subCommand The selected subcommand
+   * @param args The command arguments, which must not be a reused view
+   *
+   * @return Whether the command was queued, false if it was rejected
+   *
+   * @since 0.1.0-ALPHA
+   */
+  boolean submit(CommandSender sender, RegisteredSubCommand subCommand, CommandArgs args) {
+    // Reserve a place in the total queue first.
+    if(queued.incrementAndGet() > maxQueued) {
+      queued.decrementAndGet();
+      rejectedCount.increment();
+      
+      return false;
+    }
+    
+    Object senderKey = sender instanceof Player ? ((Player) sender).getUniqueId() : sender;
+    QueuedCommand queuedCommand = new QueuedCommand(sender, subCommand, args);
+    
+    while(true) {
+      SenderQueue senderQueue = senderQueues.computeIfAbsent(senderKey, SenderQueue::new);
+      
+      synchronized(senderQueue) {
+        // The queue was emptied and removed in the meantime,
+        // so try again with a new queue.
+        if(senderQueue.retired) {
+          continue;
+        }
+        
+        if(senderQueue.commands.size() >= maxQueuedPerSender) {
+          queued.decrementAndGet();
+          rejectedCount.increment();
+          
+          return false;
+        }
+        
+        senderQueue.commands.add(queuedCommand);
+        
+        if(!senderQueue.scheduled) {
+          try {
+            workers.execute(senderQueue);
+          } catch (RejectedExecutionException e) {
+            // The executor has been shut down.
+            senderQueue.commands.pollLast();
+            queued.decrementAndGet();
+            rejectedCount.increment();
+            
+            return false;
+          }
+          
+          senderQueue.scheduled = true;
+        }
+        
+        return true;
+      }
+    }
+  }
+  
+  /**
+   * Runs a queued command on the current worker thread.
+   *
+   * @param queuedCommand The queued command
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void run(QueuedCommand queuedCommand) {
+    queued.decrementAndGet();
+    
+    long queueWaitNanos = System.nanoTime() - queuedCommand.queuedNanos;
+    totalQueueWaitNanos.add(queueWaitNanos);
+    maxQueueWaitNanos.accumulate(queueWaitNanos);
+    executedCount.increment();
+    
+    AsyncCommandContext.setCurrent(new AsyncCommandContext(InfrastructureAPI.getInstance().getInfrastructurePlugin(), queuedCommand.sender, queueWaitNanos));
+    
+    long startNanos = System.nanoTime();
+    boolean failed = false;
+    
+    try {
+      queuedCommand.subCommand.getInvoker().invoke(queuedCommand.subCommand.getSubCommand(), queuedCommand.sender, queuedCommand.args);
+    } catch (Throwable throwable) {
+      failed = true;
+      InfrastructureAPI.getInstance().getPluginLogger().log(Level.SEVERE, "Unhandled exception in asynchronous command case method \"" + queuedCommand.subCommand.getName() + "\"", throwable);
+    } finally {
+      queuedCommand.subCommand.getMetrics().record(System.nanoTime() - startNanos, failed);
+      AsyncCommandContext.setCurrent(null);
+    }
+  }
+  
+  /**
+   * Stops accepting commands and waits for the queued commands to finish.
+   *
+   * @param timeout The maximum time to wait
+   * @param unit The unit of the timeout
+   *
+   * @return Whether all queued commands finished in time
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean shutdown(long timeout, TimeUnit unit) {
+    workers.shutdown();
+    
+    try {
+      return workers.awaitTermination(timeout, unit);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      
+      return false;
+    }
+  }
+  
+  /**
+   * Gets the number of commands currently waiting.
+   *
+   * @return The number of commands currently waiting
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int getQueuedCount() {
+    return queued.get();
+  }
+  
+  /**
+   * Gets the number of commands that have been run.
+   *
+   * @return The number of commands that have been run
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getExecutedCount() {
+    return executedCount.sum();
+  }
+  
+  /**
+   * Gets the number of commands that have been rejected.
+   *
+   * @return The number of commands that have been rejected
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getRejectedCount() {
+    return rejectedCount.sum();
+  }
+  
+  /**
+   * Gets the average time commands waited in the queue.
+   *
+   * @return The average queue wait time, in nanoseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getAverageQueueWaitNanos() {
+    long executed = executedCount.sum();
+    
+    return executed == 0 ? 0 : totalQueueWaitNanos.sum() / executed;
+  }
+  
+  /**
+   * Gets the longest time a command waited in the queue.
+   *
+   * @return The maximum queue wait time, in nanoseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getMaxQueueWaitNanos() {
+    return maxQueueWaitNanos.get();
+  }
+  
+  /**
+   * A command waiting to be run.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final class QueuedCommand {
+    
+    private final CommandSender sender;
+    private final RegisteredSubCommand subCommand;
+    private final CommandArgs args;
+    private final long queuedNanos;
+    
+    private QueuedCommand(CommandSender sender, RegisteredSubCommand subCommand, CommandArgs args) {
+      this.sender = sender;
+      this.subCommand = subCommand;
+      this.args = args;
+      this.queuedNanos = System.nanoTime();
+    }
+    
+  }
+  
+  /**
+   * The queue of a single sender, which runs its commands in order on one worker thread at a time.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final class SenderQueue implements Runnable {
+    
+    private final Object senderKey;
+    
+    /**
+     * The waiting commands, guarded by the SenderQueue.
+     */
+    private final ArrayDeque<QueuedCommand> commands = new ArrayDeque<QueuedCommand>();
+    
+    /**
+     * Whether the queue is handed to a worker thread, guarded by the SenderQueue.
+     */
+    private boolean scheduled;
+    
+    /**
+     * Whether the queue has been removed from the sender queues, guarded by the SenderQueue.
+     */
+    private boolean retired;
+    
+    private SenderQueue(Object senderKey) {
+      this.senderKey = senderKey;
+    }
+    
+    @Override
+    public void run() {
+      while(true) {
+        QueuedCommand queuedCommand;
+        
+        synchronized(this) {
+          queuedCommand = commands.poll();
+          
+          if(queuedCommand == null) {
+            scheduled = false;
+            retired = true;
+            senderQueues.remove(senderKey, this);
+            
+            return;
+          }
+        }
+        
+        AsyncCommandExecutor.this.run(queuedCommand);
+      }
+    }
+    
+  }
+  
+  /**
+   * ThreadFactory creating the named daemon worker threads.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final class WorkerThreadFactory implements ThreadFactory {
+    
+    private final AtomicInteger threadCount = new AtomicInteger();
+    
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "Infrastructure Command Worker #" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      
+      return thread;
+    }
+    
+  }
+  
+}
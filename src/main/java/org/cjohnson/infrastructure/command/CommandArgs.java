@@ -0,0 +1,309 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.command;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+/**
+ * The CommandArgs Class is a read-only view over the arguments of a command, starting
+ * after the subcommand alias.
+ * <p>
+ * The view wraps the argument array given by the Bukkit API without copying it, and the
+ * CommandFramework reuses its views between commands. A CommandArgs is therefore only valid
+ * during the invocation of the command case method it was passed to. Use toArray() to keep
+ * the arguments beyond that.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public final class CommandArgs {
+  
+  /**
+   * Shared empty argument array, returned by toArray() when there are no arguments.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final String[] EMPTY = new String[0];
+  
+  /**
+   * The value returned by parseInt() for arguments that are not an int.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static final long INVALID_INT = Long.MIN_VALUE;
+  
+  /**
+   * The argument array given by the Bukkit API.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private String[] args;
+  
+  /**
+   * The index of the first argument of the view within the argument array.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private int offset;
+  
+  /**
+   * Flag that shows if the view is currently passed to a command case method.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private boolean inUse;
+  
+  /**
+   * Default Constructor for CommandArgs
+   *
+   * @param args The argument array given by the Bukkit API
+   * @param offset The index of the first argument of the view
+   *
+   * @since 0.1.0-ALPHA
+   */
+  CommandArgs(String[] args, int offset) {
+    reset(args, offset);
+  }
+  
+  /**
+   * Points the view at a new argument array.
+   *
+   * @param args The argument array given by the Bukkit API
+   * @param offset The index of the first argument of the view
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void reset(String[] args, int offset) {
+    this.args = args;
+    this.offset = Math.min(offset, args.length);
+  }
+  
+  /**
+   * Getter for the in-use flag.
+   *
+   * @return Whether the view is currently passed to a command case method
+   *
+   * @since 0.1.0-ALPHA
+   */
+  boolean isInUse() {
+    return inUse;
+  }
+  
+  /**
+   * Setter for the in-use flag.
+   *
+   * @param inUse Whether the view is currently passed to a command case method
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void setInUse(boolean inUse) {
+    this.inUse = inUse;
+  }
+  
+  /**
+   * Gets the number of arguments.
+   *
+   * @return The number of arguments
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int size() {
+    return args.length - offset;
+  }
+  
+  /**
+   * Checks if there are no arguments.
+   *
+   * @return Whether there are no arguments
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+  
+  /**
+   * Checks if an argument is present.
+   *
+   * @param index The index of the argument
+   *
+   * @return Whether the argument is present
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean has(int index) {
+    return index >= 0 && index < size();
+  }
+  
+  /**
+   * Gets an argument.
+   *
+   * @param index The index of the argument
+   *
+   * @return The argument, or null if it is not present
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public String get(int index) {
+    return has(index) ? args[offset + index] : null;
+  }
+  
+  /**
+   * Gets an argument as an int.
+   * <p>
+   * The argument is parsed without throwing a NumberFormatException on invalid input.
+   *
+   * @param index The index of the argument
+   * @param defaultValue The value returned when the argument is not present or not an int
+   *
+   * @return The argument as an int
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int getInt(int index, int defaultValue) {
+    long value = parseInt(get(index));
+    
+    return value == INVALID_INT ? defaultValue : (int) value;
+  }
+  
+  /**
+   * Parses an argument as an int, without throwing an exception on invalid input.
+   *
+   * @param argument The argument, may be null
+   *
+   * @return The parsed int, or INVALID_INT if the argument is not an int
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static long parseInt(String argument) {
+    if(argument == null || argument.isEmpty()) {
+      return INVALID_INT;
+    }
+    
+    boolean negative = argument.charAt(0) == '-';
+    int start = negative || argument.charAt(0) == '+' ? 1 : 0;
+    
+    if(start == argument.length()) {
+      return INVALID_INT;
+    }
+    
+    // Accumulate negatively, so that Integer.MIN_VALUE can be parsed.
+    long value = 0;
+    
+    for(int i = start; i < argument.length(); i++) {
+      int digit = argument.charAt(i) - '0';
+      
+      if(digit < 0 || digit > 9) {
+        return INVALID_INT;
+      }
+      
+      value = value * 10 - digit;
+      
+      if(value < Integer.MIN_VALUE) {
+        return INVALID_INT;
+      }
+    }
+    
+    if(!negative && value == Integer.MIN_VALUE) {
+      return INVALID_INT;
+    }
+    
+    return negative ? value : -value;
+  }
+  
+  /**
+   * Gets an argument as the online Player with that exact name.
+   *
+   * @param index The index of the argument
+   *
+   * @return The Player, or null if the argument is not present or the player is not online
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public Player getPlayer(int index) {
+    String argument = get(index);
+    
+    return argument == null ? null : Bukkit.getPlayerExact(argument);
+  }
+  
+  /**
+   * Joins the arguments from an index onwards, separated by spaces.
+   * <p>
+   * This is used for arguments that are free text, such as a message.
+   *
+   * @param index The index of the first argument to join
+   *
+   * @return The joined arguments, or an empty String if there are none
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public String remaining(int index) {
+    if(!has(index)) {
+      return "";
+    }
+    
+    if(index == size() - 1) {
+      return args[offset + index];
+    }
+    
+    StringBuilder builder = new StringBuilder();
+    
+    for(int i = offset + index; i < args.length; i++) {
+      if(i > offset + index) {
+        builder.append(' ');
+      }
+      
+      builder.append(args[i]);
+    }
+    
+    return builder.toString();
+  }
+  
+  /**
+   * Copies the arguments into a new array, that stays valid after the invocation.
+   *
+   * @return The arguments as an array, never null
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public String[] toArray() {
+    int size = size();
+    
+    if(size == 0) {
+      return EMPTY;
+    }
+    
+    String[] copy = new String[size];
+    System.arraycopy(args, offset, copy, 0, size);
+    
+    return copy;
+  }
+  
+  @Override
+  public String toString() {
+    return remaining(0);
+  }
+  
+}
@@ -0,0 +1,48 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.command;
+
+/**
+ * The CommandDispatcher is implemented by the dispatcher classes that the Infrastructure
+ * annotation processor generates for every Command class at compile time.
+ * <p>
+ * A generated dispatcher fills the dispatch table of its command class with direct method
+ * references, so the CommandFramework does not need to scan the class using Java Reflection.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public interface CommandDispatcher {
+  
+  /**
+   * Fills the dispatch table of the command class.
+   *
+   * @param builder The builder of the dispatch table
+   * @param commandObject The command object, an instance of the command class
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void register(CommandTableBuilder builder, Object commandObject);
+  
+}
@@ -24,16 +24,21 @@
 
 package org.cjohnson.infrastructure.command;
 
-import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.command.TabExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.cjohnson.infrastructure.api.InfrastructureAPI;
 import org.cjohnson.infrastructure.command.annotation.*;
+import org.cjohnson.infrastructure.message.MessageTemplate;
 
 import java.lang.annotation.Annotation;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The CommandFramework Class is an overall handler for the Infrastructure Command Registry
@@ -41,24 +46,54 @@ import java.util.ArrayList;
  * The Infrastructure Command Registry is a custom system for handling commands with
  * the Bukkit API platform, with the developers in mind. It is now easy to develop command
  * functionality in a more readable and easy-to-understand way.
+ * <p>
+ * All reflection happens once in addCommand(), where every command class is compiled into
+ * a RegisteredCommand dispatch table and every command case method is bound to a
+ * CommandMethodInvoker. Command classes compiled with the Infrastructure annotation
+ * processor skip the reflection entirely, through their generated CommandDispatcher. Dispatching a command is then one or two hash lookups and a
+ * direct interface call.
+ * <p>
+ * The registry itself is an immutable CommandRegistry snapshot. Adding, removing and replacing
+ * commands publish a new snapshot, so commands can be dispatched from any thread without locking.
  *
  * @since 0.1.0-ALPHA
  */
-public class CommandFramework implements CommandExecutor {
+public class CommandFramework implements TabExecutor {
+  
+  /**
+   * The warning for senders whose asynchronous command queue is full.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final MessageTemplate QUEUE_FULL = MessageTemplate.warning("You have too many commands waiting, please try again in a moment.");
+  
+  /**
+   * The current snapshot of the Infrastructure Command Registry.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private volatile CommandRegistry registry;
   
   /**
-   * The Infrastrucutre Command Registry ArrayList
+   * The lock held while a new registry snapshot is built, so that concurrent changes are not lost.
    *
    * @since 0.1.0-ALPHA
    */
-  private ArrayList<Object> commandObjects;
+  private final Object registryLock = new Object();
   
   /**
-   * Boolean used by checking methods to use less memory and less garbage collection utilities.
+   * The executor running the command case methods labeled with the Async annotation.
    *
    * @since 0.1.0-ALPHA
    */
-  private boolean checkFail;
+  private final AsyncCommandExecutor asyncExecutor;
+  
+  /**
+   * The reusable CommandArgs views passed to command case methods, one per dispatching thread.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final ThreadLocal<CommandArgs> argumentViews = ThreadLocal.withInitial(() -> new CommandArgs(new String[0], 0));
   
   /**
    * Default CommandFramework Constructor
@@ -66,9 +101,8 @@ public class CommandFramework implements CommandExecutor {
    * @since 0.1.0-ALPHA
    */
   public CommandFramework() {
-    commandObjects = new ArrayList<Object>();
-    
-    checkFail = true;
+    registry = CommandRegistry.EMPTY;
+    asyncExecutor = new AsyncCommandExecutor();
   }
   
   /**
@@ -77,238 +111,390 @@ public class CommandFramework implements CommandExecutor {
    * @param commandObject Object to be tested
    * @param baseAlias The alias that is used under the BukkitAPI
    *
+   * @throws IllegalArgumentException If the command class is invalid or one of its aliases is already registered
+   *
    * @since 0.1.0-ALPHA
    */
   public void addCommand(Object commandObject, String baseAlias) {
-    // Perform the Initial Checks to Rule out any
-    // obviously offending classes that are not
-    // able to be properly added to the Infrastructure
-    // Command Registry.
-    performInitialChecks(commandObject);
+    RegisteredCommand registeredCommand = compileCommand(commandObject);
     
-    // Add the Objects to the Class-Level list.
-    commandObjects.add(commandObject);
+    // Publish a new registry snapshot with the command
+    // registered under every alias.
+    synchronized(registryLock) {
+      registry = registry.replace(null, registeredCommand);
+    }
     
     // Add the command to the Bukkit command registry,
     // and set this class (object at runtime) as the
-    // CommandExecutor.
-    InfrastructureAPI.getInstance().getInfrastructurePlugin().getCommand(baseAlias).setExecutor(this);
+    // CommandExecutor and TabCompleter.
+    PluginCommand pluginCommand = InfrastructureAPI.getInstance().getInfrastructurePlugin().getCommand(baseAlias);
+    pluginCommand.setExecutor(this);
+    pluginCommand.setTabCompleter(this);
   }
   
-  @Override
-  public boolean onCommand(CommandSender sender, org.bukkit.command.Command command, String label, String[] args) {
-    checkFail = true;
-    
-    // Null initialization is required here, as we
-    // do not yet have the first object in the loop.
-    Object selectedCommand = null;
-    
-    for(Object commandObject : commandObjects) {
-      // Get the Java Relection Class Object
-      Class<?> commandClass = commandObject.getClass();
-      
-      // Perform the class check to rule out any obvious
-      // offenders that cannot properly be parsed.
-      selectedCommand = performObjectClassCheck(command, selectedCommand, commandObject, commandClass);
+  /**
+   * The removeCommand() method removes a class/object from the Infrastructure Command Registry.
+   * <p>
+   * Commands that are already running or queued still finish. The command stays known to
+   * Bukkit, but is no longer handled until a command with the same alias is added again.
+   *
+   * @param commandObject The command object that was added
+   *
+   * @return Whether the command object was registered
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean removeCommand(Object commandObject) {
+    synchronized(registryLock) {
+      RegisteredCommand registeredCommand = registry.find(commandObject);
       
-      // Another null buffer to make sure that errors are
-      // not thrown.
-      if(selectedCommand == null) {
-        continue;
+      if(registeredCommand == null) {
+        return false;
       }
       
-      // Null initializations are required here,
-      // for the reflexive loops to follow.
-      SubCommand selectedSubCommand = null;
-      Method selectedMethod = null;
+      registry = registry.replace(registeredCommand, null);
       
-      // These large, intimidating blocks are necessary due to the
-      // structure and layering of Java Reflection. Each layer from
-      // Class to Method to Annotation is just a simple iterative
-      // search.
-      
-      // Process the current command and find the correct
-      // Command and invoke the proper method using Java
-      // Reflection Utilities.
-      if(args.length == 0) {
-        
-        // Iterate through the class methods
-        for(Method method : commandClass.getMethods()) {
-          
-          // Loop through the annotations of the method
-          for(Annotation annotation : method.getAnnotations()) {
-            
-            // Check if the annotation is an instance
-            if(annotation instanceof SubCommand) {
-              
-              // Check if the method is a default command, because this case
-              // is looking for the default command case.
-              if(method.isAnnotationPresent(DefaultCommand.class)) {
-                // When found, set the selected objects to the current
-                // Annotation for later processing and invocation.
-                selectedMethod = method;
-                selectedSubCommand = (SubCommand) annotation;
-              }
-            }
-          }
-        }
-      } else {
+      return true;
+    }
+  }
   
-        // Iterate through the class methods
-        for(Method method : commandClass.getMethods()) {
+  /**
+   * The replaceCommand() method swaps a registered class/object for a new one in a single step,
+   * so that no command runs against a registry where neither is present.
+   *
+   * @param oldCommandObject The command object that was added
+   * @param newCommandObject The command object to add in its place
+   *
+   * @throws IllegalArgumentException If the old command object is not registered, the new
+   *                                  command class is invalid or one of its aliases is
+   *                                  registered by another command
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void replaceCommand(Object oldCommandObject, Object newCommandObject) {
+    RegisteredCommand newRegisteredCommand = compileCommand(newCommandObject);
+    
+    synchronized(registryLock) {
+      RegisteredCommand oldRegisteredCommand = registry.find(oldCommandObject);
+      
+      if(oldRegisteredCommand == null) {
+        throw new IllegalArgumentException("Given CommandObject is not registered");
+      }
+      
+      registry = registry.replace(oldRegisteredCommand, newRegisteredCommand);
+    }
+  }
   
-          // Loop through the annotations of the method
-          for(Annotation annotation : method.getAnnotations()) {
+  /**
+   * The compileCommand() method compiles a class/object into its dispatch table.
+   *
+   * @param commandObject The Object passed as a Command Class.
+   *
+   * @return The dispatch table of the command.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private RegisteredCommand compileCommand(Object commandObject) {
+    // Use the dispatcher generated at compile time when
+    // there is one. Its command class has already been
+    // checked by the annotation processor.
+    CommandDispatcher dispatcher = DispatcherIndex.findDispatcher(commandObject.getClass());
+    RegisteredCommand registeredCommand;
+    
+    if(dispatcher != null) {
+      CommandTableBuilder builder = new CommandTableBuilder(commandObject);
+      dispatcher.register(builder, commandObject);
+      
+      registeredCommand = builder.build();
+    } else {
+      // Perform the Initial Checks to Rule out any
+      // obviously offending classes that are not
+      // able to be properly added to the Infrastructure
+      // Command Registry.
+      performInitialChecks(commandObject);
+      
+      // Compile the command class into its dispatch table,
+      // so that no reflection scanning is needed when the
+      // command is run.
+      registeredCommand = buildRegisteredCommand(commandObject);
+    }
+    
+    return registeredCommand;
+  }
   
-            // Check if the annotation is an instance
-            if(annotation instanceof SubCommand) {
-              
-              // Cast the annotation to that of type in order
-              // To retrieve values from it.
-              SubCommand subCommand = (SubCommand) annotation;
-              
-              // Iterate through the aliases to check if we've found the
-              // correct alias.
-              for(String alias : subCommand.aliases()) {
-                if(args[0].equalsIgnoreCase(alias)) {
-                  // When found, set the selected objects to the current
-                  // Annotation for later processing and invocation.
-                  selectedMethod = method;
-                  selectedSubCommand = subCommand;
-                }
-              }
-            }
-          }
-        }
-      }
+  @Override
+  public boolean onCommand(CommandSender sender, org.bukkit.command.Command command, String label, String[] args) {
+    // Find the dispatch table for the command. Bukkit command
+    // names are almost always lowercase already, so the lowercase
+    // copy is only made on a miss.
+    RegisteredCommand registeredCommand = registry.lookup(command.getName());
+    
+    if(registeredCommand == null) {
+      return false;
+    }
+    
+    // Select the subcommand by its first argument, falling
+    // back onto the default command when there is no argument
+    // or the argument is not a known subcommand alias.
+    RegisteredSubCommand selectedSubCommand = null;
+    int argumentOffset = 0;
+    
+    if(args.length > 0) {
+      selectedSubCommand = lookupIgnoreCase(registeredCommand.getSubCommandMap(), args[0]);
       
-      // Null Buffers to ensure correctly constructed
-      // arguments are passed.
-      if(selectedMethod == null) {
-        throw new IllegalArgumentException("Default Command Case thrown, no methods with annotation instance of \"org.cjohnson.infrastructure.command.annotation.DefaultCommand\"");
+      // The subcommand alias is not an argument of the subcommand.
+      if(selectedSubCommand != null) {
+        argumentOffset = 1;
       }
+    }
+    
+    if(selectedSubCommand == null) {
+      selectedSubCommand = registeredCommand.getDefaultCommand();
+    }
+    
+    // Check if the sender is not a player,
+    // Since all Infrastructure commands
+    // are player-run this then invokes the
+    // custom error case method.
+    if(!(sender instanceof Player)) {
+      invoke(registeredCommand.getNotPlayerInvoker(), selectedSubCommand, sender, args, argumentOffset);
       
-      if(selectedSubCommand == null) {
-        throw new IllegalArgumentException("Default Command Case thrown, method found, no annotation instance of \"org.cjohnson.infrastructure.command.annotation.DefaultCommand\"");
-      }
+      return true;
+    }
+    
+    // Check if the sender does not have permission,
+    // if so, invokes the custom error case method.
+    if(!sender.hasPermission(selectedSubCommand.getPermission())) {
+      invoke(registeredCommand.getNoPermissionInvoker(), selectedSubCommand, sender, args, argumentOffset);
       
-      // Again, due to the nature of Java Reflection,
-      // this type of search is necessary.
+      return true;
+    }
+    
+    // Check if the Cooldown or RateLimit of the command
+    // has not passed yet, if so, invokes the custom error
+    // case method.
+    if(selectedSubCommand.isThrottled() && !selectedSubCommand.tryAcquire(((Player) sender).getUniqueId())) {
+      invoke(registeredCommand.getOnCooldownInvoker(), selectedSubCommand, sender, args, argumentOffset);
       
-      // Check if the sender is not a player,
-      // Since all Infrastructure commands
-      // are player-run this then finds the
-      // custom error case and invokes the
-      // custom method.
-      if(!(sender instanceof Player)) {
-        
-        // Iterate through Class Methods.
-        for(Method method : commandClass.getMethods()) {
-          
-          // Iterate through Method Annotations.
-          for(Annotation annotation : method.getAnnotations()) {
-            
-            // Check if the annotation is an instance of
-            // the NotPlayer method annotation.
-            if(annotation instanceof NotPlayer) {
-              
-              // Invoke the method using Java Reflection.
-              try {
-                method.invoke(selectedCommand, selectedSubCommand, sender, getTrimmedArguments(args));
-              } catch (IllegalAccessException e) {
-                e.printStackTrace();
-              } catch (InvocationTargetException e) {
-                e.printStackTrace();
-              }
-              
-              return false;
-            }
-          }
+      return true;
+    }
+    
+    // Hand asynchronous command case methods over to the
+    // worker threads. They get a view of their own, as they
+    // keep it after this method returns. A rejected command
+    // gives its run back, as it never happens.
+    if(selectedSubCommand.isAsync()) {
+      if(!asyncExecutor.submit(sender, selectedSubCommand, new CommandArgs(args, argumentOffset))) {
+        if(selectedSubCommand.isThrottled()) {
+          selectedSubCommand.release(((Player) sender).getUniqueId());
         }
-      }
-      
-      // Check if the sender does not have permission,
-      // if so, finds the custom error case and invokes
-      // it using Java Reflection.
-      if(!sender.hasPermission(selectedSubCommand.permission())) {
         
-        // Iterate through Class Methods.
-        for(Method method : commandClass.getMethods()) {
-          
-          // Iterate through Method Annotations.
-          for(Annotation annotation : method.getAnnotations()) {
-            
-            // Check if the given annotation is an instance of
-            // the NoPermission command method annotation.
-            if(annotation instanceof NoPermission) {
-              
-              // Invoke the case method using Java Reflection.
-              try {
-                method.invoke(selectedCommand, selectedSubCommand, sender, getTrimmedArguments(args));
-              } catch (IllegalAccessException e) {
-                e.printStackTrace();
-              } catch (InvocationTargetException e) {
-                e.printStackTrace();
-              }
-              
-              return false;
-            }
-          }
-        }
+        QUEUE_FULL.send(sender);
       }
       
-      // After all quick tests are done,
-      // Invoke the proper command case method
-      // using Java Reflection.
-      try {
-        selectedMethod.invoke(selectedCommand, selectedSubCommand, sender, getTrimmedArguments(args));
-      } catch (IllegalAccessException e) {
-        e.printStackTrace();
-      } catch (InvocationTargetException e) {
-        e.printStackTrace();
+      return true;
+    }
+    
+    // After all quick tests are done,
+    // Invoke the proper command case method,
+    // timing it for the command metrics.
+    long startNanos = System.nanoTime();
+    boolean failed = true;
+    
+    try {
+      invoke(selectedSubCommand.getInvoker(), selectedSubCommand, sender, args, argumentOffset);
+      failed = false;
+    } finally {
+      selectedSubCommand.getMetrics().record(System.nanoTime() - startNanos, failed);
+    }
+    
+    return true;
+  }
+  
+  @Override
+  public List<String> onTabComplete(CommandSender sender, org.bukkit.command.Command command, String alias, String[] args) {
+    List<String> completions = new ArrayList<String>();
+    RegisteredCommand registeredCommand = registry.lookup(command.getName());
+    
+    if(registeredCommand == null || args.length == 0) {
+      return completions;
+    }
+    
+    // The first argument is the subcommand alias, every
+    // argument after it is completed as a player name. So
+    // is the first argument when no alias matches it, such
+    // as for the default command of /msg <player>.
+    if(args.length == 1) {
+      registeredCommand.getAliasTrie().complete(args[0], sender, completions);
+    }
+    
+    if(completions.isEmpty()) {
+      InfrastructureAPI.getInstance().getPlayerHandler().getNameIndex().complete(args[args.length - 1], completions);
+    }
+    
+    return completions;
+  }
+  
+  /**
+   * The shutdown() method stops the asynchronous command executor, waiting a bounded
+   * time for queued commands to finish.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void shutdown() {
+    if(!asyncExecutor.shutdown(5, TimeUnit.SECONDS)) {
+      InfrastructureAPI.getInstance().getPluginLogger().warning("Asynchronous commands did not finish within 5 seconds");
+    }
+  }
+  
+  /**
+   * Getter for the executor running asynchronous command case methods.
+   *
+   * @return The asynchronous command executor
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public AsyncCommandExecutor getAsyncExecutor() {
+    return asyncExecutor;
+  }
+  
+  /**
+   * The getCommandStats() method takes a snapshot of the metrics of every registered command case method.
+   *
+   * @return The metrics of every command case method, grouped by command
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public List<CommandStats> getCommandStats() {
+    List<CommandStats> commandStats = new ArrayList<CommandStats>();
+    
+    for(RegisteredCommand registeredCommand : registry.getCommands()) {
+      for(RegisteredSubCommand registeredSubCommand : registeredCommand.getSubCommands()) {
+        commandStats.add(registeredSubCommand.getMetrics().snapshot(registeredCommand.getAliases()[0], registeredSubCommand.getName(), registeredSubCommand.isAsync()));
       }
     }
     
-    return false;
+    return commandStats;
+  }
+  
+  /**
+   * The invoke() method invokes a bound command case method.
+   *
+   * @param invoker The bound command case method to invoke.
+   * @param subCommand The selected subcommand.
+   * @param sender The CommandSender passed by the Bukkit API.
+   * @param args The arguments passed by the Bukkit API.
+   * @param argumentOffset The index of the first argument of the subcommand.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void invoke(CommandMethodInvoker invoker, RegisteredSubCommand subCommand, CommandSender sender, String[] args, int argumentOffset) {
+    // Reuse the view of this thread, unless it is still passed
+    // to a command case method that dispatched another command.
+    CommandArgs commandArgs = argumentViews.get();
+    
+    if(commandArgs.isInUse()) {
+      commandArgs = new CommandArgs(args, argumentOffset);
+    } else {
+      commandArgs.reset(args, argumentOffset);
+    }
+    
+    commandArgs.setInUse(true);
+    
+    try {
+      invoker.invoke(subCommand.getSubCommand(), sender, commandArgs);
+    } finally {
+      commandArgs.setInUse(false);
+    }
+  }
+  
+  /**
+   * The lookupIgnoreCase() method looks up an alias in a map keyed by lowercase aliases.
+   * <p>
+   * The exact alias is tried first, so the lowercase copy of the alias is only
+   * created when the alias was not typed in lowercase.
+   *
+   * @param map The map keyed by lowercase aliases.
+   * @param alias The alias to look up.
+   * @param <T> The value type of the map.
+   *
+   * @return The mapped value, or null if the alias is not registered.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static <T> T lookupIgnoreCase(HashMap<String, T> map, String alias) {
+    T value = map.get(alias);
+    
+    if(value == null) {
+      value = map.get(alias.toLowerCase(Locale.ROOT));
+    }
+    
+    return value;
   }
   
   /**
-   * The performObjectClassCheck() method is used to check the Class-Level Annotations for the correct parameters and Annotations.
+   * The buildRegisteredCommand() method compiles a command class into its dispatch table.
    * <p>
-   * If a proper alias or annotation is not found by the logic presented, the return value becomes null, which signifies an
-   * error, and will then throw an IllegalArgumentException.
+   * This is the only place where the command class is scanned using Java Reflection.
    *
-   * @param command Command Object passed by the Bukkit API.
-   * @param selectedCommand The selected command that will be defined by the commandObject if the commandObject is constructed correctly.
-   * @param commandObject Command Object passed based on current iteration of the command search.
-   * @param commandClass The class object that is used to reference its annotations.
+   * @param commandObject The Object passed as a Command Class.
    *
-   * @return The selected command object.
+   * @return The dispatch table of the command.
    *
    * @since 0.1.0-ALPHA
    */
-  private Object performObjectClassCheck(org.bukkit.command.Command command, Object selectedCommand, Object commandObject, Class<?> commandClass) {
-    // Iterate through Class Annotations
-    for(Annotation annotation : commandClass.getAnnotations()) {
+  private RegisteredCommand buildRegisteredCommand(Object commandObject) {
+    Class<?> commandClass = commandObject.getClass();
+    Command command = commandClass.getAnnotation(Command.class);
+    
+    CommandTableBuilder builder = new CommandTableBuilder(commandObject);
+    builder.command(command.aliases(), command.permission());
+    
+    // Iterate through the class methods once, and
+    // sort every annotated method into the table.
+    for(Method method : commandClass.getMethods()) {
+      SubCommand subCommand = method.getAnnotation(SubCommand.class);
+      boolean defaultCommand = method.isAnnotationPresent(DefaultCommand.class);
       
-      // Check if the annotation is an instance of
-      // Command.
-      if(annotation instanceof Command) {
-        // Cast the annotation to the Command type
-        // to perform Annotation-Specific functions.
-        Command commandAnno = (Command) annotation;
+      if(subCommand != null || defaultCommand) {
+        CommandMethodInvoker invoker = CommandInvokerFactory.isTyped(method) ? CommandInvokerFactory.bindTyped(commandObject, method) : CommandInvokerFactory.bind(commandObject, method);
+        builder.subCommand(method.getName(), subCommand, defaultCommand, invoker);
         
-        // Loop through aliases and find the matching
-        // alias.
-        for(String alias : commandAnno.aliases()) {
-          if(command.getName().equalsIgnoreCase(alias)) {
-            // Select the object as the new selected command.
-            selectedCommand = commandObject;
-          }
+        if(method.isAnnotationPresent(Async.class)) {
+          builder.async(method.getName());
+        }
+        
+        Cooldown cooldown = method.getAnnotation(Cooldown.class);
+        
+        if(cooldown != null) {
+          builder.cooldown(method.getName(), cooldown.seconds());
+        }
+        
+        RateLimit rateLimit = method.getAnnotation(RateLimit.class);
+        
+        if(rateLimit != null) {
+          builder.rateLimit(method.getName(), rateLimit.permits(), rateLimit.window());
         }
       }
+      
+      if(method.isAnnotationPresent(NoPermission.class)) {
+        builder.noPermission(CommandInvokerFactory.bind(commandObject, method));
+      }
+      
+      if(method.isAnnotationPresent(NotPlayer.class)) {
+        builder.notPlayer(CommandInvokerFactory.bind(commandObject, method));
+      }
+      
+      if(method.isAnnotationPresent(OnCooldown.class)) {
+        builder.onCooldown(CommandInvokerFactory.bind(commandObject, method));
+      }
+      
+      if(method.isAnnotationPresent(InvalidArgument.class)) {
+        builder.invalidArgument(CommandInvokerFactory.bindInvalidArgument(commandObject, method));
+      }
     }
-    return selectedCommand;
+    
+    return builder.build();
   }
   
   /**
@@ -321,7 +507,8 @@ public class CommandFramework implements CommandExecutor {
    * @since 0.1.0-ALPHA
    */
   private void performInitialChecks(Object commandObject) {
-    checkFail = true;
+    // Local to the call, so that concurrent registrations do not share it.
+    boolean checkFail = true;
     
     // Get Class Object from Argument Object
     Class<?> commandObjectClass = commandObject.getClass();
@@ -407,33 +594,4 @@ public class CommandFramework implements CommandExecutor {
     }
   }
   
-  /**
-   * The getTrimmedArguments() method is used to trim a standard Bukkit Command into an array of only its arguments.
-   *
-   * @param args The Bukkit API given arguments
-   *
-   * @return Trimmed Arguments of String Array (original command)
-   *
-   * @since 0.1.0-ALPHA
-   */
-  private String[] getTrimmedArguments(String[] args) {
-    // Prevent Errors with small commands by only allowing
-    // Argument lists of a certain size.
-    if(args.length < 2) {
-      return null;
-    }
-    
-    // Grabs length of new String Array
-    int n = args.length - 1;
-    
-    // Initialize new String Array
-    String[] newArgs = new String[n];
-    
-    // Use the System Arraycopy function to copy
-    // the contents over to the new array.
-    System.arraycopy(args, 1, newArgs, 0, n);
-    
-    return newArgs;
-  }
-  
-}
\ No newline at end of file
+}
@@ -0,0 +1,357 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.command;
+
+import org.bukkit.command.CommandException;
+import org.bukkit.command.CommandSender;
+import org.cjohnson.infrastructure.command.annotation.Arg;
+import org.cjohnson.infrastructure.command.annotation.SubCommand;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+
+/**
+ * The CommandInvokerFactory binds command case methods to CommandMethodInvokers.
+ * <p>
+ * Methods are bound through the LambdaMetafactory, which generates a class implementing
+ * CommandMethodInvoker that calls the method directly and can be inlined by the JIT. When
+ * that is not possible, for example because the command class is not visible from the
+ * Infrastructure class loader, the method is bound through a MethodHandle instead.
+ *
+ * @since 0.1.0-ALPHA
+ */
+final class CommandInvokerFactory {
+  
+  /**
+   * The method type of CommandMethodInvoker.invoke()
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, SubCommand.class, CommandSender.class, CommandArgs.class);
+  
+  /**
+   * The method type of ArrayInvoker.invoke(), for command case methods taking a String[]
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final MethodType ARRAY_INVOKER_TYPE = MethodType.methodType(void.class, SubCommand.class, CommandSender.class, String[].class);
+  
+  /**
+   * The method type of the method handles invoked by TypedCommandInvoker
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final MethodType TYPED_INVOKER_TYPE = MethodType.methodType(void.class, SubCommand.class, CommandSender.class, Object[].class);
+  
+  /**
+   * The method type of InvalidArgumentHandler.handle()
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final MethodType INVALID_ARGUMENT_TYPE = MethodType.methodType(void.class, SubCommand.class, CommandSender.class, ArgumentError.class);
+  
+  /**
+   * Method handle of CommandArgs.toArray()
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final MethodHandle TO_ARRAY;
+  
+  static {
+    try {
+      TO_ARRAY = MethodHandles.lookup().findVirtual(CommandArgs.class, "toArray", MethodType.methodType(String[].class));
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+  
+  /**
+   * Private Constructor, as this class only has static methods.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private CommandInvokerFactory() {}
+  
+  /**
+   * The bind() method binds a command case method of a command object to a CommandMethodInvoker.
+   *
+   * @param commandObject The command object that the method is invoked on
+   * @param method The command case method
+   *
+   * @return The bound CommandMethodInvoker
+   *
+   * @throws IllegalArgumentException If the method does not have a command case method signature
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static CommandMethodInvoker bind(Object commandObject, Method method) {
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    MethodHandle methodHandle;
+    
+    try {
+      methodHandle = lookup.unreflect(method);
+    } catch (IllegalAccessException e) {
+      throw new IllegalArgumentException("Command case method \"" + method + "\" is not accessible", e);
+    }
+    
+    Class<?>[] parameterTypes = method.getParameterTypes();
+    boolean arrayArguments = parameterTypes.length == 3 && parameterTypes[2] == String[].class;
+    
+    // Only spin a lambda class when the generated class will
+    // be able to link against the declaring class.
+    if(isLinkable(method.getDeclaringClass())) {
+      try {
+        if(arrayArguments) {
+          final ArrayInvoker arrayInvoker = (ArrayInvoker) bindLambda(lookup, methodHandle, commandObject, method.getDeclaringClass(), ArrayInvoker.class, ARRAY_INVOKER_TYPE);
+          
+          return (subCommand, sender, args) -> arrayInvoker.invoke(subCommand, sender, args.toArray());
+        }
+        
+        return (CommandMethodInvoker) bindLambda(lookup, methodHandle, commandObject, method.getDeclaringClass(), CommandMethodInvoker.class, INVOKER_TYPE);
+      } catch (Throwable ignored) {
+        // Fall through to the MethodHandle based invoker.
+      }
+    }
+    
+    return bindMethodHandle(arrayArguments ? MethodHandles.filterArguments(methodHandle, 3, TO_ARRAY) : methodHandle, commandObject, method);
+  }
+  
+  /**
+   * The isTyped() method checks if a command case method has typed Arg parameters.
+   *
+   * @param method The command case method
+   *
+   * @return Whether any parameter is labeled with the Arg annotation
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static boolean isTyped(Method method) {
+    for(Parameter parameter : method.getParameters()) {
+      if(parameter.isAnnotationPresent(Arg.class)) {
+        return true;
+      }
+    }
+    
+    return false;
+  }
+  
+  /**
+   * The bindTyped() method binds a command case method with typed Arg parameters.
+   * <p>
+   * The method has an optional SubCommand parameter, a CommandSender (or Player) parameter
+   * and then only Arg parameters. The parser of every Arg parameter is resolved here, once.
+   *
+   * @param commandObject The command object that the method is invoked on
+   * @param method The command case method
+   *
+   * @return The bound TypedCommandInvoker
+   *
+   * @throws IllegalArgumentException If the method signature is invalid or an Arg type is not supported
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static TypedCommandInvoker bindTyped(Object commandObject, Method method) {
+    Parameter[] parameters = method.getParameters();
+    int first = parameters.length > 0 && parameters[0].getType() == SubCommand.class ? 1 : 0;
+    
+    if(parameters.length <= first || !CommandSender.class.isAssignableFrom(parameters[first].getType())) {
+      throw new IllegalArgumentException("Command case method \"" + method + "\" must have the parameters ([SubCommand,] CommandSender, @Arg ...)");
+    }
+    
+    int argumentCount = parameters.length - first - 1;
+    ArgumentParser[] parsers = new ArgumentParser[argumentCount];
+    String[] names = new String[argumentCount];
+    
+    for(int i = 0; i < argumentCount; i++) {
+      Parameter parameter = parameters[first + 1 + i];
+      Arg arg = parameter.getAnnotation(Arg.class);
+      
+      if(arg == null) {
+        throw new IllegalArgumentException("Parameter " + (first + 1 + i) + " of command case method \"" + method + "\" is not labeled with the Arg annotation");
+      }
+      
+      parsers[i] = ArgumentParser.forType(parameter.getType());
+      
+      if(parsers[i] == null) {
+        throw new IllegalArgumentException("Parameter type " + parameter.getType().getName() + " of command case method \"" + method + "\" is not supported by the Arg annotation");
+      }
+      
+      names[i] = arg.value().isEmpty() ? parsers[i].getDescription() : arg.value();
+    }
+    
+    MethodHandle methodHandle;
+    
+    try {
+      methodHandle = MethodHandles.lookup().unreflect(method).bindTo(commandObject);
+    } catch (IllegalAccessException e) {
+      throw new IllegalArgumentException("Command case method \"" + method + "\" is not accessible", e);
+    }
+    
+    if(first == 0) {
+      methodHandle = MethodHandles.dropArguments(methodHandle, 0, SubCommand.class);
+    }
+    
+    // Spread the parsed arguments over the Arg parameters,
+    // unboxing them where the parameters are primitive.
+    methodHandle = methodHandle.asSpreader(Object[].class, argumentCount).asType(TYPED_INVOKER_TYPE);
+    
+    boolean greedyLast = argumentCount > 0 && parameters[parameters.length - 1].getType() == String.class;
+    
+    return new TypedCommandInvoker(methodHandle, method.getName(), parsers, names, greedyLast);
+  }
+  
+  /**
+   * The bindInvalidArgument() method binds an InvalidArgument error case method.
+   *
+   * @param commandObject The command object that the method is invoked on
+   * @param method The InvalidArgument error case method
+   *
+   * @return The bound InvalidArgumentHandler
+   *
+   * @throws IllegalArgumentException If the method does not have the parameters (SubCommand, CommandSender, ArgumentError)
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static InvalidArgumentHandler bindInvalidArgument(Object commandObject, Method method) {
+    final MethodHandle boundHandle;
+    
+    try {
+      boundHandle = MethodHandles.lookup().unreflect(method).bindTo(commandObject).asType(INVALID_ARGUMENT_TYPE);
+    } catch (IllegalAccessException | RuntimeException e) {
+      throw new IllegalArgumentException("InvalidArgument method \"" + method + "\" must be accessible and have the parameters (SubCommand, CommandSender, ArgumentError)", e);
+    }
+    
+    return (subCommand, sender, error) -> {
+      try {
+        boundHandle.invokeExact(subCommand, sender, error);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable throwable) {
+        throw new CommandException("Unhandled exception in InvalidArgument method \"" + method.getName() + "\"", throwable);
+      }
+    };
+  }
+  
+  /**
+   * The bindLambda() method binds a method handle through the LambdaMetafactory.
+   *
+   * @param lookup The lookup used to create the method handle
+   * @param methodHandle The method handle of the command case method
+   * @param commandObject The command object that the method is invoked on
+   * @param declaringClass The class declaring the command case method
+   * @param invokerInterface The functional interface to implement
+   * @param invokerType The method type of the functional interface method
+   *
+   * @return The bound invoker, an instance of the functional interface
+   *
+   * @throws Throwable If the LambdaMetafactory can not bind the method
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static Object bindLambda(MethodHandles.Lookup lookup, MethodHandle methodHandle, Object commandObject, Class<?> declaringClass, Class<?> invokerInterface, MethodType invokerType) throws Throwable {
+    CallSite callSite = LambdaMetafactory.metafactory(
+      lookup,
+      "invoke",
+      MethodType.methodType(invokerInterface, declaringClass),
+      invokerType,
+      methodHandle,
+      invokerType
+    );
+    
+    return callSite.getTarget().invoke(commandObject);
+  }
+  
+  /**
+   * The bindMethodHandle() method binds a method handle without generating a class.
+   *
+   * @param methodHandle The method handle of the command case method, taking CommandArgs
+   * @param commandObject The command object that the method is invoked on
+   * @param method The command case method
+   *
+   * @return The bound CommandMethodInvoker
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static CommandMethodInvoker bindMethodHandle(MethodHandle methodHandle, Object commandObject, Method method) {
+    final MethodHandle boundHandle;
+    
+    try {
+      boundHandle = methodHandle.bindTo(commandObject).asType(INVOKER_TYPE);
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("Command case method \"" + method + "\" does not have the signature (SubCommand, CommandSender, CommandArgs) or (SubCommand, CommandSender, String[])", e);
+    }
+    
+    return (subCommand, sender, args) -> {
+      try {
+        boundHandle.invokeExact(subCommand, sender, args);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable throwable) {
+        throw new CommandException("Unhandled exception in command case method \"" + method.getName() + "\"", throwable);
+      }
+    };
+  }
+  
+  /**
+   * The ArrayInvoker is the functional interface that command case methods
+   * taking a String[] are bound to, before being adapted to CommandArgs.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  @FunctionalInterface
+  interface ArrayInvoker {
+    
+    void invoke(SubCommand subCommand, CommandSender sender, String[] args);
+    
+  }
+  
+  /**
+   * The isLinkable() method checks if classes generated by the LambdaMetafactory can link against a class.
+   *
+   * @param declaringClass The class declaring a command case method
+   *
+   * @return Whether the class is public and visible from the Infrastructure class loader
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static boolean isLinkable(Class<?> declaringClass) {
+    if(!Modifier.isPublic(declaringClass.getModifiers())) {
+      return false;
+    }
+    
+    try {
+      return Class.forName(declaringClass.getName(), false, CommandInvokerFactory.class.getClassLoader()) == declaringClass;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+  
+}
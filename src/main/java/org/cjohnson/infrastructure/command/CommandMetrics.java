@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.command;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The CommandMetrics Class counts the runs of a single command case method.
+ *
+ * @since 0.1.0-ALPHA
+ */
+final class CommandMetrics {
+  
+  /**
+   * The number of runs of the command case method.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final LongAdder invocations;
+  
+  /**
+   * The number of runs that threw an exception.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final LongAdder errors;
+  
+  /**
+   * The run times of the command case method.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final LatencyHistogram latencies;
+  
+  /**
+   * Default Constructor for CommandMetrics
+   *
+   * @since 0.1.0-ALPHA
+   */
+  CommandMetrics() {
+    this.invocations = new LongAdder();
+    this.errors = new LongAdder();
+    this.latencies = new LatencyHistogram();
+  }
+  
+  /**
+   * Records a run of the command case method.
+   *
+   * @param nanos The run time, in nanoseconds
+   * @param failed Whether the run threw an exception
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void record(long nanos, boolean failed) {
+    invocations.increment();
+    
+    if(failed) {
+      errors.increment();
+    }
+    
+    latencies.record(nanos);
+  }
+  
+  /**
+   * Takes a snapshot of the metrics.
+   *
+   * @param command The primary alias of the command
+   * @param subCommand The name of the command case method
+   * @param async Whether the command case method runs asynchronously
+   *
+   * @return The snapshot of the metrics
+   *
+   * @since 0.1.0-ALPHA
+   */
+  CommandStats snapshot(String command, String subCommand, boolean async) {
+    return new CommandStats(command, subCommand, async, invocations.sum(), errors.sum(),
+      latencies.getQuantile(0.5), latencies.getQuantile(0.99), latencies.getMax());
+  }
+  
+}
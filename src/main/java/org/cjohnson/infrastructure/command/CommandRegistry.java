@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.command;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The CommandRegistry Class is an immutable snapshot of the Infrastructure Command Registry.
+ * <p>
+ * A snapshot is never changed after it is built. Adding, removing or replacing a command
+ * builds a new snapshot, which the CommandFramework then publishes in one volatile write,
+ * so that dispatching threads always see a complete registry without taking a lock.
+ *
+ * @since 0.1.0-ALPHA
+ */
+final class CommandRegistry {
+  
+  /**
+   * The registry without any commands.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static final CommandRegistry EMPTY = new CommandRegistry(new HashMap<String, RegisteredCommand>(), new ArrayList<RegisteredCommand>());
+  
+  /**
+   * Every lowercase command alias, mapped to its compiled dispatch table.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final HashMap<String, RegisteredCommand> commandMap;
+  
+  /**
+   * Every registered command, in the order they were added.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final List<RegisteredCommand> commands;
+  
+  /**
+   * Constructor for CommandRegistry, taking ownership of the given collections.
+   *
+   * @param commandMap Every lowercase command alias, mapped to its dispatch table
+   * @param commands Every registered command
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private CommandRegistry(HashMap<String, RegisteredCommand> commandMap, ArrayList<RegisteredCommand> commands) {
+    this.commandMap = commandMap;
+    this.commands = Collections.unmodifiableList(commands);
+  }
+  
+  /**
+   * Looks up a command by one of its aliases, ignoring case.
+   *
+   * @param alias The alias of the command
+   *
+   * @return The dispatch table of the command, or null if the alias is not registered
+   *
+   * @since 0.1.0-ALPHA
+   */
+  RegisteredCommand lookup(String alias) {
+    return CommandFramework.lookupIgnoreCase(commandMap, alias);
+  }
+  
+  /**
+   * Finds the command registered for a command object.
+   *
+   * @param commandObject The command object
+   *
+   * @return The dispatch table of the command, or null if the command object is not registered
+   *
+   * @since 0.1.0-ALPHA
+   */
+  RegisteredCommand find(Object commandObject) {
+    for(RegisteredCommand registeredCommand : commands) {
+      if(registeredCommand.getCommandObject() == commandObject) {
+        return registeredCommand;
+      }
+    }
+    
+    return null;
+  }
+  
+  /**
+   * Getter for the registered commands.
+   *
+   * @return An unmodifiable list of every registered command
+   *
+   * @since 0.1.0-ALPHA
+   */
+  List<RegisteredCommand> getCommands() {
+    return commands;
+  }
+  
+  /**
+   * Builds a new registry where one command is replaced by another.
+   *
+   * @param removed The command to remove, or null to only add
+   * @param added The command to add, or null to only remove
+   *
+   * @return The new registry
+   *
+   * @throws IllegalArgumentException If an alias of the added command is already registered by another command
+   *
+   * @since 0.1.0-ALPHA
+   */
+  CommandRegistry replace(RegisteredCommand removed, RegisteredCommand added) {
+    HashMap<String, RegisteredCommand> newCommandMap = new HashMap<String, RegisteredCommand>(commandMap);
+    ArrayList<RegisteredCommand> newCommands = new ArrayList<RegisteredCommand>(commands);
+    
+    if(removed != null) {
+      newCommands.remove(removed);
+      newCommandMap.values().removeIf(registeredCommand -> registeredCommand == removed);
+    }
+    
+    if(added != null) {
+      for(String alias : added.getAliases()) {
+        RegisteredCommand previous = newCommandMap.put(alias.toLowerCase(Locale.ROOT), added);
+        
+        if(previous != null && previous != added) {
+          throw new IllegalArgumentException("Command alias \"" + alias + "\" is already registered by " + previous.getCommandObject().getClass().getName());
+        }
+      }
+      
+      newCommands.add(added);
+    }
+    
+    return new CommandRegistry(newCommandMap, newCommands);
+  }
+  
+}
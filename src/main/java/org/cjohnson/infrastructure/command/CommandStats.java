@@ -0,0 +1,166 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.command;
+
+/**
+ * The CommandStats Class is an immutable snapshot of the metrics of a single command case method.
+ * <p>
+ * The latencies are the time spent inside the command case method. For asynchronous command
+ * case methods this is the time on the worker thread, not including the queue wait.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public final class CommandStats {
+  
+  private final String command;
+  private final String subCommand;
+  private final boolean async;
+  private final long invocations;
+  private final long errors;
+  private final long p50Nanos;
+  private final long p99Nanos;
+  private final long maxNanos;
+  
+  /**
+   * Constructor for CommandStats
+   *
+   * @param command The primary alias of the command
+   * @param subCommand The name of the command case method
+   * @param async Whether the command case method runs asynchronously
+   * @param invocations The number of runs
+   * @param errors The number of runs that threw an exception
+   * @param p50Nanos The median run time, in nanoseconds
+   * @param p99Nanos The 99th percentile run time, in nanoseconds
+   * @param maxNanos The longest run time, in nanoseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  CommandStats(String command, String subCommand, boolean async, long invocations, long errors, long p50Nanos, long p99Nanos, long maxNanos) {
+    this.command = command;
+    this.subCommand = subCommand;
+    this.async = async;
+    this.invocations = invocations;
+    this.errors = errors;
+    this.p50Nanos = p50Nanos;
+    this.p99Nanos = p99Nanos;
+    this.maxNanos = maxNanos;
+  }
+  
+  /**
+   * Getter for the command.
+   *
+   * @return The primary alias of the command
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public String getCommand() {
+    return command;
+  }
+  
+  /**
+   * Getter for the subcommand.
+   *
+   * @return The name of the command case method
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public String getSubCommand() {
+    return subCommand;
+  }
+  
+  /**
+   * Checks if the command case method runs asynchronously.
+   *
+   * @return Whether the command case method is labeled with the Async annotation
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean isAsync() {
+    return async;
+  }
+  
+  /**
+   * Getter for the number of runs.
+   *
+   * @return The number of runs
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getInvocations() {
+    return invocations;
+  }
+  
+  /**
+   * Getter for the number of failed runs.
+   *
+   * @return The number of runs that threw an exception
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getErrors() {
+    return errors;
+  }
+  
+  /**
+   * Getter for the median run time.
+   *
+   * @return The median run time, in nanoseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getP50Nanos() {
+    return p50Nanos;
+  }
+  
+  /**
+   * Getter for the 99th percentile run time.
+   *
+   * @return The 99th percentile run time, in nanoseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getP99Nanos() {
+    return p99Nanos;
+  }
+  
+  /**
+   * Getter for the longest run time.
+   *
+   * @return The longest run time, in nanoseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getMaxNanos() {
+    return maxNanos;
+  }
+  
+  @Override
+  public String toString() {
+    return "CommandStats{command=" + command + ", subCommand=" + subCommand + ", async=" + async
+      + ", invocations=" + invocations + ", errors=" + errors
+      + ", p50Nanos=" + p50Nanos + ", p99Nanos=" + p99Nanos + ", maxNanos=" + maxNanos + "}";
+  }
+  
+}
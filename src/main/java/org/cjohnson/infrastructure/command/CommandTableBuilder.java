@@ -0,0 +1,355 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.command;
+
+import org.bukkit.entity.Player;
+import org.cjohnson.infrastructure.command.annotation.SubCommand;
+import org.cjohnson.infrastructure.message.MessageUtilities;
+
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * The CommandTableBuilder Class collects the command case methods of a command class
+ * and compiles them into the dispatch table used by the CommandFramework.
+ * <p>
+ * It is used both by the reflective registration of the CommandFramework and by the
+ * CommandDispatchers generated at compile time by the Infrastructure annotation processor.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public final class CommandTableBuilder {
+  
+  /**
+   * The command object that the command case methods are invoked on.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Object commandObject;
+  
+  /**
+   * The dispatch table being built, created by command().
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private RegisteredCommand registeredCommand;
+  
+  /**
+   * The added command cases, mapped by the names of their methods.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final HashMap<String, RegisteredSubCommand> subCommandsByName;
+  
+  /**
+   * Whether any added command case has a Cooldown or RateLimit.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private boolean throttled;
+  
+  /**
+   * The handler of missing or invalid typed arguments, or null to show the error message.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private InvalidArgumentHandler invalidArgumentHandler;
+  
+  /**
+   * Default Constructor for CommandTableBuilder
+   *
+   * @param commandObject The command object that the command case methods are invoked on
+   *
+   * @since 0.1.0-ALPHA
+   */
+  CommandTableBuilder(Object commandObject) {
+    this.commandObject = commandObject;
+    this.subCommandsByName = new HashMap<String, RegisteredSubCommand>();
+  }
+  
+  /**
+   * Declares the command, and must be called before any command case is added.
+   *
+   * @param aliases The command aliases
+   * @param permission The command required permission
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void command(String[] aliases, String permission) {
+    registeredCommand = new RegisteredCommand(commandObject, aliases, permission);
+  }
+  
+  /**
+   * Adds a command case method.
+   *
+   * @param name The name of the command case method
+   * @param aliases The subcommand aliases, or null if the method has no SubCommand annotation
+   * @param permission The subcommand required permission, ignored if aliases is null
+   * @param defaultCommand Whether the method is the default command case
+   * @param invoker The invoker that the command case method is bound to
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void subCommand(String name, String[] aliases, String permission, boolean defaultCommand, CommandMethodInvoker invoker) {
+    subCommand(name, aliases == null ? null : new SubCommandLiteral(aliases, permission), defaultCommand, invoker);
+  }
+  
+  /**
+   * Adds a command case method.
+   *
+   * @param name The name of the command case method
+   * @param subCommand The SubCommand annotation of the method, or null if it has none
+   * @param defaultCommand Whether the method is the default command case
+   * @param invoker The invoker that the command case method is bound to
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void subCommand(String name, SubCommand subCommand, boolean defaultCommand, CommandMethodInvoker invoker) {
+    RegisteredCommand registeredCommand = getRegisteredCommand();
+    
+    // A default command without its own SubCommand annotation
+    // falls back onto the permission of the command.
+    String permission = subCommand == null ? registeredCommand.getPermission() : subCommand.permission();
+    RegisteredSubCommand registeredSubCommand = new RegisteredSubCommand(name, invoker, subCommand, permission);
+    subCommandsByName.put(name, registeredSubCommand);
+    registeredCommand.getSubCommands().add(registeredSubCommand);
+    
+    if(subCommand != null) {
+      for(String alias : subCommand.aliases()) {
+        String lowerAlias = alias.toLowerCase(Locale.ROOT);
+        
+        registeredCommand.getSubCommandMap().put(lowerAlias, registeredSubCommand);
+        registeredCommand.getAliasTrie().add(lowerAlias, permission);
+      }
+    }
+    
+    if(defaultCommand) {
+      registeredCommand.setDefaultCommand(registeredSubCommand);
+    }
+  }
+  
+  /**
+   * Makes an added command case run on the asynchronous worker threads.
+   *
+   * @param name The name of the command case method
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void async(String name) {
+    getSubCommand(name).setAsync(true);
+  }
+  
+  /**
+   * Gives an added command case a Cooldown.
+   *
+   * @param name The name of the command case method
+   * @param seconds The cooldown between two runs, in seconds
+   *
+   * @throws IllegalArgumentException If the cooldown is not positive
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void cooldown(String name, int seconds) {
+    if(seconds <= 0) {
+      throw new IllegalArgumentException("Cooldown of command case method \"" + name + "\" must be positive");
+    }
+    
+    getSubCommand(name).setCooldown(ThrottleTable.cooldown(seconds));
+    throttled = true;
+  }
+  
+  /**
+   * Gives an added command case a RateLimit.
+   *
+   * @param name The name of the command case method
+   * @param permits The number of runs allowed within the window
+   * @param windowSeconds The length of the window, in seconds
+   *
+   * @throws IllegalArgumentException If the permits or the window are not positive
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void rateLimit(String name, int permits, int windowSeconds) {
+    if(permits <= 0 || windowSeconds <= 0) {
+      throw new IllegalArgumentException("RateLimit of command case method \"" + name + "\" must have positive permits and window");
+    }
+    
+    getSubCommand(name).setRateLimit(ThrottleTable.rateLimit(permits, windowSeconds));
+    throttled = true;
+  }
+  
+  /**
+   * Sets the error case method for when insufficient permissions are present.
+   *
+   * @param invoker The invoker that the error case method is bound to
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void noPermission(CommandMethodInvoker invoker) {
+    getRegisteredCommand().setNoPermissionInvoker(invoker);
+  }
+  
+  /**
+   * Sets the error case method for when the CommandSender is not a Player.
+   *
+   * @param invoker The invoker that the error case method is bound to
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void notPlayer(CommandMethodInvoker invoker) {
+    getRegisteredCommand().setNotPlayerInvoker(invoker);
+  }
+  
+  /**
+   * Sets the error case method for when a Cooldown or RateLimit has not passed yet.
+   *
+   * @param invoker The invoker that the error case method is bound to
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void onCooldown(CommandMethodInvoker invoker) {
+    getRegisteredCommand().setOnCooldownInvoker(invoker);
+  }
+  
+  /**
+   * Sets the error case method for when a typed Arg parameter is missing or invalid.
+   *
+   * @param handler The handler that the error case method is bound to
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void invalidArgument(InvalidArgumentHandler handler) {
+    this.invalidArgumentHandler = handler;
+  }
+  
+  /**
+   * Finishes the dispatch table.
+   *
+   * @return The dispatch table of the command
+   *
+   * @throws IllegalStateException If a required command case is missing
+   *
+   * @since 0.1.0-ALPHA
+   */
+  RegisteredCommand build() {
+    RegisteredCommand registeredCommand = getRegisteredCommand();
+    
+    if(registeredCommand.getDefaultCommand() == null) {
+      throw new IllegalStateException("Command \"" + registeredCommand.getAliases()[0] + "\" has no default command case");
+    }
+    
+    if(registeredCommand.getNoPermissionInvoker() == null) {
+      throw new IllegalStateException("Command \"" + registeredCommand.getAliases()[0] + "\" has no NoPermission command case");
+    }
+    
+    if(registeredCommand.getNotPlayerInvoker() == null) {
+      throw new IllegalStateException("Command \"" + registeredCommand.getAliases()[0] + "\" has no NotPlayer command case");
+    }
+    
+    if(throttled && registeredCommand.getOnCooldownInvoker() == null) {
+      throw new IllegalStateException("Command \"" + registeredCommand.getAliases()[0] + "\" has a Cooldown or RateLimit, but no OnCooldown command case");
+    }
+    
+    // Hand the InvalidArgument error case method to every
+    // command case method with typed arguments.
+    InvalidArgumentHandler handler = invalidArgumentHandler != null ? invalidArgumentHandler
+      : (subCommand, sender, error) -> MessageUtilities.displayErrorMessage(sender, error.getMessage());
+    
+    for(RegisteredSubCommand registeredSubCommand : registeredCommand.getSubCommands()) {
+      if(registeredSubCommand.getInvoker() instanceof TypedCommandInvoker) {
+        ((TypedCommandInvoker) registeredSubCommand.getInvoker()).setInvalidArgumentHandler(releasing(registeredSubCommand, handler));
+      }
+    }
+    
+    return registeredCommand;
+  }
+  
+  /**
+   * Wraps the handler of missing or invalid arguments of a throttled command case method, so
+   * that a player who mistypes an argument gets back the run the Cooldown and RateLimit took.
+   * The arguments are only parsed after the run is taken, as the command case method may run
+   * on a worker thread.
+   *
+   * @param registeredSubCommand The command case
+   * @param handler The handler of missing or invalid arguments
+   *
+   * @return The handler to use for the command case method
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static InvalidArgumentHandler releasing(RegisteredSubCommand registeredSubCommand, InvalidArgumentHandler handler) {
+    if(!registeredSubCommand.isThrottled()) {
+      return handler;
+    }
+    
+    return (subCommand, sender, error) -> {
+      // Only players are throttled.
+      if(sender instanceof Player) {
+        registeredSubCommand.release(((Player) sender).getUniqueId());
+      }
+      
+      handler.handle(subCommand, sender, error);
+    };
+  }
+  
+  /**
+   * Getter for an added command case.
+   *
+   * @param name The name of the command case method
+   *
+   * @return The added command case
+   *
+   * @throws IllegalStateException If no command case method with the name was added
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private RegisteredSubCommand getSubCommand(String name) {
+    RegisteredSubCommand registeredSubCommand = subCommandsByName.get(name);
+    
+    if(registeredSubCommand == null) {
+      throw new IllegalStateException("No command case method \"" + name + "\" has been added");
+    }
+    
+    return registeredSubCommand;
+  }
+  
+  /**
+   * Getter for the dispatch table being built.
+   *
+   * @return The dispatch table being built
+   *
+   * @throws IllegalStateException If command() has not been called yet
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private RegisteredCommand getRegisteredCommand() {
+    if(registeredCommand == null) {
+      throw new IllegalStateException("command() must be called before adding command cases");
+    }
+    
+    return registeredCommand;
+  }
+  
+}
@@ -0,0 +1,162 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.command;
+
+import org.cjohnson.infrastructure.api.InfrastructureAPI;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+
+/**
+ * The DispatcherIndex Class finds the CommandDispatchers generated at compile time.
+ * <p>
+ * The Infrastructure annotation processor writes an index of every command class it generated
+ * a dispatcher for. The index is read once per class loader, so command classes without a
+ * generated dispatcher are recognized without a failed class lookup.
+ *
+ * @since 0.1.0-ALPHA
+ */
+final class DispatcherIndex {
+  
+  /**
+   * The location of the index resource, as written by the annotation processor.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static final String INDEX_RESOURCE = "META-INF/infrastructure/command-dispatchers.index";
+  
+  /**
+   * The read indexes, mapping command class names to dispatcher class names, per class loader.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final Map<ClassLoader, Map<String, String>> indexes = new WeakHashMap<ClassLoader, Map<String, String>>();
+  
+  /**
+   * Private Constructor, as this class only has static methods.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private DispatcherIndex() {}
+  
+  /**
+   * The findDispatcher() method creates the generated CommandDispatcher of a command class.
+   *
+   * @param commandClass The command class
+   *
+   * @return The generated CommandDispatcher, or null if the command class has none
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static CommandDispatcher findDispatcher(Class<?> commandClass) {
+    ClassLoader classLoader = commandClass.getClassLoader();
+    
+    if(classLoader == null) {
+      return null;
+    }
+    
+    String dispatcherName = getIndex(classLoader).get(commandClass.getName());
+    
+    if(dispatcherName == null) {
+      return null;
+    }
+    
+    try {
+      return Class.forName(dispatcherName, true, classLoader).asSubclass(CommandDispatcher.class).getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | ClassCastException e) {
+      throw new IllegalStateException("Generated dispatcher \"" + dispatcherName + "\" could not be created", e);
+    }
+  }
+  
+  /**
+   * The getIndex() method reads and caches the dispatcher index of a class loader.
+   *
+   * @param classLoader The class loader of a command class
+   *
+   * @return The dispatcher index, mapping command class names to dispatcher class names
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static synchronized Map<String, String> getIndex(ClassLoader classLoader) {
+    Map<String, String> index = indexes.get(classLoader);
+    
+    if(index != null) {
+      return index;
+    }
+    
+    index = new HashMap<String, String>();
+    
+    try {
+      Enumeration<URL> resources = classLoader.getResources(INDEX_RESOURCE);
+      
+      while(resources.hasMoreElements()) {
+        readIndex(resources.nextElement(), index);
+      }
+    } catch (IOException e) {
+      InfrastructureAPI.getInstance().getPluginLogger().log(Level.WARNING, "Could not read the command dispatcher index, commands are registered using Java Reflection", e);
+    }
+    
+    indexes.put(classLoader, index);
+    
+    return index;
+  }
+  
+  /**
+   * The readIndex() method reads a single index resource.
+   * <p>
+   * Every line of the index has the form commandClassName=dispatcherClassName.
+   *
+   * @param resource The index resource
+   * @param index The index to read the resource into
+   *
+   * @throws IOException If the resource can not be read
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static void readIndex(URL resource, Map<String, String> index) throws IOException {
+    try(InputStream inputStream = resource.openStream();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+      String line;
+      
+      while((line = reader.readLine()) != null) {
+        int separator = line.indexOf('=');
+        
+        if(separator > 0) {
+          index.put(line.substring(0, separator).trim(), line.substring(separator + 1).trim());
+        }
+      }
+    }
+  }
+  
+}
@@ -0,0 +1,193 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.command;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * The LatencyHistogram Class records latencies in a fixed number of log-linear buckets.
+ * <p>
+ * Every power of two is split into SUB_BUCKETS linear buckets, so a recorded latency is
+ * at most 12.5% off its bucket bound, whatever its magnitude. The histogram never grows
+ * and recording is a single atomic increment.
+ *
+ * @since 0.1.0-ALPHA
+ */
+final class LatencyHistogram {
+  
+  /**
+   * The number of bits of a latency below its highest bit that select its linear bucket.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final int SUB_BUCKET_BITS = 3;
+  
+  /**
+   * The number of linear buckets per power of two.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  
+  /**
+   * The number of buckets, enough for every positive long.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+  
+  /**
+   * The counts of the buckets.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final AtomicLongArray counts;
+  
+  /**
+   * The highest recorded latency.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final LongAccumulator max;
+  
+  /**
+   * Default Constructor for LatencyHistogram
+   *
+   * @since 0.1.0-ALPHA
+   */
+  LatencyHistogram() {
+    this.counts = new AtomicLongArray(BUCKETS);
+    this.max = new LongAccumulator(Math::max, 0L);
+  }
+  
+  /**
+   * Records a latency.
+   *
+   * @param nanos The latency, in nanoseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void record(long nanos) {
+    if(nanos < 0L) {
+      nanos = 0L;
+    }
+    
+    counts.incrementAndGet(bucketOf(nanos));
+    max.accumulate(nanos);
+  }
+  
+  /**
+   * Gets the highest recorded latency.
+   *
+   * @return The highest recorded latency, in nanoseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  long getMax() {
+    return max.get();
+  }
+  
+  /**
+   * Gets an upper bound of a quantile of the recorded latencies.
+   *
+   * @param quantile The quantile, between 0 and 1
+   *
+   * @return The upper bound of the bucket holding the quantile, in nanoseconds, or 0 if nothing was recorded
+   *
+   * @since 0.1.0-ALPHA
+   */
+  long getQuantile(double quantile) {
+    // Copy the counts first, so that the total and the
+    // walk below see the same numbers.
+    long[] snapshot = new long[BUCKETS];
+    long total = 0L;
+    
+    for(int bucket = 0; bucket < BUCKETS; bucket++) {
+      snapshot[bucket] = counts.get(bucket);
+      total += snapshot[bucket];
+    }
+    
+    if(total == 0L) {
+      return 0L;
+    }
+    
+    long rank = Math.max(1L, (long) Math.ceil(quantile * total));
+    long seen = 0L;
+    
+    for(int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += snapshot[bucket];
+      
+      if(seen >= rank) {
+        // The bucket bound can be above anything actually recorded.
+        return Math.min(upperBoundOf(bucket), max.get());
+      }
+    }
+    
+    return max.get();
+  }
+  
+  /**
+   * Gets the bucket of a latency.
+   *
+   * @param nanos The latency, in nanoseconds
+   *
+   * @return The index of the bucket
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static int bucketOf(long nanos) {
+    if(nanos < SUB_BUCKETS) {
+      return (int) nanos;
+    }
+    
+    int magnitude = 63 - Long.numberOfLeadingZeros(nanos);
+    int subBucket = (int) (nanos >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    
+    return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+  
+  /**
+   * Gets the highest latency of a bucket.
+   *
+   * @param bucket The index of the bucket
+   *
+   * @return The highest latency of the bucket, in nanoseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static long upperBoundOf(int bucket) {
+    if(bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    
+    int magnitude = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long width = 1L << (magnitude - SUB_BUCKET_BITS);
+    long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (magnitude - SUB_BUCKET_BITS);
+    
+    return lowerBound + width - 1L;
+  }
+  
+}
@@ -0,0 +1,283 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.command;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * The RegisteredCommand Class is the compiled dispatch table of a single command class.
+ * <p>
+ * It is built once by the CommandFramework when the command is added, so that running
+ * the command does not require any reflection scanning.
+ *
+ * @since 0.1.0-ALPHA
+ */
+class RegisteredCommand {
+  
+  /**
+   * The command object that the command case methods are invoked on.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Object commandObject;
+  
+  /**
+   * The command aliases.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final String[] aliases;
+  
+  /**
+   * The command required permission.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final String permission;
+  
+  /**
+   * The subcommands of the command, mapped by their lowercase aliases.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final HashMap<String, RegisteredSubCommand> subCommandMap;
+  
+  /**
+   * Every command case of the command, in the order they were added.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final ArrayList<RegisteredSubCommand> subCommands;
+  
+  /**
+   * The prefix tree over the subcommand aliases, used for tab completion.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final AliasTrie aliasTrie;
+  
+  /**
+   * The default command case.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private RegisteredSubCommand defaultCommand;
+  
+  /**
+   * The bound error case method for when insufficient permissions are present.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private CommandMethodInvoker noPermissionInvoker;
+  
+  /**
+   * The bound error case method for when the CommandSender is not a Player.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private CommandMethodInvoker notPlayerInvoker;
+  
+  /**
+   * The bound error case method for when a Cooldown or RateLimit has not passed yet.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private CommandMethodInvoker onCooldownInvoker;
+  
+  /**
+   * Default Constructor for RegisteredCommand
+   *
+   * @param commandObject The command object
+   * @param aliases The command aliases
+   * @param permission The command required permission
+   *
+   * @since 0.1.0-ALPHA
+   */
+  RegisteredCommand(Object commandObject, String[] aliases, String permission) {
+    this.commandObject = commandObject;
+    this.aliases = aliases;
+    this.permission = permission;
+    
+    this.subCommandMap = new HashMap<String, RegisteredSubCommand>();
+    this.subCommands = new ArrayList<RegisteredSubCommand>();
+    this.aliasTrie = new AliasTrie();
+  }
+  
+  /**
+   * Getter for the command object.
+   *
+   * @return The command object
+   *
+   * @since 0.1.0-ALPHA
+   */
+  Object getCommandObject() {
+    return commandObject;
+  }
+  
+  /**
+   * Getter for the command aliases.
+   *
+   * @return The command aliases
+   *
+   * @since 0.1.0-ALPHA
+   */
+  String[] getAliases() {
+    return aliases;
+  }
+  
+  /**
+   * Getter for the command required permission.
+   *
+   * @return The command required permission
+   *
+   * @since 0.1.0-ALPHA
+   */
+  String getPermission() {
+    return permission;
+  }
+  
+  /**
+   * Getter for the subcommand map.
+   *
+   * @return The subcommands mapped by their lowercase aliases
+   *
+   * @since 0.1.0-ALPHA
+   */
+  HashMap<String, RegisteredSubCommand> getSubCommandMap() {
+    return subCommandMap;
+  }
+  
+  /**
+   * Getter for the command cases.
+   *
+   * @return Every command case of the command, in the order they were added
+   *
+   * @since 0.1.0-ALPHA
+   */
+  ArrayList<RegisteredSubCommand> getSubCommands() {
+    return subCommands;
+  }
+  
+  /**
+   * Getter for the subcommand alias prefix tree.
+   *
+   * @return The prefix tree over the subcommand aliases
+   *
+   * @since 0.1.0-ALPHA
+   */
+  AliasTrie getAliasTrie() {
+    return aliasTrie;
+  }
+  
+  /**
+   * Getter for the default command case.
+   *
+   * @return The default command case
+   *
+   * @since 0.1.0-ALPHA
+   */
+  RegisteredSubCommand getDefaultCommand() {
+    return defaultCommand;
+  }
+  
+  /**
+   * Setter for the default command case.
+   *
+   * @param defaultCommand The default command case
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void setDefaultCommand(RegisteredSubCommand defaultCommand) {
+    this.defaultCommand = defaultCommand;
+  }
+  
+  /**
+   * Getter for the NoPermission error case method.
+   *
+   * @return The bound NoPermission error case method
+   *
+   * @since 0.1.0-ALPHA
+   */
+  CommandMethodInvoker getNoPermissionInvoker() {
+    return noPermissionInvoker;
+  }
+  
+  /**
+   * Setter for the NoPermission error case method.
+   *
+   * @param noPermissionInvoker The bound NoPermission error case method
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void setNoPermissionInvoker(CommandMethodInvoker noPermissionInvoker) {
+    this.noPermissionInvoker = noPermissionInvoker;
+  }
+  
+  /**
+   * Getter for the NotPlayer error case method.
+   *
+   * @return The bound NotPlayer error case method
+   *
+   * @since 0.1.0-ALPHA
+   */
+  CommandMethodInvoker getNotPlayerInvoker() {
+    return notPlayerInvoker;
+  }
+  
+  /**
+   * Setter for the NotPlayer error case method.
+   *
+   * @param notPlayerInvoker The bound NotPlayer error case method
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void setNotPlayerInvoker(CommandMethodInvoker notPlayerInvoker) {
+    this.notPlayerInvoker = notPlayerInvoker;
+  }
+  
+  /**
+   * Getter for the OnCooldown error case method.
+   *
+   * @return The bound OnCooldown error case method
+   *
+   * @since 0.1.0-ALPHA
+   */
+  CommandMethodInvoker getOnCooldownInvoker() {
+    return onCooldownInvoker;
+  }
+  
+  /**
+   * Setter for the OnCooldown error case method.
+   *
+   * @param onCooldownInvoker The bound OnCooldown error case method
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void setOnCooldownInvoker(CommandMethodInvoker onCooldownInvoker) {
+    this.onCooldownInvoker = onCooldownInvoker;
+  }
+  
+}
@@ -0,0 +1,269 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.command;
+
+import org.cjohnson.infrastructure.command.annotation.SubCommand;
+
+import java.util.UUID;
+
+/**
+ * The RegisteredSubCommand Class holds a single resolved command case method
+ * together with the data needed to dispatch it.
+ *
+ * @since 0.1.0-ALPHA
+ */
+class RegisteredSubCommand {
+  
+  /**
+   * The name of the command case method.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final String name;
+  
+  /**
+   * The invoker that the command case method is bound to.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final CommandMethodInvoker invoker;
+  
+  /**
+   * The SubCommand annotation of the method, or null for a
+   * default command without a SubCommand annotation.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final SubCommand subCommand;
+  
+  /**
+   * The permission required to run the command case.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final String permission;
+  
+  /**
+   * The invocation counts and run times of the command case method.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final CommandMetrics metrics;
+  
+  /**
+   * Whether the command case method runs on the asynchronous worker threads.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private boolean async;
+  
+  /**
+   * The Cooldown of the command case method, or null if it has none.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private ThrottleTable cooldown;
+  
+  /**
+   * The RateLimit of the command case method, or null if it has none.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private ThrottleTable rateLimit;
+  
+  /**
+   * Default Constructor for RegisteredSubCommand
+   *
+   * @param name The name of the command case method
+   * @param invoker The invoker that the command case method is bound to
+   * @param subCommand The SubCommand annotation of the method
+   * @param permission The permission required to run the command case
+   *
+   * @since 0.1.0-ALPHA
+   */
+  RegisteredSubCommand(String name, CommandMethodInvoker invoker, SubCommand subCommand, String permission) {
+    this.name = name;
+    this.invoker = invoker;
+    this.subCommand = subCommand;
+    this.permission = permission;
+    this.metrics = new CommandMetrics();
+  }
+  
+  /**
+   * Getter for the name of the command case method.
+   *
+   * @return The name of the command case method
+   *
+   * @since 0.1.0-ALPHA
+   */
+  String getName() {
+    return name;
+  }
+  
+  /**
+   * Getter for the bound command case method invoker.
+   *
+   * @return The bound command case method invoker
+   *
+   * @since 0.1.0-ALPHA
+   */
+  CommandMethodInvoker getInvoker() {
+    return invoker;
+  }
+  
+  /**
+   * Getter for the SubCommand annotation.
+   *
+   * @return The SubCommand annotation
+   *
+   * @since 0.1.0-ALPHA
+   */
+  SubCommand getSubCommand() {
+    return subCommand;
+  }
+  
+  /**
+   * Getter for the required permission.
+   *
+   * @return The required permission
+   *
+   * @since 0.1.0-ALPHA
+   */
+  String getPermission() {
+    return permission;
+  }
+  
+  /**
+   * Getter for the asynchronous flag.
+   *
+   * @return Whether the command case method runs on the asynchronous worker threads
+   *
+   * @since 0.1.0-ALPHA
+   */
+  boolean isAsync() {
+    return async;
+  }
+  
+  /**
+   * Getter for the metrics of the command case method.
+   *
+   * @return The invocation counts and run times of the command case method
+   *
+   * @since 0.1.0-ALPHA
+   */
+  CommandMetrics getMetrics() {
+    return metrics;
+  }
+  
+  /**
+   * Setter for the asynchronous flag.
+   *
+   * @param async Whether the command case method runs on the asynchronous worker threads
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void setAsync(boolean async) {
+    this.async = async;
+  }
+  
+  /**
+   * Setter for the Cooldown.
+   *
+   * @param cooldown The Cooldown of the command case method
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void setCooldown(ThrottleTable cooldown) {
+    this.cooldown = cooldown;
+  }
+  
+  /**
+   * Setter for the RateLimit.
+   *
+   * @param rateLimit The RateLimit of the command case method
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void setRateLimit(ThrottleTable rateLimit) {
+    this.rateLimit = rateLimit;
+  }
+  
+  /**
+   * Checks if the command case method has a Cooldown or RateLimit.
+   *
+   * @return Whether the command case method is throttled
+   *
+   * @since 0.1.0-ALPHA
+   */
+  boolean isThrottled() {
+    return cooldown != null || rateLimit != null;
+  }
+  
+  /**
+   * Tries to use a run of the command case method for a player.
+   * <p>
+   * A run is only used if both the Cooldown and the RateLimit allow it, so that a run the
+   * RateLimit rejects does not start the Cooldown.
+   *
+   * @param uuid The unique ID of the player
+   *
+   * @return Whether the Cooldown and RateLimit allow the run
+   *
+   * @since 0.1.0-ALPHA
+   */
+  boolean tryAcquire(UUID uuid) {
+    if(cooldown != null && cooldown.tryAcquire(uuid) != 0L) {
+      return false;
+    }
+    
+    if(rateLimit != null && rateLimit.tryAcquire(uuid) != 0L) {
+      if(cooldown != null) {
+        cooldown.refund(uuid);
+      }
+      
+      return false;
+    }
+    
+    return true;
+  }
+  
+  /**
+   * Gives back a run that tryAcquire() allowed, but that did not happen.
+   *
+   * @param uuid The unique ID of the player
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void release(UUID uuid) {
+    if(cooldown != null) {
+      cooldown.refund(uuid);
+    }
+    
+    if(rateLimit != null) {
+      rateLimit.refund(uuid);
+    }
+  }
+  
+}
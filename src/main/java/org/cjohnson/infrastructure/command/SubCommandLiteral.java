@@ -0,0 +1,106 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.command;
+
+import org.cjohnson.infrastructure.command.annotation.SubCommand;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+
+/**
+ * The SubCommandLiteral Class is an instance of the SubCommand annotation created from its values.
+ * <p>
+ * It is passed to the command case methods registered by generated CommandDispatchers, which
+ * do not read the annotation from the method using Java Reflection.
+ *
+ * @since 0.1.0-ALPHA
+ */
+final class SubCommandLiteral implements SubCommand {
+  
+  /**
+   * The subcommand aliases
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final String[] aliases;
+  
+  /**
+   * The subcommand required permission
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final String permission;
+  
+  /**
+   * Default Constructor for SubCommandLiteral
+   *
+   * @param aliases The subcommand aliases
+   * @param permission The subcommand required permission
+   *
+   * @since 0.1.0-ALPHA
+   */
+  SubCommandLiteral(String[] aliases, String permission) {
+    this.aliases = aliases.clone();
+    this.permission = permission;
+  }
+  
+  @Override
+  public String[] aliases() {
+    return aliases.clone();
+  }
+  
+  @Override
+  public String permission() {
+    return permission;
+  }
+  
+  @Override
+  public Class<? extends Annotation> annotationType() {
+    return SubCommand.class;
+  }
+  
+  @Override
+  public boolean equals(Object object) {
+    if(!(object instanceof SubCommand)) {
+      return false;
+    }
+    
+    SubCommand subCommand = (SubCommand) object;
+    
+    return Arrays.equals(aliases, subCommand.aliases()) && permission.equals(subCommand.permission());
+  }
+  
+  @Override
+  public int hashCode() {
+    // As specified by java.lang.annotation.Annotation.hashCode()
+    return ((127 * "aliases".hashCode()) ^ Arrays.hashCode(aliases)) + ((127 * "permission".hashCode()) ^ permission.hashCode());
+  }
+  
+  @Override
+  public String toString() {
+    return "@" + SubCommand.class.getName() + "(aliases=" + Arrays.toString(aliases) + ", permission=" + permission + ")";
+  }
+  
+}
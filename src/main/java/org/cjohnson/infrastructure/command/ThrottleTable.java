@@ -0,0 +1,343 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.command;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The ThrottleTable Class enforces a Cooldown or RateLimit of a single subcommand for every player.
+ * <p>
+ * Every player is throttled with the generic cell rate algorithm, which needs a single timestamp
+ * per player: the theoretical arrival time of the next run. The timestamps are kept in a lock-free
+ * open addressing table of primitive longs, three per player: the timestamp and the two halves of
+ * the player's unique ID. Entries are never removed. An entry whose timestamp has passed no longer
+ * affects its player, and expired entries are only dropped when the table is rebuilt because it is
+ * full. An update racing with such a rebuild can be lost, which at worst lets a single command
+ * through early.
+ *
+ * @since 0.1.0-ALPHA
+ */
+final class ThrottleTable {
+  
+  /**
+   * The number of longs per entry: the state and timestamp, the most and the least significant
+   * bits of the unique ID.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final int STRIDE = 3;
+  
+  /**
+   * The state of an unused entry.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final long EMPTY = 0L;
+  
+  /**
+   * The state of an entry whose unique ID is being written.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final long CLAIMING = 1L;
+  
+  /**
+   * The timestamp of a new entry. All timestamps are at least this value, so that
+   * they can not be mistaken for a state.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final long EPOCH = 2L;
+  
+  /**
+   * The initial number of entries of the table.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final int INITIAL_CAPACITY = 256;
+  
+  /**
+   * The time between two runs once the burst is used up, in nanoseconds.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final long intervalNanos;
+  
+  /**
+   * How far runs may be ahead of the interval, which allows bursts, in nanoseconds.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final long toleranceNanos;
+  
+  /**
+   * The System.nanoTime() that timestamps are relative to.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final long origin;
+  
+  /**
+   * The current table, replaced when it is rebuilt.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final AtomicReference<Table> table;
+  
+  /**
+   * Constructor for ThrottleTable
+   *
+   * @param intervalNanos The time between two runs once the burst is used up, in nanoseconds
+   * @param toleranceNanos How far runs may be ahead of the interval, in nanoseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private ThrottleTable(long intervalNanos, long toleranceNanos) {
+    this.intervalNanos = intervalNanos;
+    this.toleranceNanos = toleranceNanos;
+    this.origin = System.nanoTime();
+    this.table = new AtomicReference<Table>(new Table(INITIAL_CAPACITY));
+  }
+  
+  /**
+   * Creates a table enforcing a Cooldown.
+   *
+   * @param seconds The cooldown between two runs, in seconds
+   *
+   * @return The ThrottleTable
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static ThrottleTable cooldown(int seconds) {
+    return new ThrottleTable(seconds * 1_000_000_000L, 0L);
+  }
+  
+  /**
+   * Creates a table enforcing a RateLimit.
+   *
+   * @param permits The number of runs allowed within the window
+   * @param windowSeconds The length of the window, in seconds
+   *
+   * @return The ThrottleTable
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static ThrottleTable rateLimit(int permits, int windowSeconds) {
+    long windowNanos = windowSeconds * 1_000_000_000L;
+    long intervalNanos = windowNanos / permits;
+    
+    return new ThrottleTable(intervalNanos, windowNanos - intervalNanos);
+  }
+  
+  /**
+   * Tries to use a run of a player.
+   *
+   * @param uuid The unique ID of the player
+   *
+   * @return 0 if the run is allowed, otherwise the nanoseconds until it will be
+   *
+   * @since 0.1.0-ALPHA
+   */
+  long tryAcquire(UUID uuid) {
+    long msb = uuid.getMostSignificantBits();
+    long lsb = uuid.getLeastSignificantBits();
+    long now = System.nanoTime() - origin + EPOCH;
+    
+    Table current = table.get();
+    int index = current.findOrClaim(msb, lsb);
+    
+    while(index < 0) {
+      current = rebuild(current, now);
+      index = current.findOrClaim(msb, lsb);
+    }
+    
+    AtomicLongArray slots = current.slots;
+    
+    while(true) {
+      long theoreticalArrival = slots.get(index);
+      long base = Math.max(theoreticalArrival, now);
+      long allowedAt = base - toleranceNanos;
+      
+      if(allowedAt > now) {
+        return allowedAt - now;
+      }
+      
+      if(slots.compareAndSet(index, theoreticalArrival, base + intervalNanos)) {
+        return 0L;
+      }
+    }
+  }
+  
+  /**
+   * Gives back a run of a player that tryAcquire() allowed, but that did not happen.
+   *
+   * @param uuid The unique ID of the player
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void refund(UUID uuid) {
+    Table current = table.get();
+    int index = current.findOrClaim(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    
+    // A full table only keeps entries that are still throttled,
+    // so a missing entry has nothing left to give back.
+    if(index < 0) {
+      return;
+    }
+    
+    AtomicLongArray slots = current.slots;
+    
+    while(true) {
+      long theoreticalArrival = slots.get(index);
+      
+      if(slots.compareAndSet(index, theoreticalArrival, Math.max(theoreticalArrival - intervalNanos, EPOCH))) {
+        return;
+      }
+    }
+  }
+  
+  /**
+   * Rebuilds a full table into a new table, keeping only the entries that have not expired.
+   *
+   * @param full The full table
+   * @param now The current timestamp
+   *
+   * @return The table to use from now on
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private Table rebuild(Table full, long now) {
+    int live = 0;
+    
+    for(int index = 0; index < full.slots.length(); index += STRIDE) {
+      if(full.slots.get(index) > now) {
+        live++;
+      }
+    }
+    
+    int capacity = INITIAL_CAPACITY;
+    
+    while(capacity < live * 4) {
+      capacity <<= 1;
+    }
+    
+    Table rebuilt = new Table(capacity);
+    
+    for(int index = 0; index < full.slots.length(); index += STRIDE) {
+      long theoreticalArrival = full.slots.get(index);
+      
+      if(theoreticalArrival > now) {
+        int rebuiltIndex = rebuilt.findOrClaim(full.slots.get(index + 1), full.slots.get(index + 2));
+        rebuilt.slots.set(rebuiltIndex, theoreticalArrival);
+      }
+    }
+    
+    // Another thread may have rebuilt the table first,
+    // in which case its table is used instead.
+    table.compareAndSet(full, rebuilt);
+    
+    return table.get();
+  }
+  
+  /**
+   * A single open addressing table with linear probing.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final class Table {
+    
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final int threshold;
+    private final AtomicInteger used;
+    
+    private Table(int capacity) {
+      this.slots = new AtomicLongArray(capacity * STRIDE);
+      this.mask = capacity - 1;
+      this.threshold = capacity / 4 * 3;
+      this.used = new AtomicInteger();
+    }
+    
+    /**
+     * Finds the entry of a unique ID, or claims a new one.
+     *
+     * @return The index of the entry's timestamp, or -1 if the table is full
+     */
+    private int findOrClaim(long msb, long lsb) {
+      int hash = mix(msb ^ lsb);
+      
+      for(int probe = 0; probe <= mask; probe++) {
+        int index = ((hash + probe) & mask) * STRIDE;
+        long state = slots.get(index);
+        
+        if(state == EMPTY) {
+          if(used.get() >= threshold) {
+            return -1;
+          }
+          
+          if(slots.compareAndSet(index, EMPTY, CLAIMING)) {
+            // The unique ID is published by the volatile write of the timestamp.
+            slots.set(index + 1, msb);
+            slots.set(index + 2, lsb);
+            used.incrementAndGet();
+            slots.set(index, EPOCH);
+            
+            return index;
+          }
+          
+          state = slots.get(index);
+        }
+        
+        // Another thread is writing the unique ID of this entry.
+        while(state == CLAIMING) {
+          Thread.yield();
+          state = slots.get(index);
+        }
+        
+        if(slots.get(index + 1) == msb && slots.get(index + 2) == lsb) {
+          return index;
+        }
+      }
+      
+      return -1;
+    }
+    
+    /**
+     * Spreads the bits of a unique ID into a table hash.
+     */
+    private static int mix(long key) {
+      key ^= key >>> 33;
+      key *= 0xff51afd7ed558ccdL;
+      key ^= key >>> 33;
+      
+      return (int) key;
+    }
+    
+  }
+  
+}
@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.command;
+
+import org.bukkit.command.CommandException;
+import org.bukkit.command.CommandSender;
+import org.cjohnson.infrastructure.command.annotation.SubCommand;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * The TypedCommandInvoker Class invokes command case methods with typed Arg parameters.
+ * <p>
+ * The parsers are resolved when the command is added, so invoking the method only runs the
+ * parser of every argument. A missing or invalid argument is handed to the InvalidArgument
+ * error case method of the command, and the command case method is not invoked.
+ *
+ * @since 0.1.0-ALPHA
+ */
+final class TypedCommandInvoker implements CommandMethodInvoker {
+  
+  /**
+   * The command case method, bound to its command object and taking
+   * the parsed arguments as an Object[].
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final MethodHandle methodHandle;
+  
+  /**
+   * The name of the command case method, used in error messages.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final String methodName;
+  
+  /**
+   * The parsers of the Arg parameters, in order.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final ArgumentParser[] parsers;
+  
+  /**
+   * The names of the Arg parameters, in order.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final String[] names;
+  
+  /**
+   * Whether the last Arg parameter is a String that takes all remaining arguments.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final boolean greedyLast;
+  
+  /**
+   * The handler of missing or invalid arguments, set when the dispatch table is built.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private InvalidArgumentHandler invalidArgumentHandler;
+  
+  /**
+   * Constructor for TypedCommandInvoker
+   *
+   * @param methodHandle The bound command case method, of type (SubCommand, CommandSender, Object[])void
+   * @param methodName The name of the command case method
+   * @param parsers The parsers of the Arg parameters
+   * @param names The names of the Arg parameters
+   * @param greedyLast Whether the last Arg parameter takes all remaining arguments
+   *
+   * @since 0.1.0-ALPHA
+   */
+  TypedCommandInvoker(MethodHandle methodHandle, String methodName, ArgumentParser[] parsers, String[] names, boolean greedyLast) {
+    this.methodHandle = methodHandle;
+    this.methodName = methodName;
+    this.parsers = parsers;
+    this.names = names;
+    this.greedyLast = greedyLast;
+  }
+  
+  /**
+   * Setter for the handler of missing or invalid arguments.
+   *
+   * @param invalidArgumentHandler The handler of missing or invalid arguments
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void setInvalidArgumentHandler(InvalidArgumentHandler invalidArgumentHandler) {
+    this.invalidArgumentHandler = invalidArgumentHandler;
+  }
+  
+  @Override
+  public void invoke(SubCommand subCommand, CommandSender sender, CommandArgs args) {
+    Object[] values = new Object[parsers.length];
+    
+    for(int i = 0; i < parsers.length; i++) {
+      String input = greedyLast && i == parsers.length - 1 ? args.remaining(i) : args.get(i);
+      
+      if(input != null && input.isEmpty()) {
+        input = null;
+      }
+      
+      Object value = input == null ? null : parsers[i].parse(input);
+      
+      if(value == null) {
+        invalidArgumentHandler.handle(subCommand, sender, new ArgumentError(i, names[i], parsers[i].getDescription(), input));
+        
+        return;
+      }
+      
+      values[i] = value;
+    }
+    
+    try {
+      methodHandle.invokeExact(subCommand, sender, values);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable throwable) {
+      throw new CommandException("Unhandled exception in command case method \"" + methodName + "\"", throwable);
+    }
+  }
+  
+}
@@ -0,0 +1,302 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.command.admin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.cjohnson.infrastructure.Infrastructure;
+import org.cjohnson.infrastructure.api.InfrastructureAPI;
+import org.cjohnson.infrastructure.command.CommandArgs;
+import org.cjohnson.infrastructure.command.CommandStats;
+import org.cjohnson.infrastructure.command.annotation.*;
+import org.cjohnson.infrastructure.message.MessageUtilities;
+import org.cjohnson.infrastructure.player.InfraPlayerHandler;
+import org.cjohnson.infrastructure.player.OfflinePlayerCache;
+import org.cjohnson.infrastructure.player.PlayerDataJournal;
+import org.cjohnson.infrastructure.player.PlayerDataMigration;
+import org.cjohnson.infrastructure.player.PlayerDataStore;
+import org.cjohnson.infrastructure.player.PlayerDataWriter;
+import org.cjohnson.infrastructure.player.YamlPlayerDataStore;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The CommandInfra command class is used as a command class for the
+ * in-game /infra command, which holds the administrative tools of the plugin.
+ *
+ * @since 0.1.0-ALPHA
+ */
+@Command(aliases = {"infra", "infrastructure"}, permission = "infrastructure.admin")
+public class CommandInfra {
+  
+  /**
+   * The time between two progress reports of a migration, in ticks.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final long MIGRATION_REPORT_TICKS = 100L;
+  
+  /**
+   * Whether a migration of the YAML user files is running.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final AtomicBoolean migrating;
+  
+  /**
+   * Default Constructor for CommandInfra
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public CommandInfra() {
+    migrating = new AtomicBoolean();
+  }
+  
+  /**
+   * The infoCommand() method is the default command case, which shows
+   * the plugin version and the available subcommands.
+   *
+   * @param subCommand The subcommand annotation passed by the CommandFramework
+   * @param sender The CommandSender passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
+   *
+   * @since 0.1.0-ALPHA
+   */
+  @DefaultCommand
+  public void infoCommand(SubCommand subCommand, CommandSender sender, CommandArgs args) {
+    MessageUtilities.displayInfoMessage(sender, Infrastructure.PLUGIN_NAME + " " + Infrastructure.PLUGIN_VERSION);
+    MessageUtilities.displayInfoMessage(sender, "Usage: /infra stats <commands|players>, /infra migrate, /infra reloadfilter");
+  }
+  
+  /**
+   * The statsCommand() method is the case when the
+   * argument [stats] is used.
+   *
+   * @param subCommand The subcommand annotation passed by the CommandFramework
+   * @param sender The CommandSender passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
+   *
+   * @since 0.1.0-ALPHA
+   */
+  @SubCommand(aliases = {"stats"}, permission = "infrastructure.admin.stats")
+  public void statsCommand(SubCommand subCommand, CommandSender sender, CommandArgs args) {
+    if("players".equalsIgnoreCase(args.get(0))) {
+      showPlayerStats(sender);
+      
+      return;
+    }
+    
+    if(!"commands".equalsIgnoreCase(args.get(0))) {
+      MessageUtilities.displayWarningMessage(sender, "Usage: /infra stats <commands|players>");
+      
+      return;
+    }
+    
+    List<CommandStats> commandStats = InfrastructureAPI.getInstance().getCommandStats();
+    
+    // Show the most used command cases first.
+    commandStats.sort((first, second) -> Long.compare(second.getInvocations(), first.getInvocations()));
+    
+    MessageUtilities.displayInfoMessage(sender, "Command runs, errors and run times (p50 / p99 / max):");
+    
+    for(CommandStats stats : commandStats) {
+      MessageUtilities.displayInfoMessage(sender, "/" + stats.getCommand() + " " + stats.getSubCommand() + (stats.isAsync() ? " (async)" : "")
+        + ": " + stats.getInvocations() + " runs, " + stats.getErrors() + " errors, "
+        + formatMillis(stats.getP50Nanos()) + " / " + formatMillis(stats.getP99Nanos()) + " / " + formatMillis(stats.getMaxNanos()));
+    }
+  }
+  
+  /**
+   * The migrateCommand() method is the case when the argument [migrate] is used, which
+   * copies the YAML user files into the active PlayerDataStore in the background.
+   * <p>
+   * Players that already have data in the store keep it, so running the migration while
+   * players are online is safe, and running it again only copies what is still missing.
+   *
+   * @param subCommand The subcommand annotation passed by the CommandFramework
+   * @param sender The CommandSender passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
+   *
+   * @since 0.1.0-ALPHA
+   */
+  @SubCommand(aliases = {"migrate"}, permission = "infrastructure.admin.migrate")
+  public void migrateCommand(SubCommand subCommand, CommandSender sender, CommandArgs args) {
+    PlayerDataStore dataStore = InfrastructureAPI.getInstance().getPlayerHandler().getDataStore();
+    
+    if(dataStore instanceof YamlPlayerDataStore) {
+      MessageUtilities.displayWarningMessage(sender, "Player data is already stored as YAML, set storage.type to sqlite first.");
+      
+      return;
+    }
+    
+    if(!migrating.compareAndSet(false, true)) {
+      MessageUtilities.displayWarningMessage(sender, "A migration is already running.");
+      
+      return;
+    }
+    
+    YamlPlayerDataStore source = new YamlPlayerDataStore(InfrastructureAPI.getInstance().getInfrastructurePlugin().getDataFolder());
+    int readerThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    PlayerDataMigration migration = new PlayerDataMigration(source, dataStore, readerThreads, PlayerDataMigration.DEFAULT_BATCH_SIZE);
+    
+    Thread thread = new Thread(() -> {
+      try {
+        migration.run();
+      } finally {
+        migrating.set(false);
+      }
+    }, "Infrastructure Player Data Migration");
+    thread.setDaemon(true);
+    thread.start();
+    
+    MessageUtilities.displayInfoMessage(sender, "Migrating YAML user files into the " + dataStore.getName() + " store...");
+    
+    new BukkitRunnable() {
+      @Override
+      public void run() {
+        long total = migration.getTotalCount();
+        
+        if(migration.isDone()) {
+          MessageUtilities.displayInfoMessage(sender, "Migration done: " + migration.getMigratedCount() + " migrated, " + migration.getFailedCount() + " failed.");
+          cancel();
+        } else if(total < 0) {
+          MessageUtilities.displayInfoMessage(sender, "Migration: counting user files...");
+        } else {
+          MessageUtilities.displayInfoMessage(sender, "Migration: " + migration.getMigratedCount() + " / " + total + " migrated, " + migration.getFailedCount() + " failed.");
+        }
+      }
+    }.runTaskTimer(InfrastructureAPI.getInstance().getInfrastructurePlugin(), MIGRATION_REPORT_TICKS, MIGRATION_REPORT_TICKS);
+  }
+  
+  /**
+   * The reloadFilterCommand() method is the case when the argument [reloadfilter] is used,
+   * which reloads the banned phrases of the chat filter in the background.
+   *
+   * @param subCommand The subcommand annotation passed by the CommandFramework
+   * @param sender The CommandSender passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
+   *
+   * @since 0.1.0-ALPHA
+   */
+  @SubCommand(aliases = {"reloadfilter"}, permission = "infrastructure.admin.reloadfilter")
+  public void reloadFilterCommand(SubCommand subCommand, CommandSender sender, CommandArgs args) {
+    Infrastructure plugin = InfrastructureAPI.getInstance().getInfrastructurePlugin();
+    CompletableFuture<Integer> reload = plugin.reloadChatFilter();
+    
+    if(reload == null) {
+      MessageUtilities.displayWarningMessage(sender, "The chat filter is disabled, set chat.filter.enabled to true first.");
+      
+      return;
+    }
+    
+    MessageUtilities.displayInfoMessage(sender, "Reloading the chat filter...");
+    
+    reload.whenComplete((phraseCount, error) -> Bukkit.getScheduler().runTask(plugin, () -> {
+      if(error != null) {
+        MessageUtilities.displayErrorMessage(sender, "The chat filter could not be reloaded, see the console.");
+      } else {
+        MessageUtilities.displayInfoMessage(sender, "The chat filter now has " + phraseCount + " banned phrase(s).");
+      }
+    }));
+  }
+  
+  /**
+   * The noPermssion() method is the case when the sender has
+   * no permission to run the command.
+   *
+   * @param subCommand The subcommand annotation passed by the CommandFramework
+   * @param sender The CommandSender passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
+   *
+   * @since 0.1.0-ALPHA
+   */
+  @NoPermission
+  public void noPermission(SubCommand subCommand, CommandSender sender, CommandArgs args) {
+    MessageUtilities.NO_PERMISSION.send(sender);
+  }
+  
+  /**
+   * The notPlayer() method is the case when the sender is
+   * not an instanceof player.
+   *
+   * @param subCommand The subcommand annotation passed by the CommandFramework
+   * @param sender The CommandSender passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
+   *
+   * @since 0.1.0-ALPHA
+   */
+  @NotPlayer
+  public void notPlayer(SubCommand subCommand, CommandSender sender, CommandArgs args) {
+    MessageUtilities.NOT_PLAYER.send(sender);
+  }
+  
+  /**
+   * Shows the metrics of the player registry and the player data persistence.
+   *
+   * @param sender The CommandSender to show the metrics to
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static void showPlayerStats(CommandSender sender) {
+    InfraPlayerHandler playerHandler = InfrastructureAPI.getInstance().getPlayerHandler();
+    PlayerDataWriter dataWriter = playerHandler.getDataWriter();
+    OfflinePlayerCache offlineCache = playerHandler.getOfflineCache();
+    
+    MessageUtilities.displayInfoMessage(sender, "Storage: " + playerHandler.getDataStore().getName()
+      + (playerHandler.getRecordStore() == null ? "" : ", player records: " + playerHandler.getRecordStore().size()));
+    MessageUtilities.displayInfoMessage(sender, "Online players: " + playerHandler.getPlayerCount() + ", staged logins: " + playerHandler.getDataLoader().getStagedCount());
+    MessageUtilities.displayInfoMessage(sender, "Pending writes: " + dataWriter.getPendingCount() + ", written: " + dataWriter.getWriteCount() + ", failed: " + dataWriter.getFailedWriteCount());
+    MessageUtilities.displayInfoMessage(sender, "Offline cache: " + offlineCache.size() + " players, hit rate " + String.format(Locale.ROOT, "%.1f%%", offlineCache.getHitRate() * 100)
+      + " (" + offlineCache.getHitCount() + " hits, " + offlineCache.getMissCount() + " misses, " + offlineCache.getCoalescedCount() + " coalesced), "
+      + offlineCache.getLoadCount() + " loads, " + offlineCache.getFailedLoadCount() + " failed, " + offlineCache.getEvictionCount() + " evictions");
+    if(playerHandler.getJournal() != null) {
+      PlayerDataJournal journal = playerHandler.getJournal();
+      
+      MessageUtilities.displayInfoMessage(sender, "Journal: " + journal.getAppendCount() + " changes, " + journal.getCommitCount() + " commits, "
+        + journal.getCompactionCount() + " compactions, " + journal.getReplayedCount() + " replayed on start");
+    }
+    
+    MessageUtilities.displayInfoMessage(sender, "Flush time (last / avg / max): " + formatMillis(dataWriter.getLastFlushNanos())
+      + " / " + formatMillis(dataWriter.getAverageFlushNanos()) + " / " + formatMillis(dataWriter.getMaxFlushNanos()));
+  }
+  
+  /**
+   * Formats a run time in milliseconds.
+   *
+   * @param nanos The run time, in nanoseconds
+   *
+   * @return The run time in milliseconds, with two decimals
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static String formatMillis(long nanos) {
+    return String.format(Locale.ROOT, "%.2fms", nanos / 1_000_000.0);
+  }
+  
+}
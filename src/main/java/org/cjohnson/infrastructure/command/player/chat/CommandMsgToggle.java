@@ -24,10 +24,13 @@
 
 package org.cjohnson.infrastructure.command.player.chat;
 
+import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.cjohnson.infrastructure.api.InfrastructureAPI;
+import org.cjohnson.infrastructure.command.CommandArgs;
 import org.cjohnson.infrastructure.command.annotation.*;
+import org.cjohnson.infrastructure.message.MessageTemplate;
 import org.cjohnson.infrastructure.message.MessageUtilities;
 import org.cjohnson.infrastructure.player.InfraPlayer;
 
@@ -40,6 +43,15 @@ import org.cjohnson.infrastructure.player.InfraPlayer;
 @Command(aliases = {"msgtoggle", "emsgtoggle"}, permission = "infrastructure.chat.msgtoggle")
 public class CommandMsgToggle {
   
+  /**
+   * The messages for changing the setting of an offline player.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final MessageTemplate LOAD_FAILED = MessageTemplate.error("The player data of {player} could not be loaded.");
+  private static final MessageTemplate NEVER_PLAYED = MessageTemplate.error("Player {player} has never played on this server.");
+  private static final MessageTemplate TOGGLED_OTHER = MessageTemplate.info("Private messages of {player} are now {state}.");
+  
   public CommandMsgToggle() {}
   
   /**
@@ -48,12 +60,12 @@ public class CommandMsgToggle {
    *
    * @param subCommand The subcommand annotation passed by the CommandFramework
    * @param sender The CommandSender passed by the Bukkit API
-   * @param args The command arguments passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
    *
    * @since 0.1.0-ALPHA
    */
   @DefaultCommand
-  public void defaultMsgToggleCommand(SubCommand subCommand, CommandSender sender, String[] args) {
+  public void defaultMsgToggleCommand(SubCommand subCommand, CommandSender sender, CommandArgs args) {
     // Get the BukkitAPI Player object that ran the command
     Player player = (Player) sender;
     
@@ -74,21 +86,17 @@ public class CommandMsgToggle {
    *
    * @param subCommand The subcommand annotation passed by the CommandFramework
    * @param sender The CommandSender passed by the Bukkit API
-   * @param args The command arguments passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
    *
    * @since 0.1.0-ALPHA
    */
   @SubCommand(aliases = {"on"}, permission = "infrastructure.chat.msgtoggle")
-  public void onMsgToggleCommand(SubCommand subCommand, CommandSender sender, String[] args) {
+  public void onMsgToggleCommand(SubCommand subCommand, CommandSender sender, CommandArgs args) {
     // Check if player wants to change another player's msg toggle.
-    // In this case there are 2 args, so we need to check if there's
-    // more than one as opposed to more than 0.
-    if(args.length > 1) {
-      // Get the Player Wrapper (InfraPlayer) object
-      // from the Player Name.
-      InfraPlayer infraPlayer = InfrastructureAPI.getInstance().getPlayerHandler().getPlayer(args[1]);
-      
-      infraPlayer.setMessageToggled(true);
+    // The subcommand alias is not part of the arguments, so the
+    // target player name is the first argument.
+    if(args.has(0)) {
+      setOtherMessageToggled(sender, args.get(0), true);
       
       return;
     }
@@ -110,22 +118,18 @@ public class CommandMsgToggle {
    *
    * @param subCommand The subcommand annotation passed by the CommandFramework
    * @param sender The CommandSender passed by the Bukkit API
-   * @param args The command arguments passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
    *
    * @since 0.1.0-ALPHA
    */
   @SubCommand(aliases = {"off"}, permission = "infrastructure.chat.msgtoggle")
-  public void offMsgToggleCommand(SubCommand subCommand, CommandSender sender, String[] args) {
+  public void offMsgToggleCommand(SubCommand subCommand, CommandSender sender, CommandArgs args) {
     // Check if player wants to change another player's msg toggle.
-    // In this case there are 2 args, so we need to check if there's
-    // more than one as opposed to more than 0.
-    if(args.length > 1) {
-      // Get the Player Wrapper (InfraPlayer) object
-      // from the Player Name.
-      InfraPlayer infraPlayer = InfrastructureAPI.getInstance().getPlayerHandler().getPlayer(args[1]);
-    
-      infraPlayer.setMessageToggled(false);
-    
+    // The subcommand alias is not part of the arguments, so the
+    // target player name is the first argument.
+    if(args.has(0)) {
+      setOtherMessageToggled(sender, args.get(0), false);
+      
       return;
     }
     
@@ -140,19 +144,57 @@ public class CommandMsgToggle {
     infraPlayer.setMessageToggled(false);
   }
   
+  /**
+   * Sets the message toggle of another player, who may be offline.
+   * <p>
+   * The data of offline players is loaded in the background, and the sender is told the
+   * outcome on the main thread once it is loaded.
+   *
+   * @param sender The CommandSender that ran the command
+   * @param playerName The name of the target player
+   * @param messageToggled The new message toggle setting
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static void setOtherMessageToggled(CommandSender sender, String playerName, boolean messageToggled) {
+    InfraPlayer infraPlayer = InfrastructureAPI.getInstance().getPlayerHandler().getPlayer(playerName);
+    
+    if(infraPlayer != null) {
+      infraPlayer.setMessageToggled(messageToggled);
+      
+      return;
+    }
+    
+    InfrastructureAPI.getInstance().getPlayerHandler().getOfflineCache().get(playerName).whenComplete((offlinePlayer, error) -> {
+      if(offlinePlayer != null) {
+        offlinePlayer.setMessageToggled(messageToggled);
+      }
+      
+      Bukkit.getScheduler().runTask(InfrastructureAPI.getInstance().getInfrastructurePlugin(), () -> {
+        if(error != null) {
+          LOAD_FAILED.send(sender, playerName);
+        } else if(offlinePlayer == null) {
+          NEVER_PLAYED.send(sender, playerName);
+        } else {
+          TOGGLED_OTHER.send(sender, offlinePlayer.getName(), messageToggled ? "on" : "off");
+        }
+      });
+    });
+  }
+  
   /**
    * The noPermssion() method is the case when the sender has
    * no permission to run the command.
    *
    * @param subCommand The subcommand annotation passed by the CommandFramework
    * @param sender The CommandSender passed by the Bukkit API
-   * @param args The command arguments passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
    *
    * @since 0.1.0-ALPHA
    */
   @NoPermission
-  public void noPermission(SubCommand subCommand, CommandSender sender, String[] args) {
-    MessageUtilities.displayErrorMessage(sender, "You do not have permission to perform this command.");
+  public void noPermission(SubCommand subCommand, CommandSender sender, CommandArgs args) {
+    MessageUtilities.NO_PERMISSION.send(sender);
   }
   
   /**
@@ -161,13 +203,13 @@ public class CommandMsgToggle {
    *
    * @param subCommand The subcommand annotation passed by the CommandFramework
    * @param sender The CommandSender passed by the Bukkit API
-   * @param args The command arguments passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
    *
    * @since 0.1.0-ALPHA
    */
   @NotPlayer
-  public void notPlayer(SubCommand subCommand, CommandSender sender, String[] args) {
-    MessageUtilities.displayErrorMessage(sender, "You must be a player to perform this command.");
+  public void notPlayer(SubCommand subCommand, CommandSender sender, CommandArgs args) {
+    MessageUtilities.NOT_PLAYER.send(sender);
   }
   
 }
\ No newline at end of file
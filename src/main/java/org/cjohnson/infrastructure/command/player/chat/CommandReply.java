@@ -0,0 +1,128 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.command.player.chat;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.cjohnson.infrastructure.api.InfrastructureAPI;
+import org.cjohnson.infrastructure.command.CommandArgs;
+import org.cjohnson.infrastructure.command.annotation.*;
+import org.cjohnson.infrastructure.message.MessageTemplate;
+import org.cjohnson.infrastructure.message.MessageUtilities;
+import org.cjohnson.infrastructure.player.InfraPlayer;
+import org.cjohnson.infrastructure.player.InfraPlayerHandler;
+
+import java.util.UUID;
+
+/**
+ * The CommandReply command class is used as a command class for the
+ * in-game /reply command.
+ *
+ * @since 0.1.0-ALPHA
+ */
+@Command(aliases = {"reply", "ereply", "r"}, permission = "infrastructure.chat.reply")
+public class CommandReply {
+  
+  /**
+   * The messages of the command.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final MessageTemplate NO_TARGET = MessageTemplate.error("You have nobody to reply to.");
+  private static final MessageTemplate TARGET_OFFLINE = MessageTemplate.error("The player you are replying to is no longer online.");
+  
+  /**
+   * Default Constructor for CommandReply
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public CommandReply() {}
+  
+  /**
+   * The defaultReplyCommand() method is the default command case for
+   * the command, sending a private message to the player last messaged
+   * or messaging.
+   *
+   * @param subCommand The subcommand annotation passed by the CommandFramework
+   * @param sender The CommandSender passed by the Bukkit API
+   * @param message The message
+   *
+   * @since 0.1.0-ALPHA
+   */
+  @DefaultCommand
+  public void defaultReplyCommand(SubCommand subCommand, CommandSender sender, @Arg("message") String message) {
+    InfraPlayerHandler playerHandler = InfrastructureAPI.getInstance().getPlayerHandler();
+    InfraPlayer infraPlayer = playerHandler.getPlayer((Player) sender);
+    UUID replyTarget = infraPlayer.getReplyTarget();
+    
+    if(replyTarget == null) {
+      NO_TARGET.send(sender);
+      
+      return;
+    }
+    
+    InfraPlayer target = playerHandler.getPlayer(replyTarget);
+    
+    if(target == null) {
+      TARGET_OFFLINE.send(sender);
+      
+      return;
+    }
+    
+    PrivateMessages.send(infraPlayer, target, message);
+  }
+  
+  /**
+   * The noPermssion() method is the case when the sender has
+   * no permission to run the command.
+   *
+   * @param subCommand The subcommand annotation passed by the CommandFramework
+   * @param sender The CommandSender passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
+   *
+   * @since 0.1.0-ALPHA
+   */
+  @NoPermission
+  public void noPermission(SubCommand subCommand, CommandSender sender, CommandArgs args) {
+    MessageUtilities.NO_PERMISSION.send(sender);
+  }
+  
+  /**
+   * The notPlayer() method is the case when the sender is
+   * not an instanceof player.
+   *
+   * @param subCommand The subcommand annotation passed by the CommandFramework
+   * @param sender The CommandSender passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
+   *
+   * @since 0.1.0-ALPHA
+   */
+  @NotPlayer
+  public void notPlayer(SubCommand subCommand, CommandSender sender, CommandArgs args) {
+    MessageUtilities.NOT_PLAYER.send(sender);
+  }
+  
+}
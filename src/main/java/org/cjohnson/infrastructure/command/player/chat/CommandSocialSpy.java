@@ -0,0 +1,154 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.command.player.chat;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.cjohnson.infrastructure.api.InfrastructureAPI;
+import org.cjohnson.infrastructure.command.CommandArgs;
+import org.cjohnson.infrastructure.command.annotation.*;
+import org.cjohnson.infrastructure.message.MessageTemplate;
+import org.cjohnson.infrastructure.message.MessageUtilities;
+import org.cjohnson.infrastructure.player.InfraPlayer;
+import org.cjohnson.infrastructure.player.InfraPlayerHandler;
+
+/**
+ * The CommandSocialSpy command class is used as a command class for the
+ * in-game /socialspy command.
+ *
+ * @since 0.1.0-ALPHA
+ */
+@Command(aliases = {"socialspy", "esocialspy", "spy"}, permission = "infrastructure.chat.socialspy")
+public class CommandSocialSpy {
+  
+  /**
+   * The message for changing the setting.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final MessageTemplate TOGGLED = MessageTemplate.info("Social spy is now {state}.");
+  
+  /**
+   * Default Constructor for CommandSocialSpy
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public CommandSocialSpy() {}
+  
+  /**
+   * The defaultSocialSpyCommand() method is the default command case for
+   * the command, toggling social spy.
+   *
+   * @param subCommand The subcommand annotation passed by the CommandFramework
+   * @param sender The CommandSender passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
+   *
+   * @since 0.1.0-ALPHA
+   */
+  @DefaultCommand
+  public void defaultSocialSpyCommand(SubCommand subCommand, CommandSender sender, CommandArgs args) {
+    InfraPlayer infraPlayer = InfrastructureAPI.getInstance().getPlayerHandler().getPlayer((Player) sender);
+    
+    setSocialSpy(infraPlayer, !infraPlayer.isSocialSpy());
+  }
+  
+  /**
+   * The onSocialSpyCommand() method is the case when the
+   * argument [on] is used.
+   *
+   * @param subCommand The subcommand annotation passed by the CommandFramework
+   * @param sender The CommandSender passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
+   *
+   * @since 0.1.0-ALPHA
+   */
+  @SubCommand(aliases = {"on"}, permission = "infrastructure.chat.socialspy")
+  public void onSocialSpyCommand(SubCommand subCommand, CommandSender sender, CommandArgs args) {
+    setSocialSpy(InfrastructureAPI.getInstance().getPlayerHandler().getPlayer((Player) sender), true);
+  }
+  
+  /**
+   * The offSocialSpyCommand() method is the case when the
+   * argument [off] is used.
+   *
+   * @param subCommand The subcommand annotation passed by the CommandFramework
+   * @param sender The CommandSender passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
+   *
+   * @since 0.1.0-ALPHA
+   */
+  @SubCommand(aliases = {"off"}, permission = "infrastructure.chat.socialspy")
+  public void offSocialSpyCommand(SubCommand subCommand, CommandSender sender, CommandArgs args) {
+    setSocialSpy(InfrastructureAPI.getInstance().getPlayerHandler().getPlayer((Player) sender), false);
+  }
+  
+  /**
+   * Sets the social spy flag of a player through the InfraPlayerHandler, which keeps the set of
+   * social spies, and tells them.
+   *
+   * @param infraPlayer The InfraPlayer object
+   * @param socialSpy The new flag setting
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void setSocialSpy(InfraPlayer infraPlayer, boolean socialSpy) {
+    InfraPlayerHandler playerHandler = InfrastructureAPI.getInstance().getPlayerHandler();
+    
+    playerHandler.setSocialSpy(infraPlayer, socialSpy);
+    TOGGLED.send(infraPlayer.getPlayer(), socialSpy ? "on" : "off");
+  }
+  
+  /**
+   * The noPermssion() method is the case when the sender has
+   * no permission to run the command.
+   *
+   * @param subCommand The subcommand annotation passed by the CommandFramework
+   * @param sender The CommandSender passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
+   *
+   * @since 0.1.0-ALPHA
+   */
+  @NoPermission
+  public void noPermission(SubCommand subCommand, CommandSender sender, CommandArgs args) {
+    MessageUtilities.NO_PERMISSION.send(sender);
+  }
+  
+  /**
+   * The notPlayer() method is the case when the sender is
+   * not an instanceof player.
+   *
+   * @param subCommand The subcommand annotation passed by the CommandFramework
+   * @param sender The CommandSender passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
+   *
+   * @since 0.1.0-ALPHA
+   */
+  @NotPlayer
+  public void notPlayer(SubCommand subCommand, CommandSender sender, CommandArgs args) {
+    MessageUtilities.NOT_PLAYER.send(sender);
+  }
+  
+}
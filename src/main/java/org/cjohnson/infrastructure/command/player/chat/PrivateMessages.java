@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.command.player.chat;
+
+import org.cjohnson.infrastructure.api.InfrastructureAPI;
+import org.cjohnson.infrastructure.chat.ChatMessage;
+import org.cjohnson.infrastructure.message.MessageTemplate;
+import org.cjohnson.infrastructure.message.MessageUtilities;
+import org.cjohnson.infrastructure.player.InfraPlayer;
+
+/**
+ * The PrivateMessages Class is the send path shared by the private messaging commands.
+ * <p>
+ * Recipients are looked up by the InfraPlayerHandler in constant time, and social spies are
+ * taken from the set it keeps, so sending never iterates over the online players.
+ *
+ * @since 0.1.0-ALPHA
+ */
+final class PrivateMessages {
+  
+  /**
+   * The permission to message players that have private messages turned off.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static final String BYPASS_PERMISSION = "infrastructure.chat.msg.bypass";
+  
+  /**
+   * The messages of the send path.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final MessageTemplate SENT = MessageTemplate.compile("&7[me &8» &7{target}] &f{message}");
+  private static final MessageTemplate RECEIVED = MessageTemplate.compile("&7[{sender} &8» &7me] &f{message}");
+  private static final MessageTemplate SPIED = MessageTemplate.compile("&8[Spy] &7{sender} &8» &7{target}: &7{message}");
+  private static final MessageTemplate SELF = MessageTemplate.error("You can not message yourself.");
+  private static final MessageTemplate TOGGLED_OFF = MessageTemplate.error("{target} has private messages turned off.");
+  
+  private PrivateMessages() {}
+  
+  /**
+   * Sends a private message, sets the reply targets of both players and shows the message to
+   * the social spies.
+   *
+   * @param sender The InfraPlayer sending the message
+   * @param target The InfraPlayer receiving the message
+   * @param message The message, filtered and sent without color encoding
+   *
+   * @return Whether the message was sent
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static boolean send(InfraPlayer sender, InfraPlayer target, String message) {
+    String senderName = sender.getPlayer().getName();
+    String targetName = target.getPlayer().getName();
+    
+    if(sender == target) {
+      SELF.send(sender.getPlayer());
+      
+      return false;
+    }
+    
+    if(!target.isMessageToggled() && !sender.getPlayer().hasPermission(BYPASS_PERMISSION)) {
+      TOGGLED_OFF.send(sender.getPlayer(), targetName);
+      
+      return false;
+    }
+    
+    // Private messages go through the same filter as chat,
+    // but do not count against the chat message rate, as
+    // the command they were sent with was already counted.
+    ChatMessage filtered = MessageUtilities.filterCommandMessage(sender.getPlayer(), message);
+    
+    if(filtered.isBlocked()) {
+      MessageUtilities.displayErrorMessage(sender.getPlayer(), filtered.getBlockReason());
+      
+      return false;
+    }
+    
+    message = filtered.getText();
+    
+    SENT.send(sender.getPlayer(), targetName, message);
+    RECEIVED.send(target.getPlayer(), senderName, message);
+    
+    sender.setReplyTarget(target.getUniqueId());
+    target.setReplyTarget(sender.getUniqueId());
+    
+    String spied = null;
+    
+    for(InfraPlayer spy : InfrastructureAPI.getInstance().getPlayerHandler().getSocialSpies()) {
+      if(spy == sender || spy == target) {
+        continue;
+      }
+      
+      // Rendered on the first spy only, as most
+      // messages are not seen by any spy.
+      if(spied == null) {
+        spied = SPIED.render(senderName, targetName, message);
+      }
+      
+      spy.getPlayer().sendMessage(spied);
+    }
+    
+    return true;
+  }
+  
+}
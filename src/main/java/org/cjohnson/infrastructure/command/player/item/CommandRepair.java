@@ -29,8 +29,10 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.PlayerInventory;
+import org.cjohnson.infrastructure.command.CommandArgs;
 import org.cjohnson.infrastructure.command.annotation.*;
 import org.cjohnson.infrastructure.item.ItemUtilities;
+import org.cjohnson.infrastructure.message.MessageTemplate;
 import org.cjohnson.infrastructure.message.MessageUtilities;
 
 /**
@@ -42,6 +44,15 @@ import org.cjohnson.infrastructure.message.MessageUtilities;
 @Command(aliases = {"repair", "fix", "efix", "erepair"}, permission = "infrastructure.repair")
 public class CommandRepair {
   
+  /**
+   * The messages of the command.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final MessageTemplate REPAIR_AIR = MessageTemplate.info("You cannot repair air.");
+  private static final MessageTemplate REPAIRED_HAND = MessageTemplate.info("Your {item} has been repaired.");
+  private static final MessageTemplate REPAIRED_ALL = MessageTemplate.info("All of your items have been repaired.");
+  
   /**
    * Default Constructor for CommandRepair
    *
@@ -55,13 +66,13 @@ public class CommandRepair {
    *
    * @param subCommand The subcommand annotation passed by the CommandFramework
    * @param sender The CommandSender passed by the Bukkit API
-   * @param args The command arguments passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
    *
    * @since 0.1.0-ALPHA
    */
   @DefaultCommand
   @SubCommand(aliases = {"hand"}, permission = "infrastructure.repair")
-  public void handRepairCommand(SubCommand subCommand, CommandSender sender, String[] args) {
+  public void handRepairCommand(SubCommand subCommand, CommandSender sender, CommandArgs args) {
     // Get the ItemStack in the player's hand,
     // through getting the PlayerInventory first.
     Player player = (Player) sender;
@@ -70,7 +81,7 @@ public class CommandRepair {
     
     // Air buffer (You cannot repair air)
     if(itemStack.getType() == Material.AIR) {
-      MessageUtilities.displayInfoMessage(player, "You cannot repair air.");
+      REPAIR_AIR.send(player);
       
       return;
     }
@@ -79,7 +90,7 @@ public class CommandRepair {
     playerInventory.setItemInMainHand(ItemUtilities.setItemDamage(itemStack, (short) 0));
     
     // Tell the player that their item has been repaired.
-    MessageUtilities.displayInfoMessage(player, "Your " + itemStack.getType().toString() + " has been repaired.");
+    REPAIRED_HAND.send(player, itemStack.getType());
   }
   
   /**
@@ -88,12 +99,12 @@ public class CommandRepair {
    *
    * @param subCommand The subcommand annotation passed by the CommandFramework
    * @param sender The CommandSender passed by the Bukkit API
-   * @param args The command arguments passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
    *
    * @since 0.1.0-ALPHA
    */
   @SubCommand(aliases = {"all"}, permission = "infrastructure.repair.all")
-  public void allRepairCommand(SubCommand subCommand, CommandSender sender, String[] args) {
+  public void allRepairCommand(SubCommand subCommand, CommandSender sender, CommandArgs args) {
     // Get the contents of all the items in an inventory
     // through the PlayerInventory object, as an array
     // of ItemStacks.
@@ -116,7 +127,7 @@ public class CommandRepair {
     playerInventory.setContents(itemStacks);
   
     // Tell the player that their items have been repaired.
-    MessageUtilities.displayInfoMessage(player, "All of your items have been repaired.");
+    REPAIRED_ALL.send(player);
   }
   
   /**
@@ -125,13 +136,13 @@ public class CommandRepair {
    *
    * @param subCommand The subcommand annotation passed by the CommandFramework
    * @param sender The CommandSender passed by the Bukkit API
-   * @param args The command arguments passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
    *
    * @since 0.1.0-ALPHA
    */
   @NoPermission
-  public void noPermission(SubCommand subCommand, CommandSender sender, String[] args) {
-    MessageUtilities.displayErrorMessage(sender, "You do not have permission to perform this command.");
+  public void noPermission(SubCommand subCommand, CommandSender sender, CommandArgs args) {
+    MessageUtilities.NO_PERMISSION.send(sender);
   }
   
   /**
@@ -140,13 +151,13 @@ public class CommandRepair {
    *
    * @param subCommand The subcommand annotation passed by the CommandFramework
    * @param sender The CommandSender passed by the Bukkit API
-   * @param args The command arguments passed by the Bukkit API
+   * @param args The command arguments passed by the CommandFramework
    *
    * @since 0.1.0-ALPHA
    */
   @NotPlayer
-  public void notPlayer(SubCommand subCommand, CommandSender sender, String[] args) {
-    MessageUtilities.displayErrorMessage(sender, "You must be a player to perform this command.");
+  public void notPlayer(SubCommand subCommand, CommandSender sender, CommandArgs args) {
+    MessageUtilities.NOT_PLAYER.send(sender);
   }
   
 }
@@ -0,0 +1,71 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.event;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.cjohnson.infrastructure.chat.SpamGuard;
+import org.cjohnson.infrastructure.message.MessageUtilities;
+
+/**
+ * The Player Command Spam Listener object that implements Listener to
+ * check the command rate of players, for every command of every plugin.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class PlayerCommandSpamListener implements Listener {
+  
+  /**
+   * The guard the commands are checked by.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final SpamGuard spamGuard;
+  
+  /**
+   * Default Constructor for PlayerCommandSpamListener
+   *
+   * @param spamGuard The guard the commands are checked by
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerCommandSpamListener(SpamGuard spamGuard) {
+    this.spamGuard = spamGuard;
+  }
+  
+  @EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
+  public void onPlayerCommandPreprocess(PlayerCommandPreprocessEvent commandEvent) {
+    String reason = spamGuard.checkCommand(commandEvent.getPlayer());
+    
+    if(reason != null) {
+      commandEvent.setCancelled(true);
+      MessageUtilities.displayErrorMessage(commandEvent.getPlayer(), reason);
+    }
+  }
+  
+}
@@ -24,12 +24,22 @@
 
 package org.cjohnson.infrastructure.event;
 
+import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.cjohnson.infrastructure.api.InfrastructureAPI;
 import org.cjohnson.infrastructure.player.InfraPlayer;
+import org.cjohnson.infrastructure.player.InfraPlayerDataHandler;
+import org.cjohnson.infrastructure.player.PlayerDataLoader;
+import org.cjohnson.infrastructure.player.PlayerRecordStore;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.logging.Level;
 
 /**
  * The Player Traffic Listener object that implements Listener to listen
@@ -39,14 +49,113 @@ import org.cjohnson.infrastructure.player.InfraPlayer;
  */
 public class PlayerTrafficListener implements Listener {
   
+  @EventHandler
+  public void onAsyncPlayerPreLogin(AsyncPlayerPreLoginEvent preLoginEvent) {
+    if(preLoginEvent.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+      return;
+    }
+    
+    // Cached offline data must not be changed
+    // alongside the data the player joins with.
+    InfrastructureAPI.getInstance().getPlayerHandler().getOfflineCache().invalidate(preLoginEvent.getUniqueId());
+    
+    // Load the player data on the login thread, so that
+    // joining does not touch the disk on the main thread.
+    PlayerDataLoader dataLoader = InfrastructureAPI.getInstance().getPlayerHandler().getDataLoader();
+    
+    if(!dataLoader.preLoad(preLoginEvent.getUniqueId(), preLoginEvent.getName(), preLoginEvent.getAddress())) {
+      preLoginEvent.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, "Your player data could not be loaded, please try joining again.");
+      
+      return;
+    }
+    
+    // Keep the name the player is found by while offline.
+    InfrastructureAPI.getInstance().getPlayerHandler().getNameDirectory().record(preLoginEvent.getUniqueId(), preLoginEvent.getName());
+  }
+  
+  @EventHandler(priority = EventPriority.MONITOR)
+  public void onAsyncPlayerPreLoginResult(AsyncPlayerPreLoginEvent preLoginEvent) {
+    // Another plugin may have rejected the login
+    // after the player data was loaded.
+    if(preLoginEvent.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+      InfrastructureAPI.getInstance().getPlayerHandler().getDataLoader().discard(preLoginEvent.getUniqueId());
+    }
+  }
+  
   @EventHandler
   public void onPlayerJoin(PlayerJoinEvent playerJoinEvent) {
-    InfrastructureAPI.getInstance().getPlayerHandler().addPlayer(new InfraPlayer(playerJoinEvent.getPlayer()));
+    Player player = playerJoinEvent.getPlayer();
+    long now = System.currentTimeMillis();
+    
+    if(getTimestamp(player.getUniqueId(), PlayerRecordStore.FIRST_JOIN) == 0L) {
+      setTimestamp(player.getUniqueId(), PlayerRecordStore.FIRST_JOIN, now);
+    }
+    
+    setTimestamp(player.getUniqueId(), PlayerRecordStore.LAST_JOIN, now);
+    
+    InfraPlayerDataHandler dataHandler = InfrastructureAPI.getInstance().getPlayerHandler().getDataLoader().takeStaged(player.getUniqueId());
+    
+    // Without preloaded data, for example when the staged data
+    // expired, the data is loaded on the main thread instead.
+    if(dataHandler == null) {
+      InfrastructureAPI.getInstance().getPluginLogger().warning("No preloaded player data for " + player.getName() + ", loading it on the main thread");
+      InfrastructureAPI.getInstance().getPlayerHandler().addPlayer(new InfraPlayer(player));
+      
+      return;
+    }
+    
+    InfrastructureAPI.getInstance().getPlayerHandler().addPlayer(new InfraPlayer(player, dataHandler));
   }
   
   @EventHandler
   public void onPlayerQuit(PlayerQuitEvent playerQuitEvent) {
-    InfrastructureAPI.getInstance().getPlayerHandler().removePlayer(playerQuitEvent.getPlayer());
+    Player player = playerQuitEvent.getPlayer();
+    
+    InfrastructureAPI.getInstance().getPlayerHandler().removePlayer(player);
+    setTimestamp(player.getUniqueId(), PlayerRecordStore.LAST_QUIT, System.currentTimeMillis());
+    
+    // Write the changes of the player without waiting for
+    // the next flush, and without blocking the main thread.
+    InfrastructureAPI.getInstance().getPlayerHandler().getDataWriter().flushSoon(player.getUniqueId());
+  }
+  
+  /**
+   * Gets a timestamp of a player from the PlayerRecordStore.
+   *
+   * @param uuid The unique ID of the player
+   * @param slot The timestamp slot
+   *
+   * @return The timestamp in milliseconds, or 0 if it was never set or the record store is disabled
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static long getTimestamp(UUID uuid, int slot) {
+    PlayerRecordStore recordStore = InfrastructureAPI.getInstance().getPlayerHandler().getRecordStore();
+    
+    return recordStore == null ? 0L : recordStore.getTimestamp(uuid, slot);
+  }
+  
+  /**
+   * Sets a timestamp of a player in the PlayerRecordStore, if it is enabled.
+   *
+   * @param uuid The unique ID of the player
+   * @param slot The timestamp slot
+   * @param timestamp The timestamp in milliseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static void setTimestamp(UUID uuid, int slot, long timestamp) {
+    PlayerRecordStore recordStore = InfrastructureAPI.getInstance().getPlayerHandler().getRecordStore();
+    
+    if(recordStore == null) {
+      return;
+    }
+    
+    try {
+      recordStore.setTimestamp(uuid, slot, timestamp);
+    } catch (IOException e) {
+      InfrastructureAPI.getInstance().getPluginLogger().log(Level.WARNING, "Could not write a timestamp of " + uuid + " to the record store", e);
+    }
   }
   
 }
@@ -0,0 +1,314 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.message;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.cjohnson.infrastructure.player.InfraPlayer;
+import org.cjohnson.infrastructure.player.InfraPlayerHandler;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+/**
+ * The Broadcaster Class sends one message to many players, rendering it once per variant
+ * instead of once per player.
+ * <p>
+ * The recipients are taken from the audience index of the InfraPlayerHandler. Every player is
+ * mapped to a variant key, such as their locale, and the message is rendered the first time a
+ * variant is seen. Messages are sent on the main thread, at most a fixed number per tick across
+ * all broadcasts, so that a broadcast to a very large audience is spread over several ticks.
+ * The periodic refresh of the audience index is spread the same way, every player it updates
+ * counting as one message.
+ * Broadcasts can be started from any thread, and are delivered in the order they were started.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class Broadcaster {
+  
+  /**
+   * The default number of messages sent per tick.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final int DEFAULT_PER_TICK_BUDGET = 200;
+  
+  /**
+   * The number of ticks between two refreshes of the audience index.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final int AUDIENCE_REFRESH_TICKS = 100;
+  
+  /**
+   * The part of the budget of a tick that refreshing the audience index may take, as a
+   * divisor of the budget.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final int AUDIENCE_REFRESH_SHARE = 4;
+  
+  /**
+   * The player registry the recipients are taken from.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final InfraPlayerHandler playerHandler;
+  
+  /**
+   * The number of messages sent per tick.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int perTickBudget;
+  
+  /**
+   * The broadcasts not fully delivered yet, in the order they were started.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Queue<PendingBroadcast> pending;
+  
+  /**
+   * The delivery task.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private BukkitTask task;
+  
+  /**
+   * The number of ticks the delivery task has run, used on the main thread only.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private long tickCount;
+  
+  /**
+   * Default Constructor for Broadcaster
+   *
+   * @param playerHandler The player registry the recipients are taken from
+   * @param perTickBudget The number of messages sent per tick
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public Broadcaster(InfraPlayerHandler playerHandler, int perTickBudget) {
+    this.playerHandler = playerHandler;
+    this.perTickBudget = Math.max(1, perTickBudget);
+    this.pending = new ConcurrentLinkedQueue<PendingBroadcast>();
+  }
+  
+  /**
+   * Starts delivering broadcasts every tick.
+   *
+   * @param plugin The plugin the task runs for
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void start(Plugin plugin) {
+    task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+  }
+  
+  /**
+   * Stops delivering broadcasts. Broadcasts not fully delivered are completed with the number
+   * of players they reached.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void cancel() {
+    if(task != null) {
+      task.cancel();
+    }
+    
+    PendingBroadcast broadcast;
+    
+    while((broadcast = pending.poll()) != null) {
+      broadcast.result.complete(broadcast.deliveredCount);
+    }
+  }
+  
+  /**
+   * Broadcasts a message template to every online player.
+   *
+   * @param template The message template
+   * @param values The placeholder values
+   *
+   * @return A future completed with the number of players reached
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public CompletableFuture<Integer> broadcast(MessageTemplate template, Object... values) {
+    return broadcast(null, template, values);
+  }
+  
+  /**
+   * Broadcasts a message template to the online players with a permission.
+   *
+   * @param permission The permission, or null for every online player
+   * @param template The message template
+   * @param values The placeholder values
+   *
+   * @return A future completed with the number of players reached
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public CompletableFuture<Integer> broadcast(String permission, MessageTemplate template, Object... values) {
+    String message = template.render(values);
+    
+    return broadcast(permission, player -> Boolean.TRUE, variant -> message);
+  }
+  
+  /**
+   * Broadcasts a message that is rendered once for every variant of the recipients, for example
+   * once per locale with {@code Player::getLocale} as the variant function.
+   *
+   * @param permission The permission, or null for every online player
+   * @param variant The function mapping a player to their variant key, called on the main thread
+   * @param renderer The function rendering the message of a variant key, called on the main thread
+   * @param <K> The type of the variant keys
+   *
+   * @return A future completed with the number of players reached, on the main thread
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public <K> CompletableFuture<Integer> broadcast(String permission, Function<? super Player, ? extends K> variant, Function<? super K, String> renderer) {
+    PendingBroadcast broadcast = new PendingBroadcast(permission, playerHandler.getAudience(permission), variant, renderer);
+    
+    // Small broadcasts started on the main thread while nothing
+    // is queued are delivered at once, within the budget.
+    if(Bukkit.isPrimaryThread() && pending.isEmpty() && broadcast.recipients.size() <= perTickBudget) {
+      broadcast.deliver(perTickBudget);
+    } else {
+      pending.add(broadcast);
+    }
+    
+    return broadcast.result;
+  }
+  
+  /**
+   * Gets the number of broadcasts not fully delivered yet.
+   *
+   * @return The number of pending broadcasts
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int getPendingCount() {
+    return pending.size();
+  }
+  
+  /**
+   * Delivers pending broadcasts until the budget of the tick is spent, on the main thread.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void tick() {
+    int budget = perTickBudget;
+    
+    // Permission changes have no event, so the audience index
+    // is refreshed every few seconds, a slice of players per tick.
+    if(++tickCount % AUDIENCE_REFRESH_TICKS == 0 || playerHandler.isRefreshingAudiences()) {
+      budget -= playerHandler.refreshAudiences(Math.max(1, perTickBudget / AUDIENCE_REFRESH_SHARE));
+    }
+    PendingBroadcast broadcast;
+    
+    while(budget > 0 && (broadcast = pending.peek()) != null) {
+      budget -= broadcast.deliver(budget);
+      
+      if(broadcast.result.isDone()) {
+        pending.poll();
+      }
+    }
+  }
+  
+  /**
+   * A broadcast and how far it has been delivered.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final class PendingBroadcast {
+    
+    private final String permission;
+    private final List<UUID> recipients;
+    private final Function<? super Player, ?> variant;
+    private final Function<Object, String> renderer;
+    private final Map<Object, String> rendered;
+    private final CompletableFuture<Integer> result;
+    private int position;
+    private int deliveredCount;
+    
+    @SuppressWarnings("unchecked")
+    private <K> PendingBroadcast(String permission, List<UUID> recipients, Function<? super Player, ? extends K> variant, Function<? super K, String> renderer) {
+      this.permission = permission;
+      this.recipients = recipients;
+      this.variant = variant;
+      this.renderer = (Function<Object, String>) renderer;
+      this.rendered = new HashMap<Object, String>();
+      this.result = new CompletableFuture<Integer>();
+    }
+    
+    /**
+     * Sends the message to the next recipients, on the main thread.
+     *
+     * @param budget The number of messages that may be sent
+     *
+     * @return The number of recipients handled, including players that left or lost the permission
+     */
+    private int deliver(int budget) {
+      int end = Math.min(recipients.size(), position + budget);
+      int handled = end - position;
+      
+      for(; position < end; position++) {
+        InfraPlayer infraPlayer = playerHandler.getPlayer(recipients.get(position));
+        
+        // The player may have quit, or lost the permission
+        // since the audience index was last refreshed.
+        if(infraPlayer == null || (permission != null && !infraPlayer.getPlayer().hasPermission(permission))) {
+          continue;
+        }
+        
+        Player player = infraPlayer.getPlayer();
+        
+        player.sendMessage(rendered.computeIfAbsent(variant.apply(player), renderer));
+        deliveredCount++;
+      }
+      
+      if(position == recipients.size()) {
+        result.complete(deliveredCount);
+      }
+      
+      return handled;
+    }
+    
+  }
+  
+}
@@ -0,0 +1,313 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.message;
+
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The MessageTemplate Class is a message compiled once from a template with {@code {placeholders}}.
+ * <p>
+ * The text between the placeholders, including the prefix and the color modifier, is color
+ * encoded when the template is compiled. Rendering only joins the text with the placeholder
+ * values in one pass, and a template without placeholders is rendered once and reused.
+ * Placeholder values are inserted as they are, without color encoding, so that player input
+ * can not add colors to a message.
+ * <p>
+ * Templates are immutable, and are meant to be kept in constants.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public final class MessageTemplate {
+  
+  /**
+   * The color encoded text around the placeholders, one more than there are placeholders.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final String[] literals;
+  
+  /**
+   * The index of the value each placeholder is replaced with.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int[] valueIndexes;
+  
+  /**
+   * The number of values, one for every distinct placeholder name.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int valueCount;
+  
+  /**
+   * The total length of the literals.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int literalLength;
+  
+  /**
+   * The rendered message, if the template has no placeholders.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final String constant;
+  
+  /**
+   * Private Constructor for MessageTemplate
+   *
+   * @param literals The color encoded text around the placeholders
+   * @param valueIndexes The index of the value each placeholder is replaced with
+   * @param valueCount The number of values
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private MessageTemplate(String[] literals, int[] valueIndexes, int valueCount) {
+    this.literals = literals;
+    this.valueIndexes = valueIndexes;
+    this.valueCount = valueCount;
+    
+    int length = 0;
+    
+    for(String literal : literals) {
+      length += literal.length();
+    }
+    
+    this.literalLength = length;
+    this.constant = valueIndexes.length == 0 ? literals[0] : null;
+  }
+  
+  /**
+   * Compiles a template without a prefix.
+   * <p>
+   * Values are passed to {@link #render(Object...)} in the order their placeholder names first
+   * appear in the template, and a name used more than once takes the same value each time.
+   * A brace that does not close a placeholder name is kept as text.
+   *
+   * @param template The template, using {@link MessageUtilities#colorEncodingChar} for colors
+   *
+   * @return The compiled template
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static MessageTemplate compile(String template) {
+    List<String> literals = new ArrayList<String>();
+    List<String> names = new ArrayList<String>();
+    List<Integer> valueIndexes = new ArrayList<Integer>();
+    StringBuilder literal = new StringBuilder();
+    int position = 0;
+    
+    while(position < template.length()) {
+      int open = template.indexOf('{', position);
+      int close = open < 0 ? -1 : template.indexOf('}', open + 1);
+      
+      if(close < 0) {
+        literal.append(template, position, template.length());
+        
+        break;
+      }
+      
+      String name = template.substring(open + 1, close);
+      
+      if(!isPlaceholderName(name)) {
+        literal.append(template, position, open + 1);
+        position = open + 1;
+        
+        continue;
+      }
+      
+      literal.append(template, position, open);
+      literals.add(encode(literal.toString()));
+      literal.setLength(0);
+      
+      int valueIndex = names.indexOf(name);
+      
+      if(valueIndex < 0) {
+        valueIndex = names.size();
+        names.add(name);
+      }
+      
+      valueIndexes.add(valueIndex);
+      position = close + 1;
+    }
+    
+    literals.add(encode(literal.toString()));
+    
+    int[] indexes = new int[valueIndexes.size()];
+    
+    for(int i = 0; i < indexes.length; i++) {
+      indexes[i] = valueIndexes.get(i);
+    }
+    
+    return new MessageTemplate(literals.toArray(new String[0]), indexes, names.size());
+  }
+  
+  /**
+   * Compiles a template for info messages, with the universal prefix.
+   *
+   * @param template The template
+   *
+   * @return The compiled template
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static MessageTemplate info(String template) {
+    return compile(MessageUtilities.universalPrefix + MessageUtilities.infoColorModifier + template);
+  }
+  
+  /**
+   * Compiles a template for warning messages, with the universal prefix.
+   *
+   * @param template The template
+   *
+   * @return The compiled template
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static MessageTemplate warning(String template) {
+    return compile(MessageUtilities.universalPrefix + MessageUtilities.warningColorModifier + template);
+  }
+  
+  /**
+   * Compiles a template for error messages, with the universal prefix.
+   *
+   * @param template The template
+   *
+   * @return The compiled template
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static MessageTemplate error(String template) {
+    return compile(MessageUtilities.universalPrefix + MessageUtilities.errorColorModifier + template);
+  }
+  
+  /**
+   * Renders the message.
+   *
+   * @param values The placeholder values, in the order the placeholder names first appear
+   *
+   * @return The rendered message
+   *
+   * @throws IllegalArgumentException If the number of values does not match the placeholders
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public String render(Object... values) {
+    if(values.length != valueCount) {
+      throw new IllegalArgumentException("Message template takes " + valueCount + " value(s), got " + values.length);
+    }
+    
+    if(constant != null) {
+      return constant;
+    }
+    
+    String[] strings = new String[valueCount];
+    int length = literalLength;
+    
+    for(int i = 0; i < valueCount; i++) {
+      strings[i] = String.valueOf(values[i]);
+    }
+    
+    for(int valueIndex : valueIndexes) {
+      length += strings[valueIndex].length();
+    }
+    
+    StringBuilder message = new StringBuilder(length).append(literals[0]);
+    
+    for(int i = 0; i < valueIndexes.length; i++) {
+      message.append(strings[valueIndexes[i]]).append(literals[i + 1]);
+    }
+    
+    return message.toString();
+  }
+  
+  /**
+   * Renders the message and sends it.
+   *
+   * @param targetUser The user that receives the message
+   * @param values The placeholder values, in the order the placeholder names first appear
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void send(CommandSender targetUser, Object... values) {
+    targetUser.sendMessage(render(values));
+  }
+  
+  /**
+   * Gets the number of values the template takes.
+   *
+   * @return The number of distinct placeholder names
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int getValueCount() {
+    return valueCount;
+  }
+  
+  /**
+   * Checks if text between braces is a placeholder name.
+   *
+   * @param name The text between the braces
+   *
+   * @return Whether the text is a placeholder name
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static boolean isPlaceholderName(String name) {
+    if(name.isEmpty()) {
+      return false;
+    }
+    
+    for(int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      
+      if(!Character.isLetterOrDigit(c) && c != '-' && c != '_') {
+        return false;
+      }
+    }
+    
+    return true;
+  }
+  
+  /**
+   * Color encodes template text.
+   *
+   * @param text The template text
+   *
+   * @return The color encoded text
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static String encode(String text) {
+    return ChatColor.translateAlternateColorCodes(MessageUtilities.colorEncodingChar, text);
+  }
+  
+}
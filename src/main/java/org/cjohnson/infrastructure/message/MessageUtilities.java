@@ -26,6 +26,11 @@ package org.cjohnson.infrastructure.message;
 
 import org.bukkit.ChatColor;
 import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.cjohnson.infrastructure.api.InfrastructureAPI;
+import org.cjohnson.infrastructure.chat.ChatMessage;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Infrastructure Message Utilties
@@ -67,8 +72,32 @@ public abstract class MessageUtilities {
    */
   public static final String errorColorModifier = "&c";
   
+  /**
+   * The color encoded prefixes of info, warning and error messages, encoded once.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final String infoPrefix = getEncodedMessage(universalPrefix + infoColorModifier);
+  private static final String warningPrefix = getEncodedMessage(universalPrefix + warningColorModifier);
+  private static final String errorPrefix = getEncodedMessage(universalPrefix + errorColorModifier);
+  
+  /**
+   * The error message for senders without the permission for a command.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final MessageTemplate NO_PERMISSION = MessageTemplate.error("You do not have permission to perform this command.");
+  /**
+   * The error message for senders that must be a player for a command.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final MessageTemplate NOT_PLAYER = MessageTemplate.error("You must be a player to perform this command.");
+  
   /**
    * The method that displays an info message to a target player
+   * <p>
+   * Messages that are sent often should be kept as a {@link MessageTemplate} instead.
    *
    * @param targetUser The user that receives the message
    * @param messageRaw The raw message to be sent
@@ -76,7 +105,7 @@ public abstract class MessageUtilities {
    * @since 0.1.0-ALPHA
    */
   public static void displayInfoMessage(CommandSender targetUser, String messageRaw) {
-    targetUser.sendMessage(getEncodedMessage(universalPrefix + infoColorModifier + messageRaw));
+    targetUser.sendMessage(infoPrefix + getEncodedMessage(messageRaw));
   }
   
   /**
@@ -88,7 +117,7 @@ public abstract class MessageUtilities {
    * @since 0.1.0-ALPHA
    */
   public static void displayWarningMessage(CommandSender targetUser, String messageRaw) {
-    targetUser.sendMessage(getEncodedMessage(universalPrefix + warningColorModifier + messageRaw));
+    targetUser.sendMessage(warningPrefix + getEncodedMessage(messageRaw));
   }
   
   /**
@@ -100,7 +129,92 @@ public abstract class MessageUtilities {
    * @since 0.1.0-ALPHA
    */
   public static void displayErrorMessage(CommandSender targetUser, String messageRaw) {
-    targetUser.sendMessage(getEncodedMessage(universalPrefix + errorColorModifier + messageRaw));
+    targetUser.sendMessage(errorPrefix + getEncodedMessage(messageRaw));
+  }
+  
+  /**
+   * The method that broadcasts an info message to every online player, encoding it once
+   *
+   * @param messageRaw The raw message to be sent
+   *
+   * @return A future completed with the number of players reached
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static CompletableFuture<Integer> broadcastInfoMessage(String messageRaw) {
+    return broadcast(null, infoPrefix + getEncodedMessage(messageRaw));
+  }
+  
+  /**
+   * The method that broadcasts a warning message to every online player, encoding it once
+   *
+   * @param messageRaw The raw message to be sent
+   *
+   * @return A future completed with the number of players reached
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static CompletableFuture<Integer> broadcastWarningMessage(String messageRaw) {
+    return broadcast(null, warningPrefix + getEncodedMessage(messageRaw));
+  }
+  
+  /**
+   * The method that broadcasts a message template to the online players with a permission,
+   * rendering it once
+   *
+   * @param permission The permission, or null for every online player
+   * @param template The message template
+   * @param values The placeholder values
+   *
+   * @return A future completed with the number of players reached
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static CompletableFuture<Integer> broadcast(String permission, MessageTemplate template, Object... values) {
+    return InfrastructureAPI.getInstance().getBroadcaster().broadcast(permission, template, values);
+  }
+  
+  /**
+   * The method that broadcasts an encoded message to the online players with a permission
+   *
+   * @param permission The permission, or null for every online player
+   * @param message The encoded message
+   *
+   * @return A future completed with the number of players reached
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static CompletableFuture<Integer> broadcast(String permission, String message) {
+    return InfrastructureAPI.getInstance().getBroadcaster().broadcast(permission, player -> Boolean.TRUE, variant -> message);
+  }
+  
+  /**
+   * The method that runs a chat message of a player through the chat filter
+   *
+   * @param sender The player sending the message
+   * @param messageRaw The raw message
+   *
+   * @return The filtered message, which may be blocked
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static ChatMessage filterChat(Player sender, String messageRaw) {
+    return InfrastructureAPI.getInstance().getChatPipeline().process(sender, messageRaw);
+  }
+  
+  /**
+   * The method that runs a message a player sent with a command through the chat filter,
+   * without counting it as chat for the spam check again
+   *
+   * @param sender The player sending the message
+   * @param messageRaw The raw message
+   *
+   * @return The filtered message, which may be blocked
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static ChatMessage filterCommandMessage(Player sender, String messageRaw) {
+    return InfrastructureAPI.getInstance().getChatPipeline().process(new ChatMessage(sender, messageRaw, true));
   }
   
   /**
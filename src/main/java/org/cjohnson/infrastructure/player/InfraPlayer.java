@@ -25,8 +25,11 @@
 package org.cjohnson.infrastructure.player;
 
 import org.bukkit.entity.Player;
+import org.cjohnson.infrastructure.api.InfrastructureAPI;
 
 import java.io.IOException;
+import java.util.UUID;
+import java.util.logging.Level;
 
 /**
  * The Infrastructure Player container class that contains more Infrastructrue Data.
@@ -42,6 +45,20 @@ public class InfraPlayer {
    */
   private Player player;
   
+  /**
+   * The unique ID of the player, which the InfraPlayerHandler registers the player under.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final UUID uniqueId;
+  
+  /**
+   * The name the InfraPlayerHandler indexed the player under.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private volatile String indexedName;
+  
   /**
    * The Player Data Handler
    *
@@ -50,30 +67,75 @@ public class InfraPlayer {
   private InfraPlayerDataHandler dataHandler;
   
   /**
-   * The flag that determines if players can receive private messages
+   * The flags of the player
    *
    * @since 0.1.0-ALPHA
    */
-  private boolean messageToggled;
+  private final PlayerFlagSet flags;
   
   /**
-   * InfraPlayer standard on-join constructor
+   * The unique ID of the player that replies go to, the last one messaged or messaging.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private volatile UUID replyTarget;
+  
+  /**
+   * The recent messages and commands of the player, for spam detection
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final SpamTracker spamTracker = new SpamTracker();
+  
+  /**
+   * InfraPlayer standard on-join constructor, taking player data loaded by the PlayerDataLoader
    *
    * @param player The Bukkit API Player Object
+   * @param dataHandler The loaded Player Data Handler
    *
    * @since 0.1.0-ALPHA
    */
-  public InfraPlayer(Player player) {
+  public InfraPlayer(Player player, InfraPlayerDataHandler dataHandler) {
     this.player = player;
-    this.dataHandler = new InfraPlayerDataHandler(player.getUniqueId());
+    this.uniqueId = player.getUniqueId();
+    this.dataHandler = dataHandler;
+    
+    this.flags = new PlayerFlagSet(uniqueId, dataHandler);
+  }
+  
+  /**
+   * InfraPlayer constructor that loads the player data on the calling thread
+   * <p>
+   * This is the fallback for players without preloaded data, such as players that were
+   * already online when the plugin was enabled. When the data can not be loaded, the
+   * player gets the default data, which is not saved over the user file.
+   *
+   * @param player The Bukkit API Player Object
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public InfraPlayer(Player player) {
+    this(player, loadDataHandler(player));
+  }
+  
+  /**
+   * Loads the Player Data Handler of a player on the calling thread.
+   *
+   * @param player The Bukkit API Player Object
+   *
+   * @return The loaded Player Data Handler, or a Player Data Handler with default data if loading failed
+   */
+  private static InfraPlayerDataHandler loadDataHandler(Player player) {
+    InfraPlayerDataHandler dataHandler = new InfraPlayerDataHandler(player.getUniqueId());
     
     try {
-      this.dataHandler.createUser(this);
+      dataHandler.load(player.getName(), player.getAddress().getAddress().getHostAddress());
     } catch (IOException e) {
-      e.printStackTrace();
+      InfrastructureAPI.getInstance().getPluginLogger().log(Level.SEVERE, "Could not load the player data of " + player.getName() + ", using default data", e);
+      dataHandler.useDefaults();
     }
     
-    this.messageToggled = this.dataHandler.getUserFileConfiguration().getBoolean("infrastructure.message.toggled");
+    return dataHandler;
   }
   
   /**
@@ -85,13 +147,92 @@ public class InfraPlayer {
     return player;
   }
   
+  /**
+   * Getter for the unique ID of the player.
+   *
+   * @return The unique ID of the player
+   */
+  public UUID getUniqueId() {
+    return uniqueId;
+  }
+  
+  /**
+   * Getter for the name the InfraPlayerHandler indexed the player under.
+   *
+   * @return The indexed name, or null if the player was never registered
+   */
+  String getIndexedName() {
+    return indexedName;
+  }
+  
+  /**
+   * Setter for the name the InfraPlayerHandler indexed the player under.
+   *
+   * @param indexedName The indexed name
+   */
+  void setIndexedName(String indexedName) {
+    this.indexedName = indexedName;
+  }
+  
+  /**
+   * Getter for a flag of the player.
+   *
+   * @param flag The PlayerFlag
+   *
+   * @return The flag value
+   */
+  public boolean getFlag(PlayerFlag flag) {
+    return flags.get(flag);
+  }
+  
+  /**
+   * Setter for a flag of the player, which is saved in the background.
+   *
+   * @param flag The PlayerFlag
+   * @param value The new flag value
+   *
+   * @return The previous flag value
+   */
+  public boolean setFlag(PlayerFlag flag, boolean value) {
+    return flags.set(flag, value);
+  }
+  
+  /**
+   * Getter for a word of the packed flag values, for scanning many players for a flag.
+   *
+   * @param word The index of the word
+   *
+   * @return The 64 flag values of the word
+   */
+  public long getFlagWord(int word) {
+    return flags.getWord(word);
+  }
+  
+  /**
+   * Getter for the packed flag values.
+   *
+   * @return A new array of the packed flag values
+   */
+  public long[] getFlagWords() {
+    return flags.getWords();
+  }
+  
+  /**
+   * Getter for the flags of the player.
+   *
+   * @return The PlayerFlagSet
+   */
+  PlayerFlagSet getFlagSet() {
+    return flags;
+  }
+  
   /**
    * Getter for the message toggled flag
    *
    * @return The message toggled flag
    */
   public boolean isMessageToggled() {
-    return messageToggled;
+    return getFlag(InfrastructureAPI.getInstance().getPlayerHandler().getMessageToggledFlag());
   }
   
   /**
@@ -100,6 +241,51 @@ public class InfraPlayer {
    * @param messageToggled The new flag setting
    */
   public void setMessageToggled(boolean messageToggled) {
-    this.messageToggled = messageToggled;
+    setFlag(InfrastructureAPI.getInstance().getPlayerHandler().getMessageToggledFlag(), messageToggled);
+  }
+  
+  /**
+   * Getter for the social spy flag
+   *
+   * @return The social spy flag
+   */
+  public boolean isSocialSpy() {
+    return getFlag(InfrastructureAPI.getInstance().getPlayerHandler().getSocialSpyFlag());
+  }
+  
+  /**
+   * Getter for the unique ID of the player that replies go to.
+   *
+   * @return The unique ID of the reply target, or null if the player has not messaged anyone
+   */
+  public UUID getReplyTarget() {
+    return replyTarget;
+  }
+  
+  /**
+   * Setter for the unique ID of the player that replies go to.
+   *
+   * @param replyTarget The unique ID of the reply target
+   */
+  public void setReplyTarget(UUID replyTarget) {
+    this.replyTarget = replyTarget;
+  }
+  
+  /**
+   * Getter for the spam tracker of the player.
+   *
+   * @return The SpamTracker
+   */
+  public SpamTracker getSpamTracker() {
+    return spamTracker;
+  }
+  
+  /**
+   * Getter for the Player Data Handler
+   *
+   * @return The Player Data Handler
+   */
+  public InfraPlayerDataHandler getDataHandler() {
+    return dataHandler;
   }
 }
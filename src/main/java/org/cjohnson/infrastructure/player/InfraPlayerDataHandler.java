@@ -24,13 +24,17 @@
 
 package org.cjohnson.infrastructure.player;
 
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.cjohnson.infrastructure.api.InfrastructureAPI;
 
-import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.logging.Level;
 
 /**
  * The Data Manager and Player Configuration Manager Class
@@ -47,11 +51,11 @@ public class InfraPlayerDataHandler {
   private UUID uuid;
   
   /**
-   * The file of the configuration on the server's os file system
+   * The store the configuration is loaded from and saved to
    *
    * @since 0.1.0-ALPHA
    */
-  private File file;
+  private PlayerDataStore dataStore;
   
   /**
    * Bukkit API Configuration Object
@@ -60,6 +64,28 @@ public class InfraPlayerDataHandler {
    */
   private FileConfiguration fileConfiguration;
   
+  /**
+   * Whether the configuration holds default data because the user file could not be loaded,
+   * in which case it is never saved over the user file.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private boolean defaultData;
+  
+  /**
+   * The configuration paths changed since the last write, guarded by the data handler.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final HashSet<String> dirtyPaths = new HashSet<String>();
+  
+  /**
+   * Whether the last write of the configuration failed, guarded by the data handler.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private boolean unwritten;
+  
   /**
    * Default Constructor for InfraPlayerDataHandler
    *
@@ -68,9 +94,20 @@ public class InfraPlayerDataHandler {
    * @since 0.1.0-ALPHA
    */
   public InfraPlayerDataHandler(UUID uuid) {
+    this(uuid, InfrastructureAPI.getInstance().getPlayerHandler().getDataStore());
+  }
+  
+  /**
+   * Constructor for InfraPlayerDataHandler
+   *
+   * @param uuid The Player Unique ID
+   * @param dataStore The store the configuration is loaded from and saved to
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public InfraPlayerDataHandler(UUID uuid, PlayerDataStore dataStore) {
     this.uuid = uuid;
-    
-    this.file = new File(InfrastructureAPI.getInstance().getInfrastructurePlugin().getDataFolder(), uuid + ".yml");
+    this.dataStore = dataStore;
   }
   
   /**
@@ -82,17 +119,105 @@ public class InfraPlayerDataHandler {
    * @since 0.1.0-ALPHA
    */
   public void createUser(final InfraPlayer player) throws IOException {
-    if(!(file.exists())) {
-      YamlConfiguration yamlConfiguration = YamlConfiguration.loadConfiguration(file);
-      
-      yamlConfiguration.set("user.info.recentalias", player.getPlayer().getName());
-      yamlConfiguration.set("user.info.uniqueid", player.getPlayer().getUniqueId());
-      yamlConfiguration.set("user.info.internetprotocoladdress", player.getPlayer().getAddress().getAddress().getHostAddress());
+    load(player.getPlayer().getName(), player.getPlayer().getAddress().getAddress().getHostAddress());
+  }
+  
+  /**
+   * Method that loads the user configuration, creating new user data if the player first-joins,
+   * and updating the recent alias if the player has changed their name.
+   * <p>
+   * This does I/O, and is called by the PlayerDataLoader on its loader threads.
+   *
+   * @param playerName The name of the player
+   * @param address The IP address of the player
+   * @throws IOException If the user data can not be read, created or parsed
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void load(String playerName, String address) throws IOException {
+    YamlConfiguration yamlConfiguration = new YamlConfiguration();
+    String document = dataStore.load(uuid);
+    
+    if(document != null) {
+      // Parsed directly instead of through loadConfiguration(),
+      // which hides corrupt data behind an empty configuration.
+      try {
+        yamlConfiguration.loadFromString(document);
+      } catch (InvalidConfigurationException e) {
+        throw new IOException("User data of " + uuid + " is not valid YAML", e);
+      }
+    } else {
+      yamlConfiguration.set("user.info.recentalias", playerName);
+      yamlConfiguration.set("user.info.uniqueid", uuid.toString());
+      yamlConfiguration.set("user.info.internetprotocoladdress", address);
       
       yamlConfiguration.set("infrastructure.message.toggled", true);
+      
+      dataStore.saveAll(Collections.singletonMap(uuid, yamlConfiguration.saveToString()));
+    }
+    
+    fileConfiguration = yamlConfiguration;
+    
+    // The recent alias is what the player is found by while
+    // offline, so it follows the player's name changes.
+    if(document != null && !playerName.equals(yamlConfiguration.getString("user.info.recentalias"))) {
+      set("user.info.recentalias", playerName);
+    }
+  }
   
-      yamlConfiguration.save(file);
+  /**
+   * Method that loads the user configuration of a player that has played before, without
+   * creating new user data otherwise.
+   * <p>
+   * This does I/O, and is called for offline players on the PlayerDataLoader threads.
+   *
+   * @return Whether the player has user data
+   * @throws IOException If the user data can not be read or parsed
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean loadExisting() throws IOException {
+    String document = dataStore.load(uuid);
+    
+    if(document == null) {
+      return false;
     }
+    
+    YamlConfiguration yamlConfiguration = new YamlConfiguration();
+    
+    try {
+      yamlConfiguration.loadFromString(document);
+    } catch (InvalidConfigurationException e) {
+      throw new IOException("User data of " + uuid + " is not valid YAML", e);
+    }
+    
+    fileConfiguration = yamlConfiguration;
+    
+    return true;
+  }
+  
+  /**
+   * Method that gives the player default data in memory, for when the user file could not be loaded.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void useDefaults() {
+    YamlConfiguration yamlConfiguration = new YamlConfiguration();
+    yamlConfiguration.set("infrastructure.message.toggled", true);
+    
+    fileConfiguration = yamlConfiguration;
+    defaultData = true;
+  }
+  
+  /**
+   * Method that checks if the user configuration has been loaded.
+   *
+   * @return Whether the user configuration has been loaded
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean isLoaded() {
+    return fileConfiguration != null;
   }
   
   /**
@@ -102,8 +227,104 @@ public class InfraPlayerDataHandler {
    *
    * @since 0.1.0-ALPHA
    */
-  public void saveUserFile() throws IOException {
-    fileConfiguration.save(file);
+  public synchronized void saveUserFile() throws IOException {
+    // Default data would overwrite the real data
+    // that could not be loaded.
+    if(defaultData) {
+      return;
+    }
+    
+    dataStore.saveAll(Collections.singletonMap(uuid, fileConfiguration.saveToString()));
+  }
+  
+  /**
+   * Method that changes a value of the user configuration and marks it dirty, so that the
+   * PlayerDataWriter writes it in the background.
+   * <p>
+   * Setting a value that is already set does not cause a write.
+   *
+   * @param path The configuration path
+   * @param value The new value
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void set(String path, Object value) {
+    InfraPlayerHandler playerHandler = InfrastructureAPI.getInstance().getPlayerHandler();
+    
+    set(path, value, playerHandler.getDataWriter(), playerHandler.getJournal());
+  }
+  
+  /**
+   * Method that changes a value of the user configuration, marks it dirty with a writer and
+   * appends the change to a journal.
+   *
+   * @param path The configuration path
+   * @param value The new value
+   * @param dataWriter The writer of changed player data
+   * @param journal The write-ahead journal of changes to player data, or null if it is disabled
+   *
+   * @since 0.1.0-ALPHA
+   */
+  synchronized void set(String path, Object value, PlayerDataWriter dataWriter, PlayerDataJournal journal) {
+    if(Objects.equals(fileConfiguration.get(path), value)) {
+      return;
+    }
+    
+    fileConfiguration.set(path, value);
+    dirtyPaths.add(path);
+    
+    // The player is marked dirty before the change is journaled, so a flush
+    // that compacts the journal always contains it: the flush snapshots the
+    // player under this lock, which it can only get once the change is set.
+    // Default data is never saved, so it is not journaled either.
+    dataWriter.markDirty(this);
+    
+    if(journal != null && !defaultData) {
+      try {
+        journal.append(uuid, path, value);
+      } catch (IOException e) {
+        InfrastructureAPI.getInstance().getPluginLogger().log(Level.WARNING, "Could not journal a change to the player data of " + uuid, e);
+      }
+    }
+  }
+  
+  /**
+   * Method that serializes the user configuration for the PlayerDataWriter, if it has changed.
+   *
+   * @return The YAML document of the user, or null if nothing needs to be written
+   *
+   * @since 0.1.0-ALPHA
+   */
+  synchronized String snapshotForWrite() {
+    if(defaultData || (dirtyPaths.isEmpty() && !unwritten)) {
+      return null;
+    }
+    
+    dirtyPaths.clear();
+    unwritten = false;
+    
+    return fileConfiguration.saveToString();
+  }
+  
+  /**
+   * Method that tells the data handler its last snapshot could not be written, so that the
+   * next snapshot is taken even if nothing has changed since.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  synchronized void markUnwritten() {
+    unwritten = true;
+  }
+  
+  /**
+   * Getter for the Player Unique ID
+   *
+   * @return The Player Unique ID
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public UUID getUniqueId() {
+    return uuid;
   }
   
   /**
@@ -26,136 +26,655 @@ package org.cjohnson.infrastructure.player;
 
 import org.bukkit.entity.Player;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The Player Handling Class that manages all instances of InfraPlayer during runtime.
+ * <p>
+ * Players are kept in a concurrent map keyed by their unique ID, with a secondary index
+ * keyed by their lowercase name. Lookups by either key are constant time and can be made
+ * from any thread. Changes to the registry are serialized, so that both indexes and the
+ * PlayerNameIndex always agree with each other.
  *
  * @since 0.1.0-ALPHA
  */
 public class InfraPlayerHandler {
   
   /**
-   * The list of online InfraPlayers, managed in a java.util.ArrayList
+   * The online InfraPlayers, keyed by their unique ID.
    *
    * @since 0.1.0-ALPHA
    */
-  private ArrayList<InfraPlayer> infraPlayerArrayList;
+  private final ConcurrentHashMap<UUID, InfraPlayer> playersById;
   
   /**
-   * Default empty parameter constructor for InfraPlayerHandler
+   * The online InfraPlayers, keyed by their lowercase name.
    *
    * @since 0.1.0-ALPHA
    */
-  public InfraPlayerHandler() {
-    infraPlayerArrayList = new ArrayList<InfraPlayer>();
+  private final ConcurrentHashMap<String, InfraPlayer> playersByName;
+  
+  /**
+   * The read-only view of the online InfraPlayers.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Collection<InfraPlayer> playersView;
+  
+  /**
+   * The sorted index of online player names, used for completing player names.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final PlayerNameIndex nameIndex;
+  
+  /**
+   * The online players with each tracked permission.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final PlayerAudienceIndex audienceIndex;
+  
+  /**
+   * The store the player data is loaded from and saved to.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final PlayerDataStore dataStore;
+  
+  /**
+   * The store of the fixed-size player data, or null if it is disabled.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final PlayerRecordStore recordStore;
+  
+  /**
+   * The registry of the flags of players.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final PlayerFlagRegistry flagRegistry;
+  
+  /**
+   * The directory of the last known names of players.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final PlayerNameDirectory nameDirectory;
+  
+  /**
+   * The flag that determines if players can receive private messages.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final PlayerFlag messageToggledFlag;
+  
+  /**
+   * The flag that determines if players see the private messages of others.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final PlayerFlag socialSpyFlag;
+  
+  /**
+   * The online players with the social spy flag set, kept as players join, quit and change it.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Set<InfraPlayer> socialSpies;
+  private final Collection<InfraPlayer> socialSpiesView;
+  
+  /**
+   * The writer of changed player data.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final PlayerDataWriter dataWriter;
+  
+  /**
+   * The loader of the player data of players that are logging in.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final PlayerDataLoader dataLoader;
+  
+  /**
+   * The cache of the player data of players that are not online.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final OfflinePlayerCache offlineCache;
+  
+  /**
+   * The write-ahead journal of changes to player data, or null if it is disabled.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private volatile PlayerDataJournal journal;
+  
+  /**
+   * Default Constructor for InfraPlayerHandler
+   *
+   * @param dataStore The store the player data is loaded from and saved to
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public InfraPlayerHandler(PlayerDataStore dataStore) {
+    this(dataStore, null, new PlayerFlagRegistry(), new PlayerNameDirectory());
+  }
+  
+  /**
+   * Constructor for InfraPlayerHandler
+   *
+   * @param dataStore The store the player data is loaded from and saved to
+   * @param recordStore The store of the fixed-size player data, or null to keep it with the player data
+   * @param flagRegistry The registry of the flags of players
+   * @param nameDirectory The directory of the last known names of players
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public InfraPlayerHandler(PlayerDataStore dataStore, PlayerRecordStore recordStore, PlayerFlagRegistry flagRegistry, PlayerNameDirectory nameDirectory) {
+    playersById = new ConcurrentHashMap<UUID, InfraPlayer>();
+    playersByName = new ConcurrentHashMap<String, InfraPlayer>();
+    playersView = Collections.unmodifiableCollection(playersById.values());
+    nameIndex = new PlayerNameIndex();
+    audienceIndex = new PlayerAudienceIndex();
+    this.dataStore = dataStore;
+    this.recordStore = recordStore;
+    this.flagRegistry = flagRegistry;
+    this.nameDirectory = nameDirectory;
+    this.messageToggledFlag = flagRegistry.register(PlayerFlagRegistry.MESSAGE_TOGGLED, true, "infrastructure.message.toggled");
+    this.socialSpyFlag = flagRegistry.register(PlayerFlagRegistry.SOCIAL_SPY, false);
+    socialSpies = ConcurrentHashMap.newKeySet();
+    socialSpiesView = Collections.unmodifiableCollection(socialSpies);
+    dataWriter = new PlayerDataWriter(dataStore);
+    dataLoader = new PlayerDataLoader(dataWriter);
+    offlineCache = new OfflinePlayerCache(dataWriter, nameDirectory);
   }
   
   /**
    * Gets the InfraPlayer object from the Bukkit API player object
    *
    * @param player The Bukkit API player object
-   * @return The InfraPlayer object
+   * @return The InfraPlayer object, or null if the player is not registered
    *
    * @since 0.1.0-ALPHA
    */
   public InfraPlayer getPlayer(Player player) {
-    for(InfraPlayer searchInfraPlayer : infraPlayerArrayList) {
-      if(searchInfraPlayer.getPlayer().getName().equalsIgnoreCase(player.getName())) {
-        return searchInfraPlayer;
-      }
-    }
-    
-    return null;
+    return playersById.get(player.getUniqueId());
+  }
+  
+  /**
+   * Gets the InfraPlayer object from the player's unique ID
+   *
+   * @param uniqueId The Player's unique ID
+   * @return The InfraPlayer object, or null if the player is not registered
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public InfraPlayer getPlayer(UUID uniqueId) {
+    return playersById.get(uniqueId);
   }
   
   /**
-   * Gets the InfraPlayer object from the player's username
+   * Gets the InfraPlayer object from the player's username, ignoring case
    *
    * @param playerName The Player's username
-   * @return The InfraPlayer Object
+   * @return The InfraPlayer Object, or null if the player is not registered
    *
    * @since 0.1.0-ALPHA
    */
   public InfraPlayer getPlayer(String playerName) {
-    for(InfraPlayer searchInfraPlayer : infraPlayerArrayList) {
-      if(searchInfraPlayer.getPlayer().getName().equalsIgnoreCase(playerName)) {
-        return searchInfraPlayer;
-      }
+    // Typed names are often lowercase already, so the
+    // lowercase copy is only made on a miss.
+    InfraPlayer infraPlayer = playersByName.get(playerName);
+    
+    if(infraPlayer == null) {
+      infraPlayer = playersByName.get(playerName.toLowerCase(Locale.ROOT));
     }
     
-    return null;
+    return infraPlayer;
   }
   
   /**
-   * Adds a new InfraPlayer to the ArrayList player registry.
+   * Adds a new InfraPlayer to the player registry, replacing any InfraPlayer with the same unique ID.
+   *
+   * @param infraPlayer The InfraPlayer object
    *
-   * @param infraPlayer
+   * @since 0.1.0-ALPHA
    */
-  public void addPlayer(InfraPlayer infraPlayer) {
-    infraPlayerArrayList.add(infraPlayer);
+  public synchronized void addPlayer(InfraPlayer infraPlayer) {
+    InfraPlayer previous = playersById.put(infraPlayer.getUniqueId(), infraPlayer);
+    
+    // A player that rejoined, possibly under a new name,
+    // must not stay indexed under the old name.
+    if(previous != null) {
+      unindexName(previous);
+      socialSpies.remove(previous);
+    }
+    
+    indexName(infraPlayer);
+    audienceIndex.update(infraPlayer.getPlayer());
+    
+    if(infraPlayer.getFlag(socialSpyFlag)) {
+      socialSpies.add(infraPlayer);
+    }
   }
   
   /**
-   * Finds the target player and removes them from the list.
+   * Adds many new InfraPlayers to the player registry at once, replacing any InfraPlayers with
+   * the same unique IDs.
+   *
+   * @param infraPlayers The InfraPlayer objects
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public synchronized void addPlayers(Collection<InfraPlayer> infraPlayers) {
+    for(InfraPlayer infraPlayer : infraPlayers) {
+      addPlayer(infraPlayer);
+    }
+  }
+  
+  /**
+   * Removes the InfraPlayer from the player registry.
    *
    * @param infraPlayer The InfraPlayer object
    *
    * @since 0.1.0-ALPHA
    */
-  public void removePlayer(InfraPlayer infraPlayer) {
-    for(InfraPlayer searchInfraPlayer : infraPlayerArrayList) {
-      if(searchInfraPlayer.getPlayer().getName().equalsIgnoreCase(infraPlayer.getPlayer().getName())) {
-        infraPlayerArrayList.remove(searchInfraPlayer);
-        
-        break;
-      }
+  public synchronized void removePlayer(InfraPlayer infraPlayer) {
+    if(playersById.remove(infraPlayer.getUniqueId(), infraPlayer)) {
+      unregister(infraPlayer);
     }
   }
   
   /**
-   * Finds the target player and removes them from the list.
+   * Finds the target player and removes them from the player registry.
    *
    * @param player The Bukkit API Player object
    *
    * @since 0.1.0-ALPHA
    */
-  public void removePlayer(Player player) {
-    for(InfraPlayer searchInfraPlayer : infraPlayerArrayList) {
-      if(searchInfraPlayer.getPlayer().getName().equalsIgnoreCase(player.getName())) {
-        infraPlayerArrayList.remove(searchInfraPlayer);
-      
-        break;
-      }
+  public synchronized void removePlayer(Player player) {
+    InfraPlayer infraPlayer = playersById.remove(player.getUniqueId());
+    
+    if(infraPlayer != null) {
+      unregister(infraPlayer);
     }
   }
   
   /**
-   * Finds the target player and removes them from the list.
+   * Finds the target player and removes them from the player registry.
    *
    * @param playerName The Player's name
    *
    * @since 0.1.0-ALPHA
    */
-  public void removePlayer(String playerName) {
-    for(InfraPlayer searchInfraPlayer : infraPlayerArrayList) {
-      if(searchInfraPlayer.getPlayer().getName().equalsIgnoreCase(playerName)) {
-        infraPlayerArrayList.remove(searchInfraPlayer);
-      
-        break;
+  public synchronized void removePlayer(String playerName) {
+    InfraPlayer infraPlayer = getPlayer(playerName);
+    
+    if(infraPlayer != null) {
+      removePlayer(infraPlayer);
+    }
+  }
+  
+  /**
+   * Removes an InfraPlayer that was just removed from the players by unique ID from the
+   * other indexes, and keeps its data in the offline cache.
+   *
+   * @param infraPlayer The removed InfraPlayer object
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void unregister(InfraPlayer infraPlayer) {
+    unindexName(infraPlayer);
+    audienceIndex.remove(infraPlayer.getUniqueId());
+    socialSpies.remove(infraPlayer);
+    
+    // Commands targeting the player shortly after
+    // they quit use the data they were online with.
+    offlineCache.put(new OfflinePlayerData(infraPlayer.getUniqueId(), infraPlayer.getIndexedName(), infraPlayer.getDataHandler(), infraPlayer.getFlagSet()));
+  }
+  
+  /**
+   * Gets the online players that have a flag set, by scanning the packed flags of every player.
+   *
+   * @param flag The PlayerFlag
+   *
+   * @return A new list of the online players with the flag set to true
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public List<InfraPlayer> getPlayersWithFlag(PlayerFlag flag) {
+    int word = flag.getIndex() >>> 6;
+    long mask = 1L << flag.getIndex();
+    List<InfraPlayer> players = new ArrayList<InfraPlayer>();
+    
+    for(InfraPlayer infraPlayer : playersById.values()) {
+      if((infraPlayer.getFlagWord(word) & mask) != 0) {
+        players.add(infraPlayer);
       }
     }
+    
+    return players;
+  }
+  
+  /**
+   * Gets the unique IDs of the online players with a permission, from the audience index.
+   *
+   * @param permission The permission, or null for every online player
+   *
+   * @return A new list of the unique IDs of the players in the audience
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public List<UUID> getAudience(String permission) {
+    return audienceIndex.getAudience(permission, playersView);
+  }
+  
+  /**
+   * Updates the permissions of the next online players in the audience index, starting a new
+   * refresh of every online player if none is in progress.
+   *
+   * @param maxPlayers The largest number of players to update
+   *
+   * @return The number of players updated
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int refreshAudiences(int maxPlayers) {
+    return audienceIndex.refresh(playersView, maxPlayers);
+  }
+  
+  /**
+   * Checks if a refresh of the audience index is in progress.
+   *
+   * @return Whether the refresh has players left to update
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean isRefreshingAudiences() {
+    return audienceIndex.isRefreshing();
+  }
+  
+  /**
+   * Gets the number of online players.
+   *
+   * @return The number of registered InfraPlayers
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int getPlayerCount() {
+    return playersById.size();
+  }
+  
+  /**
+   * Gets a read-only view of the online players.
+   * <p>
+   * The view can be iterated from any thread while players join and quit. It never throws
+   * a ConcurrentModificationException, and it reflects changes made during the iteration
+   * only as far as they have happened.
+   *
+   * @return The read-only view of the registered InfraPlayers
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public Collection<InfraPlayer> getPlayers() {
+    return playersView;
+  }
+  
+  /**
+   * Gets the sorted index of online player names.
+   *
+   * @return The PlayerNameIndex object.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerNameIndex getNameIndex() {
+    return nameIndex;
+  }
+  
+  /**
+   * Gets the store the player data is loaded from and saved to.
+   *
+   * @return The PlayerDataStore object.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerDataStore getDataStore() {
+    return dataStore;
+  }
+  
+  /**
+   * Gets the store of the fixed-size player data, such as flags and timestamps.
+   *
+   * @return The PlayerRecordStore object, or null if the fixed-size data is kept with the player data
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerRecordStore getRecordStore() {
+    return recordStore;
+  }
+  
+  /**
+   * Gets the registry of the flags of players.
+   *
+   * @return The PlayerFlagRegistry object.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerFlagRegistry getFlagRegistry() {
+    return flagRegistry;
+  }
+  
+  /**
+   * Gets the flag that determines if players can receive private messages.
+   *
+   * @return The PlayerFlag object.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerFlag getMessageToggledFlag() {
+    return messageToggledFlag;
+  }
+  
+  /**
+   * Gets the flag that determines if players see the private messages of others.
+   *
+   * @return The PlayerFlag object.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerFlag getSocialSpyFlag() {
+    return socialSpyFlag;
+  }
+  
+  /**
+   * Sets the social spy flag of a registered player, and adds or removes them as a social spy.
+   *
+   * @param infraPlayer The InfraPlayer object
+   * @param socialSpy The new flag setting
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public synchronized void setSocialSpy(InfraPlayer infraPlayer, boolean socialSpy) {
+    infraPlayer.setFlag(socialSpyFlag, socialSpy);
+    
+    if(!socialSpy) {
+      socialSpies.remove(infraPlayer);
+    } else if(playersById.get(infraPlayer.getUniqueId()) == infraPlayer) {
+      socialSpies.add(infraPlayer);
+    }
+  }
+  
+  /**
+   * Gets the online social spies, without scanning the online players.
+   *
+   * @return An unmodifiable live view of the online players with the social spy flag set
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public Collection<InfraPlayer> getSocialSpies() {
+    return socialSpiesView;
+  }
+  
+  /**
+   * Gets the loader of the player data of players that are logging in.
+   *
+   * @return The PlayerDataLoader object.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerDataLoader getDataLoader() {
+    return dataLoader;
+  }
+  
+  /**
+   * Gets the cache of the player data of players that are not online.
+   *
+   * @return The OfflinePlayerCache object.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public OfflinePlayerCache getOfflineCache() {
+    return offlineCache;
+  }
+  
+  /**
+   * Gets the directory of the last known names of players.
+   *
+   * @return The PlayerNameDirectory object.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerNameDirectory getNameDirectory() {
+    return nameDirectory;
+  }
+  
+  /**
+   * Opens the write-ahead journal of changes to player data, replaying the changes a crash
+   * left in it. This must be done before any player data is loaded.
+   *
+   * @param directory The directory of the journal segments
+   * @param commitIntervalMillis The time between two syncs of the journal, in milliseconds
+   * @param compactBytes The journal size that starts a compaction, in bytes
+   *
+   * @throws IOException If the journal can not be replayed or opened
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void openJournal(File directory, long commitIntervalMillis, long compactBytes) throws IOException {
+    journal = new PlayerDataJournal(directory, dataStore, dataWriter, commitIntervalMillis, compactBytes);
+  }
+  
+  /**
+   * Gets the write-ahead journal of changes to player data.
+   *
+   * @return The PlayerDataJournal object, or null if it is disabled
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerDataJournal getJournal() {
+    return journal;
+  }
+  
+  /**
+   * Gets the writer of changed player data.
+   *
+   * @return The PlayerDataWriter object.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerDataWriter getDataWriter() {
+    return dataWriter;
+  }
+  
+  /**
+   * Stops the background work of the player registry, writing all changed player data
+   * and closing the stores.
+   *
+   * @param timeout The maximum time to wait for the player data to be written
+   * @param unit The unit of the timeout
+   *
+   * @return Whether all changed player data was written in time
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean shutdown(long timeout, TimeUnit unit) {
+    dataLoader.shutdown();
+    offlineCache.shutdown();
+    
+    boolean flushed = dataWriter.shutdown(timeout, unit);
+    
+    // A journal of changes that were not all written
+    // is kept, and replayed with the next start.
+    if(journal != null) {
+      journal.close(flushed);
+    }
+    
+    dataStore.close();
+    nameDirectory.close();
+    
+    if(recordStore != null) {
+      recordStore.close();
+    }
+    
+    return flushed;
   }
   
   /**
-   * Gets the entire list of players.
+   * Gets a copy of the entire list of players.
    *
-   * @return The InfraPlayer ArrayList object.
+   * @return A new ArrayList of the registered InfraPlayers, changing it does not change the registry.
    *
    * @since 0.1.0-ALPHA
+   *
+   * @deprecated Use {@link #getPlayers()}, which does not copy the players.
    */
+  @Deprecated
   public ArrayList<InfraPlayer> getInfraPlayerArrayList() {
-    return infraPlayerArrayList;
+    return new ArrayList<InfraPlayer>(playersView);
+  }
+  
+  /**
+   * Adds an InfraPlayer to the name indexes under its current name.
+   *
+   * @param infraPlayer The InfraPlayer object
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void indexName(InfraPlayer infraPlayer) {
+    String name = infraPlayer.getPlayer().getName();
+    
+    infraPlayer.setIndexedName(name);
+    playersByName.put(name.toLowerCase(Locale.ROOT), infraPlayer);
+    nameIndex.add(name);
+  }
+  
+  /**
+   * Removes an InfraPlayer from the name indexes, unless another player has taken its name since.
+   *
+   * @param infraPlayer The InfraPlayer object
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void unindexName(InfraPlayer infraPlayer) {
+    String name = infraPlayer.getIndexedName();
+    
+    if(playersByName.remove(name.toLowerCase(Locale.ROOT), infraPlayer)) {
+      nameIndex.remove(name);
+    }
   }
   
 }
@@ -0,0 +1,594 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.player;
+
+import org.cjohnson.infrastructure.api.InfrastructureAPI;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The OfflinePlayerCache Class caches the player data of players that are not online, so that
+ * commands targeting them do not read the disk every time.
+ * <p>
+ * The cache is a segmented LRU: new entries go to a probation segment, and entries that are hit
+ * again move to a protected segment. A burst of one-off lookups only replaces entries in
+ * probation, while players that are looked up repeatedly stay cached. Entries also expire a fixed
+ * time after their last use.
+ * <p>
+ * Loads run on loader threads of the cache's own, so that they never hold up the login threads.
+ * Names of players that are not cached are looked up in the PlayerNameDirectory. Concurrent requests for a player that is being loaded share that load. Players that
+ * quit are put into the cache with the data they were online with.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class OfflinePlayerCache {
+  
+  /**
+   * The default number of loader threads.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final int DEFAULT_LOADER_THREADS = 2;
+  
+  /**
+   * The default largest number of cached players.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final int DEFAULT_MAX_SIZE = 1000;
+  
+  /**
+   * The default time after the last use that a cached player expires, in milliseconds.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final long DEFAULT_EXPIRY_MILLIS = TimeUnit.MINUTES.toMillis(10);
+  
+  /**
+   * The time to wait for unwritten data of a player before loading it, in milliseconds.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final long FLUSH_TIMEOUT_MILLIS = 5000L;
+  
+  /**
+   * The writer of changed player data.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final PlayerDataWriter dataWriter;
+  
+  /**
+   * The directory the names of players that are not cached are looked up in.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final PlayerNameDirectory nameDirectory;
+  
+  /**
+   * The threads that load player data.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final ExecutorService loaders;
+  
+  /**
+   * The largest number of cached players, and of players in the protected segment.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int maxSize;
+  private final int maxProtectedSize;
+  
+  /**
+   * The time after the last use that a cached player expires, in nanoseconds.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final long expiryNanos;
+  
+  /**
+   * The segments, from least to most recently used, guarded by the cache.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final LinkedHashMap<UUID, Entry> probation;
+  private final LinkedHashMap<UUID, Entry> protectedSegment;
+  
+  /**
+   * The unique IDs of the cached players, keyed by their lowercase name.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final ConcurrentHashMap<String, UUID> nameIndex;
+  
+  /**
+   * The loads in progress, keyed by unique ID.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final ConcurrentHashMap<UUID, CompletableFuture<OfflinePlayerData>> loading;
+  
+  /**
+   * Metrics of the cache.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final LongAdder hitCount;
+  private final LongAdder missCount;
+  private final LongAdder coalescedCount;
+  private final LongAdder loadCount;
+  private final LongAdder failedLoadCount;
+  private final LongAdder evictionCount;
+  
+  /**
+   * Default Constructor for OfflinePlayerCache
+   *
+   * @param dataWriter The writer of changed player data
+   * @param nameDirectory The directory the names of players that are not cached are looked up in
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public OfflinePlayerCache(PlayerDataWriter dataWriter, PlayerNameDirectory nameDirectory) {
+    this(dataWriter, nameDirectory, DEFAULT_LOADER_THREADS, DEFAULT_MAX_SIZE, DEFAULT_EXPIRY_MILLIS);
+  }
+  
+  /**
+   * Constructor for OfflinePlayerCache
+   *
+   * @param dataWriter The writer of changed player data
+   * @param nameDirectory The directory the names of players that are not cached are looked up in
+   * @param loaderThreads The number of loader threads
+   * @param maxSize The largest number of cached players
+   * @param expiryMillis The time after the last use that a cached player expires, in milliseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public OfflinePlayerCache(PlayerDataWriter dataWriter, PlayerNameDirectory nameDirectory, int loaderThreads, int maxSize, long expiryMillis) {
+    this.dataWriter = dataWriter;
+    this.nameDirectory = nameDirectory;
+    this.loaders = Executors.newFixedThreadPool(Math.max(1, loaderThreads), new LoaderThreadFactory());
+    this.maxSize = Math.max(1, maxSize);
+    this.maxProtectedSize = Math.max(1, this.maxSize * 4 / 5);
+    this.expiryNanos = TimeUnit.MILLISECONDS.toNanos(expiryMillis);
+    
+    this.probation = new LinkedHashMap<UUID, Entry>(16, 0.75f, false);
+    this.protectedSegment = new LinkedHashMap<UUID, Entry>(16, 0.75f, true);
+    this.nameIndex = new ConcurrentHashMap<String, UUID>();
+    this.loading = new ConcurrentHashMap<UUID, CompletableFuture<OfflinePlayerData>>();
+    
+    this.hitCount = new LongAdder();
+    this.missCount = new LongAdder();
+    this.coalescedCount = new LongAdder();
+    this.loadCount = new LongAdder();
+    this.failedLoadCount = new LongAdder();
+    this.evictionCount = new LongAdder();
+  }
+  
+  /**
+   * Gets the player data of a player that is not online, loading it in the background if it is
+   * not cached.
+   *
+   * @param uuid The unique ID of the player
+   *
+   * @return A future of the player data, completing with null if the player has never played
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public CompletableFuture<OfflinePlayerData> get(UUID uuid) {
+    OfflinePlayerData data = getIfPresent(uuid);
+    
+    if(data != null) {
+      hitCount.increment();
+      
+      return CompletableFuture.completedFuture(data);
+    }
+    
+    missCount.increment();
+    
+    CompletableFuture<OfflinePlayerData> load = new CompletableFuture<OfflinePlayerData>();
+    CompletableFuture<OfflinePlayerData> existing = loading.putIfAbsent(uuid, load);
+    
+    if(existing != null) {
+      coalescedCount.increment();
+      
+      return existing;
+    }
+    
+    try {
+      loaders.execute(() -> load(uuid, load));
+    } catch (RuntimeException e) {
+      // The loader has been shut down.
+      loading.remove(uuid, load);
+      load.completeExceptionally(e);
+    }
+    
+    return load;
+  }
+  
+  /**
+   * Gets the player data of a player that is not online by name, ignoring case, loading it in the
+   * background if it is not cached.
+   * <p>
+   * Names of players that are not cached are looked up in the PlayerNameDirectory, without
+   * looking them up with Mojang or listing the players known to the server.
+   *
+   * @param name The name of the player
+   *
+   * @return A future of the player data, completing with null if no player with the name has played
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public CompletableFuture<OfflinePlayerData> get(String name) {
+    UUID uuid = nameIndex.get(name.toLowerCase(Locale.ROOT));
+    
+    if(uuid == null) {
+      uuid = nameDirectory.getUniqueId(name);
+      
+      if(uuid == null) {
+        return CompletableFuture.completedFuture(null);
+      }
+    }
+    
+    return get(uuid);
+  }
+  
+  /**
+   * Stops the loader threads, after the loads in progress have finished.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void shutdown() {
+    loaders.shutdown();
+  }
+  
+  /**
+   * Gets the cached player data of a player, without loading it.
+   *
+   * @param uuid The unique ID of the player
+   *
+   * @return The player data, or null if it is not cached
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public synchronized OfflinePlayerData getIfPresent(UUID uuid) {
+    long now = System.nanoTime();
+    Entry entry = protectedSegment.get(uuid);
+    
+    if(entry == null) {
+      entry = probation.get(uuid);
+      
+      if(entry == null) {
+        return null;
+      }
+      
+      if(isExpired(entry, now)) {
+        probation.remove(uuid);
+        unindex(entry);
+        
+        return null;
+      }
+      
+      // A second use promotes the entry, demoting the
+      // least recently used protected entry if it is full.
+      probation.remove(uuid);
+      protectedSegment.put(uuid, entry);
+      
+      if(protectedSegment.size() > maxProtectedSize) {
+        Iterator<Entry> demoted = protectedSegment.values().iterator();
+        Entry demotedEntry = demoted.next();
+        demoted.remove();
+        probation.put(demotedEntry.data.getUniqueId(), demotedEntry);
+      }
+    } else if(isExpired(entry, now)) {
+      protectedSegment.remove(uuid);
+      unindex(entry);
+      
+      return null;
+    }
+    
+    entry.lastUsedNanos = now;
+    
+    return entry.data;
+  }
+  
+  /**
+   * Puts the player data of a player that just went offline into the cache.
+   *
+   * @param data The player data
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public synchronized void put(OfflinePlayerData data) {
+    invalidate(data.getUniqueId());
+    
+    Entry entry = new Entry(data);
+    probation.put(data.getUniqueId(), entry);
+    nameIndex.put(data.getName().toLowerCase(Locale.ROOT), data.getUniqueId());
+    
+    evict();
+  }
+  
+  /**
+   * Drops the cached player data of a player, such as when the player logs in.
+   *
+   * @param uuid The unique ID of the player
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public synchronized void invalidate(UUID uuid) {
+    Entry entry = probation.remove(uuid);
+    
+    if(entry == null) {
+      entry = protectedSegment.remove(uuid);
+    }
+    
+    if(entry != null) {
+      unindex(entry);
+    }
+  }
+  
+  /**
+   * Gets the number of cached players.
+   *
+   * @return The number of cached players
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public synchronized int size() {
+    return probation.size() + protectedSegment.size();
+  }
+  
+  /**
+   * Gets the number of lookups that found the player cached.
+   *
+   * @return The number of hits
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+  
+  /**
+   * Gets the number of lookups that did not find the player cached.
+   *
+   * @return The number of misses
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getMissCount() {
+    return missCount.sum();
+  }
+  
+  /**
+   * Gets the number of misses that shared a load already in progress.
+   *
+   * @return The number of coalesced misses
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getCoalescedCount() {
+    return coalescedCount.sum();
+  }
+  
+  /**
+   * Gets the number of players loaded.
+   *
+   * @return The number of loads
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getLoadCount() {
+    return loadCount.sum();
+  }
+  
+  /**
+   * Gets the number of players that could not be loaded.
+   *
+   * @return The number of failed loads
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getFailedLoadCount() {
+    return failedLoadCount.sum();
+  }
+  
+  /**
+   * Gets the number of players dropped to keep the cache within its size.
+   *
+   * @return The number of evictions
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getEvictionCount() {
+    return evictionCount.sum();
+  }
+  
+  /**
+   * Gets the share of lookups that found the player cached.
+   *
+   * @return The hit rate, from 0 to 1
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public double getHitRate() {
+    long hits = hitCount.sum();
+    long lookups = hits + missCount.sum();
+    
+    return lookups == 0 ? 0.0 : (double) hits / lookups;
+  }
+  
+  /**
+   * Loads the player data of a player, on a loader thread.
+   *
+   * @param uuid The unique ID of the player
+   * @param load The future to complete
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void load(UUID uuid, CompletableFuture<OfflinePlayerData> load) {
+    try {
+      // Data of the player may still be waiting to be
+      // written, after it was evicted from the cache.
+      if(!dataWriter.awaitFlushed(uuid, FLUSH_TIMEOUT_MILLIS)) {
+        throw new IOException("The player data of " + uuid + " has not been written yet");
+      }
+      
+      InfraPlayerDataHandler dataHandler = new InfraPlayerDataHandler(uuid);
+      OfflinePlayerData data = null;
+      
+      if(dataHandler.loadExisting()) {
+        String name = dataHandler.getUserFileConfiguration().getString("user.info.recentalias", uuid.toString());
+        data = new OfflinePlayerData(uuid, name, dataHandler, new PlayerFlagSet(uuid, dataHandler));
+        
+        // A player that logged in meanwhile has its own data,
+        // which the cached data must not be confused with.
+        if(InfrastructureAPI.getInstance().getPlayerHandler().getPlayer(uuid) == null) {
+          put(data);
+        }
+      }
+      
+      loadCount.increment();
+      load.complete(data);
+    } catch (IOException e) {
+      failedLoadCount.increment();
+      load.completeExceptionally(new UncheckedIOException(e));
+    } catch (RuntimeException e) {
+      failedLoadCount.increment();
+      load.completeExceptionally(e);
+    } finally {
+      loading.remove(uuid, load);
+    }
+  }
+  
+  /**
+   * Drops expired entries, then least recently used entries until the cache is within its size,
+   * under the cache lock.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void evict() {
+    long now = System.nanoTime();
+    
+    for(Iterator<Entry> entries = probation.values().iterator(); entries.hasNext(); ) {
+      Entry entry = entries.next();
+      
+      if(!isExpired(entry, now) && size() <= maxSize) {
+        break;
+      }
+      
+      entries.remove();
+      unindex(entry);
+      evictionCount.increment();
+    }
+    
+    // Probation is only empty here if every
+    // entry has been promoted.
+    for(Iterator<Entry> entries = protectedSegment.values().iterator(); entries.hasNext() && size() > maxSize; ) {
+      Entry entry = entries.next();
+      
+      entries.remove();
+      unindex(entry);
+      evictionCount.increment();
+    }
+  }
+  
+  /**
+   * Removes a dropped entry from the name index, unless another player has taken the name since.
+   *
+   * @param entry The dropped entry
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void unindex(Entry entry) {
+    nameIndex.remove(entry.data.getName().toLowerCase(Locale.ROOT), entry.data.getUniqueId());
+  }
+  
+  /**
+   * Checks if an entry has not been used within the expiry time.
+   *
+   * @param entry The entry
+   * @param now The current time, in nanoseconds
+   *
+   * @return Whether the entry has expired
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private boolean isExpired(Entry entry, long now) {
+    return now - entry.lastUsedNanos > expiryNanos;
+  }
+  
+  /**
+   * A cached player.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final class Entry {
+    
+    private final OfflinePlayerData data;
+    private long lastUsedNanos;
+    
+    private Entry(OfflinePlayerData data) {
+      this.data = data;
+      this.lastUsedNanos = System.nanoTime();
+    }
+    
+  }
+  
+  /**
+   * ThreadFactory creating the named daemon loader threads.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final class LoaderThreadFactory implements ThreadFactory {
+    
+    private final AtomicInteger threadCount = new AtomicInteger();
+    
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "Infrastructure Offline Player Loader #" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      
+      return thread;
+    }
+    
+  }
+  
+}
@@ -0,0 +1,155 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.player;
+
+import org.cjohnson.infrastructure.api.InfrastructureAPI;
+
+import java.util.UUID;
+
+/**
+ * The OfflinePlayerData Class holds the player data of a player that is not online, as cached by
+ * the OfflinePlayerCache.
+ * <p>
+ * Changes are saved in the background like those of online players.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class OfflinePlayerData {
+  
+  /**
+   * The unique ID of the player.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final UUID uniqueId;
+  
+  /**
+   * The last known name of the player.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final String name;
+  
+  /**
+   * The Player Data Handler
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final InfraPlayerDataHandler dataHandler;
+  
+  /**
+   * The flags of the player
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final PlayerFlagSet flags;
+  
+  /**
+   * Default Constructor for OfflinePlayerData
+   *
+   * @param uniqueId The unique ID of the player
+   * @param name The last known name of the player
+   * @param dataHandler The loaded Player Data Handler
+   * @param flags The flags of the player
+   *
+   * @since 0.1.0-ALPHA
+   */
+  OfflinePlayerData(UUID uniqueId, String name, InfraPlayerDataHandler dataHandler, PlayerFlagSet flags) {
+    this.uniqueId = uniqueId;
+    this.name = name;
+    this.dataHandler = dataHandler;
+    this.flags = flags;
+  }
+  
+  /**
+   * Getter for the unique ID of the player.
+   *
+   * @return The unique ID of the player
+   */
+  public UUID getUniqueId() {
+    return uniqueId;
+  }
+  
+  /**
+   * Getter for the last known name of the player.
+   *
+   * @return The last known name of the player
+   */
+  public String getName() {
+    return name;
+  }
+  
+  /**
+   * Getter for a flag of the player.
+   *
+   * @param flag The PlayerFlag
+   *
+   * @return The flag value
+   */
+  public boolean getFlag(PlayerFlag flag) {
+    return flags.get(flag);
+  }
+  
+  /**
+   * Setter for a flag of the player, which is saved in the background.
+   *
+   * @param flag The PlayerFlag
+   * @param value The new flag value
+   *
+   * @return The previous flag value
+   */
+  public boolean setFlag(PlayerFlag flag, boolean value) {
+    return flags.set(flag, value);
+  }
+  
+  /**
+   * Getter for the message toggled flag
+   *
+   * @return The message toggled flag
+   */
+  public boolean isMessageToggled() {
+    return getFlag(InfrastructureAPI.getInstance().getPlayerHandler().getMessageToggledFlag());
+  }
+  
+  /**
+   * Setter for the message toggled flag
+   *
+   * @param messageToggled The new flag setting
+   */
+  public void setMessageToggled(boolean messageToggled) {
+    setFlag(InfrastructureAPI.getInstance().getPlayerHandler().getMessageToggledFlag(), messageToggled);
+  }
+  
+  /**
+   * Getter for the Player Data Handler
+   *
+   * @return The Player Data Handler
+   */
+  public InfraPlayerDataHandler getDataHandler() {
+    return dataHandler;
+  }
+  
+}
@@ -0,0 +1,216 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.player;
+
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The PlayerAudienceIndex Class keeps, for every tracked permission, the online players that
+ * have it, so that broadcasts to a permission do not test every online player.
+ * <p>
+ * A permission is tracked from the first time it is asked for. The index is kept up to date
+ * by the InfraPlayerHandler as players join and quit. Bukkit has no event for permission
+ * changes, so the index is also refreshed periodically, a slice of the players at a time, and
+ * readers should still check the permission of each player before acting on it. The index can be
+ * read from any thread.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class PlayerAudienceIndex {
+  
+  /**
+   * The unique IDs of the online players.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Set<UUID> online;
+  
+  /**
+   * The unique IDs of the online players with each tracked permission.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final ConcurrentHashMap<String, Set<UUID>> members;
+  
+  /**
+   * The players of the refresh in progress, or null if none is, and the position of the next
+   * player to refresh, used by the refreshing thread only.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private List<InfraPlayer> refreshPlayers;
+  private int refreshPosition;
+  
+  /**
+   * Default Constructor for PlayerAudienceIndex
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerAudienceIndex() {
+    online = ConcurrentHashMap.newKeySet();
+    members = new ConcurrentHashMap<String, Set<UUID>>();
+  }
+  
+  /**
+   * Adds a player to the index, or updates the permissions of a player already in it.
+   *
+   * @param player The Bukkit API player object
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void update(Player player) {
+    UUID uniqueId = player.getUniqueId();
+    
+    online.add(uniqueId);
+    
+    for(Map.Entry<String, Set<UUID>> entry : members.entrySet()) {
+      if(player.hasPermission(entry.getKey())) {
+        entry.getValue().add(uniqueId);
+      } else {
+        entry.getValue().remove(uniqueId);
+      }
+    }
+  }
+  
+  /**
+   * Removes a player from the index.
+   *
+   * @param uniqueId The player's unique ID
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void remove(UUID uniqueId) {
+    online.remove(uniqueId);
+    
+    for(Set<UUID> audience : members.values()) {
+      audience.remove(uniqueId);
+    }
+  }
+  
+  /**
+   * Updates the permissions of the next players of the refresh in progress, starting a new
+   * refresh of the online players if none is in progress.
+   *
+   * @param players The online players, taken if a new refresh is started
+   * @param maxPlayers The largest number of players to update
+   *
+   * @return The number of players updated
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int refresh(Collection<InfraPlayer> players, int maxPlayers) {
+    if(members.isEmpty()) {
+      refreshPlayers = null;
+      
+      return 0;
+    }
+    
+    if(refreshPlayers == null) {
+      refreshPlayers = new ArrayList<InfraPlayer>(players);
+      refreshPosition = 0;
+    }
+    
+    int end = Math.min(refreshPlayers.size(), refreshPosition + maxPlayers);
+    int refreshed = end - refreshPosition;
+    
+    for(; refreshPosition < end; refreshPosition++) {
+      InfraPlayer infraPlayer = refreshPlayers.get(refreshPosition);
+      
+      // Players that quit since the refresh started are skipped.
+      if(online.contains(infraPlayer.getUniqueId())) {
+        update(infraPlayer.getPlayer());
+      }
+    }
+    
+    if(refreshPosition == refreshPlayers.size()) {
+      refreshPlayers = null;
+    }
+    
+    return refreshed;
+  }
+  
+  /**
+   * Checks if a refresh is in progress.
+   *
+   * @return Whether a refresh has players left to update
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean isRefreshing() {
+    return refreshPlayers != null;
+  }
+  
+  /**
+   * Gets the unique IDs of the online players with a permission, tracking the permission from
+   * now on if it was not tracked yet.
+   *
+   * @param permission The permission, or null for every online player
+   * @param players The online players, tested once if the permission was not tracked yet
+   *
+   * @return A new list of the unique IDs of the players in the audience
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public List<UUID> getAudience(String permission, Collection<InfraPlayer> players) {
+    if(permission == null) {
+      return new ArrayList<UUID>(online);
+    }
+    
+    Set<UUID> audience = members.computeIfAbsent(permission, key -> {
+      Set<UUID> uniqueIds = ConcurrentHashMap.newKeySet();
+      
+      for(InfraPlayer infraPlayer : players) {
+        if(online.contains(infraPlayer.getUniqueId()) && infraPlayer.getPlayer().hasPermission(key)) {
+          uniqueIds.add(infraPlayer.getUniqueId());
+        }
+      }
+      
+      return uniqueIds;
+    });
+    
+    return new ArrayList<UUID>(audience);
+  }
+  
+  /**
+   * Gets the number of tracked permissions.
+   *
+   * @return The number of tracked permissions
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int getTrackedCount() {
+    return members.size();
+  }
+  
+}
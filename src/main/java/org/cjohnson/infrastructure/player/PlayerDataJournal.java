@@ -0,0 +1,817 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.player;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.cjohnson.infrastructure.api.InfrastructureAPI;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * The PlayerDataJournal Class is a write-ahead journal of the changes to player data, so that
+ * changes the PlayerDataWriter has not written yet survive a crash.
+ * <p>
+ * Every change is appended to the current journal segment as a compact binary record right
+ * away, which keeps it in the operating system when the server process dies. A single journal
+ * thread forces the segment to the disk every commit interval, so that any number of changes
+ * within an interval share one sync.
+ * <p>
+ * When the segment grows past the compaction size, the journal starts a new segment, and a
+ * separate compaction thread has the PlayerDataWriter write every dirty player and then deletes
+ * the old segments, whose changes are all in the PlayerDataStore by then. The journal thread
+ * keeps syncing while a compaction waits for the writer. On startup, the segments left behind by a crash are
+ * replayed into the PlayerDataStore before any player is loaded.
+ *
+ * <pre>
+ * record:  length (int), crc32 of the payload (int), payload
+ * payload: uuid msb (long), uuid lsb (long), path (UTF), value tag (byte), value
+ * </pre>
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class PlayerDataJournal {
+  
+  /**
+   * The default time between two syncs of the journal, in milliseconds.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 100L;
+  
+  /**
+   * The default segment size that starts a compaction, in bytes.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final long DEFAULT_COMPACT_BYTES = 1024L * 1024L;
+  
+  /**
+   * The time a compaction waits for the PlayerDataWriter, in milliseconds.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final long COMPACT_FLUSH_TIMEOUT_MILLIS = 30000L;
+  
+  /**
+   * The file name suffix of journal segments.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final String SEGMENT_SUFFIX = ".journal";
+  
+  /**
+   * The largest record payload, which bounds what a broken length can make replay read.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final int MAX_PAYLOAD_SIZE = 1 << 20;
+  
+  /**
+   * The value tags of records.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final byte TAG_NULL = 0;
+  private static final byte TAG_BOOLEAN = 1;
+  private static final byte TAG_INT = 2;
+  private static final byte TAG_LONG = 3;
+  private static final byte TAG_DOUBLE = 4;
+  private static final byte TAG_STRING = 5;
+  private static final byte TAG_STRING_LIST = 6;
+  private static final byte TAG_YAML = 7;
+  
+  /**
+   * The directory of the journal segments.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Path directory;
+  
+  /**
+   * The writer of changed player data, which compactions wait for.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final PlayerDataWriter dataWriter;
+  
+  /**
+   * The segment size that starts a compaction, in bytes.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final long compactBytes;
+  
+  /**
+   * The journal thread, which syncs the journal and starts compactions.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final ScheduledExecutorService committer;
+  
+  /**
+   * The compaction thread, which waits for the PlayerDataWriter and deletes old segments.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final ExecutorService compactor;
+  
+  /**
+   * Whether a compaction is in progress, so that at most one runs at a time.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final AtomicBoolean compacting;
+  
+  /**
+   * The logger replays, failed commits and compactions are logged to.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Logger logger;
+  
+  /**
+   * The current segment and its sequence number, guarded by the journal.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private FileChannel segment;
+  private long segmentSequence;
+  
+  /**
+   * Whether records were appended since the last sync, guarded by the journal.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private boolean uncommitted;
+  
+  /**
+   * Metrics of the journal.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final LongAdder appendCount;
+  private final LongAdder commitCount;
+  private final LongAdder compactionCount;
+  private final int replayedCount;
+  
+  /**
+   * Default Constructor for PlayerDataJournal, which replays the segments left behind by a
+   * crash into the PlayerDataStore and starts a new segment.
+   *
+   * @param directory The directory of the journal segments
+   * @param dataStore The store the player data is saved to
+   * @param dataWriter The writer of changed player data
+   * @param commitIntervalMillis The time between two syncs of the journal, in milliseconds
+   * @param compactBytes The segment size that starts a compaction, in bytes
+   *
+   * @throws IOException If the journal can not be replayed or a new segment can not be started
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerDataJournal(File directory, PlayerDataStore dataStore, PlayerDataWriter dataWriter, long commitIntervalMillis, long compactBytes) throws IOException {
+    this(directory, dataStore, dataWriter, commitIntervalMillis, compactBytes, InfrastructureAPI.getInstance().getPluginLogger());
+  }
+  
+  /**
+   * Constructor for PlayerDataJournal, which replays the segments left behind by a crash into
+   * the PlayerDataStore and starts a new segment.
+   *
+   * @param directory The directory of the journal segments
+   * @param dataStore The store the player data is saved to
+   * @param dataWriter The writer of changed player data
+   * @param commitIntervalMillis The time between two syncs of the journal, in milliseconds
+   * @param compactBytes The segment size that starts a compaction, in bytes
+   * @param logger The logger replays, failed commits and compactions are logged to
+   *
+   * @throws IOException If the journal can not be replayed or a new segment can not be started
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerDataJournal(File directory, PlayerDataStore dataStore, PlayerDataWriter dataWriter, long commitIntervalMillis, long compactBytes, Logger logger) throws IOException {
+    this.directory = directory.toPath();
+    this.logger = logger;
+    this.dataWriter = dataWriter;
+    this.compactBytes = compactBytes;
+    
+    this.appendCount = new LongAdder();
+    this.commitCount = new LongAdder();
+    this.compactionCount = new LongAdder();
+    this.compacting = new AtomicBoolean();
+    
+    Files.createDirectories(this.directory);
+    
+    List<Path> segments = listSegments();
+    this.replayedCount = replay(segments, dataStore, logger);
+    
+    // The replayed changes are in the store now.
+    for(Path replayed : segments) {
+      Files.delete(replayed);
+    }
+    
+    this.segmentSequence = segments.isEmpty() ? 0L : sequenceOf(segments.get(segments.size() - 1)) + 1;
+    this.segment = openSegment(segmentSequence);
+    
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+      Thread thread = new Thread(runnable, "Infrastructure Player Data Journal");
+      thread.setDaemon(true);
+      
+      return thread;
+    });
+    executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    
+    this.committer = executor;
+    this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "Infrastructure Player Data Journal Compactor");
+      thread.setDaemon(true);
+      
+      return thread;
+    });
+    
+    committer.scheduleWithFixedDelay(this::commit, commitIntervalMillis, commitIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+  
+  /**
+   * Appends a change to the player data. The change is synced with the next commit.
+   *
+   * @param uuid The unique ID of the player
+   * @param path The changed configuration path
+   * @param value The new value
+   *
+   * @throws IOException If the change can not be appended
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void append(UUID uuid, String path, Object value) throws IOException {
+    ByteBuffer record = encode(uuid, path, value);
+    
+    synchronized(this) {
+      while(record.hasRemaining()) {
+        segment.write(record);
+      }
+      
+      uncommitted = true;
+    }
+    
+    appendCount.increment();
+  }
+  
+  /**
+   * Stops the journal thread and syncs the journal.
+   *
+   * @param compacted Whether every change is in the PlayerDataStore, so that the journal can be deleted
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void close(boolean compacted) {
+    committer.shutdown();
+    compactor.shutdown();
+    
+    try {
+      committer.awaitTermination(COMPACT_FLUSH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      compactor.awaitTermination(COMPACT_FLUSH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    
+    synchronized(this) {
+      try {
+        segment.force(false);
+        segment.close();
+        
+        if(compacted) {
+          for(Path remaining : listSegments()) {
+            Files.delete(remaining);
+          }
+        }
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "Could not close the player data journal, it is replayed with the next start", e);
+      }
+    }
+  }
+  
+  /**
+   * Gets the number of appended changes.
+   *
+   * @return The number of appended changes
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getAppendCount() {
+    return appendCount.sum();
+  }
+  
+  /**
+   * Gets the number of syncs of the journal.
+   *
+   * @return The number of commits
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getCommitCount() {
+    return commitCount.sum();
+  }
+  
+  /**
+   * Gets the number of compactions of the journal.
+   *
+   * @return The number of compactions
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getCompactionCount() {
+    return compactionCount.sum();
+  }
+  
+  /**
+   * Gets the number of changes replayed from a crash on startup.
+   *
+   * @return The number of replayed changes
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int getReplayedCount() {
+    return replayedCount;
+  }
+  
+  /**
+   * Syncs the appended changes and starts a compaction if the journal has grown too large, on the journal thread.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void commit() {
+    long segmentSize;
+    
+    try {
+      synchronized(this) {
+        if(uncommitted) {
+          segment.force(false);
+          uncommitted = false;
+          commitCount.increment();
+        }
+        
+        segmentSize = segment.size();
+      }
+      
+      if(segmentSize >= compactBytes && compacting.compareAndSet(false, true)) {
+        startCompaction();
+      }
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Could not commit the player data journal", e);
+    }
+  }
+  
+  /**
+   * Starts a new segment on the journal thread, and hands the old segments to the compaction
+   * thread. The caller has set the compaction flag.
+   *
+   * @throws IOException If a new segment can not be started
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void startCompaction() throws IOException {
+    long newSequence;
+    
+    try {
+      synchronized(this) {
+        FileChannel newSegment = openSegment(segmentSequence + 1);
+        
+        segment.force(false);
+        segment.close();
+        segment = newSegment;
+        newSequence = ++segmentSequence;
+      }
+      
+      compactor.execute(() -> compact(newSequence));
+    } catch (IOException | RejectedExecutionException e) {
+      compacting.set(false);
+      
+      throw e;
+    }
+  }
+  
+  /**
+   * Has every dirty player written, and then deletes the segments before a sequence number,
+   * on the compaction thread.
+   *
+   * @param newSequence The sequence number of the segment started by the compaction
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void compact(long newSequence) {
+    try {
+      // Players are marked dirty before their changes are appended,
+      // so every change in the old segments is part of this flush.
+      if(!dataWriter.flush(COMPACT_FLUSH_TIMEOUT_MILLIS)) {
+        logger.warning("Not all player data was written, keeping the player data journal until the next compaction");
+        
+        return;
+      }
+      
+      for(Path old : listSegments()) {
+        if(sequenceOf(old) < newSequence) {
+          Files.deleteIfExists(old);
+        }
+      }
+      
+      compactionCount.increment();
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Could not compact the player data journal", e);
+    } finally {
+      compacting.set(false);
+    }
+  }
+  
+  /**
+   * Opens a new, empty segment.
+   *
+   * @param sequence The sequence number of the segment
+   *
+   * @return The segment
+   *
+   * @throws IOException If the segment can not be created
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private FileChannel openSegment(long sequence) throws IOException {
+    return FileChannel.open(directory.resolve(String.format("%016d%s", sequence, SEGMENT_SUFFIX)),
+      StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+  }
+  
+  /**
+   * Lists the segments in the journal directory.
+   *
+   * @return The segments, in the order they were written
+   *
+   * @throws IOException If the directory can not be listed
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private List<Path> listSegments() throws IOException {
+    List<Path> segments = new ArrayList<Path>();
+    
+    try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+      for(Path file : files) {
+        segments.add(file);
+      }
+    }
+    
+    // The names are zero-padded sequence numbers.
+    Collections.sort(segments);
+    
+    return segments;
+  }
+  
+  /**
+   * Replays segments into the PlayerDataStore, applying the changes of every player in order.
+   * <p>
+   * A segment ends at its first incomplete or broken record, which is where a crash stopped
+   * the last append.
+   *
+   * @param segments The segments, in the order they were written
+   * @param dataStore The store the player data is saved to
+   * @param logger The logger skipped records and the result are logged to
+   *
+   * @return The number of replayed changes
+   *
+   * @throws IOException If a segment can not be read, or the player data can not be saved
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static int replay(List<Path> segments, PlayerDataStore dataStore, Logger logger) throws IOException {
+    HashMap<UUID, YamlConfiguration> players = new HashMap<UUID, YamlConfiguration>();
+    int replayed = 0;
+    
+    for(Path segmentFile : segments) {
+      ByteBuffer contents = ByteBuffer.wrap(Files.readAllBytes(segmentFile));
+      
+      while(true) {
+        ByteBuffer payload = nextPayload(contents);
+        
+        if(payload == null) {
+          if(contents.hasRemaining()) {
+            logger.warning("Player data journal " + segmentFile.getFileName() + " ends with " + contents.remaining() + " bytes of an incomplete change, which are skipped");
+          }
+          
+          break;
+        }
+        
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining()));
+        UUID uuid = new UUID(input.readLong(), input.readLong());
+        String path = input.readUTF();
+        Object value = readValue(input);
+        
+        YamlConfiguration configuration = players.get(uuid);
+        
+        if(configuration == null) {
+          configuration = load(dataStore, uuid);
+          players.put(uuid, configuration);
+        }
+        
+        configuration.set(path, value);
+        replayed++;
+      }
+    }
+    
+    if(!players.isEmpty()) {
+      HashMap<UUID, String> documents = new HashMap<UUID, String>();
+      
+      for(Map.Entry<UUID, YamlConfiguration> player : players.entrySet()) {
+        documents.put(player.getKey(), player.getValue().saveToString());
+      }
+      
+      dataStore.saveAll(documents);
+      logger.info("Replayed " + replayed + " player data change(s) of " + players.size() + " player(s) from the journal");
+    }
+    
+    return replayed;
+  }
+  
+  /**
+   * Reads the next complete, intact record of a segment.
+   *
+   * @param contents The contents of the segment, positioned at the next record
+   *
+   * @return The payload of the record, or null if the segment ends here
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static ByteBuffer nextPayload(ByteBuffer contents) {
+    if(contents.remaining() < 8) {
+      return null;
+    }
+    
+    int start = contents.position();
+    int length = contents.getInt(start);
+    int crc = contents.getInt(start + 4);
+    
+    if(length <= 0 || length > MAX_PAYLOAD_SIZE || length > contents.remaining() - 8) {
+      return null;
+    }
+    
+    CRC32 checksum = new CRC32();
+    checksum.update(contents.array(), contents.arrayOffset() + start + 8, length);
+    
+    if((int) checksum.getValue() != crc) {
+      return null;
+    }
+    
+    ByteBuffer payload = contents.duplicate();
+    payload.position(start + 8);
+    payload.limit(start + 8 + length);
+    contents.position(start + 8 + length);
+    
+    return payload;
+  }
+  
+  /**
+   * Loads the configuration of a player to replay changes onto.
+   *
+   * @param dataStore The store the player data is loaded from
+   * @param uuid The unique ID of the player
+   *
+   * @return The configuration, empty if the player has no data
+   *
+   * @throws IOException If the player data can not be read or parsed
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static YamlConfiguration load(PlayerDataStore dataStore, UUID uuid) throws IOException {
+    YamlConfiguration configuration = new YamlConfiguration();
+    String document = dataStore.load(uuid);
+    
+    if(document != null) {
+      try {
+        configuration.loadFromString(document);
+      } catch (InvalidConfigurationException e) {
+        throw new IOException("User data of " + uuid + " is not valid YAML", e);
+      }
+    }
+    
+    return configuration;
+  }
+  
+  /**
+   * Encodes a change as a record.
+   *
+   * @param uuid The unique ID of the player
+   * @param path The changed configuration path
+   * @param value The new value
+   *
+   * @return The record, ready to be written
+   *
+   * @throws IOException If the value can not be encoded
+   *
+   * @since 0.1.0-ALPHA
+   */
+  static ByteBuffer encode(UUID uuid, String path, Object value) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+    DataOutputStream output = new DataOutputStream(bytes);
+    
+    // Room for the length and checksum.
+    output.writeLong(0L);
+    output.writeLong(uuid.getMostSignificantBits());
+    output.writeLong(uuid.getLeastSignificantBits());
+    output.writeUTF(path);
+    writeValue(output, value);
+    output.flush();
+    
+    byte[] record = bytes.toByteArray();
+    CRC32 checksum = new CRC32();
+    checksum.update(record, 8, record.length - 8);
+    
+    ByteBuffer buffer = ByteBuffer.wrap(record);
+    buffer.putInt(0, record.length - 8);
+    buffer.putInt(4, (int) checksum.getValue());
+    
+    return buffer;
+  }
+  
+  /**
+   * Writes a tagged value.
+   *
+   * @param output The record output
+   * @param value The value
+   *
+   * @throws IOException If the value can not be written
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static void writeValue(DataOutputStream output, Object value) throws IOException {
+    if(value == null) {
+      output.writeByte(TAG_NULL);
+    } else if(value instanceof Boolean) {
+      output.writeByte(TAG_BOOLEAN);
+      output.writeBoolean((Boolean) value);
+    } else if(value instanceof Integer) {
+      output.writeByte(TAG_INT);
+      output.writeInt((Integer) value);
+    } else if(value instanceof Long) {
+      output.writeByte(TAG_LONG);
+      output.writeLong((Long) value);
+    } else if(value instanceof Double) {
+      output.writeByte(TAG_DOUBLE);
+      output.writeDouble((Double) value);
+    } else if(value instanceof String) {
+      output.writeByte(TAG_STRING);
+      output.writeUTF((String) value);
+    } else if(isStringList(value)) {
+      List<?> list = (List<?>) value;
+      
+      output.writeByte(TAG_STRING_LIST);
+      output.writeInt(list.size());
+      
+      for(Object element : list) {
+        output.writeUTF((String) element);
+      }
+    } else {
+      // Anything else is kept as the YAML Bukkit would save it as.
+      YamlConfiguration configuration = new YamlConfiguration();
+      configuration.set("value", value);
+      
+      output.writeByte(TAG_YAML);
+      output.writeUTF(configuration.saveToString());
+    }
+  }
+  
+  /**
+   * Reads a tagged value.
+   *
+   * @param input The record input
+   *
+   * @return The value
+   *
+   * @throws IOException If the value can not be read
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static Object readValue(DataInputStream input) throws IOException {
+    byte tag = input.readByte();
+    
+    switch(tag) {
+      case TAG_NULL:
+        return null;
+      case TAG_BOOLEAN:
+        return input.readBoolean();
+      case TAG_INT:
+        return input.readInt();
+      case TAG_LONG:
+        return input.readLong();
+      case TAG_DOUBLE:
+        return input.readDouble();
+      case TAG_STRING:
+        return input.readUTF();
+      case TAG_STRING_LIST:
+        int size = input.readInt();
+        List<String> list = new ArrayList<String>(size);
+        
+        for(int i = 0; i < size; i++) {
+          list.add(input.readUTF());
+        }
+        
+        return list;
+      case TAG_YAML:
+        YamlConfiguration configuration = new YamlConfiguration();
+        
+        try {
+          configuration.loadFromString(input.readUTF());
+        } catch (InvalidConfigurationException e) {
+          throw new IOException("Journal value is not valid YAML", e);
+        }
+        
+        return configuration.get("value");
+      default:
+        throw new IOException("Unknown journal value tag " + tag);
+    }
+  }
+  
+  /**
+   * Checks if a value is a list of strings.
+   *
+   * @param value The value
+   *
+   * @return Whether the value is a list of only strings
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static boolean isStringList(Object value) {
+    if(!(value instanceof List)) {
+      return false;
+    }
+    
+    for(Object element : (List<?>) value) {
+      if(!(element instanceof String)) {
+        return false;
+      }
+    }
+    
+    return true;
+  }
+  
+  /**
+   * Gets the sequence number of a segment.
+   *
+   * @param segmentFile The segment
+   *
+   * @return The sequence number
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static long sequenceOf(Path segmentFile) {
+    String name = segmentFile.getFileName().toString();
+    
+    return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+  }
+  
+}
@@ -0,0 +1,304 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.player;
+
+import org.bukkit.entity.Player;
+import org.cjohnson.infrastructure.api.InfrastructureAPI;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * The PlayerDataLoader Class loads player data before the player joins, off the main thread.
+ * <p>
+ * When a player logs in, Bukkit fires the AsyncPlayerPreLoginEvent on a login thread of its
+ * own. The data of the player is loaded right there, so that any number of concurrent logins
+ * load in parallel, and kept in a staging cache keyed by the unique ID of the player. The join
+ * handler on the main thread then only takes the already parsed data out of the staging cache.
+ * <p>
+ * A load that fails, or unwritten data from the last session that is not written within the
+ * load timeout, rejects the login, so that a player never plays with default data that would
+ * later overwrite their real data. Staged data of players that never join is dropped after
+ * STAGING_EXPIRY_MILLIS.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class PlayerDataLoader {
+  
+  /**
+   * The default time a login waits for its unwritten player data, in milliseconds.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final long DEFAULT_LOAD_TIMEOUT_MILLIS = 5000L;
+  
+  /**
+   * The time staged player data is kept for a player that has not joined yet, in milliseconds.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final long STAGING_EXPIRY_MILLIS = 60000L;
+  
+  /**
+   * The writer of changed player data, which a rejoining player waits for.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final PlayerDataWriter dataWriter;
+  
+  /**
+   * The loaded player data of players that are logging in, keyed by their unique ID.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final ConcurrentHashMap<UUID, StagedData> staging;
+  
+  /**
+   * The time a login waits for its unwritten player data, in milliseconds.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final long loadTimeoutMillis;
+  
+  /**
+   * Default Constructor for PlayerDataLoader
+   *
+   * @param dataWriter The writer of changed player data
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerDataLoader(PlayerDataWriter dataWriter) {
+    this(dataWriter, DEFAULT_LOAD_TIMEOUT_MILLIS);
+  }
+  
+  /**
+   * Constructor for PlayerDataLoader
+   *
+   * @param dataWriter The writer of changed player data
+   * @param loadTimeoutMillis The time a login waits for its unwritten player data, in milliseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerDataLoader(PlayerDataWriter dataWriter, long loadTimeoutMillis) {
+    this.dataWriter = dataWriter;
+    this.staging = new ConcurrentHashMap<UUID, StagedData>();
+    this.loadTimeoutMillis = loadTimeoutMillis;
+  }
+  
+  /**
+   * Loads the data of a player that is logging in into the staging cache.
+   * <p>
+   * This loads the data on the calling thread, and must be called from the login thread.
+   *
+   * @param uuid The unique ID of the player
+   * @param playerName The name of the player
+   * @param address The address the player logs in from
+   *
+   * @return Whether the data was loaded, false if the load failed or unwritten data timed out
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean preLoad(UUID uuid, String playerName, InetAddress address) {
+    expireStaged();
+    
+    // A player that quit moments ago may still have data
+    // waiting to be written, which must be loaded instead
+    // of the older user file.
+    if(!dataWriter.awaitFlushed(uuid, loadTimeoutMillis)) {
+      InfrastructureAPI.getInstance().getPluginLogger().warning("The player data of " + playerName + " (" + uuid + ") from the last session has not been written yet");
+      
+      return false;
+    }
+    
+    InfraPlayerDataHandler dataHandler = new InfraPlayerDataHandler(uuid);
+    
+    try {
+      dataHandler.load(playerName, address.getHostAddress());
+    } catch (IOException | RuntimeException e) {
+      InfrastructureAPI.getInstance().getPluginLogger().log(Level.SEVERE, "Could not load the player data of " + playerName + " (" + uuid + ")", e);
+      
+      return false;
+    }
+    
+    staging.put(uuid, new StagedData(dataHandler));
+    
+    return true;
+  }
+  
+  /**
+   * Takes the staged data of a player that has joined out of the staging cache.
+   *
+   * @param uuid The unique ID of the player
+   *
+   * @return The loaded player data, or null if there is none
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public InfraPlayerDataHandler takeStaged(UUID uuid) {
+    StagedData stagedData = staging.remove(uuid);
+    
+    return stagedData == null ? null : stagedData.dataHandler;
+  }
+  
+  /**
+   * Drops the staged data of a player whose login was rejected.
+   *
+   * @param uuid The unique ID of the player
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void discard(UUID uuid) {
+    staging.remove(uuid);
+  }
+  
+  /**
+   * Loads the player data of many players that are already online in parallel, such as after
+   * a reload, on a temporary pool of threads.
+   * <p>
+   * The names and addresses of the players are read on the calling thread. Players whose data
+   * can not be loaded get default data, which is not saved over their user file.
+   *
+   * @param players The online players
+   * @param threads The largest number of threads to load with
+   *
+   * @return A future of the loaded Player Data Handlers, keyed by unique ID
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public CompletableFuture<Map<UUID, InfraPlayerDataHandler>> loadAll(Collection<? extends Player> players, int threads) {
+    ConcurrentHashMap<UUID, InfraPlayerDataHandler> dataHandlers = new ConcurrentHashMap<UUID, InfraPlayerDataHandler>();
+    
+    if(players.isEmpty()) {
+      return CompletableFuture.completedFuture(dataHandlers);
+    }
+    
+    ExecutorService reloadLoaders = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, players.size())), new LoaderThreadFactory());
+    List<CompletableFuture<Void>> loads = new ArrayList<CompletableFuture<Void>>(players.size());
+    
+    for(Player player : players) {
+      UUID uuid = player.getUniqueId();
+      String playerName = player.getName();
+      String address = player.getAddress() == null ? null : player.getAddress().getAddress().getHostAddress();
+      
+      loads.add(CompletableFuture.runAsync(() -> {
+        InfraPlayerDataHandler dataHandler = new InfraPlayerDataHandler(uuid);
+        
+        try {
+          dataHandler.load(playerName, address);
+        } catch (IOException | RuntimeException e) {
+          InfrastructureAPI.getInstance().getPluginLogger().log(Level.SEVERE, "Could not load the player data of " + playerName + ", using default data", e);
+          dataHandler.useDefaults();
+        }
+        
+        dataHandlers.put(uuid, dataHandler);
+      }, reloadLoaders));
+    }
+    
+    reloadLoaders.shutdown();
+    
+    return CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> dataHandlers);
+  }
+  
+  /**
+   * Gets the number of players with staged data.
+   *
+   * @return The number of entries in the staging cache
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int getStagedCount() {
+    return staging.size();
+  }
+  
+  /**
+   * Drops the staged data of every player that has not joined yet.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void shutdown() {
+    staging.clear();
+  }
+  
+  /**
+   * Drops the staged data of players that have not joined within STAGING_EXPIRY_MILLIS.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void expireStaged() {
+    long expiredBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(STAGING_EXPIRY_MILLIS);
+    
+    staging.values().removeIf(stagedData -> stagedData.stagedNanos - expiredBefore < 0L);
+  }
+  
+  /**
+   * Loaded player data waiting for its player to join.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final class StagedData {
+    
+    private final InfraPlayerDataHandler dataHandler;
+    private final long stagedNanos;
+    
+    private StagedData(InfraPlayerDataHandler dataHandler) {
+      this.dataHandler = dataHandler;
+      this.stagedNanos = System.nanoTime();
+    }
+    
+  }
+  
+  /**
+   * ThreadFactory creating the named daemon loader threads.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final class LoaderThreadFactory implements ThreadFactory {
+    
+    private final AtomicInteger threadCount = new AtomicInteger();
+    
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "Infrastructure Player Data Loader #" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      
+      return thread;
+    }
+    
+  }
+  
+}
@@ -0,0 +1,277 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.player;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.cjohnson.infrastructure.api.InfrastructureAPI;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+/**
+ * The PlayerDataMigration Class copies the player data files of a YamlPlayerDataStore into another store.
+ * <p>
+ * The directory is streamed in batches, so that only one batch of file names and documents
+ * is held in memory, whatever the number of players. The files of a batch are read and
+ * checked in parallel, and the batch is then written to the target store at once. Players
+ * that already have data in the target store are skipped, so that the migration can run
+ * while players are online and can be run again after it was interrupted.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class PlayerDataMigration implements Runnable {
+  
+  /**
+   * The default number of files read in one batch.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final int DEFAULT_BATCH_SIZE = 500;
+  
+  /**
+   * The store the player data files are read from.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final YamlPlayerDataStore source;
+  
+  /**
+   * The store the player data is written to.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final PlayerDataStore target;
+  
+  /**
+   * The number of threads reading files.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int readerThreads;
+  
+  /**
+   * The number of files read in one batch.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int batchSize;
+  
+  /**
+   * Progress of the migration.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private volatile long totalCount = -1L;
+  private final LongAdder migratedCount;
+  private final LongAdder failedCount;
+  private volatile boolean done;
+  
+  /**
+   * Constructor for PlayerDataMigration
+   *
+   * @param source The store the player data files are read from
+   * @param target The store the player data is written to
+   * @param readerThreads The number of threads reading files
+   * @param batchSize The number of files read in one batch
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerDataMigration(YamlPlayerDataStore source, PlayerDataStore target, int readerThreads, int batchSize) {
+    this.source = source;
+    this.target = target;
+    this.readerThreads = readerThreads;
+    this.batchSize = batchSize;
+    
+    this.migratedCount = new LongAdder();
+    this.failedCount = new LongAdder();
+  }
+  
+  /**
+   * Runs the migration on the calling thread, until every file has been copied.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  @Override
+  public void run() {
+    AtomicInteger threadCount = new AtomicInteger();
+    ExecutorService readers = Executors.newFixedThreadPool(readerThreads, runnable -> {
+      Thread thread = new Thread(runnable, "Infrastructure Player Data Migration #" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      
+      return thread;
+    });
+    
+    try {
+      PlayerFileScanner scanner = new PlayerFileScanner(source, readerThreads);
+      totalCount = scanner.count();
+      
+      List<Path> batch = new ArrayList<Path>(batchSize);
+      
+      try(Stream<Path> files = scanner.walk()) {
+        for(Path file : (Iterable<Path>) files::iterator) {
+          batch.add(file);
+          
+          if(batch.size() == batchSize) {
+            migrateBatch(readers, batch);
+            batch.clear();
+          }
+        }
+      }
+      
+      migrateBatch(readers, batch);
+    } catch (IOException | UncheckedIOException e) {
+      InfrastructureAPI.getInstance().getPluginLogger().log(Level.SEVERE, "Player data migration to " + target.getName() + " stopped", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      readers.shutdownNow();
+      done = true;
+    }
+  }
+  
+  /**
+   * Gets the number of player data files, or -1 while they are being counted.
+   *
+   * @return The number of player data files
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getTotalCount() {
+    return totalCount;
+  }
+  
+  /**
+   * Gets the number of players copied, including players the target store already had.
+   *
+   * @return The number of players copied
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getMigratedCount() {
+    return migratedCount.sum();
+  }
+  
+  /**
+   * Gets the number of player data files that could not be read or are not valid YAML.
+   *
+   * @return The number of failed files
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getFailedCount() {
+    return failedCount.sum();
+  }
+  
+  /**
+   * Checks if the migration has finished.
+   *
+   * @return Whether the migration has finished or stopped
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean isDone() {
+    return done;
+  }
+  
+  /**
+   * Reads a batch of files in parallel and writes them to the target store at once.
+   *
+   * @param readers The threads reading files
+   * @param batch The files of the batch
+   *
+   * @throws IOException If the target store can not be written
+   * @throws InterruptedException If the migration was interrupted
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void migrateBatch(ExecutorService readers, List<Path> batch) throws IOException, InterruptedException {
+    if(batch.isEmpty()) {
+      return;
+    }
+    
+    List<Callable<String>> reads = new ArrayList<Callable<String>>(batch.size());
+    
+    for(Path file : batch) {
+      reads.add(() -> read(YamlPlayerDataStore.parseUniqueId(file)));
+    }
+    
+    List<Future<String>> documents = readers.invokeAll(reads);
+    HashMap<UUID, String> batchDocuments = new HashMap<UUID, String>();
+    
+    for(int i = 0; i < batch.size(); i++) {
+      try {
+        String document = documents.get(i).get();
+        
+        if(document != null) {
+          batchDocuments.put(YamlPlayerDataStore.parseUniqueId(batch.get(i)), document);
+        }
+      } catch (ExecutionException e) {
+        failedCount.increment();
+        InfrastructureAPI.getInstance().getPluginLogger().warning("Could not migrate " + batch.get(i).getFileName() + ": " + e.getCause().getMessage());
+      }
+    }
+    
+    target.saveAllIfAbsent(batchDocuments);
+    migratedCount.add(batchDocuments.size());
+  }
+  
+  /**
+   * Reads and checks a player data file.
+   *
+   * @param uuid The unique ID of the player
+   *
+   * @return The YAML document, or null if the file was removed meanwhile
+   *
+   * @throws IOException If the file can not be read or is not valid YAML
+   * @throws InvalidConfigurationException If the file is not valid YAML
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private String read(UUID uuid) throws IOException, InvalidConfigurationException {
+    String document = source.load(uuid);
+    
+    if(document != null) {
+      new YamlConfiguration().loadFromString(document);
+    }
+    
+    return document;
+  }
+  
+}
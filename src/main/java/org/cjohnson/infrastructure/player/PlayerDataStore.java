@@ -0,0 +1,97 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.player;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The PlayerDataStore Interface is the storage backend of player data.
+ * <p>
+ * Player data is stored as one YAML document per player, keyed by the unique ID of the
+ * player. The InfraPlayerDataHandler parses and serializes the documents, so that every
+ * backend stores exactly the same data. Implementations must be safe to use from the
+ * loader and writer threads at the same time.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public interface PlayerDataStore {
+  
+  /**
+   * Loads the data of a player.
+   *
+   * @param uuid The unique ID of the player
+   *
+   * @return The YAML document of the player, or null if the player has no data
+   *
+   * @throws IOException If the data can not be read
+   *
+   * @since 0.1.0-ALPHA
+   */
+  String load(UUID uuid) throws IOException;
+  
+  /**
+   * Saves the data of a batch of players, replacing their existing data.
+   *
+   * @param documents The YAML documents, keyed by the unique IDs of the players
+   *
+   * @throws IOException If the data can not be written
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void saveAll(Map<UUID, String> documents) throws IOException;
+  
+  /**
+   * Saves the data of a batch of players that do not have data yet, keeping existing data.
+   * <p>
+   * This is used when migrating data between stores, so that data written since
+   * the migration started is never overwritten by older data.
+   *
+   * @param documents The YAML documents, keyed by the unique IDs of the players
+   *
+   * @throws IOException If the data can not be written
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void saveAllIfAbsent(Map<UUID, String> documents) throws IOException;
+  
+  /**
+   * Gets the name of the store, shown in messages.
+   *
+   * @return The name of the store
+   *
+   * @since 0.1.0-ALPHA
+   */
+  String getName();
+  
+  /**
+   * Releases the resources of the store.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  void close();
+  
+}
@@ -0,0 +1,532 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.player;
+
+import org.cjohnson.infrastructure.api.InfrastructureAPI;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The PlayerDataWriter Class saves changed player data in the background.
+ * <p>
+ * Changing player data only marks the player as dirty. A single writer thread flushes the
+ * dirty players every flush interval, so that any number of changes to one player within an
+ * interval results in one write of its data. All players dirty at a flush are handed to the
+ * PlayerDataStore as a single batch, which the store writes in as few operations as it can.
+ * <p>
+ * A player that quits is flushed right away, and a player that logs in again waits for that
+ * flush before its data is loaded. Shutting down flushes every dirty player, waiting a
+ * bounded time.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class PlayerDataWriter {
+  
+  /**
+   * The default time between two flushes, in milliseconds.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 5000L;
+  
+  /**
+   * The writer thread.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final ScheduledExecutorService writer;
+  
+  /**
+   * The store the player data is written to.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final PlayerDataStore dataStore;
+  
+  /**
+   * The players with changed data, keyed by their unique ID.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final ConcurrentHashMap<UUID, InfraPlayerDataHandler> pending;
+  
+  /**
+   * The logger failed writes are logged to, or null to log them to the plugin logger, which
+   * does not exist yet when the writer is created.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Logger logger;
+  
+  /**
+   * Metrics of the writer.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final LongAdder flushCount;
+  private final LongAdder writeCount;
+  private final LongAdder failedWriteCount;
+  private final LongAdder totalFlushNanos;
+  private final LongAccumulator maxFlushNanos;
+  private volatile long lastFlushNanos;
+  
+  /**
+   * Default Constructor for PlayerDataWriter
+   *
+   * @param dataStore The store the player data is written to
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerDataWriter(PlayerDataStore dataStore) {
+    this(dataStore, DEFAULT_FLUSH_INTERVAL_MILLIS);
+  }
+  
+  /**
+   * Constructor for PlayerDataWriter
+   *
+   * @param dataStore The store the player data is written to
+   * @param flushIntervalMillis The time between two flushes, in milliseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerDataWriter(PlayerDataStore dataStore, long flushIntervalMillis) {
+    this(dataStore, flushIntervalMillis, null);
+  }
+  
+  /**
+   * Constructor for PlayerDataWriter
+   *
+   * @param dataStore The store the player data is written to
+   * @param flushIntervalMillis The time between two flushes, in milliseconds
+   * @param logger The logger failed writes are logged to, or null for the plugin logger
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerDataWriter(PlayerDataStore dataStore, long flushIntervalMillis, Logger logger) {
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+      Thread thread = new Thread(runnable, "Infrastructure Player Data Writer");
+      thread.setDaemon(true);
+      
+      return thread;
+    });
+    executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    
+    this.writer = executor;
+    this.dataStore = dataStore;
+    this.pending = new ConcurrentHashMap<UUID, InfraPlayerDataHandler>();
+    this.logger = logger;
+    
+    this.flushCount = new LongAdder();
+    this.writeCount = new LongAdder();
+    this.failedWriteCount = new LongAdder();
+    this.totalFlushNanos = new LongAdder();
+    this.maxFlushNanos = new LongAccumulator(Math::max, 0L);
+    
+    writer.scheduleWithFixedDelay(this::flushAll, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+  
+  /**
+   * Marks the data of a player as changed, so that it is written with the next flush.
+   *
+   * @param dataHandler The Player Data Handler of the player
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void markDirty(InfraPlayerDataHandler dataHandler) {
+    pending.put(dataHandler.getUniqueId(), dataHandler);
+  }
+  
+  /**
+   * Flushes the data of a player on the writer thread right away, without waiting for it.
+   *
+   * @param uuid The unique ID of the player
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void flushSoon(UUID uuid) {
+    if(!pending.containsKey(uuid)) {
+      return;
+    }
+    
+    try {
+      writer.execute(() -> flush(uuid));
+    } catch (RejectedExecutionException ignored) {
+      // Shutting down flushes every dirty player anyway.
+    }
+  }
+  
+  /**
+   * Waits until the changed data of a player has been written, so that it can be loaded again.
+   *
+   * @param uuid The unique ID of the player
+   * @param timeoutMillis The maximum time to wait, in milliseconds
+   *
+   * @return Whether the player has no unwritten data left
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean awaitFlushed(UUID uuid, long timeoutMillis) {
+    // The writer thread runs one task at a time, so this flush
+    // also waits for a flush of the player that is in progress.
+    Future<?> flush;
+    
+    try {
+      flush = writer.submit(() -> flush(uuid));
+    } catch (RejectedExecutionException e) {
+      return !pending.containsKey(uuid);
+    }
+    
+    try {
+      flush.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException | ExecutionException e) {
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      
+      return false;
+    }
+    
+    return !pending.containsKey(uuid);
+  }
+  
+  /**
+   * Writes every dirty player on the writer thread, waiting a bounded time.
+   *
+   * @param timeoutMillis The maximum time to wait, in milliseconds
+   *
+   * @return Whether every player that was dirty was written in time
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean flush(long timeoutMillis) {
+    Future<Boolean> flush;
+    
+    try {
+      flush = writer.submit((Callable<Boolean>) this::flushAll);
+    } catch (RejectedExecutionException e) {
+      return false;
+    }
+    
+    try {
+      return flush.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException | ExecutionException e) {
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      
+      return false;
+    }
+  }
+  
+  /**
+   * Stops the periodic flushes and writes every dirty player, waiting a bounded time.
+   *
+   * @param timeout The maximum time to wait
+   * @param unit The unit of the timeout
+   *
+   * @return Whether every dirty player was written in time
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean shutdown(long timeout, TimeUnit unit) {
+    try {
+      writer.execute(this::flushAll);
+    } catch (RejectedExecutionException ignored) {
+      // Already shut down.
+    }
+    
+    writer.shutdown();
+    
+    try {
+      return writer.awaitTermination(timeout, unit) && pending.isEmpty();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      
+      return false;
+    }
+  }
+  
+  /**
+   * Gets the number of players with unwritten data.
+   *
+   * @return The number of dirty players
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int getPendingCount() {
+    return pending.size();
+  }
+  
+  /**
+   * Gets the number of flushes of all dirty players.
+   *
+   * @return The number of periodic and shutdown flushes
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getFlushCount() {
+    return flushCount.sum();
+  }
+  
+  /**
+   * Gets the number of player documents written.
+   *
+   * @return The number of player documents written
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getWriteCount() {
+    return writeCount.sum();
+  }
+  
+  /**
+   * Gets the number of player documents that could not be written.
+   *
+   * @return The number of failed writes
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getFailedWriteCount() {
+    return failedWriteCount.sum();
+  }
+  
+  /**
+   * Gets the time the last flush of all dirty players took.
+   *
+   * @return The duration of the last flush, in nanoseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getLastFlushNanos() {
+    return lastFlushNanos;
+  }
+  
+  /**
+   * Gets the average time a flush of all dirty players took.
+   *
+   * @return The average flush duration, in nanoseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getAverageFlushNanos() {
+    long flushes = flushCount.sum();
+    
+    return flushes == 0 ? 0 : totalFlushNanos.sum() / flushes;
+  }
+  
+  /**
+   * Gets the longest time a flush of all dirty players took.
+   *
+   * @return The maximum flush duration, in nanoseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getMaxFlushNanos() {
+    return maxFlushNanos.get();
+  }
+  
+  /**
+   * Writes every dirty player as one batch, on the writer thread.
+   *
+   * @return Whether the batch was written
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private boolean flushAll() {
+    if(pending.isEmpty()) {
+      return true;
+    }
+    
+    long startNanos = System.nanoTime();
+    HashMap<UUID, InfraPlayerDataHandler> dataHandlers = new HashMap<UUID, InfraPlayerDataHandler>();
+    HashMap<UUID, String> documents = new HashMap<UUID, String>();
+    
+    boolean snapshotted = true;
+    
+    for(UUID uuid : pending.keySet()) {
+      InfraPlayerDataHandler dataHandler = pending.remove(uuid);
+      
+      if(dataHandler == null) {
+        continue;
+      }
+      
+      String document;
+      
+      try {
+        document = dataHandler.snapshotForWrite();
+      } catch (RuntimeException e) {
+        snapshotFailed(dataHandler, e);
+        snapshotted = false;
+        
+        continue;
+      }
+      
+      if(document != null) {
+        dataHandlers.put(uuid, dataHandler);
+        documents.put(uuid, document);
+      }
+    }
+    
+    boolean written = write(dataHandlers, documents) && snapshotted;
+    
+    long flushNanos = System.nanoTime() - startNanos;
+    lastFlushNanos = flushNanos;
+    totalFlushNanos.add(flushNanos);
+    maxFlushNanos.accumulate(flushNanos);
+    flushCount.increment();
+    
+    return written;
+  }
+  
+  /**
+   * Writes a dirty player, on the writer thread.
+   *
+   * @param uuid The unique ID of the player
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void flush(UUID uuid) {
+    InfraPlayerDataHandler dataHandler = pending.remove(uuid);
+    
+    if(dataHandler == null) {
+      return;
+    }
+    
+    // Serialize under the lock of the data handler, so that
+    // changes made meanwhile are either fully in this write
+    // or mark the player dirty again for the next one.
+    String document;
+    
+    try {
+      document = dataHandler.snapshotForWrite();
+    } catch (RuntimeException e) {
+      snapshotFailed(dataHandler, e);
+      
+      return;
+    }
+    
+    if(document == null) {
+      return;
+    }
+    
+    write(Collections.singletonMap(uuid, dataHandler), Collections.singletonMap(uuid, document));
+  }
+  
+  /**
+   * Logs a player whose data could not be serialized and retries it with the next flush, on
+   * the writer thread.
+   *
+   * @param dataHandler The Player Data Handler of the player
+   * @param e The exception thrown by the serialization
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void snapshotFailed(InfraPlayerDataHandler dataHandler, RuntimeException e) {
+    failedWriteCount.increment();
+    retry(dataHandler);
+    
+    getLogger().log(Level.WARNING, "Could not serialize the player data of " + dataHandler.getUniqueId() + ", retrying with the next flush", e);
+  }
+  
+  /**
+   * Marks a player whose data could not be written dirty again, so that it is retried with the
+   * next flush, unless newer data is already waiting.
+   *
+   * @param dataHandler The Player Data Handler of the player
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void retry(InfraPlayerDataHandler dataHandler) {
+    dataHandler.markUnwritten();
+    pending.putIfAbsent(dataHandler.getUniqueId(), dataHandler);
+  }
+  
+  /**
+   * Writes a batch of player documents to the store, on the writer thread.
+   *
+   * @param dataHandlers The Player Data Handlers of the batch, keyed by unique ID
+   * @param documents The player documents of the batch, keyed by unique ID
+   *
+   * @return Whether the batch was written
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private boolean write(Map<UUID, InfraPlayerDataHandler> dataHandlers, Map<UUID, String> documents) {
+    if(documents.isEmpty()) {
+      return true;
+    }
+    
+    try {
+      dataStore.saveAll(documents);
+      writeCount.add(documents.size());
+      
+      return true;
+    } catch (IOException | RuntimeException e) {
+      // An exception escaping the periodic flush would cancel it for good.
+      failedWriteCount.add(documents.size());
+      
+      for(InfraPlayerDataHandler dataHandler : dataHandlers.values()) {
+        retry(dataHandler);
+      }
+      
+      getLogger().log(Level.WARNING, "Could not write the player data of " + documents.size() + " player(s) to the " + dataStore.getName() + " store, retrying with the next flush", e);
+      
+      return false;
+    }
+  }
+  
+  /**
+   * Gets the logger failed writes are logged to.
+   *
+   * @return The logger of the writer, or the plugin logger
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private Logger getLogger() {
+    if(logger != null) {
+      return logger;
+    }
+    
+    return InfrastructureAPI.getInstance().getPluginLogger();
+  }
+  
+}
@@ -0,0 +1,235 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.player;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.cjohnson.infrastructure.api.InfrastructureAPI;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * The PlayerFileMigrator Class moves the flat player data files of older versions into their
+ * shards in the background.
+ * <p>
+ * It runs as an asynchronous task every tick, and moves files only until its time budget for
+ * the tick is spent, so that the migration of a large data directory is spread out instead of
+ * saturating the disk. Files are found lazily, without listing the whole directory at once.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class PlayerFileMigrator {
+  
+  /**
+   * The default time the migrator may spend per tick, in milliseconds.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final long DEFAULT_BUDGET_MILLIS = 5L;
+  
+  /**
+   * The migrated store.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final YamlPlayerDataStore store;
+  
+  /**
+   * The time the migrator may spend per tick, in nanoseconds.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final long budgetNanos;
+  
+  /**
+   * The flat files and the position in them, used by one tick at a time.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private DirectoryStream<Path> files;
+  private Iterator<Path> iterator;
+  
+  /**
+   * The repeating task.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private BukkitTask task;
+  
+  /**
+   * Progress of the migration.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private volatile long migratedCount;
+  private volatile long failedCount;
+  private volatile boolean done;
+  
+  /**
+   * Default Constructor for PlayerFileMigrator
+   *
+   * @param store The migrated store
+   * @param budgetMillis The time the migrator may spend per tick, in milliseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerFileMigrator(YamlPlayerDataStore store, long budgetMillis) {
+    this.store = store;
+    this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, budgetMillis));
+  }
+  
+  /**
+   * Starts migrating every tick.
+   *
+   * @param plugin The plugin the task runs for
+   *
+   * @throws IOException If the data directory can not be listed
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public synchronized void start(Plugin plugin) throws IOException {
+    files = store.newFlatFileStream();
+    iterator = files.iterator();
+    task = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::tick, 1L, 1L);
+  }
+  
+  /**
+   * Stops migrating. Files that were not moved yet stay where they are, and are still found.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public synchronized void cancel() {
+    if(task != null) {
+      task.cancel();
+    }
+    
+    closeFiles();
+  }
+  
+  /**
+   * Gets the number of files moved into their shards.
+   *
+   * @return The number of migrated files
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getMigratedCount() {
+    return migratedCount;
+  }
+  
+  /**
+   * Gets the number of files that could not be moved.
+   *
+   * @return The number of failed files
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getFailedCount() {
+    return failedCount;
+  }
+  
+  /**
+   * Checks if every flat file has been handled.
+   *
+   * @return Whether the migration is done
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean isDone() {
+    return done;
+  }
+  
+  /**
+   * Moves files until the budget of the tick is spent, on an asynchronous task.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private synchronized void tick() {
+    if(iterator == null) {
+      return;
+    }
+    
+    long deadline = System.nanoTime() + budgetNanos;
+    
+    try {
+      while(System.nanoTime() - deadline < 0 && iterator.hasNext()) {
+        UUID uuid = YamlPlayerDataStore.parseUniqueId(iterator.next());
+        
+        try {
+          // The file may have been written into its shard since it was listed.
+          if(uuid != null && store.migrate(uuid)) {
+            migratedCount++;
+          }
+        } catch (IOException e) {
+          failedCount++;
+          InfrastructureAPI.getInstance().getPluginLogger().log(Level.WARNING, "Could not move the player data file of " + uuid + " into its shard", e);
+        }
+      }
+      
+      if(!iterator.hasNext()) {
+        done = true;
+        cancel();
+        
+        if(migratedCount > 0 || failedCount > 0) {
+          InfrastructureAPI.getInstance().getPluginLogger().info("Moved " + migratedCount + " player data file(s) into shards, " + failedCount + " failed");
+        }
+      }
+    } catch (RuntimeException e) {
+      // The directory listing itself failed.
+      cancel();
+      InfrastructureAPI.getInstance().getPluginLogger().log(Level.WARNING, "Stopped moving player data files into shards", e);
+    }
+  }
+  
+  /**
+   * Closes the listing of the flat files.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void closeFiles() {
+    iterator = null;
+    
+    if(files == null) {
+      return;
+    }
+    
+    try {
+      files.close();
+    } catch (IOException ignored) {
+      // Only the listing is closed.
+    }
+    
+    files = null;
+  }
+  
+}
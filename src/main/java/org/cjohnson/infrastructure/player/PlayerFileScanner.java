@@ -0,0 +1,227 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.player;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The PlayerFileScanner Class walks every player data file of a YamlPlayerDataStore, in the
+ * shards as well as the flat files that have not been migrated yet.
+ * <p>
+ * Bulk operations walk the top-level shards in parallel, each shard on its own thread, which
+ * keeps several directory reads in flight at once on large data directories.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class PlayerFileScanner {
+  
+  /**
+   * The depth of player data files below the shard directory.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final int SHARD_DEPTH = 3;
+  
+  /**
+   * The scanned store.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final YamlPlayerDataStore store;
+  
+  /**
+   * The number of shards walked at once by bulk operations.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int parallelism;
+  
+  /**
+   * Default Constructor for PlayerFileScanner
+   *
+   * @param store The scanned store
+   * @param parallelism The number of shards walked at once by bulk operations
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerFileScanner(YamlPlayerDataStore store, int parallelism) {
+    this.store = store;
+    this.parallelism = Math.max(1, parallelism);
+  }
+  
+  /**
+   * Opens a lazy, sequential stream over every player data file, the flat files first.
+   *
+   * @return The stream over the player data files, which must be closed
+   *
+   * @throws IOException If the data directory can not be listed
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public Stream<Path> walk() throws IOException {
+    Stream<Path> flatFiles = flatFiles();
+    Path shardDirectory = store.getShardDirectory().toPath();
+    
+    if(!Files.isDirectory(shardDirectory)) {
+      return flatFiles;
+    }
+    
+    try {
+      return Stream.concat(flatFiles, shardFiles(shardDirectory));
+    } catch (IOException | RuntimeException e) {
+      flatFiles.close();
+      throw e;
+    }
+  }
+  
+  /**
+   * Runs an action for every player data file, walking the shards in parallel.
+   * <p>
+   * The action is called from several threads at once.
+   *
+   * @param action The action to run for every player data file
+   *
+   * @return The number of player data files
+   *
+   * @throws IOException If a directory can not be listed
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long forEach(Consumer<Path> action) throws IOException {
+    List<Path> roots = new ArrayList<Path>();
+    Path shardDirectory = store.getShardDirectory().toPath();
+    
+    // The flat files are walked as one more root,
+    // next to the top-level shards.
+    roots.add(null);
+    
+    if(Files.isDirectory(shardDirectory)) {
+      try(Stream<Path> shards = Files.list(shardDirectory)) {
+        roots.addAll(shards.filter(Files::isDirectory).collect(Collectors.toList()));
+      }
+    }
+    
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    
+    try {
+      return pool.submit(() -> roots.parallelStream().mapToLong(root -> walkRoot(root, action)).sum()).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while scanning the player data files", e);
+    } catch (ExecutionException e) {
+      if(e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      
+      throw new IOException("Could not scan the player data files", e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+  }
+  
+  /**
+   * Counts every player data file, walking the shards in parallel.
+   *
+   * @return The number of player data files
+   *
+   * @throws IOException If a directory can not be listed
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long count() throws IOException {
+    return forEach(path -> { });
+  }
+  
+  /**
+   * Walks the player data files below a root, on a scanner thread.
+   *
+   * @param root The top-level shard, or null for the flat files
+   * @param action The action to run for every player data file
+   *
+   * @return The number of player data files below the root
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private long walkRoot(Path root, Consumer<Path> action) {
+    try(Stream<Path> files = root == null ? flatFiles() : shardFiles(root)) {
+      return files.peek(action).count();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+  
+  /**
+   * Opens a lazy stream over the flat player data files.
+   *
+   * @return The stream over the flat player data files, which must be closed
+   *
+   * @throws IOException If the data directory can not be listed
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private Stream<Path> flatFiles() throws IOException {
+    return Files.list(store.getShardDirectory().toPath().getParent()).filter(PlayerFileScanner::isPlayerFile);
+  }
+  
+  /**
+   * Opens a lazy stream over the player data files below a shard.
+   *
+   * @param shard The shard, or the shard directory itself
+   *
+   * @return The stream over the player data files, which must be closed
+   *
+   * @throws IOException If the shard can not be listed
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static Stream<Path> shardFiles(Path shard) throws IOException {
+    return Files.walk(shard, SHARD_DEPTH).filter(PlayerFileScanner::isPlayerFile);
+  }
+  
+  /**
+   * Checks if a path is a player data file.
+   *
+   * @param path The path
+   *
+   * @return Whether the path is a player data file
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static boolean isPlayerFile(Path path) {
+    return YamlPlayerDataStore.parseUniqueId(path) != null && Files.isRegularFile(path);
+  }
+  
+}
@@ -0,0 +1,131 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.player;
+
+/**
+ * The PlayerFlag Class is a boolean setting of players that was declared in the PlayerFlagRegistry.
+ * <p>
+ * Every flag has a fixed bit index, under which InfraPlayer keeps its value in a packed bitset.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public final class PlayerFlag {
+  
+  /**
+   * The name of the flag.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final String name;
+  
+  /**
+   * The bit index of the flag.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int index;
+  
+  /**
+   * The value of the flag for players that never set it.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final boolean defaultValue;
+  
+  /**
+   * The user file path the flag was kept under before the registry, or null.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final String legacyPath;
+  
+  /**
+   * Default Constructor for PlayerFlag
+   *
+   * @param name The name of the flag
+   * @param index The bit index of the flag
+   * @param defaultValue The value of the flag for players that never set it
+   * @param legacyPath The user file path the flag was kept under before the registry, or null
+   *
+   * @since 0.1.0-ALPHA
+   */
+  PlayerFlag(String name, int index, boolean defaultValue, String legacyPath) {
+    this.name = name;
+    this.index = index;
+    this.defaultValue = defaultValue;
+    this.legacyPath = legacyPath;
+  }
+  
+  /**
+   * Getter for the name of the flag.
+   *
+   * @return The name of the flag
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public String getName() {
+    return name;
+  }
+  
+  /**
+   * Getter for the bit index of the flag.
+   *
+   * @return The bit index of the flag
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int getIndex() {
+    return index;
+  }
+  
+  /**
+   * Getter for the value of the flag for players that never set it.
+   *
+   * @return The default value of the flag
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean getDefaultValue() {
+    return defaultValue;
+  }
+  
+  /**
+   * Getter for the user file path the flag was kept under before the registry.
+   *
+   * @return The legacy user file path, or null if the flag never had one
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public String getLegacyPath() {
+    return legacyPath;
+  }
+  
+  @Override
+  public String toString() {
+    return name + "#" + index;
+  }
+  
+}
@@ -0,0 +1,304 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.player;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * The PlayerFlagRegistry Class assigns the bit indexes of the PlayerFlags that modules declare at startup.
+ * <p>
+ * Flags are persisted as packed bits, so the index of a flag must not change between restarts.
+ * The registry keeps the assigned indexes in a file, and gives a flag the same index every time it
+ * is declared. The index of a flag that is no longer declared stays reserved, so removing a
+ * module never moves the flags of another.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class PlayerFlagRegistry {
+  
+  /**
+   * The name of the flag that determines if players can receive private messages.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final String MESSAGE_TOGGLED = "message-toggled";
+  
+  /**
+   * The name of the flag that determines if players see the private messages of others.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final String SOCIAL_SPY = "social-spy";
+  
+  /**
+   * The number of 64 bit words holding the flags of a player.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final int FLAG_WORDS = PlayerRecordStore.FLAG_WORDS;
+  
+  /**
+   * The largest number of flags.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final int MAX_FLAGS = FLAG_WORDS * Long.SIZE;
+  
+  /**
+   * The allowed flag names, which are also keys of the index file.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final Pattern NAME_PATTERN = Pattern.compile("[a-z0-9_-]+");
+  
+  /**
+   * The file the assigned indexes are kept in, or null to not keep them.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final File file;
+  
+  /**
+   * The logger a failed write of the index file is logged to.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Logger logger;
+  
+  /**
+   * The assigned indexes, keyed by flag name under the indexes section.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final YamlConfiguration indexes;
+  
+  /**
+   * The indexes assigned to any flag, declared or not.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final BitSet assigned;
+  
+  /**
+   * The declared flags, keyed by name.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final ConcurrentHashMap<String, PlayerFlag> flags;
+  
+  /**
+   * The packed default values of the declared flags, replaced on every declaration.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private volatile long[] defaultWords;
+  
+  /**
+   * Constructor for a PlayerFlagRegistry that does not keep its indexes between restarts.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerFlagRegistry() {
+    this.file = null;
+    this.logger = Logger.getLogger(PlayerFlagRegistry.class.getName());
+    this.indexes = new YamlConfiguration();
+    this.assigned = new BitSet(MAX_FLAGS);
+    this.flags = new ConcurrentHashMap<String, PlayerFlag>();
+    this.defaultWords = new long[FLAG_WORDS];
+  }
+  
+  /**
+   * Default Constructor for PlayerFlagRegistry, which reads the assigned indexes.
+   *
+   * @param file The file the assigned indexes are kept in
+   * @param logger The logger a failed write of the index file is logged to
+   *
+   * @throws IOException If the file exists but can not be read
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerFlagRegistry(File file, Logger logger) throws IOException {
+    this.file = file;
+    this.logger = logger;
+    this.indexes = new YamlConfiguration();
+    this.assigned = new BitSet(MAX_FLAGS);
+    this.flags = new ConcurrentHashMap<String, PlayerFlag>();
+    this.defaultWords = new long[FLAG_WORDS];
+    
+    if(!file.exists()) {
+      return;
+    }
+    
+    try {
+      indexes.load(file);
+    } catch (InvalidConfigurationException e) {
+      throw new IOException("Flag index file " + file.getName() + " is not valid YAML", e);
+    }
+    
+    if(indexes.isConfigurationSection("indexes")) {
+      for(String name : indexes.getConfigurationSection("indexes").getKeys(false)) {
+        int index = indexes.getInt("indexes." + name, -1);
+        
+        if(index < 0 || index >= MAX_FLAGS || assigned.get(index)) {
+          throw new IOException("Flag index file " + file.getName() + " has an invalid index for " + name);
+        }
+        
+        assigned.set(index);
+      }
+    }
+  }
+  
+  /**
+   * Declares a flag, or gets it if it was already declared.
+   *
+   * @param name The name of the flag, made of lowercase letters, digits, dashes and underscores
+   * @param defaultValue The value of the flag for players that never set it
+   *
+   * @return The PlayerFlag object
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerFlag register(String name, boolean defaultValue) {
+    return register(name, defaultValue, null);
+  }
+  
+  /**
+   * Declares a flag that was kept under its own user file path before, or gets it if it was
+   * already declared. Players that never set the flag get the value at the legacy path.
+   *
+   * @param name The name of the flag, made of lowercase letters, digits, dashes and underscores
+   * @param defaultValue The value of the flag for players that never set it
+   * @param legacyPath The user file path the flag was kept under before the registry, or null
+   *
+   * @return The PlayerFlag object
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public synchronized PlayerFlag register(String name, boolean defaultValue, String legacyPath) {
+    PlayerFlag flag = flags.get(name);
+    
+    if(flag != null) {
+      if(flag.getDefaultValue() != defaultValue) {
+        throw new IllegalArgumentException("Flag " + name + " is already declared with default value " + flag.getDefaultValue());
+      }
+      
+      return flag;
+    }
+    
+    if(!NAME_PATTERN.matcher(name).matches()) {
+      throw new IllegalArgumentException("Invalid flag name: " + name);
+    }
+    
+    int index = indexes.getInt("indexes." + name, -1);
+    
+    if(index < 0) {
+      index = assigned.nextClearBit(0);
+      
+      if(index >= MAX_FLAGS) {
+        throw new IllegalStateException("No more than " + MAX_FLAGS + " flags can be declared");
+      }
+      
+      assigned.set(index);
+      indexes.set("indexes." + name, index);
+      saveIndexes();
+    }
+    
+    flag = new PlayerFlag(name, index, defaultValue, legacyPath);
+    flags.put(name, flag);
+    
+    if(defaultValue) {
+      long[] words = defaultWords.clone();
+      words[index >>> 6] |= 1L << index;
+      defaultWords = words;
+    }
+    
+    return flag;
+  }
+  
+  /**
+   * Gets a declared flag.
+   *
+   * @param name The name of the flag
+   *
+   * @return The PlayerFlag object, or null if no flag with the name was declared
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerFlag getFlag(String name) {
+    return flags.get(name);
+  }
+  
+  /**
+   * Gets every declared flag.
+   *
+   * @return A read-only view of the declared flags
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public Collection<PlayerFlag> getFlags() {
+    return Collections.unmodifiableCollection(flags.values());
+  }
+  
+  /**
+   * Gets the packed default values of the declared flags.
+   *
+   * @return A new array of FLAG_WORDS words, with the bits of the flags that default to true set
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long[] getDefaultWords() {
+    return defaultWords.clone();
+  }
+  
+  /**
+   * Writes the assigned indexes to the index file.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void saveIndexes() {
+    if(file == null) {
+      return;
+    }
+    
+    try {
+      indexes.save(file);
+    } catch (IOException e) {
+      logger.log(Level.SEVERE, "Could not write the flag index file, flag indexes may change with the next start", e);
+    }
+  }
+  
+}
@@ -0,0 +1,276 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.player;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.cjohnson.infrastructure.api.InfrastructureAPI;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+
+/**
+ * The PlayerFlagSet Class holds the values of every PlayerFlag of one player, packed by bit index.
+ * <p>
+ * Flags are read from the user file and the PlayerRecordStore when the set is created, and every
+ * change is saved back in the background.
+ *
+ * @since 0.1.0-ALPHA
+ */
+final class PlayerFlagSet {
+  
+  /**
+   * The user file paths of the packed flag values and of the packed bits of the flags set.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final String FLAG_VALUES_PATH = "infrastructure.flags.values";
+  private static final String FLAGS_SET_PATH = "infrastructure.flags.set";
+  
+  /**
+   * The unique ID of the player.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final UUID uniqueId;
+  
+  /**
+   * The Player Data Handler the flags are saved to.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final InfraPlayerDataHandler dataHandler;
+  
+  /**
+   * The values of every PlayerFlag, packed by bit index.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final AtomicLongArray flags;
+  
+  /**
+   * The bits of the flags the player has set, whose values do not follow the flag defaults.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final AtomicLongArray flagsSet;
+  
+  /**
+   * Keeps the flag writes in order, so the last one written holds the latest values.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Object flagWriteLock = new Object();
+  
+  /**
+   * Default Constructor for PlayerFlagSet, which reads the flags of a player.
+   *
+   * @param uniqueId The unique ID of the player
+   * @param dataHandler The loaded Player Data Handler of the player
+   *
+   * @since 0.1.0-ALPHA
+   */
+  PlayerFlagSet(UUID uniqueId, InfraPlayerDataHandler dataHandler) {
+    this.uniqueId = uniqueId;
+    this.dataHandler = dataHandler;
+    
+    InfraPlayerHandler playerHandler = InfrastructureAPI.getInstance().getPlayerHandler();
+    long[] values = playerHandler.getFlagRegistry().getDefaultWords();
+    long[] set = new long[PlayerFlagRegistry.FLAG_WORDS];
+    
+    // The user file values are used until a flag is first set in the
+    // record store, so that enabling the record store keeps the flags.
+    readFileFlags(playerHandler.getFlagRegistry(), values, set);
+    
+    if(playerHandler.getRecordStore() != null) {
+      playerHandler.getRecordStore().readFlags(uniqueId, values, set);
+    }
+    
+    this.flags = new AtomicLongArray(values);
+    this.flagsSet = new AtomicLongArray(set);
+  }
+  
+  /**
+   * Gets a flag.
+   *
+   * @param flag The PlayerFlag
+   *
+   * @return The flag value
+   *
+   * @since 0.1.0-ALPHA
+   */
+  boolean get(PlayerFlag flag) {
+    return (flags.get(flag.getIndex() >>> 6) & (1L << flag.getIndex())) != 0;
+  }
+  
+  /**
+   * Sets a flag, which is saved in the background.
+   *
+   * @param flag The PlayerFlag
+   * @param value The new flag value
+   *
+   * @return The previous flag value
+   *
+   * @since 0.1.0-ALPHA
+   */
+  boolean set(PlayerFlag flag, boolean value) {
+    int word = flag.getIndex() >>> 6;
+    long mask = 1L << flag.getIndex();
+    
+    long previousValues = value ? flags.getAndAccumulate(word, mask, (current, bit) -> current | bit)
+      : flags.getAndAccumulate(word, mask, (current, bit) -> current & ~bit);
+    long previousSet = flagsSet.getAndAccumulate(word, mask, (current, bit) -> current | bit);
+    boolean previous = (previousValues & mask) != 0;
+    
+    if(previous != value || (previousSet & mask) == 0) {
+      save(flag);
+    }
+    
+    return previous;
+  }
+  
+  /**
+   * Gets a word of the packed flag values.
+   *
+   * @param word The index of the word
+   *
+   * @return The 64 flag values of the word
+   *
+   * @since 0.1.0-ALPHA
+   */
+  long getWord(int word) {
+    return flags.get(word);
+  }
+  
+  /**
+   * Gets the packed flag values.
+   *
+   * @return A new array of the packed flag values
+   *
+   * @since 0.1.0-ALPHA
+   */
+  long[] getWords() {
+    long[] words = new long[flags.length()];
+    
+    for(int word = 0; word < words.length; word++) {
+      words[word] = flags.get(word);
+    }
+    
+    return words;
+  }
+  
+  /**
+   * Reads the flags kept in the user file over the given values.
+   *
+   * @param flagRegistry The PlayerFlagRegistry
+   * @param values The packed flag values to update
+   * @param set The packed bits to add the flags set in the user file to
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void readFileFlags(PlayerFlagRegistry flagRegistry, long[] values, long[] set) {
+    FileConfiguration configuration = dataHandler.getUserFileConfiguration();
+    List<String> fileValues = configuration.getStringList(FLAG_VALUES_PATH);
+    List<String> fileSet = configuration.getStringList(FLAGS_SET_PATH);
+    
+    try {
+      for(int word = 0; word < PlayerFlagRegistry.FLAG_WORDS && word < fileValues.size() && word < fileSet.size(); word++) {
+        long wordValues = Long.parseUnsignedLong(fileValues.get(word), 16);
+        long wordSet = Long.parseUnsignedLong(fileSet.get(word), 16);
+        
+        values[word] = (values[word] & ~wordSet) | (wordValues & wordSet);
+        set[word] |= wordSet;
+      }
+    } catch (NumberFormatException e) {
+      InfrastructureAPI.getInstance().getPluginLogger().warning("Ignoring the invalid flags in the user file of " + uniqueId + ": " + e.getMessage());
+    }
+    
+    // Flags that were kept under their own path before the registry
+    // keep that value until they are set again.
+    for(PlayerFlag flag : flagRegistry.getFlags()) {
+      int word = flag.getIndex() >>> 6;
+      long mask = 1L << flag.getIndex();
+      
+      if(flag.getLegacyPath() == null || (set[word] & mask) != 0 || !configuration.isBoolean(flag.getLegacyPath())) {
+        continue;
+      }
+      
+      values[word] = configuration.getBoolean(flag.getLegacyPath()) ? values[word] | mask : values[word] & ~mask;
+      set[word] |= mask;
+    }
+  }
+  
+  /**
+   * Saves the current value of a flag to the PlayerRecordStore, or with every flag to the user file.
+   *
+   * @param flag The PlayerFlag that changed
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void save(PlayerFlag flag) {
+    PlayerRecordStore recordStore = InfrastructureAPI.getInstance().getPlayerHandler().getRecordStore();
+    
+    // The values are read under the lock, so that the
+    // write that comes last also has the latest values.
+    synchronized(flagWriteLock) {
+      if(recordStore != null) {
+        try {
+          recordStore.setFlag(uniqueId, flag.getIndex(), get(flag));
+          
+          return;
+        } catch (IOException e) {
+          InfrastructureAPI.getInstance().getPluginLogger().log(Level.WARNING, "Could not write flag " + flag.getName() + " of " + uniqueId + " to the record store, writing it to the user file", e);
+        }
+      }
+      
+      dataHandler.set(FLAG_VALUES_PATH, toHexWords(flags));
+      dataHandler.set(FLAGS_SET_PATH, toHexWords(flagsSet));
+    }
+  }
+  
+  /**
+   * Formats packed bits for the user file.
+   *
+   * @param words The packed bits
+   *
+   * @return The words as unsigned hexadecimal numbers
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static List<String> toHexWords(AtomicLongArray words) {
+    List<String> hexWords = new ArrayList<String>(words.length());
+    
+    for(int word = 0; word < words.length(); word++) {
+      hexWords.add(Long.toHexString(words.get(word)));
+    }
+    
+    return hexWords;
+  }
+  
+}
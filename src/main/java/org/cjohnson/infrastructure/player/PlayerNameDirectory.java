@@ -0,0 +1,523 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+
+package org.cjohnson.infrastructure.player;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The PlayerNameDirectory Class keeps the unique ID of every player that has joined, keyed by
+ * their last known name in lowercase, so that players who are not online are found by name in
+ * constant time.
+ * <p>
+ * The names are kept in memory and in an append-only file with one "uuid name" line per change,
+ * where later lines win. A login only appends a line when the name of the player has changed,
+ * and the file is rewritten on startup once most of its lines are outdated. A new directory is
+ * filled once from the recent aliases in the user files.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class PlayerNameDirectory {
+  
+  /**
+   * The path of the name of a player in the user data.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final String RECENT_ALIAS_PATH = "user.info.recentalias";
+  
+  /**
+   * How many lines per known player the file may grow to before it is rewritten.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final int COMPACT_RATIO = 2;
+  
+  /**
+   * The file the names are kept in, or null to not keep them.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Path file;
+  
+  /**
+   * The logger failed writes of the file are logged to.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Logger logger;
+  
+  /**
+   * Whether the file did not exist yet, so that the directory needs to be filled.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final boolean created;
+  
+  /**
+   * The unique IDs of the players, keyed by their lowercase name.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final ConcurrentHashMap<String, UUID> uniqueIds;
+  
+  /**
+   * The names of the players, keyed by their unique ID.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final ConcurrentHashMap<UUID, String> names;
+  
+  /**
+   * The writer appending to the file, and the number of lines in it, guarded by the directory.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private Writer log;
+  private int logLines;
+  
+  /**
+   * Metrics of the directory.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final LongAdder hitCount;
+  private final LongAdder missCount;
+  
+  /**
+   * Constructor for a PlayerNameDirectory that does not keep its names between restarts.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerNameDirectory() {
+    this.file = null;
+    this.logger = Logger.getLogger(PlayerNameDirectory.class.getName());
+    this.created = false;
+    this.uniqueIds = new ConcurrentHashMap<String, UUID>();
+    this.names = new ConcurrentHashMap<UUID, String>();
+    this.hitCount = new LongAdder();
+    this.missCount = new LongAdder();
+  }
+  
+  /**
+   * Default Constructor for PlayerNameDirectory, which reads the names kept in the file.
+   *
+   * @param file The file the names are kept in
+   * @param logger The logger failed writes of the file are logged to
+   *
+   * @throws IOException If the file exists but can not be read, or can not be opened
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerNameDirectory(File file, Logger logger) throws IOException {
+    this.file = file.toPath();
+    this.logger = logger;
+    this.created = !file.exists();
+    this.uniqueIds = new ConcurrentHashMap<String, UUID>();
+    this.names = new ConcurrentHashMap<UUID, String>();
+    this.hitCount = new LongAdder();
+    this.missCount = new LongAdder();
+    
+    if(!created) {
+      read();
+    }
+    
+    synchronized(this) {
+      if(logLines > names.size() * COMPACT_RATIO) {
+        rewrite();
+      } else {
+        openLog();
+      }
+    }
+  }
+  
+  /**
+   * Gets the unique ID of a player by their last known name, ignoring case.
+   *
+   * @param name The name of the player
+   *
+   * @return The unique ID, or null if no player with the name has joined
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public UUID getUniqueId(String name) {
+    UUID uuid = uniqueIds.get(name.toLowerCase(Locale.ROOT));
+    
+    if(uuid == null) {
+      missCount.increment();
+    } else {
+      hitCount.increment();
+    }
+    
+    return uuid;
+  }
+  
+  /**
+   * Gets the last known name of a player.
+   *
+   * @param uuid The unique ID of the player
+   *
+   * @return The name, or null if the player is not known
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public String getName(UUID uuid) {
+    return names.get(uuid);
+  }
+  
+  /**
+   * Records the name a player joined with. The name is written to the file only if it changed.
+   * <p>
+   * A name another player was known under before is given to this player, as names can only
+   * be used by one account at a time.
+   *
+   * @param uuid The unique ID of the player
+   * @param name The name of the player
+   *
+   * @return The previous name of the player, or null if it did not change or the player is new
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public String record(UUID uuid, String name) {
+    // Most logins do not change the name.
+    if(name.equals(names.get(uuid))) {
+      return null;
+    }
+    
+    synchronized(this) {
+      String previousName = names.get(uuid);
+      
+      if(name.equals(previousName)) {
+        return null;
+      }
+      
+      put(uuid, name);
+      append(uuid, name);
+      
+      return previousName;
+    }
+  }
+  
+  /**
+   * Fills a new directory with the recent aliases in the user files of a YamlPlayerDataStore,
+   * keeping names already recorded by logins. This reads every user file, and is meant to run
+   * once, in the background.
+   *
+   * @param store The store the user files are read from
+   * @param parallelism The number of shards read at once
+   *
+   * @return The number of players added to the directory
+   *
+   * @throws IOException If the user files can not be listed, or the file can not be rewritten
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int backfill(YamlPlayerDataStore store, int parallelism) throws IOException {
+    LongAdder added = new LongAdder();
+    
+    new PlayerFileScanner(store, parallelism).forEach(path -> {
+      UUID uuid = YamlPlayerDataStore.parseUniqueId(path);
+      String name = readRecentAlias(store, uuid);
+      
+      if(name != null && seed(uuid, name)) {
+        added.increment();
+      }
+    });
+    
+    // The seeded names are written at once,
+    // instead of a line at a time.
+    synchronized(this) {
+      rewrite();
+    }
+    
+    return added.intValue();
+  }
+  
+  /**
+   * Checks if the file did not exist when the directory was opened, so that it needs a backfill.
+   *
+   * @return Whether the directory was created empty
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean isCreated() {
+    return created;
+  }
+  
+  /**
+   * Gets the number of known players.
+   *
+   * @return The number of players in the directory
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int size() {
+    return names.size();
+  }
+  
+  /**
+   * Gets the number of name lookups that found a player.
+   *
+   * @return The number of hits
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+  
+  /**
+   * Gets the number of name lookups that did not find a player.
+   *
+   * @return The number of misses
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getMissCount() {
+    return missCount.sum();
+  }
+  
+  /**
+   * Closes the file.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public synchronized void close() {
+    if(log == null) {
+      return;
+    }
+    
+    try {
+      log.close();
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Could not close the player name file", e);
+    }
+    
+    log = null;
+  }
+  
+  /**
+   * Adds a player found by the backfill, unless a login has recorded them already.
+   *
+   * @param uuid The unique ID of the player
+   * @param name The name of the player
+   *
+   * @return Whether the player was added
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private synchronized boolean seed(UUID uuid, String name) {
+    if(names.containsKey(uuid)) {
+      return false;
+    }
+    
+    String lowercaseName = name.toLowerCase(Locale.ROOT);
+    
+    // A name in use by a player that logged in
+    // belongs to that player, not to an old account.
+    if(uniqueIds.containsKey(lowercaseName)) {
+      return false;
+    }
+    
+    names.put(uuid, name);
+    uniqueIds.put(lowercaseName, uuid);
+    
+    return true;
+  }
+  
+  /**
+   * Maps a player to a name, dropping the previous name of the player and the previous owner
+   * of the name, under the directory lock.
+   *
+   * @param uuid The unique ID of the player
+   * @param name The name of the player
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void put(UUID uuid, String name) {
+    String previousName = names.put(uuid, name);
+    
+    if(previousName != null) {
+      uniqueIds.remove(previousName.toLowerCase(Locale.ROOT), uuid);
+    }
+    
+    UUID previousOwner = uniqueIds.put(name.toLowerCase(Locale.ROOT), uuid);
+    
+    if(previousOwner != null && !previousOwner.equals(uuid)) {
+      names.remove(previousOwner, name);
+    }
+  }
+  
+  /**
+   * Reads the file into the directory.
+   *
+   * @throws IOException If the file can not be read
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void read() throws IOException {
+    try(BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      String line;
+      
+      while((line = reader.readLine()) != null) {
+        logLines++;
+        
+        int separator = line.indexOf(' ');
+        
+        // A line cut short by a crash is skipped.
+        if(separator <= 0 || separator == line.length() - 1) {
+          continue;
+        }
+        
+        try {
+          put(UUID.fromString(line.substring(0, separator)), line.substring(separator + 1));
+        } catch (IllegalArgumentException ignored) {
+          // Same as above.
+        }
+      }
+    }
+  }
+  
+  /**
+   * Appends a name change to the file, under the directory lock.
+   *
+   * @param uuid The unique ID of the player
+   * @param name The name of the player
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void append(UUID uuid, String name) {
+    if(log == null) {
+      return;
+    }
+    
+    try {
+      log.write(uuid + " " + name + "\n");
+      log.flush();
+      logLines++;
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Could not write the name of " + name + " (" + uuid + ") to the player name file", e);
+    }
+  }
+  
+  /**
+   * Replaces the file with one line per known player and reopens it, under the directory lock.
+   *
+   * @throws IOException If the file can not be written
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void rewrite() throws IOException {
+    if(file == null) {
+      return;
+    }
+    
+    close();
+    
+    Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    
+    try(BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+      for(Map.Entry<UUID, String> name : names.entrySet()) {
+        writer.write(name.getKey() + " " + name.getValue() + "\n");
+      }
+    }
+    
+    try {
+      Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    logLines = names.size();
+    openLog();
+  }
+  
+  /**
+   * Opens the file for appending, under the directory lock.
+   *
+   * @throws IOException If the file can not be opened
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void openLog() throws IOException {
+    if(file == null) {
+      return;
+    }
+    
+    Files.createDirectories(file.getParent());
+    log = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+  }
+  
+  /**
+   * Reads the recent alias of a player from their user data, on a scanner thread.
+   *
+   * @param store The store the user data is read from
+   * @param uuid The unique ID of the player
+   *
+   * @return The recent alias, or null if the user data can not be read or has none
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private String readRecentAlias(YamlPlayerDataStore store, UUID uuid) {
+    try {
+      String document = store.load(uuid);
+      
+      if(document == null) {
+        return null;
+      }
+      
+      YamlConfiguration configuration = new YamlConfiguration();
+      configuration.loadFromString(document);
+      
+      return configuration.getString(RECENT_ALIAS_PATH);
+    } catch (IOException | InvalidConfigurationException e) {
+      logger.log(Level.FINE, "Could not read the recent alias of " + uuid, e);
+      
+      return null;
+    }
+  }
+  
+}
@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.player;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The PlayerNameIndex Class keeps the names of the online players sorted, for completing
+ * player names without iterating over every online player.
+ * <p>
+ * The index is kept up to date by the InfraPlayerHandler as players join and quit, and can
+ * be read from any thread.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class PlayerNameIndex {
+  
+  /**
+   * The player names, keyed by their lowercase form.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final ConcurrentSkipListMap<String, String> names;
+  
+  /**
+   * Default Constructor for PlayerNameIndex
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerNameIndex() {
+    names = new ConcurrentSkipListMap<String, String>();
+  }
+  
+  /**
+   * Adds a player name to the index.
+   *
+   * @param name The player name
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void add(String name) {
+    names.put(name.toLowerCase(Locale.ROOT), name);
+  }
+  
+  /**
+   * Removes a player name from the index.
+   *
+   * @param name The player name
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void remove(String name) {
+    names.remove(name.toLowerCase(Locale.ROOT));
+  }
+  
+  /**
+   * Completes a typed prefix of a player name, ignoring case.
+   *
+   * @param prefix The typed prefix
+   * @param completions The list the matching names are added to, in alphabetical order
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void complete(String prefix, List<String> completions) {
+    String lowerPrefix = prefix.toLowerCase(Locale.ROOT);
+    
+    // Every name starting with the prefix sorts between the prefix
+    // itself and the prefix followed by the highest character.
+    completions.addAll(names.subMap(lowerPrefix, true, lowerPrefix + Character.MAX_VALUE, true).values());
+  }
+  
+  /**
+   * Gets the number of names in the index.
+   *
+   * @return The number of names in the index
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int size() {
+    return names.size();
+  }
+  
+}
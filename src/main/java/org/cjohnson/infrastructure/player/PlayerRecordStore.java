@@ -0,0 +1,666 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.player;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The PlayerRecordStore Class keeps the small, fixed-size data of players, such as flags and
+ * timestamps, in a single memory-mapped file of fixed-size records.
+ * <p>
+ * The file is an open-addressing hash table: the slot of a player follows from its unique ID,
+ * with linear probing on collisions, so the table needs no separate index and is usable right
+ * after it is mapped. Reading or writing a value is a direct access to the mapped file, without
+ * any parsing. Variable-length data stays in the PlayerDataStore.
+ * <p>
+ * Changes are written to the mapped file right away, so they survive a crash of the server
+ * process. Closing the store forces them to the disk.
+ *
+ * <pre>
+ * header: magic, version, record size, capacity, count    (HEADER_SIZE bytes)
+ * record: uuid msb, uuid lsb, flag words, flag set words,
+ *         timestamps                                      (RECORD_SIZE bytes)
+ * </pre>
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class PlayerRecordStore {
+  
+  /**
+   * The number of 64 bit flag words in a record.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final int FLAG_WORDS = 2;
+  
+  /**
+   * The number of flags in a record.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final int FLAG_COUNT = FLAG_WORDS * Long.SIZE;
+  
+  /**
+   * The number of timestamps in a record.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final int TIMESTAMP_COUNT = 4;
+  
+  /**
+   * The timestamp slots in use.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final int FIRST_JOIN = 0;
+  public static final int LAST_JOIN = 1;
+  public static final int LAST_QUIT = 2;
+  
+  /**
+   * The default number of records of a new file.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final int DEFAULT_CAPACITY = 1 << 12;
+  
+  /**
+   * The largest number of records, which keeps the file within a single mapping.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final int MAX_CAPACITY = 1 << 24;
+  
+  /**
+   * The layout of the file.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final int MAGIC = 0x49524543;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 64;
+  private static final int RECORD_SIZE = 16 + FLAG_WORDS * 16 + TIMESTAMP_COUNT * 8;
+  
+  /**
+   * The offsets of the header fields.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final int MAGIC_OFFSET = 0;
+  private static final int VERSION_OFFSET = 4;
+  private static final int RECORD_SIZE_OFFSET = 8;
+  private static final int CAPACITY_OFFSET = 12;
+  private static final int COUNT_OFFSET = 16;
+  
+  /**
+   * The offsets of the record fields.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final int MSB_OFFSET = 0;
+  private static final int LSB_OFFSET = 8;
+  private static final int FLAGS_OFFSET = 16;
+  private static final int FLAGS_SET_OFFSET = FLAGS_OFFSET + FLAG_WORDS * 8;
+  private static final int TIMESTAMPS_OFFSET = FLAGS_SET_OFFSET + FLAG_WORDS * 8;
+  
+  /**
+   * The file of the store.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Path file;
+  
+  /**
+   * Guards the mapping: values are read under the read lock, and changed under the write lock.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final ReentrantReadWriteLock lock;
+  
+  /**
+   * The mapped file.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private MappedByteBuffer buffer;
+  
+  /**
+   * The number of records in the file, always a power of two.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private int capacity;
+  
+  /**
+   * The number of records in use.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private int count;
+  
+  /**
+   * Default Constructor for PlayerRecordStore, which opens or creates the file.
+   *
+   * @param file The file of the store
+   *
+   * @throws IOException If the file can not be opened, or is not a record file
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public PlayerRecordStore(File file) throws IOException {
+    this.file = file.toPath();
+    this.lock = new ReentrantReadWriteLock();
+    
+    if(Files.exists(this.file)) {
+      open();
+    } else {
+      Files.createDirectories(this.file.toAbsolutePath().getParent());
+      buffer = create(this.file, DEFAULT_CAPACITY);
+      capacity = DEFAULT_CAPACITY;
+    }
+  }
+  
+  /**
+   * Gets a flag of a player.
+   *
+   * @param uuid The unique ID of the player
+   * @param flag The index of the flag
+   * @param defaultValue The value if the flag was never set for the player
+   *
+   * @return The flag value
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean getFlag(UUID uuid, int flag, boolean defaultValue) {
+    checkFlag(flag);
+    
+    int wordOffset = (flag >>> 6) * 8;
+    long mask = 1L << flag;
+    
+    lock.readLock().lock();
+    try {
+      int position = find(uuid);
+      
+      if(position < 0 || (buffer.getLong(position + FLAGS_SET_OFFSET + wordOffset) & mask) == 0) {
+        return defaultValue;
+      }
+      
+      return (buffer.getLong(position + FLAGS_OFFSET + wordOffset) & mask) != 0;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+  
+  /**
+   * Reads every flag of a player at once, over the given values.
+   * <p>
+   * Only the flags that were set for the player replace the given values; the others keep them.
+   *
+   * @param uuid The unique ID of the player
+   * @param values The FLAG_WORDS words of flag values to update
+   * @param set The FLAG_WORDS words to add the bits of the flags set for the player to
+   *
+   * @return Whether the player has a record
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean readFlags(UUID uuid, long[] values, long[] set) {
+    lock.readLock().lock();
+    try {
+      int position = find(uuid);
+      
+      if(position < 0) {
+        return false;
+      }
+      
+      for(int word = 0; word < FLAG_WORDS; word++) {
+        long wordSet = buffer.getLong(position + FLAGS_SET_OFFSET + word * 8);
+        long wordValues = buffer.getLong(position + FLAGS_OFFSET + word * 8);
+        
+        values[word] = (values[word] & ~wordSet) | (wordValues & wordSet);
+        set[word] |= wordSet;
+      }
+      
+      return true;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+  
+  /**
+   * Sets a flag of a player, adding a record for the player if it has none.
+   *
+   * @param uuid The unique ID of the player
+   * @param flag The index of the flag
+   * @param value The flag value
+   *
+   * @throws IOException If the file had to grow and could not
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void setFlag(UUID uuid, int flag, boolean value) throws IOException {
+    checkFlag(flag);
+    
+    int wordOffset = (flag >>> 6) * 8;
+    long mask = 1L << flag;
+    
+    lock.writeLock().lock();
+    try {
+      int position = findOrInsert(uuid);
+      int flagsPosition = position + FLAGS_OFFSET + wordOffset;
+      int flagsSetPosition = position + FLAGS_SET_OFFSET + wordOffset;
+      long flags = buffer.getLong(flagsPosition);
+      
+      buffer.putLong(flagsPosition, value ? flags | mask : flags & ~mask);
+      buffer.putLong(flagsSetPosition, buffer.getLong(flagsSetPosition) | mask);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+  
+  /**
+   * Gets a timestamp of a player.
+   *
+   * @param uuid The unique ID of the player
+   * @param slot The timestamp slot
+   *
+   * @return The timestamp in milliseconds, or 0 if it was never set for the player
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getTimestamp(UUID uuid, int slot) {
+    checkTimestamp(slot);
+    
+    lock.readLock().lock();
+    try {
+      int position = find(uuid);
+      
+      return position < 0 ? 0L : buffer.getLong(position + TIMESTAMPS_OFFSET + slot * 8);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+  
+  /**
+   * Sets a timestamp of a player, adding a record for the player if it has none.
+   *
+   * @param uuid The unique ID of the player
+   * @param slot The timestamp slot
+   * @param timestamp The timestamp in milliseconds
+   *
+   * @throws IOException If the file had to grow and could not
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void setTimestamp(UUID uuid, int slot, long timestamp) throws IOException {
+    checkTimestamp(slot);
+    
+    lock.writeLock().lock();
+    try {
+      buffer.putLong(findOrInsert(uuid) + TIMESTAMPS_OFFSET + slot * 8, timestamp);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+  
+  /**
+   * Gets the number of players with a record.
+   *
+   * @return The number of records in use
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return count;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+  
+  /**
+   * Writes every change to the disk.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void force() {
+    lock.readLock().lock();
+    try {
+      buffer.force();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+  
+  /**
+   * Writes every change to the disk and stops using the file.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public void close() {
+    force();
+  }
+  
+  /**
+   * Maps an existing file and checks its header.
+   *
+   * @throws IOException If the file can not be mapped, or is not a record file
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void open() throws IOException {
+    try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      if(channel.size() < HEADER_SIZE) {
+        throw new IOException(file + " is not a player record file");
+      }
+      
+      MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+      
+      if(header.getInt(MAGIC_OFFSET) != MAGIC || header.getInt(VERSION_OFFSET) != VERSION || header.getInt(RECORD_SIZE_OFFSET) != RECORD_SIZE) {
+        throw new IOException(file + " is not a version " + VERSION + " player record file");
+      }
+      
+      int fileCapacity = header.getInt(CAPACITY_OFFSET);
+      
+      if(Integer.bitCount(fileCapacity) != 1 || fileCapacity > MAX_CAPACITY || channel.size() < fileSize(fileCapacity)) {
+        throw new IOException(file + " is truncated or has a broken header");
+      }
+      
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(fileCapacity));
+      capacity = fileCapacity;
+      
+      // The count is recounted, as a crash can leave
+      // it behind the records that were claimed.
+      for(int slot = 0; slot < capacity; slot++) {
+        int position = positionOf(slot);
+        
+        if(buffer.getLong(position + MSB_OFFSET) != 0L || buffer.getLong(position + LSB_OFFSET) != 0L) {
+          count++;
+        }
+      }
+      
+      buffer.putInt(COUNT_OFFSET, count);
+    }
+  }
+  
+  /**
+   * Finds the record of a player, under either lock.
+   *
+   * @param uuid The unique ID of the player
+   *
+   * @return The position of the record, or -1 if the player has none
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private int find(UUID uuid) {
+    long msb = uuid.getMostSignificantBits();
+    long lsb = uuid.getLeastSignificantBits();
+    int slot = slotOf(msb, lsb, capacity);
+    
+    // The table is never full, so the probe always
+    // ends at the record or at an empty slot.
+    while(true) {
+      int position = positionOf(slot);
+      long slotMsb = buffer.getLong(position + MSB_OFFSET);
+      long slotLsb = buffer.getLong(position + LSB_OFFSET);
+      
+      if(slotMsb == msb && slotLsb == lsb) {
+        return position;
+      }
+      
+      if(slotMsb == 0L && slotLsb == 0L) {
+        return -1;
+      }
+      
+      slot = (slot + 1) & (capacity - 1);
+    }
+  }
+  
+  /**
+   * Finds the record of a player, adding one if it has none, under the write lock.
+   *
+   * @param uuid The unique ID of the player
+   *
+   * @return The position of the record
+   *
+   * @throws IOException If the file had to grow and could not
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private int findOrInsert(UUID uuid) throws IOException {
+    int position = find(uuid);
+    
+    if(position >= 0) {
+      return position;
+    }
+    
+    if(uuid.getMostSignificantBits() == 0L && uuid.getLeastSignificantBits() == 0L) {
+      throw new IllegalArgumentException("The nil UUID marks empty records");
+    }
+    
+    // Keep the load factor at or below 3/4, so probes stay short.
+    if((count + 1) * 4L > capacity * 3L) {
+      grow();
+    }
+    
+    position = insert(buffer, capacity, uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    buffer.putInt(COUNT_OFFSET, ++count);
+    
+    return position;
+  }
+  
+  /**
+   * Doubles the capacity of the file, by copying every record into a new file that then
+   * replaces the old one.
+   *
+   * @throws IOException If the new file can not be written
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void grow() throws IOException {
+    if(capacity >= MAX_CAPACITY) {
+      throw new IOException(file + " is full");
+    }
+    
+    int newCapacity = capacity << 1;
+    Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    MappedByteBuffer newBuffer = create(temporary, newCapacity);
+    
+    for(int slot = 0; slot < capacity; slot++) {
+      int position = positionOf(slot);
+      long msb = buffer.getLong(position + MSB_OFFSET);
+      long lsb = buffer.getLong(position + LSB_OFFSET);
+      
+      if(msb == 0L && lsb == 0L) {
+        continue;
+      }
+      
+      int newPosition = insert(newBuffer, newCapacity, msb, lsb);
+      
+      for(int offset = FLAGS_OFFSET; offset < RECORD_SIZE; offset += 8) {
+        newBuffer.putLong(newPosition + offset, buffer.getLong(position + offset));
+      }
+    }
+    
+    newBuffer.putInt(COUNT_OFFSET, count);
+    newBuffer.force();
+    
+    try {
+      Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    // The old mapping is released when it is garbage collected.
+    buffer = newBuffer;
+    capacity = newCapacity;
+  }
+  
+  /**
+   * Creates and maps a file with an empty table.
+   *
+   * @param path The file to create, replacing an existing one
+   * @param capacity The number of records
+   *
+   * @return The mapped file
+   *
+   * @throws IOException If the file can not be created
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static MappedByteBuffer create(Path path, int capacity) throws IOException {
+    try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+      StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      // Mapping past the end grows the file with zeroes,
+      // which are empty records.
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity));
+      
+      mapped.putInt(MAGIC_OFFSET, MAGIC);
+      mapped.putInt(VERSION_OFFSET, VERSION);
+      mapped.putInt(RECORD_SIZE_OFFSET, RECORD_SIZE);
+      mapped.putInt(CAPACITY_OFFSET, capacity);
+      mapped.putInt(COUNT_OFFSET, 0);
+      
+      return mapped;
+    }
+  }
+  
+  /**
+   * Claims the first empty slot along the probe of a unique ID.
+   *
+   * @param mapped The mapped file
+   * @param capacity The number of records of the file
+   * @param msb The most significant bits of the unique ID
+   * @param lsb The least significant bits of the unique ID
+   *
+   * @return The position of the claimed record
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static int insert(MappedByteBuffer mapped, int capacity, long msb, long lsb) {
+    int slot = slotOf(msb, lsb, capacity);
+    
+    while(true) {
+      int position = positionOf(slot);
+      
+      if(mapped.getLong(position + MSB_OFFSET) == 0L && mapped.getLong(position + LSB_OFFSET) == 0L) {
+        // The low bits are written first, as a record with only
+        // its high bits set would match a different unique ID.
+        mapped.putLong(position + LSB_OFFSET, lsb);
+        mapped.putLong(position + MSB_OFFSET, msb);
+        
+        return position;
+      }
+      
+      slot = (slot + 1) & (capacity - 1);
+    }
+  }
+  
+  /**
+   * Gets the home slot of a unique ID.
+   *
+   * @param msb The most significant bits of the unique ID
+   * @param lsb The least significant bits of the unique ID
+   * @param capacity The number of records
+   *
+   * @return The home slot
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static int slotOf(long msb, long lsb, int capacity) {
+    // Random UUIDs are already well mixed, but offline-mode
+    // UUIDs are name hashes with fixed version bits.
+    long hash = msb * 0x9E3779B97F4A7C15L ^ lsb;
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    
+    return (int) hash & (capacity - 1);
+  }
+  
+  /**
+   * Gets the position of a record in the file.
+   *
+   * @param slot The slot of the record
+   *
+   * @return The position of the record
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static int positionOf(int slot) {
+    return HEADER_SIZE + slot * RECORD_SIZE;
+  }
+  
+  /**
+   * Gets the size of a file of records.
+   *
+   * @param capacity The number of records
+   *
+   * @return The size of the file, in bytes
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static long fileSize(int capacity) {
+    return HEADER_SIZE + (long) capacity * RECORD_SIZE;
+  }
+  
+  /**
+   * Checks a flag index.
+   *
+   * @param flag The index of the flag
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static void checkFlag(int flag) {
+    if(flag < 0 || flag >= FLAG_COUNT) {
+      throw new IndexOutOfBoundsException("Flag " + flag + " is not within 0 to " + (FLAG_COUNT - 1));
+    }
+  }
+  
+  /**
+   * Checks a timestamp slot.
+   *
+   * @param slot The timestamp slot
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static void checkTimestamp(int slot) {
+    if(slot < 0 || slot >= TIMESTAMP_COUNT) {
+      throw new IndexOutOfBoundsException("Timestamp " + slot + " is not within 0 to " + (TIMESTAMP_COUNT - 1));
+    }
+  }
+  
+}
@@ -0,0 +1,315 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The SpamPolicy Class holds the limits the SpamTracker of every player is checked against,
+ * and the actions taken as a player keeps breaking them.
+ * <p>
+ * Every violation raises the violation level of the player, and the level selects the action,
+ * the last action being repeated for every level past the end of the list. The level falls
+ * back to zero once the player has not broken a limit for the decay time.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class SpamPolicy {
+  
+  /**
+   * The number of messages allowed within the message window, at most SpamTracker.CAPACITY.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int messageLimit;
+  private final long messageWindowMillis;
+  
+  /**
+   * The number of earlier messages a message must not repeat, within the duplicate window.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int duplicateHistory;
+  private final long duplicateWindowMillis;
+  
+  /**
+   * The number of commands allowed within the command window, at most SpamTracker.CAPACITY.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final int commandLimit;
+  private final long commandWindowMillis;
+  
+  /**
+   * The time without violations after which the violation level falls back to zero.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final long violationDecayMillis;
+  
+  /**
+   * The actions, by violation level starting at one.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final List<Action> actions;
+  
+  /**
+   * Default Constructor for SpamPolicy
+   *
+   * @param messageLimit The number of messages allowed within the message window
+   * @param messageWindowMillis The message window, in milliseconds
+   * @param duplicateHistory The number of earlier messages a message must not repeat
+   * @param duplicateWindowMillis The duplicate window, in milliseconds
+   * @param commandLimit The number of commands allowed within the command window
+   * @param commandWindowMillis The command window, in milliseconds
+   * @param violationDecayMillis The time without violations after which the level falls back to zero
+   * @param actions The actions, by violation level starting at one
+   *
+   * @throws IllegalArgumentException If there are no actions
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public SpamPolicy(int messageLimit, long messageWindowMillis, int duplicateHistory, long duplicateWindowMillis,
+                    int commandLimit, long commandWindowMillis, long violationDecayMillis, List<Action> actions) {
+    if(actions.isEmpty()) {
+      throw new IllegalArgumentException("A spam policy needs at least one action");
+    }
+    
+    this.messageLimit = clamp(messageLimit);
+    this.messageWindowMillis = messageWindowMillis;
+    this.duplicateHistory = Math.min(duplicateHistory, SpamTracker.CAPACITY);
+    this.duplicateWindowMillis = duplicateWindowMillis;
+    this.commandLimit = clamp(commandLimit);
+    this.commandWindowMillis = commandWindowMillis;
+    this.violationDecayMillis = violationDecayMillis;
+    this.actions = Collections.unmodifiableList(new ArrayList<Action>(actions));
+  }
+  
+  /**
+   * Gets the number of messages allowed within the message window.
+   *
+   * @return The message limit
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int getMessageLimit() {
+    return messageLimit;
+  }
+  
+  /**
+   * Gets the message window.
+   *
+   * @return The message window, in milliseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getMessageWindowMillis() {
+    return messageWindowMillis;
+  }
+  
+  /**
+   * Gets the number of earlier messages a message must not repeat.
+   *
+   * @return The duplicate history
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int getDuplicateHistory() {
+    return duplicateHistory;
+  }
+  
+  /**
+   * Gets the duplicate window.
+   *
+   * @return The duplicate window, in milliseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getDuplicateWindowMillis() {
+    return duplicateWindowMillis;
+  }
+  
+  /**
+   * Gets the number of commands allowed within the command window.
+   *
+   * @return The command limit
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public int getCommandLimit() {
+    return commandLimit;
+  }
+  
+  /**
+   * Gets the command window.
+   *
+   * @return The command window, in milliseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getCommandWindowMillis() {
+    return commandWindowMillis;
+  }
+  
+  /**
+   * Gets the time without violations after which the violation level falls back to zero.
+   *
+   * @return The decay time, in milliseconds
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public long getViolationDecayMillis() {
+    return violationDecayMillis;
+  }
+  
+  /**
+   * Gets the action of a violation level.
+   *
+   * @param violationLevel The violation level, starting at one
+   *
+   * @return The action
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public Action getAction(int violationLevel) {
+    return actions.get(Math.min(Math.max(violationLevel, 1), actions.size()) - 1);
+  }
+  
+  /**
+   * Clamps a limit to the number of times a SpamTracker remembers.
+   *
+   * @param limit The limit
+   *
+   * @return The clamped limit
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static int clamp(int limit) {
+    return Math.max(1, Math.min(limit, SpamTracker.CAPACITY));
+  }
+  
+  /**
+   * The Action Class is what happens to a player at a violation level. The message or command
+   * that broke the limit is never sent.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final class Action {
+    
+    /**
+     * The Type Enum is the kind of an action.
+     *
+     * @since 0.1.0-ALPHA
+     */
+    public enum Type {
+      /**
+       * The player is told to slow down.
+       */
+      WARN,
+      /**
+       * The player can not chat for a number of seconds.
+       */
+      MUTE,
+      /**
+       * The player is kicked.
+       */
+      KICK
+    }
+    
+    /**
+     * The kind of the action, and the length of a mute.
+     *
+     * @since 0.1.0-ALPHA
+     */
+    private final Type type;
+    private final int seconds;
+    
+    private Action(Type type, int seconds) {
+      this.type = type;
+      this.seconds = seconds;
+    }
+    
+    /**
+     * Parses an action, such as {@code warn}, {@code mute 30} or {@code kick}.
+     *
+     * @param action The action
+     *
+     * @return The Action object
+     *
+     * @throws IllegalArgumentException If the action is not valid
+     *
+     * @since 0.1.0-ALPHA
+     */
+    public static Action parse(String action) {
+      String[] parts = action.trim().split("\\s+");
+      Type type;
+      
+      try {
+        type = Type.valueOf(parts[0].toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Unknown spam action \"" + action + "\"", e);
+      }
+      
+      if(type != Type.MUTE) {
+        return new Action(type, 0);
+      }
+      
+      try {
+        return new Action(type, parts.length > 1 ? Integer.parseInt(parts[1]) : 60);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Spam action \"" + action + "\" has no valid number of seconds", e);
+      }
+    }
+    
+    /**
+     * Gets the kind of the action.
+     *
+     * @return The Type of the action
+     *
+     * @since 0.1.0-ALPHA
+     */
+    public Type getType() {
+      return type;
+    }
+    
+    /**
+     * Gets the length of a mute.
+     *
+     * @return The number of seconds, or 0 if the action is not a mute
+     *
+     * @since 0.1.0-ALPHA
+     */
+    public int getSeconds() {
+      return seconds;
+    }
+    
+  }
+  
+}
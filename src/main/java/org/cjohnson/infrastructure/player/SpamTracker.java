@@ -0,0 +1,324 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.player;
+
+/**
+ * The SpamTracker Class keeps the recent messages and commands of one player in fixed-size
+ * ring buffers of primitives, and checks new ones against a SpamPolicy.
+ * <p>
+ * A check looks at a fixed number of ring slots and allocates nothing, so it can run for every
+ * chat message. The methods are synchronized, as chat is checked on the asynchronous chat
+ * thread while commands are checked on the main thread.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class SpamTracker {
+  
+  /**
+   * The number of messages and commands remembered, a power of two.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static final int CAPACITY = 16;
+  
+  /**
+   * The mask that turns a count into a ring slot.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final int MASK = CAPACITY - 1;
+  
+  /**
+   * The Violation Enum is the result of a check.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public enum Violation {
+    /**
+     * No limit was broken.
+     */
+    NONE,
+    /**
+     * The player is muted.
+     */
+    MUTED,
+    /**
+     * Too many messages were sent within the message window.
+     */
+    MESSAGE_RATE,
+    /**
+     * The message repeats a recent message.
+     */
+    DUPLICATE,
+    /**
+     * Too many commands were sent within the command window.
+     */
+    COMMAND_RATE
+  }
+  
+  /**
+   * The send times of the recent chat messages, and the number of chat messages.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final long[] messageTimes;
+  private int messageCount;
+  
+  /**
+   * The send times and content hashes of the recent chat messages and messages sent with a
+   * command, and the number of them.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final long[] hashTimes;
+  private final long[] messageHashes;
+  private int hashCount;
+  
+  /**
+   * The send times of the recent commands, and the number of commands.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final long[] commandTimes;
+  private int commandCount;
+  
+  /**
+   * The violation level, and the time of the last violation.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private int violationLevel;
+  private long lastViolationMillis;
+  
+  /**
+   * The time the player may chat again.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private long mutedUntilMillis;
+  
+  /**
+   * Default Constructor for SpamTracker
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public SpamTracker() {
+    messageTimes = new long[CAPACITY];
+    hashTimes = new long[CAPACITY];
+    messageHashes = new long[CAPACITY];
+    commandTimes = new long[CAPACITY];
+  }
+  
+  /**
+   * Records a chat message and checks it against the message limits.
+   *
+   * @param text The message
+   * @param nowMillis The current time
+   * @param policy The limits
+   *
+   * @return The broken limit, or Violation.NONE
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public synchronized Violation checkMessage(String text, long nowMillis, SpamPolicy policy) {
+    return check(text, nowMillis, policy, true);
+  }
+  
+  /**
+   * Records a message sent with a command, such as /msg, and checks it against the mute and
+   * the duplicate limit. The message rate is not checked, as the command was already counted
+   * against the command limit.
+   *
+   * @param text The message
+   * @param nowMillis The current time
+   * @param policy The limits
+   *
+   * @return The broken limit, or Violation.NONE
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public synchronized Violation checkCommandMessage(String text, long nowMillis, SpamPolicy policy) {
+    return check(text, nowMillis, policy, false);
+  }
+  
+  /**
+   * Records a message and checks it against the message limits.
+   *
+   * @param text The message
+   * @param nowMillis The current time
+   * @param policy The limits
+   * @param chat Whether the message is chat, which counts against the message rate
+   *
+   * @return The broken limit, or Violation.NONE
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private Violation check(String text, long nowMillis, SpamPolicy policy, boolean chat) {
+    if(nowMillis < mutedUntilMillis) {
+      return Violation.MUTED;
+    }
+    
+    long hash = hash(text);
+    Violation violation = Violation.NONE;
+    int history = Math.min(policy.getDuplicateHistory(), hashCount);
+    
+    // Messages without letters or digits are not compared.
+    for(int back = 1; hash != 0 && back <= history; back++) {
+      int slot = (hashCount - back) & MASK;
+      
+      if(nowMillis - hashTimes[slot] > policy.getDuplicateWindowMillis()) {
+        break;
+      }
+      
+      if(messageHashes[slot] == hash) {
+        violation = Violation.DUPLICATE;
+        
+        break;
+      }
+    }
+    
+    if(chat && violation == Violation.NONE && isOverLimit(messageTimes, messageCount, policy.getMessageLimit(), policy.getMessageWindowMillis(), nowMillis)) {
+      violation = Violation.MESSAGE_RATE;
+    }
+    
+    // Blocked messages are recorded too, so that
+    // a player who keeps spamming stays over the limit.
+    hashTimes[hashCount & MASK] = nowMillis;
+    messageHashes[hashCount & MASK] = hash;
+    hashCount++;
+    
+    if(chat) {
+      messageTimes[messageCount & MASK] = nowMillis;
+      messageCount++;
+    }
+    
+    return violation;
+  }
+  
+  /**
+   * Records a command and checks it against the command limit.
+   *
+   * @param nowMillis The current time
+   * @param policy The limits
+   *
+   * @return The broken limit, or Violation.NONE
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public synchronized Violation checkCommand(long nowMillis, SpamPolicy policy) {
+    boolean overLimit = isOverLimit(commandTimes, commandCount, policy.getCommandLimit(), policy.getCommandWindowMillis(), nowMillis);
+    
+    commandTimes[commandCount & MASK] = nowMillis;
+    commandCount++;
+    
+    return overLimit ? Violation.COMMAND_RATE : Violation.NONE;
+  }
+  
+  /**
+   * Raises the violation level, after letting it fall back to zero if the last violation is
+   * older than the decay time.
+   *
+   * @param nowMillis The current time
+   * @param policy The decay time
+   *
+   * @return The new violation level
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public synchronized int recordViolation(long nowMillis, SpamPolicy policy) {
+    if(nowMillis - lastViolationMillis > policy.getViolationDecayMillis()) {
+      violationLevel = 0;
+    }
+    
+    lastViolationMillis = nowMillis;
+    
+    return ++violationLevel;
+  }
+  
+  /**
+   * Mutes the player.
+   *
+   * @param untilMillis The time the player may chat again
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public synchronized void mute(long untilMillis) {
+    mutedUntilMillis = Math.max(mutedUntilMillis, untilMillis);
+  }
+  
+  /**
+   * Gets the time the player may chat again.
+   *
+   * @return The end of the mute, in the past if the player is not muted
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public synchronized long getMutedUntilMillis() {
+    return mutedUntilMillis;
+  }
+  
+  /**
+   * Checks if the limit-th most recent entry of a ring is still within the window, meaning that
+   * one more entry makes more than limit entries within the window.
+   *
+   * @param times The ring of times
+   * @param count The number of entries ever added to the ring
+   * @param limit The number of entries allowed within the window
+   * @param windowMillis The window, in milliseconds
+   * @param nowMillis The current time
+   *
+   * @return Whether the limit is broken
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static boolean isOverLimit(long[] times, int count, int limit, long windowMillis, long nowMillis) {
+    return count >= limit && nowMillis - times[(count - limit) & MASK] < windowMillis;
+  }
+  
+  /**
+   * Hashes the letters and digits of a message, ignoring case, with a polynomial rolling hash.
+   *
+   * @param text The message
+   *
+   * @return The hash, or 0 if the message has no letters or digits
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static long hash(String text) {
+    long hash = 0L;
+    
+    for(int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      
+      if(Character.isLetterOrDigit(c)) {
+        hash = hash * 1_000_003L + Character.toLowerCase(c) + 1;
+      }
+    }
+    
+    return hash;
+  }
+  
+}
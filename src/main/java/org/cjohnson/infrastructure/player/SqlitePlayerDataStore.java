@@ -0,0 +1,302 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.player;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The SqlitePlayerDataStore Class stores the data of every player in a single
+ * embedded SQLite database file.
+ * <p>
+ * The database runs in write-ahead logging mode, so that loads on the loader threads do not
+ * wait for the writer thread. Connections are kept in a small pool, every query is a prepared
+ * statement, and a flush of many players is written as one batched upsert in one transaction.
+ * <p>
+ * Players without a row in the database are read from the fallback store, if there is one,
+ * so that switching to the database does not lose data that has not been migrated yet.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class SqlitePlayerDataStore implements PlayerDataStore {
+  
+  /**
+   * The JDBC driver of SQLite, which is bundled with the server.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final String DRIVER = "org.sqlite.JDBC";
+  
+  private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS player_data (uuid TEXT PRIMARY KEY NOT NULL, data TEXT NOT NULL, updated_at INTEGER NOT NULL)";
+  private static final String SELECT = "SELECT data FROM player_data WHERE uuid = ?";
+  private static final String UPSERT = "INSERT OR REPLACE INTO player_data (uuid, data, updated_at) VALUES (?, ?, ?)";
+  private static final String INSERT_IF_ABSENT = "INSERT OR IGNORE INTO player_data (uuid, data, updated_at) VALUES (?, ?, ?)";
+  
+  /**
+   * The time to wait for a pooled connection, in milliseconds.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final long BORROW_TIMEOUT_MILLIS = 10000L;
+  
+  /**
+   * The JDBC URL of the database.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final String url;
+  
+  /**
+   * The idle pooled connections.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final ArrayBlockingQueue<Connection> pool;
+  
+  /**
+   * The store read for players without a row, or null.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final PlayerDataStore fallback;
+  
+  /**
+   * Constructor for SqlitePlayerDataStore, which opens the database and creates its table.
+   *
+   * @param databaseFile The database file
+   * @param poolSize The number of pooled connections
+   * @param fallback The store read for players without a row, or null
+   *
+   * @throws IOException If the database can not be opened
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public SqlitePlayerDataStore(File databaseFile, int poolSize, PlayerDataStore fallback) throws IOException {
+    this.url = "jdbc:sqlite:" + databaseFile.getAbsolutePath();
+    this.pool = new ArrayBlockingQueue<Connection>(poolSize);
+    this.fallback = fallback;
+    
+    try {
+      Class.forName(DRIVER);
+    } catch (ClassNotFoundException e) {
+      throw new IOException("The SQLite JDBC driver is not available", e);
+    }
+    
+    databaseFile.getAbsoluteFile().getParentFile().mkdirs();
+    
+    // Open the whole pool up front, so that a broken
+    // database fails when the plugin is enabled.
+    try {
+      for(int i = 0; i < poolSize; i++) {
+        pool.add(openConnection());
+      }
+      
+      Connection connection = borrow();
+      
+      try(Statement statement = connection.createStatement()) {
+        statement.executeUpdate(CREATE_TABLE);
+      } finally {
+        release(connection);
+      }
+    } catch (SQLException e) {
+      close();
+      
+      throw new IOException("Could not open the SQLite database " + databaseFile, e);
+    }
+  }
+  
+  @Override
+  public String load(UUID uuid) throws IOException {
+    String document;
+    Connection connection = borrow();
+    
+    try(PreparedStatement statement = connection.prepareStatement(SELECT)) {
+      statement.setString(1, uuid.toString());
+      
+      try(ResultSet resultSet = statement.executeQuery()) {
+        document = resultSet.next() ? resultSet.getString(1) : null;
+      }
+    } catch (SQLException e) {
+      throw new IOException("Could not load the player data of " + uuid, e);
+    } finally {
+      release(connection);
+    }
+    
+    if(document == null && fallback != null) {
+      document = fallback.load(uuid);
+    }
+    
+    return document;
+  }
+  
+  @Override
+  public void saveAll(Map<UUID, String> documents) throws IOException {
+    executeBatch(UPSERT, documents);
+  }
+  
+  @Override
+  public void saveAllIfAbsent(Map<UUID, String> documents) throws IOException {
+    executeBatch(INSERT_IF_ABSENT, documents);
+  }
+  
+  @Override
+  public String getName() {
+    return "SQLite";
+  }
+  
+  @Override
+  public void close() {
+    Connection connection;
+    
+    while((connection = pool.poll()) != null) {
+      try {
+        connection.close();
+      } catch (SQLException ignored) {
+        // Nothing left to do with a connection that can not be closed.
+      }
+    }
+  }
+  
+  /**
+   * Writes a batch of players in one transaction.
+   *
+   * @param sql The insert statement
+   * @param documents The YAML documents, keyed by the unique IDs of the players
+   *
+   * @throws IOException If the batch can not be written, in which case none of it is written
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void executeBatch(String sql, Map<UUID, String> documents) throws IOException {
+    if(documents.isEmpty()) {
+      return;
+    }
+    
+    long updatedAt = System.currentTimeMillis();
+    Connection connection = borrow();
+    
+    try {
+      connection.setAutoCommit(false);
+      
+      try(PreparedStatement statement = connection.prepareStatement(sql)) {
+        for(Map.Entry<UUID, String> document : documents.entrySet()) {
+          statement.setString(1, document.getKey().toString());
+          statement.setString(2, document.getValue());
+          statement.setLong(3, updatedAt);
+          statement.addBatch();
+        }
+        
+        statement.executeBatch();
+        connection.commit();
+      } catch (SQLException e) {
+        connection.rollback();
+        
+        throw e;
+      } finally {
+        connection.setAutoCommit(true);
+      }
+    } catch (SQLException e) {
+      throw new IOException("Could not write the player data of " + documents.size() + " players", e);
+    } finally {
+      release(connection);
+    }
+  }
+  
+  /**
+   * Opens a new connection to the database.
+   *
+   * @return The new connection
+   *
+   * @throws SQLException If the database can not be opened
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private Connection openConnection() throws SQLException {
+    Connection connection = DriverManager.getConnection(url);
+    
+    try(Statement statement = connection.createStatement()) {
+      statement.execute("PRAGMA journal_mode=WAL");
+      statement.execute("PRAGMA synchronous=NORMAL");
+      statement.execute("PRAGMA busy_timeout=5000");
+    }
+    
+    return connection;
+  }
+  
+  /**
+   * Takes a connection out of the pool.
+   *
+   * @return The connection
+   *
+   * @throws IOException If no connection became available in time
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private Connection borrow() throws IOException {
+    try {
+      Connection connection = pool.poll(BORROW_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      
+      if(connection == null) {
+        throw new IOException("No SQLite connection became available within " + BORROW_TIMEOUT_MILLIS + "ms");
+      }
+      
+      return connection;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      
+      throw new IOException("Interrupted while waiting for a SQLite connection", e);
+    }
+  }
+  
+  /**
+   * Puts a connection back into the pool, replacing it if it has been closed.
+   *
+   * @param connection The connection
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private void release(Connection connection) {
+    try {
+      if(connection.isClosed()) {
+        connection = openConnection();
+      }
+    } catch (SQLException ignored) {
+      // Keep the old connection, it will fail its next statement.
+    }
+    
+    pool.offer(connection);
+  }
+  
+}
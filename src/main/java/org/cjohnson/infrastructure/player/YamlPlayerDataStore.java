@@ -0,0 +1,330 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.cjohnson.infrastructure.player;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The YamlPlayerDataStore Class stores the data of every player in its own &lt;uuid&gt;.yml file.
+ * <p>
+ * Files are sharded by the first four hex digits of the unique ID, as
+ * players/&lt;ab&gt;/&lt;cd&gt;/&lt;uuid&gt;.yml, so that no directory holds more than a small share of
+ * the players. Files in the flat layout of older versions, directly in the directory, are still
+ * found, and are moved into their shard when they are written or by the PlayerFileMigrator.
+ * <p>
+ * Files are written to a temporary file first and then moved over the old file, so that
+ * a crash during a write never leaves a broken file behind. The files of one player are only
+ * touched under a lock striped by unique ID, so that a migration never moves a flat file over
+ * data written meanwhile.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class YamlPlayerDataStore implements PlayerDataStore {
+  
+  /**
+   * The file extension of player data files.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final String EXTENSION = ".yml";
+  
+  /**
+   * The name of the directory of the shards.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final String SHARD_DIRECTORY = "players";
+  
+  /**
+   * The number of lock stripes, a power of two.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static final int LOCK_STRIPES = 64;
+  
+  /**
+   * The directory of the flat player data files, which holds the shards.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final File directory;
+  
+  /**
+   * The directory of the shards.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final File shardDirectory;
+  
+  /**
+   * The locks the files of a player are touched under, striped by unique ID.
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private final Object[] locks;
+  
+  /**
+   * Constructor for YamlPlayerDataStore
+   *
+   * @param directory The directory of the flat player data files, which holds the shards
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public YamlPlayerDataStore(File directory) {
+    this.directory = directory;
+    this.shardDirectory = new File(directory, SHARD_DIRECTORY);
+    this.locks = new Object[LOCK_STRIPES];
+    
+    for(int i = 0; i < LOCK_STRIPES; i++) {
+      locks[i] = new Object();
+    }
+  }
+  
+  @Override
+  public String load(UUID uuid) throws IOException {
+    synchronized(lockOf(uuid)) {
+      String document = read(getFile(uuid));
+      
+      // Not migrated yet.
+      return document != null ? document : read(getFlatFile(uuid));
+    }
+  }
+  
+  @Override
+  public void saveAll(Map<UUID, String> documents) throws IOException {
+    for(Map.Entry<UUID, String> document : documents.entrySet()) {
+      UUID uuid = document.getKey();
+      
+      synchronized(lockOf(uuid)) {
+        write(getFile(uuid), document.getValue());
+        
+        // The flat file is older than the data just written.
+        Files.deleteIfExists(getFlatFile(uuid).toPath());
+      }
+    }
+  }
+  
+  @Override
+  public void saveAllIfAbsent(Map<UUID, String> documents) throws IOException {
+    for(Map.Entry<UUID, String> document : documents.entrySet()) {
+      UUID uuid = document.getKey();
+      
+      synchronized(lockOf(uuid)) {
+        File file = getFile(uuid);
+        
+        if(!file.exists() && !getFlatFile(uuid).exists()) {
+          write(file, document.getValue());
+        }
+      }
+    }
+  }
+  
+  @Override
+  public String getName() {
+    return "YAML";
+  }
+  
+  @Override
+  public void close() { }
+  
+  /**
+   * Moves the flat player data file of a player into its shard.
+   *
+   * @param uuid The unique ID of the player
+   *
+   * @return Whether a flat file was found and migrated
+   *
+   * @throws IOException If the file can not be moved
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public boolean migrate(UUID uuid) throws IOException {
+    synchronized(lockOf(uuid)) {
+      Path flatFile = getFlatFile(uuid).toPath();
+      Path file = getFile(uuid).toPath();
+      
+      if(!Files.exists(flatFile)) {
+        return false;
+      }
+      
+      Files.createDirectories(file.getParent());
+      
+      try {
+        // Without REPLACE_EXISTING, so that a sharded
+        // file is never replaced by the older flat file.
+        Files.move(flatFile, file);
+      } catch (FileAlreadyExistsException e) {
+        Files.delete(flatFile);
+      }
+      
+      return true;
+    }
+  }
+  
+  /**
+   * Gets the player data file of a player, in its shard.
+   *
+   * @param uuid The unique ID of the player
+   *
+   * @return The player data file
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public File getFile(UUID uuid) {
+    String name = uuid.toString();
+    
+    return new File(new File(new File(shardDirectory, name.substring(0, 2)), name.substring(2, 4)), name + EXTENSION);
+  }
+  
+  /**
+   * Gets the player data file of a player in the flat layout of older versions.
+   *
+   * @param uuid The unique ID of the player
+   *
+   * @return The flat player data file
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public File getFlatFile(UUID uuid) {
+    return new File(directory, uuid + EXTENSION);
+  }
+  
+  /**
+   * Gets the directory of the shards.
+   *
+   * @return The directory of the shards
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public File getShardDirectory() {
+    return shardDirectory;
+  }
+  
+  /**
+   * Opens a stream over the flat player data files that have not been migrated yet, which
+   * lists the directory lazily instead of loading every file name at once.
+   *
+   * @return The stream over the flat player data files, which must be closed
+   *
+   * @throws IOException If the directory can not be listed
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public DirectoryStream<Path> newFlatFileStream() throws IOException {
+    return Files.newDirectoryStream(directory.toPath(), path -> parseUniqueId(path) != null);
+  }
+  
+  /**
+   * Gets the unique ID of a player from the path of its player data file.
+   *
+   * @param path The path of a file
+   *
+   * @return The unique ID, or null if the file is not a player data file
+   *
+   * @since 0.1.0-ALPHA
+   */
+  public static UUID parseUniqueId(Path path) {
+    String fileName = path.getFileName().toString();
+    
+    // A UUID is always 36 characters long.
+    if(fileName.length() != 36 + EXTENSION.length() || !fileName.endsWith(EXTENSION)) {
+      return null;
+    }
+    
+    try {
+      return UUID.fromString(fileName.substring(0, 36));
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+  
+  /**
+   * Gets the lock the files of a player are touched under.
+   *
+   * @param uuid The unique ID of the player
+   *
+   * @return The lock of the player
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private Object lockOf(UUID uuid) {
+    return locks[uuid.hashCode() & (LOCK_STRIPES - 1)];
+  }
+  
+  /**
+   * Reads a file.
+   *
+   * @param file The file
+   *
+   * @return The contents of the file, or null if it does not exist
+   *
+   * @throws IOException If the file can not be read
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static String read(File file) throws IOException {
+    try {
+      return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+  
+  /**
+   * Replaces a file with new contents, through a temporary file.
+   *
+   * @param file The file to replace
+   * @param contents The new contents
+   *
+   * @throws IOException If the file can not be written
+   *
+   * @since 0.1.0-ALPHA
+   */
+  private static void write(File file, String contents) throws IOException {
+    Path target = file.toPath();
+    Path temporary = target.resolveSibling(file.getName() + ".tmp");
+    
+    Files.createDirectories(target.getParent());
+    Files.write(temporary, contents.getBytes(StandardCharsets.UTF_8));
+    
+    try {
+      Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+  
+}
@@ -0,0 +1,191 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+
+package org.cjohnson.infrastructure.command;
+
+import org.bukkit.command.CommandSender;
+import org.cjohnson.infrastructure.command.annotation.SubCommand;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the CommandMethodInvokers bound by the CommandInvokerFactory, for command classes the
+ * LambdaMetafactory can link against, for command classes that fall back to a bound
+ * MethodHandle, and for command case methods taking a String[].
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class CommandInvokerFactoryTest {
+  
+  private static final String[] ARGUMENTS = { "sub", "first", "second" };
+  
+  @Test
+  public void bindsPublicClassThroughLambdaMetafactory() throws NoSuchMethodException {
+    PublicCommand command = new PublicCommand();
+    CommandMethodInvoker invoker = CommandInvokerFactory.bind(command, method(PublicCommand.class, CommandArgs.class));
+    
+    // The generated invoker calls the command object it captured,
+    // without a MethodHandle in between.
+    assertTrue(captures(invoker, PublicCommand.class));
+    
+    CommandArgs args = args();
+    invoker.invoke(null, null, args);
+    
+    assertSame(args, command.args);
+  }
+  
+  @Test
+  public void bindsHiddenClassThroughMethodHandle() throws NoSuchMethodException {
+    HiddenCommand command = new HiddenCommand();
+    CommandMethodInvoker invoker = CommandInvokerFactory.bind(command, method(HiddenCommand.class, CommandArgs.class));
+    
+    assertFalse(captures(invoker, HiddenCommand.class));
+    
+    CommandArgs args = args();
+    invoker.invoke(null, null, args);
+    
+    assertSame(args, command.args);
+  }
+  
+  @Test
+  public void adaptsArrayArgumentsOfPublicClass() throws NoSuchMethodException {
+    PublicArrayCommand command = new PublicArrayCommand();
+    CommandInvokerFactory.bind(command, method(PublicArrayCommand.class, String[].class)).invoke(null, null, args());
+    
+    assertArguments(command.args);
+  }
+  
+  @Test
+  public void adaptsArrayArgumentsOfHiddenClass() throws NoSuchMethodException {
+    HiddenArrayCommand command = new HiddenArrayCommand();
+    CommandInvokerFactory.bind(command, method(HiddenArrayCommand.class, String[].class)).invoke(null, null, args());
+    
+    assertArguments(command.args);
+  }
+  
+  @Test
+  public void rejectsOtherSignatures() throws NoSuchMethodException {
+    Method method = HiddenCommand.class.getMethod("other", String.class);
+    
+    try {
+      CommandInvokerFactory.bind(new HiddenCommand(), method);
+    } catch (IllegalArgumentException e) {
+      return;
+    }
+    
+    throw new AssertionError("Binding a method with another signature did not fail");
+  }
+  
+  private static Method method(Class<?> commandClass, Class<?> argumentsType) throws NoSuchMethodException {
+    return commandClass.getMethod("execute", SubCommand.class, CommandSender.class, argumentsType);
+  }
+  
+  private static CommandArgs args() {
+    return new CommandArgs(ARGUMENTS, 1);
+  }
+  
+  private static void assertArguments(String[] args) {
+    assertEquals(2, args.length);
+    assertEquals("first", args[0]);
+    assertEquals("second", args[1]);
+  }
+  
+  /**
+   * Checks if an invoker holds a command object of a class directly.
+   */
+  private static boolean captures(Object invoker, Class<?> commandClass) {
+    for(Field field : invoker.getClass().getDeclaredFields()) {
+      if(field.getType() == commandClass) {
+        return true;
+      }
+    }
+    
+    return false;
+  }
+  
+  /**
+   * A command class that the LambdaMetafactory can link against.
+   */
+  public static class PublicCommand {
+    
+    private CommandArgs args;
+    
+    public void execute(SubCommand subCommand, CommandSender sender, CommandArgs args) {
+      this.args = args;
+    }
+    
+  }
+  
+  /**
+   * A command class that is not public, which is bound to a MethodHandle instead.
+   */
+  static class HiddenCommand {
+    
+    private CommandArgs args;
+    
+    public void execute(SubCommand subCommand, CommandSender sender, CommandArgs args) {
+      this.args = args;
+    }
+    
+    public void other(String argument) {
+    }
+    
+  }
+  
+  /**
+   * A command class taking a String[], bound through the LambdaMetafactory.
+   */
+  public static class PublicArrayCommand {
+    
+    private String[] args;
+    
+    public void execute(SubCommand subCommand, CommandSender sender, String[] args) {
+      this.args = args;
+    }
+    
+  }
+  
+  /**
+   * A command class taking a String[], bound to a MethodHandle.
+   */
+  static class HiddenArrayCommand {
+    
+    private String[] args;
+    
+    public void execute(SubCommand subCommand, CommandSender sender, String[] args) {
+      this.args = args;
+    }
+    
+  }
+  
+}
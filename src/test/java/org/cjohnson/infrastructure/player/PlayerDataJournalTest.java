@@ -0,0 +1,231 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+
+package org.cjohnson.infrastructure.player;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests the replay of PlayerDataJournal segments against an in-memory PlayerDataStore.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class PlayerDataJournalTest {
+  
+  private static final UUID FIRST = UUID.fromString("00000000-0000-0000-0000-000000000001");
+  private static final UUID SECOND = UUID.fromString("00000000-0000-0000-0000-000000000002");
+  
+  private static final Logger LOGGER = Logger.getLogger(PlayerDataJournalTest.class.getName());
+  
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  
+  private MemoryDataStore dataStore;
+  
+  @Before
+  public void setUp() {
+    dataStore = new MemoryDataStore();
+  }
+  
+  @Test
+  public void replaysRecordsInOrder() throws IOException, InvalidConfigurationException {
+    Path segment = writeSegment("0000000000000000.journal",
+      record(FIRST, "balance", 10),
+      record(SECOND, "nickname", "Second"),
+      record(FIRST, "balance", 20),
+      record(FIRST, "muted", true));
+    
+    assertEquals(4, PlayerDataJournal.replay(Collections.singletonList(segment), dataStore, LOGGER));
+    
+    YamlConfiguration first = dataStore.get(FIRST);
+    assertEquals(20, first.get("balance"));
+    assertEquals(true, first.get("muted"));
+    assertEquals("Second", dataStore.get(SECOND).get("nickname"));
+  }
+  
+  @Test
+  public void replaysSegmentsInOrder() throws IOException, InvalidConfigurationException {
+    Path older = writeSegment("0000000000000000.journal", record(FIRST, "balance", 10));
+    Path newer = writeSegment("0000000000000001.journal", record(FIRST, "balance", 30));
+    
+    assertEquals(2, PlayerDataJournal.replay(Arrays.asList(older, newer), dataStore, LOGGER));
+    assertEquals(30, dataStore.get(FIRST).get("balance"));
+  }
+  
+  @Test
+  public void replaysOntoStoredData() throws IOException, InvalidConfigurationException {
+    YamlConfiguration stored = new YamlConfiguration();
+    stored.set("nickname", "First");
+    stored.set("balance", 5);
+    dataStore.documents.put(FIRST, stored.saveToString());
+    
+    Path segment = writeSegment("0000000000000000.journal", record(FIRST, "balance", 15));
+    
+    assertEquals(1, PlayerDataJournal.replay(Collections.singletonList(segment), dataStore, LOGGER));
+    
+    YamlConfiguration first = dataStore.get(FIRST);
+    assertEquals("First", first.get("nickname"));
+    assertEquals(15, first.get("balance"));
+  }
+  
+  @Test
+  public void skipsTruncatedTail() throws IOException, InvalidConfigurationException {
+    byte[] last = record(SECOND, "nickname", "Second");
+    
+    Path segment = writeSegment("0000000000000000.journal",
+      record(FIRST, "balance", 10),
+      record(FIRST, "balance", 20),
+      Arrays.copyOf(last, last.length - 3));
+    
+    assertEquals(2, PlayerDataJournal.replay(Collections.singletonList(segment), dataStore, LOGGER));
+    assertEquals(20, dataStore.get(FIRST).get("balance"));
+    assertFalse(dataStore.documents.containsKey(SECOND));
+  }
+  
+  @Test
+  public void skipsTruncatedHeader() throws IOException, InvalidConfigurationException {
+    Path segment = writeSegment("0000000000000000.journal",
+      record(FIRST, "balance", 10),
+      new byte[] { 0, 0, 0 });
+    
+    assertEquals(1, PlayerDataJournal.replay(Collections.singletonList(segment), dataStore, LOGGER));
+    assertEquals(10, dataStore.get(FIRST).get("balance"));
+  }
+  
+  @Test
+  public void skipsCorruptedLastRecord() throws IOException, InvalidConfigurationException {
+    byte[] last = record(FIRST, "balance", 99);
+    last[last.length - 1] ^= 0x55;
+    
+    Path segment = writeSegment("0000000000000000.journal",
+      record(FIRST, "balance", 10),
+      record(FIRST, "nickname", "First"),
+      last);
+    
+    assertEquals(2, PlayerDataJournal.replay(Collections.singletonList(segment), dataStore, LOGGER));
+    
+    YamlConfiguration first = dataStore.get(FIRST);
+    assertEquals(10, first.get("balance"));
+    assertEquals("First", first.get("nickname"));
+  }
+  
+  @Test
+  public void savesNothingForEmptySegments() throws IOException {
+    Path segment = writeSegment("0000000000000000.journal");
+    
+    assertEquals(0, PlayerDataJournal.replay(Collections.singletonList(segment), dataStore, LOGGER));
+    assertEquals(0, dataStore.saveCount);
+  }
+  
+  private static byte[] record(UUID uuid, String path, Object value) throws IOException {
+    ByteBuffer record = PlayerDataJournal.encode(uuid, path, value);
+    byte[] bytes = new byte[record.remaining()];
+    record.get(bytes);
+    
+    return bytes;
+  }
+  
+  private Path writeSegment(String name, byte[]... records) throws IOException {
+    ByteArrayOutputStream contents = new ByteArrayOutputStream();
+    
+    for(byte[] record : records) {
+      contents.write(record);
+    }
+    
+    Path segment = folder.getRoot().toPath().resolve(name);
+    Files.write(segment, contents.toByteArray());
+    
+    return segment;
+  }
+  
+  /**
+   * A PlayerDataStore that keeps the documents in memory.
+   */
+  private static class MemoryDataStore implements PlayerDataStore {
+    
+    private final Map<UUID, String> documents = new HashMap<UUID, String>();
+    private int saveCount;
+    
+    YamlConfiguration get(UUID uuid) throws InvalidConfigurationException {
+      String document = documents.get(uuid);
+      assertFalse("No data was saved for " + uuid, document == null);
+      
+      YamlConfiguration configuration = new YamlConfiguration();
+      configuration.loadFromString(document);
+      
+      return configuration;
+    }
+    
+    @Override
+    public String load(UUID uuid) {
+      return documents.get(uuid);
+    }
+    
+    @Override
+    public void saveAll(Map<UUID, String> saved) {
+      documents.putAll(saved);
+      saveCount++;
+    }
+    
+    @Override
+    public void saveAllIfAbsent(Map<UUID, String> saved) {
+      for(Map.Entry<UUID, String> document : saved.entrySet()) {
+        documents.putIfAbsent(document.getKey(), document.getValue());
+      }
+    }
+    
+    @Override
+    public String getName() {
+      return "memory";
+    }
+    
+    @Override
+    public void close() {
+    }
+    
+  }
+  
+}
@@ -0,0 +1,279 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Collin Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.cjohnson.infrastructure.player;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the PlayerDataJournal and the PlayerDataWriter together never lose a change: the
+ * store a crash leaves behind, with the journal replayed into it, holds the last value set for
+ * every path, also when the store fails partway through a batch.
+ *
+ * @since 0.1.0-ALPHA
+ */
+public class PlayerDataRecoveryTest {
+  
+  private static final UUID[] PLAYERS = {
+    UUID.fromString("00000000-0000-0000-0000-000000000001"),
+    UUID.fromString("00000000-0000-0000-0000-000000000002"),
+    UUID.fromString("00000000-0000-0000-0000-000000000003")
+  };
+  
+  private static final String[] PATHS = { "balance", "nickname", "kills" };
+  
+  private static final long COMMIT_INTERVAL_MILLIS = 5L;
+  private static final long TIMEOUT_MILLIS = 10000L;
+  
+  private static final Logger LOGGER = Logger.getLogger(PlayerDataRecoveryTest.class.getName());
+  
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  
+  private File journalDirectory;
+  private FailingDataStore dataStore;
+  private PlayerDataWriter dataWriter;
+  private PlayerDataJournal journal;
+  private InfraPlayerDataHandler[] dataHandlers;
+  
+  /**
+   * The last value set for every path, keyed by unique ID and path.
+   */
+  private final Map<String, Object> expected = new HashMap<String, Object>();
+  
+  @Before
+  public void setUp() throws IOException {
+    journalDirectory = folder.newFolder();
+    dataStore = new FailingDataStore();
+    
+    // Only compactions flush the writer, and every
+    // commit of a change starts a compaction.
+    dataWriter = new PlayerDataWriter(dataStore, TimeUnit.HOURS.toMillis(1), LOGGER);
+    journal = new PlayerDataJournal(journalDirectory, dataStore, dataWriter, COMMIT_INTERVAL_MILLIS, 1L, LOGGER);
+    dataHandlers = new InfraPlayerDataHandler[PLAYERS.length];
+    
+    for(int i = 0; i < PLAYERS.length; i++) {
+      dataHandlers[i] = new InfraPlayerDataHandler(PLAYERS[i], dataStore);
+      dataHandlers[i].load("Player" + i, "127.0.0.1");
+    }
+  }
+  
+  @Test
+  public void keepsSegmentsWhileBatchFails() throws IOException, InvalidConfigurationException {
+    try {
+      dataStore.failAfter(1);
+      
+      // Every round is flushed by a compaction of its own.
+      for(int round = 1; round <= 3; round++) {
+        int failed = dataStore.failedCount;
+        
+        setValues(round);
+        await(() -> dataStore.failedCount > failed);
+      }
+    } finally {
+      crash();
+    }
+    
+    assertTrue("No batch was written partway", dataStore.partialCount > 0);
+    assertEquals(0L, journal.getCompactionCount());
+    assertRecovered();
+  }
+  
+  @Test
+  public void compactsOnceBatchIsWritten() throws IOException, InvalidConfigurationException {
+    try {
+      dataStore.failAfter(1);
+      
+      setValues(1);
+      await(() -> dataStore.failedCount > 0);
+      
+      dataStore.failAfter(Integer.MAX_VALUE);
+      
+      setValues(2);
+      await(() -> journal.getCompactionCount() > 0);
+      setValues(3);
+    } finally {
+      crash();
+    }
+    
+    assertRecovered();
+  }
+  
+  /**
+   * Sets a new value for every path of every player.
+   */
+  private void setValues(int round) {
+    for(int i = 0; i < PLAYERS.length; i++) {
+      for(int p = 0; p < PATHS.length; p++) {
+        Object value = p == 1 ? "Name" + round + "-" + i : round * 100 + i * 10 + p;
+        
+        dataHandlers[i].set(PATHS[p], value, dataWriter, journal);
+        expected.put(PLAYERS[i] + "/" + PATHS[p], value);
+      }
+    }
+  }
+  
+  /**
+   * Stops the journal and the writer the way a crash leaves them: the journal is synced, but
+   * nothing is flushed or deleted.
+   */
+  private void crash() {
+    journal.close(false);
+    dataStore.failAfter(0);
+    dataWriter.shutdown(0L, TimeUnit.MILLISECONDS);
+  }
+  
+  /**
+   * Replays the journal segments into a copy of the store, and checks that every path has the
+   * last value that was set.
+   */
+  private void assertRecovered() throws IOException, InvalidConfigurationException {
+    FailingDataStore recovered = dataStore.copy();
+    
+    PlayerDataJournal.replay(segments(), recovered, LOGGER);
+    
+    for(UUID uuid : PLAYERS) {
+      YamlConfiguration configuration = new YamlConfiguration();
+      configuration.loadFromString(recovered.load(uuid));
+      
+      for(String path : PATHS) {
+        assertEquals(uuid + " " + path, expected.get(uuid + "/" + path), configuration.get(path));
+      }
+    }
+  }
+  
+  private List<Path> segments() throws IOException {
+    try(Stream<Path> files = Files.list(journalDirectory.toPath())) {
+      return files.filter(path -> path.getFileName().toString().endsWith(".journal")).sorted().collect(Collectors.toList());
+    }
+  }
+  
+  private static void await(BooleanSupplier condition) {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    
+    while(!condition.getAsBoolean()) {
+      if(System.currentTimeMillis() > deadline) {
+        throw new AssertionError("Timed out waiting for the journal");
+      }
+      
+      try {
+        Thread.sleep(COMMIT_INTERVAL_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        
+        throw new AssertionError("Interrupted while waiting for the journal", e);
+      }
+    }
+  }
+  
+  /**
+   * A PlayerDataStore that keeps the documents in memory, and that can stop partway through a
+   * batch, having written only some of its documents.
+   */
+  private static class FailingDataStore implements PlayerDataStore {
+    
+    private final Map<UUID, String> documents = new ConcurrentHashMap<UUID, String>();
+    private volatile int writesPerBatch = Integer.MAX_VALUE;
+    private volatile int failedCount;
+    private volatile int partialCount;
+    
+    void failAfter(int writesPerBatch) {
+      this.writesPerBatch = writesPerBatch;
+    }
+    
+    FailingDataStore copy() {
+      FailingDataStore copy = new FailingDataStore();
+      copy.documents.putAll(documents);
+      
+      return copy;
+    }
+    
+    @Override
+    public String load(UUID uuid) {
+      return documents.get(uuid);
+    }
+    
+    @Override
+    public void saveAll(Map<UUID, String> saved) throws IOException {
+      int written = 0;
+      
+      for(Map.Entry<UUID, String> document : saved.entrySet()) {
+        if(written == writesPerBatch) {
+          if(written > 0) {
+            partialCount++;
+          }
+          
+          failedCount++;
+          
+          throw new IOException("Stopped after " + written + " of " + saved.size() + " documents");
+        }
+        
+        documents.put(document.getKey(), document.getValue());
+        written++;
+      }
+    }
+    
+    @Override
+    public void saveAllIfAbsent(Map<UUID, String> saved) {
+      for(Map.Entry<UUID, String> document : saved.entrySet()) {
+        documents.putIfAbsent(document.getKey(), document.getValue());
+      }
+    }
+    
+    @Override
+    public String getName() {
+      return "failing";
+    }
+    
+    @Override
+    public void close() {
+    }
+    
+  }
+  
+}